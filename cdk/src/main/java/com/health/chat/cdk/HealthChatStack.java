@@ -4,6 +4,10 @@ import software.amazon.awscdk.Duration;
 import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.StackProps;
 import software.amazon.awscdk.services.apigateway.*;
+import software.amazon.awscdk.services.events.CronOptions;
+import software.amazon.awscdk.services.events.Rule;
+import software.amazon.awscdk.services.events.Schedule;
+import software.amazon.awscdk.services.events.targets.LambdaFunction;
 import software.amazon.awscdk.services.iam.*;
 import software.amazon.awscdk.services.lambda.Code;
 import software.amazon.awscdk.services.lambda.Function;
@@ -24,6 +28,9 @@ import java.util.Map;
  * This stack defines:
  * - S3 bucket for data storage with lifecycle policies
  * - Lambda functions for authentication, chat, and analysis
+ * - Monthly compaction of per-message health objects
+ * - Nightly backfill of missing tanka
+ * - Nightly precomputation of per-user daily summaries
  * - API Gateway for REST API endpoints
  * - IAM roles and permissions
  */
@@ -39,6 +46,9 @@ public class HealthChatStack extends Stack {
         Function authLambda = createAuthLambda(dataBucket);
         Function chatLambda = createChatLambda(dataBucket);
         Function analysisLambda = createAnalysisLambda(dataBucket);
+        createCompactionLambda(dataBucket);
+        createTankaBackfillLambda(dataBucket);
+        createDailySummaryLambda(dataBucket);
 
         // API Gateway
         createApiGateway(authLambda, chatLambda, analysisLambda);
@@ -144,6 +154,117 @@ public class HealthChatStack extends Stack {
         return analysisLambda;
     }
 
+    /**
+     * Create the compaction Lambda function and its monthly schedule
+     */
+    private Function createCompactionLambda(Bucket dataBucket) {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        Function compactionLambda = Function.Builder.create(this, "CompactionLambda")
+                .functionName("health-chat-compaction-" + timestamp)
+                .runtime(Runtime.JAVA_17)
+                .handler("com.health.chat.lambda.CompactionHandler::handleRequest")
+                .code(Code.fromAsset("../target/health-chat-advisor-1.0.0-SNAPSHOT.jar"))
+                .timeout(Duration.minutes(15))
+                .memorySize(1024)
+                .logRetention(RetentionDays.ONE_MONTH)
+                .environment(Map.of(
+                        "S3_BUCKET_NAME", dataBucket.getBucketName()
+                ))
+                .build();
+
+        // Grant S3 permissions (write includes deleting the compacted objects)
+        dataBucket.grantReadWrite(compactionLambda);
+
+        // 03:00 JST on the 2nd of every month (18:00 UTC on the 1st), after the previous month has closed
+        Rule compactionRule = Rule.Builder.create(this, "HealthCompactionRule")
+                .ruleName("health-chat-monthly-compaction")
+                .description("Compact the previous month's health objects into one object per user")
+                .schedule(Schedule.cron(CronOptions.builder()
+                        .minute("0")
+                        .hour("18")
+                        .day("1")
+                        .build()))
+                .build();
+        compactionRule.addTarget(LambdaFunction.Builder.create(compactionLambda).build());
+
+        return compactionLambda;
+    }
+
+    /**
+     * Create the tanka backfill Lambda function and its nightly schedule
+     */
+    private Function createTankaBackfillLambda(Bucket dataBucket) {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        Function backfillLambda = Function.Builder.create(this, "TankaBackfillLambda")
+                .functionName("health-chat-tanka-backfill-" + timestamp)
+                .runtime(Runtime.JAVA_17)
+                .handler("com.health.chat.lambda.TankaBackfillHandler::handleRequest")
+                .code(Code.fromAsset("../target/health-chat-advisor-1.0.0-SNAPSHOT.jar"))
+                .timeout(Duration.minutes(15))
+                .memorySize(1024)
+                .logRetention(RetentionDays.ONE_MONTH)
+                .environment(Map.of(
+                        "S3_BUCKET_NAME", dataBucket.getBucketName(),
+                        "BACKFILL_PARALLELISM", "4",
+                        "BACKFILL_TANKAS_PER_SECOND", "10"
+                ))
+                .build();
+
+        // Grant S3 permissions (write covers the tanka and the checkpoint under jobs/)
+        dataBucket.grantReadWrite(backfillLambda);
+
+        // 04:00 JST every day (19:00 UTC), outside chat traffic; an unfinished run resumes the next night
+        Rule backfillRule = Rule.Builder.create(this, "TankaBackfillRule")
+                .ruleName("health-chat-nightly-tanka-backfill")
+                .description("Generate tanka for past days that have health data but no tanka")
+                .schedule(Schedule.cron(CronOptions.builder()
+                        .minute("0")
+                        .hour("19")
+                        .build()))
+                .build();
+        backfillRule.addTarget(LambdaFunction.Builder.create(backfillLambda).build());
+
+        return backfillLambda;
+    }
+
+    /**
+     * Create the daily summary Lambda function and its nightly schedule
+     */
+    private Function createDailySummaryLambda(Bucket dataBucket) {
+        String timestamp = String.valueOf(System.currentTimeMillis());
+        Function summaryLambda = Function.Builder.create(this, "DailySummaryLambda")
+                .functionName("health-chat-daily-summary-" + timestamp)
+                .runtime(Runtime.JAVA_17)
+                .handler("com.health.chat.lambda.DailySummaryHandler::handleRequest")
+                .code(Code.fromAsset("../target/health-chat-advisor-1.0.0-SNAPSHOT.jar"))
+                .timeout(Duration.minutes(15))
+                .memorySize(1024)
+                .logRetention(RetentionDays.ONE_MONTH)
+                .environment(Map.of(
+                        "S3_BUCKET_NAME", dataBucket.getBucketName(),
+                        "SUMMARY_PARALLELISM", "8",
+                        "SUMMARY_MAX_STORAGE_CALLS", "16"
+                ))
+                .build();
+
+        // Grant S3 permissions (write covers the summaries and any missing tanka)
+        dataBucket.grantReadWrite(summaryLambda);
+
+        // EventBridge cron is in UTC: 15:30 UTC is 00:30 JST, just after the Japanese day has closed.
+        // The handler takes "yesterday" in Asia/Tokyo (DailySummary.ZONE), not in the Lambda's UTC clock
+        Rule summaryRule = Rule.Builder.create(this, "DailySummaryRule")
+                .ruleName("health-chat-nightly-daily-summary")
+                .description("Precompute yesterday's daily summary for every active user")
+                .schedule(Schedule.cron(CronOptions.builder()
+                        .minute("30")
+                        .hour("15")
+                        .build()))
+                .build();
+        summaryRule.addTarget(LambdaFunction.Builder.create(summaryLambda).build());
+
+        return summaryLambda;
+    }
+
     /**
      * Create API Gateway with routing to Lambda functions
      */
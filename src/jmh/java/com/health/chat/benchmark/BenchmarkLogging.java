@@ -0,0 +1,20 @@
+package com.health.chat.benchmark;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Silences application logging so benchmarks measure service work rather than console output.
+ */
+final class BenchmarkLogging {
+
+    // Held strongly, otherwise the configured level is lost when the logger is collected
+    private static final Logger APP_LOGGER = Logger.getLogger("com.health.chat");
+
+    private BenchmarkLogging() {
+    }
+
+    static void quiet() {
+        APP_LOGGER.setLevel(Level.OFF);
+    }
+}
@@ -0,0 +1,64 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.service.JwtAuthenticationService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures token validation and user ID extraction, which run on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    // 32 bytes, so the service uses it as the HS256 key without padding
+    private static final String SECRET = "benchmark-secret-0123456789abcdef";
+
+    private JwtAuthenticationService authService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        // Token checks never touch the repository
+        authService = new JwtAuthenticationService(null, SECRET);
+        Instant now = Instant.now();
+        token = Jwts.builder()
+                .subject("bench-user")
+                .claim("username", "bench")
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(1, ChronoUnit.DAYS)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return authService.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUserIdFromToken() {
+        return authService.getUserIdFromToken(token);
+    }
+}
@@ -0,0 +1,65 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.service.KeywordBasedMentalStateAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures KeywordBasedMentalStateAnalyzer.analyze as the conversation history grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MentalStateAnalyzerBenchmark {
+
+    private static final String[] HISTORY_MESSAGES = {
+        "体重65kg 朝食にパンを食べた",
+        "今日は疲れた。運動する気が出ない",
+        "ジムで運動した！頑張った",
+        "夕食はサラダと魚",
+        "なんだか落ち込んでいる"
+    };
+
+    @Param({"0", "10", "100", "1000"})
+    public int historySize;
+
+    @Param({
+        "今日はとても嬉しい！ジムで頑張った",
+        "体重65kg 朝食にパンを食べた"
+    })
+    public String message;
+
+    private KeywordBasedMentalStateAnalyzer analyzer;
+    private List<String> history;
+
+    @Setup
+    public void setUp() {
+        analyzer = new KeywordBasedMentalStateAnalyzer();
+        history = new ArrayList<>(historySize);
+        for (int i = 0; i < historySize; i++) {
+            history.add(HISTORY_MESSAGES[i % HISTORY_MESSAGES.length]);
+        }
+    }
+
+    @Benchmark
+    public void analyze(Blackhole blackhole) {
+        blackhole.consume(analyzer.analyze(message, history));
+    }
+}
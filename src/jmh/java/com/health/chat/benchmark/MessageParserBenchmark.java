@@ -0,0 +1,147 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.service.MessageParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass MessageParser scanner with the previous
+ * regex/indexOf based extraction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageParserBenchmark {
+
+    @Param({
+        "体重65kg 体脂肪率15% 朝食にパンを食べた ジムで運動した",
+        "weight: 70.5kg body fat 18.2% ate salad for lunch, then a 5km run",
+        "今日は元気です。特に記録することはありません。"
+    })
+    public String message;
+
+    private MessageParser scanner;
+    private RegexMessageParser regex;
+
+    @Setup
+    public void setUp() {
+        scanner = new MessageParser();
+        regex = new RegexMessageParser();
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        blackhole.consume(scanner.extractWeight(message));
+        blackhole.consume(scanner.extractBodyFat(message));
+        blackhole.consume(scanner.extractFoodItems(message));
+        blackhole.consume(scanner.extractExercises(message));
+    }
+
+    @Benchmark
+    public void scannerParseMessage(Blackhole blackhole) {
+        blackhole.consume(scanner.parseMessage("bench-user", message));
+    }
+
+    @Benchmark
+    public void regex(Blackhole blackhole) {
+        blackhole.consume(regex.extractWeight(message));
+        blackhole.consume(regex.extractBodyFat(message));
+        blackhole.consume(regex.extractFoodItems(message));
+        blackhole.consume(regex.extractExercises(message));
+    }
+
+    /**
+     * The regex based extraction MessageParser used before the scanner, kept as a baseline.
+     */
+    static final class RegexMessageParser {
+
+        private static final Pattern WEIGHT_PATTERN = Pattern.compile(
+            "(?:体重|weight)\\s*:?\\s*(\\d+(?:\\.\\d+)?)\\s*(?:kg|キロ|ｋｇ|キログラム)?|" +
+            "(\\d+(?:\\.\\d+)?)\\s*(?:kg|キロ|ｋｇ|キログラム)",
+            Pattern.CASE_INSENSITIVE
+        );
+
+        private static final Pattern BODY_FAT_PATTERN = Pattern.compile(
+            "(?:体脂肪率|体脂肪|body\\s*fat)\\s*:?\\s*(\\d+(?:\\.\\d+)?)\\s*(?:%|パーセント|％|percent)?|" +
+            "(\\d+(?:\\.\\d+)?)\\s*(?:%|パーセント|％)",
+            Pattern.CASE_INSENSITIVE
+        );
+
+        private static final String[] FOOD_KEYWORDS = {
+            "食べた", "食事", "朝食", "昼食", "夕食", "breakfast", "lunch", "dinner",
+            "ate", "eat", "食", "ご飯", "パン", "肉", "魚", "野菜", "果物"
+        };
+
+        private static final String[] EXERCISE_KEYWORDS = {
+            "運動", "走った", "歩いた", "ジム", "exercise", "run", "walk", "gym",
+            "トレーニング", "training", "ランニング", "ウォーキング", "筋トレ"
+        };
+
+        Double extractWeight(String message) {
+            return extractNumber(WEIGHT_PATTERN, message);
+        }
+
+        Double extractBodyFat(String message) {
+            return extractNumber(BODY_FAT_PATTERN, message);
+        }
+
+        List<String> extractFoodItems(String message) {
+            return extractContext(FOOD_KEYWORDS, message);
+        }
+
+        List<String> extractExercises(String message) {
+            return extractContext(EXERCISE_KEYWORDS, message);
+        }
+
+        private static Double extractNumber(Pattern pattern, String message) {
+            Matcher matcher = pattern.matcher(message);
+            if (matcher.find()) {
+                String value = matcher.group(1);
+                if (value == null) {
+                    value = matcher.group(2);
+                }
+                if (value != null) {
+                    return Double.parseDouble(value);
+                }
+            }
+            return null;
+        }
+
+        private static List<String> extractContext(String[] keywords, String message) {
+            List<String> items = new ArrayList<>();
+            String lowerMessage = message.toLowerCase();
+            for (String keyword : keywords) {
+                if (lowerMessage.contains(keyword.toLowerCase())) {
+                    int index = lowerMessage.indexOf(keyword.toLowerCase());
+                    int start = Math.max(0, index - 10);
+                    int end = Math.min(message.length(), index + keyword.length() + 20);
+                    String context = message.substring(start, end).trim();
+                    if (!items.contains(context)) {
+                        items.add(context);
+                    }
+                    break;
+                }
+            }
+            return items;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.model.HealthData;
+import com.health.chat.service.BasicNutritionEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures BasicNutritionEstimator.estimateNutrition for known, aliased and unknown foods,
+ * and calculateDailyTotal over a month of three meals a day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NutritionEstimatorBenchmark {
+
+    @Param({
+        "ご飯,味噌汁,魚",
+        "朝食にパンを食べた,昼食にカレーを食べた,夕食にサラダを食べた",
+        "アボカドトースト"
+    })
+    public String foods;
+
+    private BasicNutritionEstimator estimator;
+    private List<String> foodItems;
+    private List<HealthData> month;
+
+    @Setup
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        // estimateNutrition never touches the repository
+        estimator = new BasicNutritionEstimator(null);
+        foodItems = Arrays.asList(foods.split(","));
+        month = new ArrayList<>();
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int day = 0; day < 30; day++) {
+            LocalDate date = start.plusDays(day);
+            for (int meal = 0; meal < 3; meal++) {
+                month.add(new HealthData("bench", date, date.atTime(7 + meal * 6, 0), 65.0, null,
+                        foodItems, List.of(), null));
+            }
+        }
+    }
+
+    @Benchmark
+    public void estimateNutrition(Blackhole blackhole) {
+        blackhole.consume(estimator.estimateNutrition(foodItems));
+    }
+
+    @Benchmark
+    public void calculateMonthlyTotal(Blackhole blackhole) {
+        blackhole.consume(estimator.calculateDailyTotal(month));
+    }
+}
@@ -0,0 +1,66 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.model.HealthData;
+import com.health.chat.repository.RecordCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures RecordCodec encode and decode for one day's health entries; the encoded
+ * size per codec is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordCodecBenchmark {
+
+    @Param({"json", "json-gzip", "smile", "smile-gzip"})
+    public String codecName;
+
+    private RecordCodec codec;
+    private List<HealthData> day;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkLogging.quiet();
+        codec = RecordCodec.forName(codecName);
+        day = new ArrayList<>();
+        LocalDate date = LocalDate.of(2025, 10, 1);
+        for (int i = 0; i < 4; i++) {
+            day.add(new HealthData("user_benchmark", date, date.atTime(7 + i * 4, 30), 65.2, 18.4,
+                    List.of("ご飯", "味噌汁", "焼き魚"), List.of("ウォーキング30分"),
+                    "今日は朝ごはんをしっかり食べて、昼休みに散歩した"));
+        }
+        encoded = codec.encode(day);
+        System.out.println(codecName + ": " + encoded.length + " bytes per day");
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(day);
+    }
+
+    @Benchmark
+    public HealthData[] decode() throws IOException {
+        return codec.decode(encoded, HealthData[].class);
+    }
+}
@@ -0,0 +1,351 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.InMemoryDataRepository;
+import com.health.chat.repository.KeyValueDataRepository;
+import com.health.chat.repository.LocalFileDataRepository;
+import com.health.chat.repository.RecordCodec;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.repository.StubS3Client;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a DataRepository with a mix of chat writes and analysis range reads
+ * across many synthetic users, then reports latency percentiles per operation.
+ *
+ * <p>The {@code s3} target runs S3DataRepository against {@link StubS3Client}, so
+ * S3 latency and 503 errors can be simulated without AWS; {@code local} runs
+ * LocalFileDataRepository and {@code kv} KeyValueDataRepository in a temporary
+ * directory; {@code memory} runs InMemoryDataRepository as the no-I/O baseline. Run with
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Dexec.args="-classpath %classpath com.health.chat.benchmark.RepositoryLoadHarness --users 2000 --latency-ms 15"
+ * </pre>
+ */
+public class RepositoryLoadHarness {
+
+    private static final String[] FOODS = {"ご飯", "パン", "サラダ", "魚", "鶏肉", "味噌汁", "カレー"};
+    private static final String[] EXERCISES = {"ジム", "ランニング", "ウォーキング", "ヨガ"};
+
+    private final DataRepository repository;
+    private final Options options;
+    private final LocalDate today = LocalDate.now();
+    // Health keys are per timestamp, so synthetic writes get strictly increasing ones
+    private final AtomicLong clock = new AtomicLong();
+
+    RepositoryLoadHarness(DataRepository repository, Options options) {
+        this.repository = repository;
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        BenchmarkLogging.quiet();
+
+        StubS3Client stub = null;
+        DataRepository repository;
+        if ("s3".equals(options.target)) {
+            stub = new StubS3Client();
+            repository = new S3DataRepository(stub, "benchmark-bucket");
+        } else if ("local".equals(options.target)) {
+            Path dir = Files.createTempDirectory("repository-load-");
+            repository = new LocalFileDataRepository(dir.toString());
+            System.out.println("Local data directory: " + dir);
+        } else if ("kv".equals(options.target)) {
+            Path dir = Files.createTempDirectory("repository-load-");
+            repository = new KeyValueDataRepository(dir.resolve("health-chat.kv"), RecordCodec.SMILE);
+            System.out.println("Key-value store directory: " + dir);
+        } else if ("memory".equals(options.target)) {
+            repository = new InMemoryDataRepository();
+        } else {
+            throw new IllegalArgumentException("Unknown target: " + options.target
+                    + " (expected s3, local, kv or memory)");
+        }
+
+        RepositoryLoadHarness harness = new RepositoryLoadHarness(repository, options);
+        System.out.println(options);
+
+        long seedStart = System.nanoTime();
+        harness.seed();
+        System.out.printf("Seeded %d users x %d days in %.1f s%n",
+                options.users, options.historyDays, (System.nanoTime() - seedStart) / 1e9);
+
+        if (stub != null) {
+            stub.setLatency(options.latencyMillis, options.jitterMillis);
+            stub.setErrorRate(options.errorRate);
+            stub.resetCounters();
+        }
+
+        long runStart = System.nanoTime();
+        Map<String, long[]> latencies = harness.run();
+        double elapsedSeconds = (System.nanoTime() - runStart) / 1e9;
+
+        printReport(latencies, elapsedSeconds, options.operations);
+        if (stub != null) {
+            System.out.printf("%nS3 requests: PUT %d, GET %d, LIST %d, injected errors %d, objects stored %d%n",
+                    stub.putRequests(), stub.getRequests(), stub.listRequests(),
+                    stub.injectedErrors(), stub.objectCount());
+        }
+    }
+
+    /**
+     * Writes {@code historyDays} days of chat data for every user, without simulated latency.
+     */
+    void seed() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int u = 0; u < options.users; u++) {
+                String userId = userId(u);
+                futures.add(executor.submit(() -> {
+                    for (int d = options.historyDays; d >= 1; d--) {
+                        writeChat(userId, today.minusDays(d));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the measured operations and returns the recorded latencies in nanoseconds, by operation.
+     */
+    Map<String, long[]> run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        try {
+            int perThread = options.operations / options.threads;
+            List<Future<Recorder>> futures = new ArrayList<>();
+            for (int t = 0; t < options.threads; t++) {
+                int count = t < options.operations % options.threads ? perThread + 1 : perThread;
+                futures.add(executor.submit(() -> runWorker(count)));
+            }
+
+            Recorder merged = new Recorder();
+            for (Future<Recorder> future : futures) {
+                merged.addAll(future.get());
+            }
+            return merged.toArrays();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Recorder runWorker(int operations) {
+        Recorder recorder = new Recorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < operations; i++) {
+            String userId = userId(random.nextInt(options.users));
+            if (random.nextDouble() < options.readRatio) {
+                int days = random.nextBoolean() ? 7 : 30;
+                LocalDate start = today.minusDays(days - 1);
+                String page = random.nextInt(3) == 0 ? "nutrition" : random.nextBoolean() ? "mental" : "graph";
+                long pageStart = System.nanoTime();
+                switch (page) {
+                    case "nutrition":
+                        recorder.time("getNutritionInfoByDateRange",
+                                () -> repository.getNutritionInfoByDateRange(userId, start, today));
+                        break;
+                    case "mental":
+                        recorder.time("getMentalStatesByDateRange",
+                                () -> repository.getMentalStatesByDateRange(userId, start, today));
+                        break;
+                    default:
+                        recorder.time("getHealthDataByDateRange",
+                                () -> repository.getHealthDataByDateRange(userId, start, today));
+                        recorder.time("getTankasByDateRange",
+                                () -> repository.getTankasByDateRange(userId, start, today));
+                        break;
+                }
+                recorder.record("analysis (" + page + " " + days + "d)", System.nanoTime() - pageStart);
+            } else {
+                long chatStart = System.nanoTime();
+                boolean ok = writeChat(userId, today, recorder);
+                recorder.record(ok ? "chat write" : "chat write (failed)", System.nanoTime() - chatStart);
+            }
+        }
+        return recorder;
+    }
+
+    private void writeChat(String userId, LocalDate date) {
+        writeChat(userId, date, null);
+    }
+
+    /**
+     * Performs the same four writes ChatController makes for one message.
+     */
+    private boolean writeChat(String userId, LocalDate date, Recorder recorder) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime timestamp = date.atTime(8, 0).plusNanos(clock.incrementAndGet() * 1000);
+        HealthData health = new HealthData(userId, date, timestamp,
+                55 + random.nextInt(300) / 10.0, 12 + random.nextInt(150) / 10.0,
+                List.of(FOODS[random.nextInt(FOODS.length)], FOODS[random.nextInt(FOODS.length)]),
+                List.of(EXERCISES[random.nextInt(EXERCISES.length)]),
+                "体重を記録しました");
+        NutritionInfo nutrition = new NutritionInfo(400 + random.nextInt(800), 20, 15, 60);
+        MentalState mental = new MentalState(EmotionalTone.values()[random.nextInt(3)],
+                random.nextDouble(), List.of("頑張った"));
+        TankaPoem tanka = new TankaPoem("朝の陽に", "体を動かし", "汗流す", "小さな一歩", "明日へ続く", date);
+
+        if (recorder == null) {
+            repository.saveHealthData(userId, health);
+            repository.saveNutritionInfo(userId, date, nutrition);
+            repository.saveMentalState(userId, date, mental);
+            repository.saveTanka(userId, tanka);
+            return true;
+        }
+        return recorder.time("saveHealthData", () -> repository.saveHealthData(userId, health))
+                && recorder.time("saveNutritionInfo", () -> repository.saveNutritionInfo(userId, date, nutrition))
+                && recorder.time("saveMentalState", () -> repository.saveMentalState(userId, date, mental))
+                && recorder.time("saveTanka", () -> repository.saveTanka(userId, tanka));
+    }
+
+    private static String userId(int index) {
+        return String.format("bench-user-%05d", index);
+    }
+
+    private static void printReport(Map<String, long[]> latencies, double elapsedSeconds, int operations) {
+        System.out.printf("%n%d operations in %.1f s (%.0f ops/s)%n%n",
+                operations, elapsedSeconds, operations / elapsedSeconds);
+        System.out.printf("%-36s %8s %10s %10s %10s%n", "operation", "count", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, long[]> entry : latencies.entrySet()) {
+            long[] values = entry.getValue();
+            Arrays.sort(values);
+            System.out.printf("%-36s %8d %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), values.length,
+                    percentile(values, 0.50) / 1e6, percentile(values, 0.99) / 1e6,
+                    values[values.length - 1] / 1e6);
+        }
+    }
+
+    // Nearest-rank percentile of an ascending array
+    static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Latencies recorded by one worker thread, keyed by operation name.
+     */
+    private static final class Recorder {
+        private final Map<String, LongList> samples = new HashMap<>();
+
+        boolean time(String operation, Runnable call) {
+            long start = System.nanoTime();
+            try {
+                call.run();
+                record(operation, System.nanoTime() - start);
+                return true;
+            } catch (RuntimeException e) {
+                record(operation + " (failed)", System.nanoTime() - start);
+                return false;
+            }
+        }
+
+        void record(String operation, long nanos) {
+            samples.computeIfAbsent(operation, k -> new LongList()).add(nanos);
+        }
+
+        void addAll(Recorder other) {
+            other.samples.forEach((operation, values) ->
+                    samples.computeIfAbsent(operation, k -> new LongList()).addAll(values));
+        }
+
+        Map<String, long[]> toArrays() {
+            Map<String, long[]> result = new TreeMap<>();
+            samples.forEach((operation, values) -> result.put(operation, values.toArray()));
+            return result;
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Command line options, each given as {@code --name value}.
+     */
+    static final class Options {
+        String target = "s3";
+        int users = 2000;
+        int historyDays = 14;
+        int operations = 20000;
+        int threads = 16;
+        double readRatio = 0.3;
+        double latencyMillis = 10;
+        double jitterMillis = 10;
+        double errorRate = 0;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--target": options.target = value; break;
+                    case "--users": options.users = Integer.parseInt(value); break;
+                    case "--history-days": options.historyDays = Integer.parseInt(value); break;
+                    case "--operations": options.operations = Integer.parseInt(value); break;
+                    case "--threads": options.threads = Integer.parseInt(value); break;
+                    case "--read-ratio": options.readRatio = Double.parseDouble(value); break;
+                    case "--latency-ms": options.latencyMillis = Double.parseDouble(value); break;
+                    case "--jitter-ms": options.jitterMillis = Double.parseDouble(value); break;
+                    case "--error-rate": options.errorRate = Double.parseDouble(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            return options;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("target=%s users=%d historyDays=%d operations=%d threads=%d readRatio=%.2f"
+                            + " latency=%.1fms+%.1fms jitter errorRate=%.3f",
+                    target, users, historyDays, operations, threads, readRatio,
+                    latencyMillis, jitterMillis, errorRate);
+        }
+    }
+}
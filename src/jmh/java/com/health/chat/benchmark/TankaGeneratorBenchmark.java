@@ -0,0 +1,62 @@
+package com.health.chat.benchmark;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.service.SimpleTankaGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SimpleTankaGenerator.generate for each emotional tone, and building
+ * and ranking a larger batch of seeded candidates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TankaGeneratorBenchmark {
+
+    @Param({"POSITIVE", "NEUTRAL", "DISCOURAGED"})
+    public EmotionalTone tone;
+
+    private SimpleTankaGenerator generator;
+    private HealthData data;
+    private MentalState mentalState;
+
+    @Setup
+    public void setUp() {
+        generator = new SimpleTankaGenerator();
+        data = new HealthData("bench-user", LocalDate.of(2025, 10, 1), LocalDateTime.of(2025, 10, 1, 8, 0),
+                65.0, 18.0, List.of("パン", "サラダ"), List.of("ジム"), "体重65kg 朝食にパンを食べた");
+        mentalState = new MentalState(tone, 0.6, Collections.emptyList());
+    }
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        blackhole.consume(generator.generate(data, mentalState));
+    }
+
+    @Benchmark
+    public void generateCandidates(Blackhole blackhole) {
+        blackhole.consume(generator.generateCandidates(data, mentalState, 64, 42L));
+    }
+}
@@ -1,14 +1,37 @@
 package com.health.chat.config;
 
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.health.chat.jfr.FlightRecordingEndpoint;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.metrics.MeteredDataRepository;
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.repository.BodyMetricsStore;
+import com.health.chat.repository.ColumnarBodyMetricsRepository;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.InMemoryDataRepository;
+import com.health.chat.repository.KeyValueDataRepository;
+import com.health.chat.repository.LocalFileDataRepository;
+import com.health.chat.repository.LocalLayoutMigration;
+import com.health.chat.repository.LocalStorageLayout;
+import com.health.chat.repository.RecordCodec;
 import com.health.chat.repository.S3DataRepository;
+import com.health.chat.repository.UserDataVersions;
+import com.health.chat.repository.VersionedDataRepository;
 import com.health.chat.service.*;
+import com.health.chat.web.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 public class AppConfig {
 
@@ -26,16 +49,156 @@ public class AppConfig {
         return new ChartJsGraphGenerator();
     }
 
+    /**
+     * Registers Blackbird with Spring MVC's mapper too, and builds the shared mappers'
+     * readers and writers for the model types before the first request.
+     */
+    @Bean
+    public com.fasterxml.jackson.databind.Module blackbirdModule() {
+        JsonMappers.warmUp();
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public PipelineMetrics pipelineMetrics(MeterRegistry meterRegistry) {
+        return new PipelineMetrics(meterRegistry);
+    }
+
+    @Bean
+    public FlightRecordingEndpoint flightRecordingEndpoint(
+            @Value("${jfr.directory:${java.io.tmpdir}/health-chat-jfr}") String jfrDirectory) {
+        return new FlightRecordingEndpoint(Paths.get(jfrDirectory));
+    }
+
+    /**
+     * Runs the chat pipeline for /api/chat/stream so the request thread is released
+     * while MCP advice is pending; a full queue makes the endpoint answer 503.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor chatStreamExecutor(@Value("${chat.stream.threads:16}") int threads,
+                                                     @Value("${chat.stream.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-stream-");
+        return executor;
+    }
+
+    /**
+     * Adaptive limit on chat pipelines running at once: close to the limit requests skip
+     * MCP research and tanka generation, at the limit /api/chat answers 503.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter chatConcurrencyLimiter(
+            @Value("${chat.concurrency.enabled:true}") boolean enabled,
+            @Value("${chat.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${chat.concurrency.min-limit:4}") int minLimit,
+            @Value("${chat.concurrency.max-limit:100}") int maxLimit,
+            @Value("${chat.concurrency.degrade-at:0.75}") double degradeAt,
+            @Value("${chat.concurrency.latency-tolerance:2.0}") double latencyTolerance,
+            PipelineMetrics pipelineMetrics) {
+        if (!enabled) {
+            return AdaptiveConcurrencyLimiter.unlimited();
+        }
+        // 遅延が無負荷時の許容倍を超えたら上限を下げ、混雑時は不要な処理から省く
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, degradeAt, latencyTolerance,
+                pipelineMetrics);
+    }
+
+    /**
+     * Per-user rate limit for the chat endpoints, which parse, save and ask MCP for advice.
+     */
     @Bean
-    public DataRepository dataRepository(@Value("${local.data.directory:./data}") String localDataDirectory) {
-        if (localMode) {
+    public FilterRegistrationBean<RateLimitFilter> chatRateLimitFilter(
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.chat.requests-per-minute:30}") int requestsPerMinute,
+            @Value("${rate-limit.chat.burst:10}") int burst,
+            @Value("${rate-limit.max-users:100000}") int maxUsers,
+            PipelineMetrics pipelineMetrics) {
+        return rateLimitFilter(new RateLimiter("chat", requestsPerMinute, burst, maxUsers), pipelineMetrics,
+                enabled, "/api/chat", "/api/chat/*");
+    }
+
+    /**
+     * Per-user rate limit for the read-only analysis and graph endpoints.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> analysisRateLimitFilter(
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.analysis.requests-per-minute:120}") int requestsPerMinute,
+            @Value("${rate-limit.analysis.burst:30}") int burst,
+            @Value("${rate-limit.max-users:100000}") int maxUsers,
+            PipelineMetrics pipelineMetrics) {
+        return rateLimitFilter(new RateLimiter("analysis", requestsPerMinute, burst, maxUsers), pipelineMetrics,
+                enabled, "/api/analysis/*", "/api/graph");
+    }
+
+    private static FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter limiter, PipelineMetrics metrics,
+                                                                           boolean enabled, String... urlPatterns) {
+        // セッションのユーザーで判定するため、Spring Securityのフィルターより後に実行する（既定の順序）
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(limiter, metrics));
+        registration.setName(limiter.getName() + "RateLimitFilter");
+        registration.addUrlPatterns(urlPatterns);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public UserDataVersions userDataVersions() {
+        return new UserDataVersions();
+    }
+
+    @Bean
+    public DataRepository dataRepository(@Value("${local.data.directory:./data}") String localDataDirectory,
+                                         @Value("${local.data.engine:files}") String localDataEngine,
+                                         @Value("${local.data.shards:0}") int localDataShards,
+                                         @Value("${local.data.shard-directories:}") List<String> shardDirectories,
+                                         @Value("${local.data.migrate-on-start:true}") boolean migrateOnStart,
+                                         @Value("${body-metrics.columnar.enabled:${local.mode:true}}") boolean columnarBodyMetrics,
+                                         @Value("${body-metrics.directory:${local.data.directory:./data}/columns}") String bodyMetricsDirectory,
+                                         @Value("${storage.codec:json}") String storageCodec,
+                                         @Value("${conditional-get.enabled:${local.mode:true}}") boolean conditionalGet,
+                                         PipelineMetrics pipelineMetrics,
+                                         UserDataVersions userDataVersions) {
+        DataRepository repository;
+        // 新規書き込みの形式（json / json-gzip / smile / smile-gzip）。読み込みは全形式を自動判別
+        RecordCodec codec = RecordCodec.forName(storageCodec);
+        if (localMode && "memory".equals(localDataEngine)) {
+            // 負荷試験用: 永続化しないメモリ上のリポジトリ
+            repository = new InMemoryDataRepository(codec);
+        } else if (localMode && "kv".equals(localDataEngine)) {
+            // 全ユーザーのデータを1ファイルのキーバリューストアに保持
+            repository = new KeyValueDataRepository(Paths.get(localDataDirectory, "health-chat.kv"), codec);
+        } else if (localMode) {
             // ローカルモードではファイルベースのリポジトリを使用
-            return new com.health.chat.repository.LocalFileDataRepository(localDataDirectory);
+            LocalStorageLayout layout = LocalStorageLayout.single(localDataDirectory);
+            if (localDataShards > 0) {
+                // ユーザーをハッシュでシャードに分散（シャードは複数のマウントポイントに配置可能）
+                layout = LocalStorageLayout.partitioned(localDataDirectory, localDataShards, shardDirectories);
+                if (migrateOnStart) {
+                    // 旧レイアウト(users/)のユーザーを稼働中にバックグラウンドでシャードへ移動
+                    Thread migration = new Thread(new LocalLayoutMigration(layout)::migrate, "local-layout-migration");
+                    migration.setDaemon(true);
+                    migration.start();
+                }
+            }
+            repository = new LocalFileDataRepository(layout, codec);
         } else {
             // 本番モードではS3を使用（AwsConfigで定義されたs3Clientを使用）
             S3Client client = S3Client.builder().region(Region.of(awsRegion)).build();
-            return new S3DataRepository(client, bucketName);
+            repository = new S3DataRepository(client, bucketName, codec);
+        }
+        if (columnarBodyMetrics) {
+            // グラフ用の体重・体脂肪率を列形式ファイルで保持（全書き込みがこのアプリ経由の場合のみ有効）
+            repository = new ColumnarBodyMetricsRepository(repository, new BodyMetricsStore(Paths.get(bodyMetricsDirectory)));
+        }
+        if (conditionalGet) {
+            // 書き込みごとにユーザーのバージョンを進め、GET APIのETagに反映する（全書き込みがこのプロセス経由の場合のみ有効）
+            repository = new VersionedDataRepository(repository, userDataVersions);
         }
+        return new MeteredDataRepository(repository, pipelineMetrics);
     }
     
     @Bean
@@ -48,6 +211,13 @@ public class AppConfig {
         return new BasicNutritionEstimator(dataRepository);
     }
     
+    @Bean
+    public BulkIngestionService bulkIngestionService(MessageParser messageParser,
+                                                     NutritionEstimator nutritionEstimator,
+                                                     DataRepository dataRepository) {
+        return new BulkIngestionService(messageParser, nutritionEstimator, dataRepository);
+    }
+    
     @Bean
     public MentalStateAnalyzer mentalStateAnalyzer() {
         return new KeywordBasedMentalStateAnalyzer();
@@ -59,8 +229,27 @@ public class AppConfig {
     }
     
     @Bean
-    public MCPClient mcpClient(@Value("${MCP_ENDPOINT:http://localhost:3000}") String mcpEndpoint) {
-        return new HttpMCPClient(mcpEndpoint, 10);
+    public MCPClient mcpClient(@Value("${MCP_ENDPOINT:http://localhost:3000}") String mcpEndpoint,
+                               @Value("${mcp.pool.max-per-route:20}") int maxPerRoute,
+                               @Value("${mcp.pool.max-total:20}") int maxTotal,
+                               @Value("${mcp.pool.keep-alive-seconds:60}") int keepAliveSeconds,
+                               @Value("${mcp.pool.idle-eviction-seconds:30}") int idleEvictionSeconds,
+                               @Value("${mcp.prefetch.enabled:true}") boolean prefetch,
+                               @Value("${mcp.prefetch.refresh-after-seconds:600}") int refreshAfterSeconds,
+                               @Value("${mcp.prefetch.max-staleness-seconds:1800}") int maxStalenessSeconds,
+                               PipelineMetrics pipelineMetrics) {
+        // 同時チャットでMCPへの接続を使い回すためのコネクションプール
+        MCPClient client = new HttpMCPClient(mcpEndpoint, 10, pipelineMetrics,
+                new HttpMCPClient.PoolSettings(maxPerRoute, maxTotal,
+                        Duration.ofSeconds(keepAliveSeconds), Duration.ofSeconds(idleEvictionSeconds)));
+        if (!prefetch) {
+            return client;
+        }
+        // アドバイス用の研究クエリを起動時に全件取得し、期限前にバックグラウンドで更新（チャットはMCPを待たない）
+        ResearchPrefetcher prefetcher = new ResearchPrefetcher(client, Duration.ofSeconds(refreshAfterSeconds),
+                Duration.ofSeconds(maxStalenessSeconds), pipelineMetrics);
+        prefetcher.start();
+        return prefetcher;
     }
     
     @Bean
@@ -70,7 +259,8 @@ public class AppConfig {
     
     @Bean
     public AuthenticationService authenticationService(DataRepository dataRepository, 
-                                                       @Value("${jwt.secret:default-secret-key-change-in-production}") String jwtSecret) {
-        return new JwtAuthenticationService(dataRepository, jwtSecret);
+                                                       @Value("${jwt.secret:default-secret-key-change-in-production}") String jwtSecret,
+                                                       PipelineMetrics pipelineMetrics) {
+        return new JwtAuthenticationService(dataRepository, jwtSecret, pipelineMetrics);
     }
 }
@@ -23,12 +23,13 @@ public class SecurityConfig {
         http
             // CSRF protection
             .csrf(csrf -> csrf
-                .ignoringRequestMatchers("/actuator/**") // Allow actuator endpoints for health checks
+                .ignoringRequestMatchers("/actuator/health/**", "/actuator/info") // Allow actuator endpoints for health checks
             )
             
             // Authorization rules
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/actuator/health", "/actuator/info").permitAll() // Health check endpoints
+                .requestMatchers("/actuator/jfr", "/actuator/jfr/**").hasRole("ADMIN") // Recordings include other users' ids
                 .requestMatchers("/login", "/register").permitAll() // Public auth endpoints (GET and POST)
                 .requestMatchers("/css/**", "/js/**", "/images/**").permitAll() // Public resources
                 .anyRequest().authenticated() // All other requests require authentication
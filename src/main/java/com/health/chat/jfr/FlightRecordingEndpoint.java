@@ -0,0 +1,157 @@
+package com.health.chat.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Actuator endpoint that starts and stops JDK Flight Recorder recordings on demand.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/jfr}: current recording and finished files</li>
+ *   <li>{@code POST /actuator/jfr} with {@code durationSeconds} and {@code settings}
+ *       ({@code default} or {@code profile}): start a recording</li>
+ *   <li>{@code DELETE /actuator/jfr}: stop the recording early and write the file</li>
+ *   <li>{@code GET /actuator/jfr/{file}}: download a finished recording</li>
+ * </ul>
+ *
+ * The health chat events (pipeline stages, S3 calls, MCP attempts, BCrypt) are
+ * always included; the JDK settings decide what else is captured.
+ */
+@Endpoint(id = "jfr")
+public class FlightRecordingEndpoint {
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecordingEndpoint.class.getName());
+    private static final int DEFAULT_DURATION_SECONDS = 60;
+    private static final int MAX_DURATION_SECONDS = 600;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private Recording recording;
+
+    public FlightRecordingEndpoint(Path directory) {
+        this.directory = directory;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording != null) {
+            status.put("recording", describe(recording));
+        }
+        status.put("files", listFiles());
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable Integer durationSeconds, @Nullable String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new InvalidEndpointRequestException("A recording is already running: " + recording.getName(),
+                    "Recording already running");
+        }
+        int seconds = durationSeconds != null ? durationSeconds : DEFAULT_DURATION_SECONDS;
+        if (seconds < 1 || seconds > MAX_DURATION_SECONDS) {
+            throw new InvalidEndpointRequestException("durationSeconds must be between 1 and " + MAX_DURATION_SECONDS,
+                    "Invalid durationSeconds");
+        }
+        String settingsName = settings != null ? settings : "default";
+        if (!"default".equals(settingsName) && !"profile".equals(settingsName)) {
+            throw new InvalidEndpointRequestException("settings must be 'default' or 'profile'", "Invalid settings");
+        }
+
+        try {
+            Files.createDirectories(directory);
+            String name = "health-chat-" + LocalDateTime.now().format(FILE_TIMESTAMP);
+            Recording next = new Recording(Configuration.getConfiguration(settingsName));
+            next.setName(name);
+            next.enable(PipelineStageEvent.class);
+            next.enable(S3CallEvent.class);
+            next.enable(McpAttemptEvent.class);
+            next.enable(PasswordHashEvent.class);
+            next.setToDisk(true);
+            next.setDuration(Duration.ofSeconds(seconds));
+            next.setDestination(directory.resolve(name + ".jfr"));
+            next.start();
+
+            if (recording != null) {
+                recording.close();
+            }
+            recording = next;
+            LOGGER.info("Started flight recording " + name + " for " + seconds + "s with " + settingsName + " settings");
+            return describe(recording);
+        } catch (IOException | ParseException e) {
+            LOGGER.log(Level.SEVERE, "Failed to start flight recording", e);
+            throw new IllegalStateException("Failed to start flight recording: " + e.getMessage(), e);
+        }
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new InvalidEndpointRequestException("No recording is running", "No recording is running");
+        }
+        // Stopping writes the recording to its destination
+        recording.stop();
+        LOGGER.info("Stopped flight recording " + recording.getName());
+        return describe(recording);
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource download(@Selector String file) {
+        Path path = directory.resolve(file).normalize();
+        if (!path.getParent().equals(directory.normalize()) || !file.endsWith(".jfr") || !Files.isRegularFile(path)) {
+            return null;
+        }
+        return new FileSystemResource(path);
+    }
+
+    private Map<String, Object> describe(Recording r) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("name", r.getName());
+        info.put("state", r.getState().name());
+        info.put("startTime", r.getStartTime() != null ? r.getStartTime().toString() : null);
+        info.put("durationSeconds", r.getDuration() != null ? r.getDuration().getSeconds() : null);
+        info.put("file", r.getDestination() != null ? r.getDestination().getFileName().toString() : null);
+        return info;
+    }
+
+    private List<String> listFiles() {
+        List<String> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(".jfr"))
+                    .sorted()
+                    .forEach(files::add);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to list flight recordings in " + directory, e);
+        }
+        return files;
+    }
+}
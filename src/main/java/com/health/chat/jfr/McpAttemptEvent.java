@@ -0,0 +1,32 @@
+package com.health.chat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single HTTP attempt to the MCP server for one research topic.
+ */
+@Name("com.health.chat.McpAttempt")
+@Label("MCP Attempt")
+@Category({"Health Chat", "MCP"})
+@Description("One HTTP request to the MCP research server")
+@StackTrace(false)
+public class McpAttemptEvent extends Event {
+
+    @Label("Topic")
+    public String topic;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Status Code")
+    @Description("HTTP status, or 0 when no response was received")
+    public int statusCode;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,26 @@
+package com.health.chat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A BCrypt password check or hash, which is deliberately CPU heavy.
+ */
+@Name("com.health.chat.PasswordHash")
+@Label("Password Hash")
+@Category({"Health Chat", "Authentication"})
+@Description("A BCrypt check or hash computation")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    @Description("check or hash")
+    public String operation;
+
+    @Label("Matched")
+    public boolean matched;
+}
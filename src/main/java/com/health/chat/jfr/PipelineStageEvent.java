@@ -0,0 +1,25 @@
+package com.health.chat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One chat pipeline stage (parse, nutrition, mental, advice, tanka, save).
+ */
+@Name("com.health.chat.PipelineStage")
+@Label("Pipeline Stage")
+@Category({"Health Chat", "Pipeline"})
+@Description("A stage of chat message processing")
+@StackTrace(false)
+public class PipelineStageEvent extends Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Outcome")
+    public String outcome;
+}
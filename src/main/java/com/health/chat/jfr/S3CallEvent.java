@@ -0,0 +1,44 @@
+package com.health.chat.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One S3DataRepository call to S3, covering every retry attempt and the backoff slept between them.
+ */
+@Name("com.health.chat.S3Call")
+@Label("S3 Call")
+@Category({"Health Chat", "Repository"})
+@Description("An S3 request made by S3DataRepository, including retries")
+@StackTrace(false)
+public class S3CallEvent extends Event {
+
+    @Label("Operation")
+    @Description("put, get, list or delete")
+    public String operation;
+
+    @Label("Key")
+    @Description("Object key, the prefix for list calls, or the first key of a delete batch")
+    public String key;
+
+    @Label("Attempts")
+    public int attempts;
+
+    @Label("Backoff")
+    @Timespan(Timespan.MILLISECONDS)
+    public long backoff;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    @Description("success, not_found, partial (delete batch with failures) or error")
+    public String outcome;
+}
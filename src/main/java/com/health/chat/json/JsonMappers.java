@@ -0,0 +1,91 @@
+package com.health.chat.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.health.chat.model.AuthResult;
+import com.health.chat.model.ChatResponse;
+import com.health.chat.model.DailyNutrition;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The application's Jackson mappers, one per format, shared by storage, Lambda handlers
+ * and HTTP clients so every caller uses the same serializer caches.
+ *
+ * <p>Both mappers register {@link JavaTimeModule}, write dates as ISO-8601 strings and
+ * use {@link BlackbirdModule}, which replaces reflective property access with generated
+ * lambdas. {@link #reader(Class)} and {@link #writer(Class)} hand out readers and writers
+ * bound to one type, whose root (de)serializer is resolved once when they are built;
+ * {@link #warmUp()} builds them for the model types ahead of the first request.
+ */
+public final class JsonMappers {
+
+    public static final JsonMappers JSON = new JsonMappers(new ObjectMapper());
+    public static final JsonMappers SMILE = new JsonMappers(new SmileMapper());
+
+    // Types read or written on request paths
+    private static final List<Class<?>> MODEL_TYPES = List.of(
+            HealthData.class, HealthData[].class, NutritionInfo.class, MentalState.class, TankaPoem.class,
+            DailyNutrition.class, DailySummary.class, UserProfile.class, AuthResult.class, ChatResponse.class,
+            Map.class);
+
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private JsonMappers(ObjectMapper mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.registerModule(new BlackbirdModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.mapper = mapper;
+    }
+
+    /**
+     * The mapper itself, for trees and streaming; must not be reconfigured.
+     */
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    /**
+     * Reader bound to {@code type}, built on first use and reused afterwards.
+     */
+    public ObjectReader reader(Class<?> type) {
+        return readers.computeIfAbsent(type, mapper::readerFor);
+    }
+
+    /**
+     * Writer bound to {@code type}, built on first use and reused afterwards.
+     */
+    public ObjectWriter writer(Class<?> type) {
+        return writers.computeIfAbsent(type, mapper::writerFor);
+    }
+
+    /**
+     * Builds the readers and writers of the model types in both formats, so the first
+     * requests do not pay for introspection; returns the number of types warmed.
+     */
+    public static int warmUp() {
+        for (JsonMappers mappers : List.of(JSON, SMILE)) {
+            for (Class<?> type : MODEL_TYPES) {
+                mappers.reader(type);
+                mappers.writer(type);
+            }
+        }
+        return MODEL_TYPES.size();
+    }
+}
@@ -4,14 +4,15 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.health.chat.json.JsonMappers;
 import com.health.chat.model.*;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.RecordCodec;
 import com.health.chat.repository.S3DataRepository;
 import com.health.chat.service.*;
 import com.health.chat.service.ErrorHandler;
 import com.health.chat.service.InputValidator;
+import com.health.chat.service.RateLimiter;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 
@@ -31,7 +32,7 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
     private final TankaGenerator tankaGenerator;
     private final MentalStateAnalyzer mentalStateAnalyzer;
     private final DataRepository dataRepository;
-    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
 
     public AnalysisHandler() {
         // Initialize S3 client
@@ -44,7 +45,8 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
                 .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
                 .build();
 
-        this.dataRepository = new S3DataRepository(s3Client, bucketName);
+        this.dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
 
         // Get JWT secret from environment variable
         String jwtSecret = System.getenv("JWT_SECRET");
@@ -57,21 +59,33 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
         this.tankaGenerator = new SimpleTankaGenerator();
         this.mentalStateAnalyzer = new KeywordBasedMentalStateAnalyzer();
 
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        // Per-user limit; buckets live in this execution environment, so each concurrent one allows the full rate
+        this.rateLimiter = new RateLimiter("analysis",
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_PER_MINUTE", "120")),
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_BURST", "30")), 10_000);
+
+        // Resolves serializers during the Lambda init phase rather than on the first request
+        JsonMappers.warmUp();
     }
 
     // Constructor for testing
     public AnalysisHandler(AuthenticationService authService, NutritionEstimator nutritionEstimator,
                           TankaGenerator tankaGenerator, MentalStateAnalyzer mentalStateAnalyzer,
                           DataRepository dataRepository) {
+        this(authService, nutritionEstimator, tankaGenerator, mentalStateAnalyzer, dataRepository,
+                new RateLimiter("analysis", 0, 0, 1));
+    }
+
+    // Constructor for testing
+    public AnalysisHandler(AuthenticationService authService, NutritionEstimator nutritionEstimator,
+                          TankaGenerator tankaGenerator, MentalStateAnalyzer mentalStateAnalyzer,
+                          DataRepository dataRepository, RateLimiter rateLimiter) {
         this.authService = authService;
         this.nutritionEstimator = nutritionEstimator;
         this.tankaGenerator = tankaGenerator;
         this.mentalStateAnalyzer = mentalStateAnalyzer;
         this.dataRepository = dataRepository;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
@@ -90,6 +104,11 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
 
             String userId = authService.getUserIdFromToken(token);
 
+            long waitNanos = rateLimiter.tryAcquire(userId);
+            if (waitNanos > 0) {
+                return createRateLimitedResponse(userId, waitNanos, context);
+            }
+
             String path = input.getPath();
             String httpMethod = input.getHttpMethod();
 
@@ -113,7 +132,7 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
 
     private APIGatewayProxyResponseEvent handleNutritionAnalysis(APIGatewayProxyRequestEvent input, String userId, Context context) {
         try {
-            Map<String, Object> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, Object> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String dateStr = (String) body.get("date");
             
             // Validate date if provided
@@ -152,7 +171,7 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
 
     private APIGatewayProxyResponseEvent handleTankaGeneration(APIGatewayProxyRequestEvent input, String userId, Context context) {
         try {
-            Map<String, Object> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, Object> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String dateStr = (String) body.get("date");
             
             // Validate date if provided
@@ -256,6 +275,29 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
             
             LocalDate date = dateStr != null ? LocalDate.parse(dateStr) : LocalDate.now();
 
+            // Closed days are usually precomputed by DailySummaryHandler; serve them with one read
+            if (DailySummary.isClosed(date)) {
+                DailySummary summary = null;
+                try {
+                    summary = dataRepository.getDailySummary(userId, date);
+                } catch (Exception e) {
+                    ErrorHandler.logInfo("Daily summary unavailable, computing: " + e.getMessage(), context);
+                }
+                if (summary != null) {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("success", true);
+                    response.put("date", date.toString());
+                    response.put("healthData", summary.getHealthData());
+                    response.put("nutrition", summary.getNutrition());
+                    response.put("mentalState", summary.getMentalState());
+                    response.put("tanka", summary.getTanka());
+                    response.put("precomputed", true);
+
+                    ErrorHandler.logSuccess("Daily analysis (precomputed) for user: " + userId, context);
+                    return createResponse(200, response);
+                }
+            }
+
             // Get health data with error handling
             List<HealthData> healthDataList;
             try {
@@ -311,11 +353,21 @@ public class AnalysisHandler implements RequestHandler<APIGatewayProxyRequestEve
         return null;
     }
 
+    private APIGatewayProxyResponseEvent createRateLimitedResponse(String userId, long waitNanos, Context context) {
+        long retryAfter = RateLimiter.retryAfterSeconds(waitNanos);
+        APIGatewayProxyResponseEvent response =
+                createResponse(429, ErrorHandler.handleRateLimitError(userId, retryAfter, context));
+        if (response.getHeaders() != null) {
+            response.getHeaders().put("Retry-After", String.valueOf(retryAfter));
+        }
+        return response;
+    }
+
     private APIGatewayProxyResponseEvent createResponse(int statusCode, Object body) {
         try {
             APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
             response.setStatusCode(statusCode);
-            response.setBody(objectMapper.writeValueAsString(body));
+            response.setBody(JsonMappers.JSON.writer(body.getClass()).writeValueAsString(body));
 
             Map<String, String> headers = new HashMap<>();
             headers.put("Content-Type", "application/json");
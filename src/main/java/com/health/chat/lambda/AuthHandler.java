@@ -4,10 +4,10 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.health.chat.json.JsonMappers;
 import com.health.chat.model.AuthResult;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.RecordCodec;
 import com.health.chat.repository.S3DataRepository;
 import com.health.chat.service.AuthenticationService;
 import com.health.chat.service.ErrorHandler;
@@ -26,7 +26,6 @@ import java.util.Map;
 public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private final AuthenticationService authService;
-    private final ObjectMapper objectMapper;
 
     public AuthHandler() {
         // Initialize S3 client
@@ -39,7 +38,8 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
                 .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
                 .build();
 
-        DataRepository dataRepository = new S3DataRepository(s3Client, bucketName);
+        DataRepository dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
 
         // Get JWT secret from environment variable
         String jwtSecret = System.getenv("JWT_SECRET");
@@ -48,15 +48,13 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
         }
 
         this.authService = new JwtAuthenticationService(dataRepository, jwtSecret);
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        // Resolves serializers during the Lambda init phase rather than on the first request
+        JsonMappers.warmUp();
     }
 
     // Constructor for testing
     public AuthHandler(AuthenticationService authService) {
         this.authService = authService;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
     }
 
     @Override
@@ -85,7 +83,7 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
     private APIGatewayProxyResponseEvent handleLogin(APIGatewayProxyRequestEvent input, Context context) {
         try {
-            Map<String, String> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, String> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String username = body.get("username");
             String password = body.get("password");
 
@@ -124,7 +122,7 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
     private APIGatewayProxyResponseEvent handleValidate(APIGatewayProxyRequestEvent input, Context context) {
         try {
-            Map<String, String> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, String> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String token = body.get("token");
 
             // Validate token format
@@ -155,7 +153,7 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
     private APIGatewayProxyResponseEvent handleLogout(APIGatewayProxyRequestEvent input, Context context) {
         try {
-            Map<String, String> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, String> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String token = body.get("token");
 
             // Validate token format
@@ -178,7 +176,7 @@ public class AuthHandler implements RequestHandler<APIGatewayProxyRequestEvent,
         try {
             APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
             response.setStatusCode(statusCode);
-            response.setBody(objectMapper.writeValueAsString(body));
+            response.setBody(JsonMappers.JSON.writer(body.getClass()).writeValueAsString(body));
 
             Map<String, String> headers = new HashMap<>();
             headers.put("Content-Type", "application/json");
@@ -4,8 +4,8 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.metrics.PipelineMetrics;
 import com.health.chat.model.AdviceResult;
 import com.health.chat.model.ChatResponse;
 import com.health.chat.model.HealthData;
@@ -14,6 +14,7 @@ import com.health.chat.model.NutritionInfo;
 import com.health.chat.model.TankaPoem;
 import com.health.chat.model.UserProfile;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.RecordCodec;
 import com.health.chat.repository.S3DataRepository;
 import com.health.chat.service.AuthenticationService;
 import com.health.chat.service.BasicNutritionEstimator;
@@ -28,6 +29,7 @@ import com.health.chat.service.MCPClient;
 import com.health.chat.service.MentalStateAnalyzer;
 import com.health.chat.service.MessageParser;
 import com.health.chat.service.NutritionEstimator;
+import com.health.chat.service.RateLimiter;
 import com.health.chat.service.SimpleTankaGenerator;
 import com.health.chat.service.TankaGenerator;
 import software.amazon.awssdk.regions.Region;
@@ -45,12 +47,15 @@ import java.util.Map;
  */
 public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    // Lambda has no meter registry; stages are still emitted as JFR events
+    private static final PipelineMetrics METRICS = PipelineMetrics.noop();
+
     private final AuthenticationService authService;
     private final MessageParser messageParser;
     private final HealthAdvisorAI healthAdvisor;
     private final MentalStateAnalyzer mentalStateAnalyzer;
     private final DataRepository dataRepository;
-    private final ObjectMapper objectMapper;
+    private final RateLimiter rateLimiter;
 
     public ChatHandler() {
         // Initialize S3 client
@@ -63,7 +68,8 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
                 .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
                 .build();
 
-        this.dataRepository = new S3DataRepository(s3Client, bucketName);
+        this.dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
 
         // Get JWT secret from environment variable
         String jwtSecret = System.getenv("JWT_SECRET");
@@ -87,21 +93,33 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
         this.healthAdvisor = new MCPBasedHealthAdvisor(mcpClient);
 
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        // Per-user limit; buckets live in this execution environment, so each concurrent one allows the full rate
+        this.rateLimiter = new RateLimiter("chat",
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_PER_MINUTE", "30")),
+                Integer.parseInt(System.getenv().getOrDefault("RATE_LIMIT_BURST", "10")), 10_000);
+
+        // Resolves serializers during the Lambda init phase rather than on the first request
+        JsonMappers.warmUp();
     }
 
     // Constructor for testing
     public ChatHandler(AuthenticationService authService, MessageParser messageParser,
                       HealthAdvisorAI healthAdvisor, MentalStateAnalyzer mentalStateAnalyzer,
                       DataRepository dataRepository) {
+        this(authService, messageParser, healthAdvisor, mentalStateAnalyzer, dataRepository,
+                new RateLimiter("chat", 0, 0, 1));
+    }
+
+    // Constructor for testing
+    public ChatHandler(AuthenticationService authService, MessageParser messageParser,
+                      HealthAdvisorAI healthAdvisor, MentalStateAnalyzer mentalStateAnalyzer,
+                      DataRepository dataRepository, RateLimiter rateLimiter) {
         this.authService = authService;
         this.messageParser = messageParser;
         this.healthAdvisor = healthAdvisor;
         this.mentalStateAnalyzer = mentalStateAnalyzer;
         this.dataRepository = dataRepository;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.rateLimiter = rateLimiter;
     }
 
     @Override
@@ -120,6 +138,11 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
             String userId = authService.getUserIdFromToken(token);
 
+            long waitNanos = rateLimiter.tryAcquire(userId);
+            if (waitNanos > 0) {
+                return createRateLimitedResponse(userId, waitNanos, context);
+            }
+
             String path = input.getPath();
             String httpMethod = input.getHttpMethod();
 
@@ -137,7 +160,7 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
     private APIGatewayProxyResponseEvent handleMessage(APIGatewayProxyRequestEvent input, String userId, Context context) {
         try {
-            Map<String, String> body = objectMapper.readValue(input.getBody(), Map.class);
+            Map<String, String> body = JsonMappers.JSON.reader(Map.class).readValue(input.getBody());
             String message = body.get("message");
 
             // Validate message
@@ -150,7 +173,7 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
             // Parse message to extract health data
             HealthData healthData;
             try {
-                healthData = messageParser.parseMessage(userId, message);
+                healthData = METRICS.timeStage("parse", () -> messageParser.parseMessage(userId, message));
             } catch (IllegalArgumentException e) {
                 Map<String, Object> error = ErrorHandler.handleValidationError(e.getMessage(), context);
                 return createResponse(400, error);
@@ -175,7 +198,7 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
             // Save health data with error handling
             try {
-                dataRepository.saveHealthData(userId, healthData);
+                METRICS.timeStage("save", () -> dataRepository.saveHealthData(userId, healthData));
             } catch (Exception e) {
                 Map<String, Object> error = ErrorHandler.handleDataAccessError("save health data", context, e);
                 return createResponse(500, error);
@@ -183,7 +206,8 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
 
             // Analyze mental state
             List<String> conversationHistory = getRecentConversationHistory(userId);
-            MentalState mentalState = mentalStateAnalyzer.analyze(message, conversationHistory);
+            MentalState mentalState = METRICS.timeStage("mental",
+                    () -> mentalStateAnalyzer.analyze(message, conversationHistory));
 
             // Save mental state with error handling
             try {
@@ -205,7 +229,8 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
             // Generate advice with MCP error handling
             AdviceResult advice;
             try {
-                advice = healthAdvisor.generateAdvice(healthData, mentalState, userProfile);
+                UserProfile profile = userProfile;
+                advice = METRICS.timeStage("advice", () -> healthAdvisor.generateAdvice(healthData, mentalState, profile));
             } catch (Exception e) {
                 ErrorHandler.logInfo("MCP service unavailable, generating basic advice: " + e.getMessage(), context);
                 // Generate basic advice without MCP
@@ -262,11 +287,21 @@ public class ChatHandler implements RequestHandler<APIGatewayProxyRequestEvent,
         }
     }
 
+    private APIGatewayProxyResponseEvent createRateLimitedResponse(String userId, long waitNanos, Context context) {
+        long retryAfter = RateLimiter.retryAfterSeconds(waitNanos);
+        APIGatewayProxyResponseEvent response =
+                createResponse(429, ErrorHandler.handleRateLimitError(userId, retryAfter, context));
+        if (response.getHeaders() != null) {
+            response.getHeaders().put("Retry-After", String.valueOf(retryAfter));
+        }
+        return response;
+    }
+
     private APIGatewayProxyResponseEvent createResponse(int statusCode, Object body) {
         try {
             APIGatewayProxyResponseEvent response = new APIGatewayProxyResponseEvent();
             response.setStatusCode(statusCode);
-            response.setBody(objectMapper.writeValueAsString(body));
+            response.setBody(JsonMappers.JSON.writer(body.getClass()).writeValueAsString(body));
 
             Map<String, String> headers = new HashMap<>();
             headers.put("Content-Type", "application/json");
@@ -0,0 +1,67 @@
+package com.health.chat.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.health.chat.repository.RecordCodec;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.service.ErrorHandler;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AWS Lambda handler for the monthly health data compaction, triggered by an EventBridge schedule.
+ * Merges every closed month's per-message health objects into one object per user and month.
+ */
+public class CompactionHandler implements RequestHandler<ScheduledEvent, Map<String, Object>> {
+
+    private final S3DataRepository dataRepository;
+
+    public CompactionHandler() {
+        String bucketName = System.getenv("S3_BUCKET_NAME");
+        if (bucketName == null || bucketName.isEmpty()) {
+            bucketName = "health-chat-data";
+        }
+
+        S3Client s3Client = S3Client.builder()
+                .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
+                .build();
+
+        this.dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
+    }
+
+    // Constructor for testing
+    public CompactionHandler(S3DataRepository dataRepository) {
+        this.dataRepository = dataRepository;
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(ScheduledEvent event, Context context) {
+        List<String> userIds = dataRepository.listUserIds();
+        ErrorHandler.logInfo("Compacting health data for " + userIds.size() + " users", context);
+
+        int monthsCompacted = 0;
+        int failedUsers = 0;
+        for (String userId : userIds) {
+            try {
+                monthsCompacted += dataRepository.compactClosedHealthMonths(userId);
+            } catch (Exception e) {
+                // Nothing is deleted before the compacted object is written, so the next run retries safely
+                failedUsers++;
+                ErrorHandler.handleDataAccessError("compact health data for " + userId, context, e);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", userIds.size());
+        result.put("monthsCompacted", monthsCompacted);
+        result.put("failedUsers", failedUsers);
+        ErrorHandler.logSuccess("health data compaction", context);
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package com.health.chat.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.health.chat.model.DailySummary;
+import com.health.chat.repository.RecordCodec;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.service.BasicNutritionEstimator;
+import com.health.chat.service.DailySummaryService;
+import com.health.chat.service.ErrorHandler;
+import com.health.chat.service.SimpleTankaGenerator;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AWS Lambda handler for the nightly daily summary precomputation, triggered by an
+ * EventBridge schedule. Materializes yesterday's summary for every user with entries,
+ * which {@code GET /analysis/daily} then serves with one read. Yesterday is taken in
+ * {@link DailySummary#ZONE}, not in the Lambda's UTC clock.
+ */
+public class DailySummaryHandler implements RequestHandler<ScheduledEvent, Map<String, Object>> {
+
+    private final S3DataRepository dataRepository;
+    private final DailySummaryService summaryService;
+
+    public DailySummaryHandler() {
+        String bucketName = System.getenv("S3_BUCKET_NAME");
+        if (bucketName == null || bucketName.isEmpty()) {
+            bucketName = "health-chat-data";
+        }
+
+        S3Client s3Client = S3Client.builder()
+                .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
+                .build();
+
+        this.dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
+        this.summaryService = new DailySummaryService(dataRepository, new BasicNutritionEstimator(dataRepository),
+                new SimpleTankaGenerator(),
+                Integer.parseInt(System.getenv().getOrDefault("SUMMARY_PARALLELISM", "8")),
+                Integer.parseInt(System.getenv().getOrDefault("SUMMARY_MAX_STORAGE_CALLS", "16")));
+    }
+
+    // Constructor for testing
+    public DailySummaryHandler(S3DataRepository dataRepository, DailySummaryService summaryService) {
+        this.dataRepository = dataRepository;
+        this.summaryService = summaryService;
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(ScheduledEvent event, Context context) {
+        LocalDate date = LocalDate.now(DailySummary.ZONE).minusDays(1);
+        List<String> userIds = dataRepository.listUserIds();
+        ErrorHandler.logInfo("Precomputing daily summaries for " + date + " over " + userIds.size() + " users",
+                context);
+
+        DailySummaryService.Result result = summaryService.precompute(userIds, date);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("date", date.toString());
+        response.put("users", result.getUsers());
+        response.put("summarized", result.getSummarized());
+        response.put("failed", result.getFailed());
+        ErrorHandler.logSuccess("daily summary precomputation", context);
+        return response;
+    }
+}
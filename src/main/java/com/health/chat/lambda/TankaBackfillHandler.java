@@ -0,0 +1,110 @@
+package com.health.chat.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.ScheduledEvent;
+import com.health.chat.repository.RecordCodec;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.service.ErrorHandler;
+import com.health.chat.service.SimpleTankaGenerator;
+import com.health.chat.service.TankaBackfillService;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AWS Lambda handler for the nightly tanka backfill, triggered by an EventBridge schedule.
+ * Generates tanka for past days that have health data but no tanka yet. Users left over
+ * when the invocation nears its timeout are picked up by the next run from the checkpoint,
+ * which finishes the window the stopped run started with before moving on.
+ */
+public class TankaBackfillHandler implements RequestHandler<ScheduledEvent, Map<String, Object>> {
+
+    static final String JOB_NAME = "tanka-backfill";
+    // Stop taking new users this long before the Lambda timeout
+    private static final long STOP_MARGIN_MILLIS = 60_000L;
+
+    private final S3DataRepository dataRepository;
+    private final TankaBackfillService backfillService;
+    private final int days;
+    private final Clock clock;
+
+    public TankaBackfillHandler() {
+        String bucketName = System.getenv("S3_BUCKET_NAME");
+        if (bucketName == null || bucketName.isEmpty()) {
+            bucketName = "health-chat-data";
+        }
+
+        S3Client s3Client = S3Client.builder()
+                .region(Region.of(System.getenv().getOrDefault("AWS_REGION", "us-east-1")))
+                .build();
+
+        this.dataRepository = new S3DataRepository(s3Client, bucketName,
+                RecordCodec.forName(System.getenv("STORAGE_CODEC")));
+        this.backfillService = new TankaBackfillService(dataRepository, new SimpleTankaGenerator(),
+                Integer.parseInt(System.getenv().getOrDefault("BACKFILL_PARALLELISM", "4")),
+                Double.parseDouble(System.getenv().getOrDefault("BACKFILL_TANKAS_PER_SECOND", "10")));
+        this.days = Integer.parseInt(System.getenv().getOrDefault("BACKFILL_DAYS", "365"));
+        this.clock = Clock.systemDefaultZone();
+    }
+
+    // Constructor for testing
+    public TankaBackfillHandler(S3DataRepository dataRepository, TankaBackfillService backfillService, int days) {
+        this(dataRepository, backfillService, days, Clock.systemDefaultZone());
+    }
+
+    // Constructor for testing
+    TankaBackfillHandler(S3DataRepository dataRepository, TankaBackfillService backfillService, int days,
+                         Clock clock) {
+        this.dataRepository = dataRepository;
+        this.backfillService = backfillService;
+        this.days = days;
+        this.clock = clock;
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(ScheduledEvent event, Context context) {
+        // Today is left to the chat flow, which writes its own tanka
+        LocalDate end = LocalDate.now(clock).minusDays(1);
+        LocalDate start = end.minusDays(days - 1);
+        List<String> userIds = dataRepository.listUserIds();
+        ErrorHandler.logInfo("Backfilling tanka from " + start + " to " + end + " for " + userIds.size() + " users",
+                context);
+
+        TankaBackfillService.Result result = backfillService.backfill(userIds, start, end, new S3CheckpointStore(),
+                () -> context != null && context.getRemainingTimeInMillis() < STOP_MARGIN_MILLIS);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("start", result.getStart().toString());
+        response.put("end", result.getEnd().toString());
+        response.put("users", result.getUsers());
+        response.put("resumedUsers", result.getResumedUsers());
+        response.put("tankasWritten", result.getTankasWritten());
+        response.put("failedUsers", result.getFailedUsers());
+        response.put("complete", result.isComplete());
+        ErrorHandler.logSuccess("tanka backfill", context);
+        return response;
+    }
+
+    private class S3CheckpointStore implements TankaBackfillService.CheckpointStore {
+        @Override
+        public TankaBackfillService.Checkpoint load() {
+            return dataRepository.getJobState(JOB_NAME, TankaBackfillService.Checkpoint.class);
+        }
+
+        @Override
+        public void save(TankaBackfillService.Checkpoint checkpoint) {
+            dataRepository.saveJobState(JOB_NAME, checkpoint);
+        }
+
+        @Override
+        public void clear() {
+            dataRepository.deleteJobState(JOB_NAME);
+        }
+    }
+}
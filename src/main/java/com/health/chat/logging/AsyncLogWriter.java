@@ -0,0 +1,126 @@
+package com.health.chat.logging;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Bounded queue plus one daemon thread that writes {@link StructuredLogger} entries.
+ *
+ * <p>Request threads never block on logging: when the queue is full the entry is
+ * dropped and counted, and the writer reports the number of dropped entries once
+ * it catches up. Set {@code -Dhealth.chat.log.async=false} to write on the
+ * calling thread instead, and {@code -Dhealth.chat.log.queue-size} to change the
+ * capacity. Inside AWS Lambda, where the process is frozen between invocations,
+ * writes are synchronous unless async is requested explicitly.
+ */
+public final class AsyncLogWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogWriter.class.getName());
+    private static final int DEFAULT_QUEUE_SIZE = 8192;
+
+    private final BlockingQueue<LogEntry> queue;
+    private final boolean async;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+
+    AsyncLogWriter(int capacity, boolean async) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.async = async;
+        if (async) {
+            Thread writer = new Thread(this::drainLoop, "structured-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::drainRemaining, "structured-log-flush"));
+        }
+    }
+
+    public static AsyncLogWriter getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    void submit(LogEntry entry) {
+        if (!async) {
+            write(entry);
+            return;
+        }
+        submitted.incrementAndGet();
+        if (!queue.offer(entry)) {
+            submitted.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Waits until every entry submitted so far has been written, or the timeout expires.
+     *
+     * @return true if the queue was drained in time
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long target = submitted.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (written.get() < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of entries dropped because the queue was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                LogEntry entry = queue.take();
+                write(entry);
+                written.incrementAndGet();
+                long drops = dropped.get();
+                if (drops != reportedDrops && queue.isEmpty()) {
+                    LOGGER.warning("log.dropped count=" + (drops - reportedDrops) + " total=" + drops);
+                    reportedDrops = drops;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // A broken handler must not stop the writer thread
+                written.incrementAndGet();
+            }
+        }
+    }
+
+    private void drainRemaining() {
+        LogEntry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+            written.incrementAndGet();
+        }
+    }
+
+    private static void write(LogEntry entry) {
+        entry.logger.log(entry.toRecord());
+    }
+
+    private static final class Holder {
+        static final AsyncLogWriter INSTANCE = new AsyncLogWriter(
+                Integer.getInteger("health.chat.log.queue-size", DEFAULT_QUEUE_SIZE),
+                Boolean.parseBoolean(System.getProperty("health.chat.log.async",
+                        String.valueOf(System.getenv("AWS_LAMBDA_FUNCTION_NAME") == null))));
+    }
+}
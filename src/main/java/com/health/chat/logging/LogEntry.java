@@ -0,0 +1,87 @@
+package com.health.chat.logging;
+
+import java.time.Instant;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * One structured event waiting in the log queue. Formatting is deferred until
+ * the writer thread turns it into a {@link LogRecord}.
+ */
+final class LogEntry {
+
+    final Logger logger;
+    private final Level level;
+    private final String event;
+    private final Throwable thrown;
+    private final Object[] fields;
+    private final long timestampMillis;
+
+    LogEntry(Logger logger, Level level, String event, Throwable thrown, Object[] fields) {
+        this.logger = logger;
+        this.level = level;
+        this.event = event;
+        this.thrown = thrown;
+        this.fields = fields;
+        this.timestampMillis = System.currentTimeMillis();
+    }
+
+    LogRecord toRecord() {
+        LogRecord record = new LogRecord(level, format());
+        record.setLoggerName(logger.getName());
+        // Setting the source stops JUL from walking the writer thread's stack to infer it
+        record.setSourceClassName(logger.getName());
+        record.setThrown(thrown);
+        record.setInstant(Instant.ofEpochMilli(timestampMillis));
+        return record;
+    }
+
+    /**
+     * Formats as {@code event key=value key="value with spaces"}.
+     */
+    String format() {
+        StringBuilder sb = new StringBuilder(event.length() + fields.length * 12);
+        sb.append(event);
+        for (int i = 0; i < fields.length; i += 2) {
+            sb.append(' ').append(fields[i]).append('=');
+            appendValue(sb, i + 1 < fields.length ? fields[i + 1] : null);
+        }
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Object value) {
+        String text = String.valueOf(value);
+        if (!needsQuotes(text)) {
+            sb.append(text);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c == '\r') {
+                sb.append("\\r");
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsQuotes(String text) {
+        if (text.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c <= ' ' || c == '"' || c == '=' || c == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.health.chat.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logging facade for the request hot path.
+ *
+ * <p>Each call names an event and passes key/value pairs instead of a
+ * concatenated message, e.g. {@code LOG.info("s3.object.saved", "key", key)}.
+ * When the level is disabled the call returns after one level check; otherwise
+ * the event is handed to {@link AsyncLogWriter}, which formats it as
+ * {@code event key=value ...} and writes it to the java.util.logging logger of
+ * the same name on a background thread. High-frequency events can be declared
+ * with {@link #sampled} so only one in N occurrences is written.
+ */
+public final class StructuredLogger {
+
+    private final Logger logger;
+
+    private StructuredLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static StructuredLogger getLogger(Class<?> type) {
+        return new StructuredLogger(Logger.getLogger(type.getName()));
+    }
+
+    public boolean isLoggable(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    public void fine(String event, Object... fields) {
+        log(Level.FINE, event, null, fields);
+    }
+
+    public void info(String event, Object... fields) {
+        log(Level.INFO, event, null, fields);
+    }
+
+    public void warning(String event, Object... fields) {
+        log(Level.WARNING, event, null, fields);
+    }
+
+    public void warning(String event, Throwable thrown, Object... fields) {
+        log(Level.WARNING, event, thrown, fields);
+    }
+
+    public void severe(String event, Object... fields) {
+        log(Level.SEVERE, event, null, fields);
+    }
+
+    public void severe(String event, Throwable thrown, Object... fields) {
+        log(Level.SEVERE, event, thrown, fields);
+    }
+
+    /**
+     * Logs an event with alternating key/value fields.
+     */
+    public void log(Level level, String event, Throwable thrown, Object... fields) {
+        if (logger.isLoggable(level)) {
+            AsyncLogWriter.getInstance().submit(new LogEntry(logger, level, event, thrown, fields));
+        }
+    }
+
+    /**
+     * Declares a high-frequency event of which only every {@code oneIn}-th occurrence is written.
+     * Written entries carry a {@code sample} field with the rate so counts can be scaled back up.
+     */
+    public SampledEvent sampled(String event, Level level, int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("Sampling rate must be at least 1: " + oneIn);
+        }
+        return new SampledEvent(event, level, oneIn);
+    }
+
+    /**
+     * An event logged at a fixed level and sampling rate.
+     */
+    public final class SampledEvent {
+        private final String event;
+        private final Level level;
+        private final int oneIn;
+        private final AtomicLong occurrences = new AtomicLong();
+
+        private SampledEvent(String event, Level level, int oneIn) {
+            this.event = event;
+            this.level = level;
+            this.oneIn = oneIn;
+        }
+
+        public void log(Object... fields) {
+            if (!logger.isLoggable(level)) {
+                return;
+            }
+            if (oneIn > 1 && occurrences.getAndIncrement() % oneIn != 0) {
+                return;
+            }
+            Object[] sampledFields = new Object[fields.length + 2];
+            System.arraycopy(fields, 0, sampledFields, 0, fields.length);
+            sampledFields[fields.length] = "sample";
+            sampledFields[fields.length + 1] = oneIn;
+            AsyncLogWriter.getInstance().submit(new LogEntry(logger, level, event, null, sampledFields));
+        }
+    }
+}
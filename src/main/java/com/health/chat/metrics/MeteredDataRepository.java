@@ -0,0 +1,132 @@
+package com.health.chat.metrics;
+
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+import com.health.chat.repository.DataRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DataRepository decorator that times every call, tagged with the operation
+ * (save, get, range, history, lookup) and the record type it touches.
+ */
+public class MeteredDataRepository implements DataRepository {
+
+    private final DataRepository delegate;
+    private final PipelineMetrics metrics;
+
+    public MeteredDataRepository(DataRepository delegate, PipelineMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public DataRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void saveHealthData(String userId, HealthData data) {
+        metrics.timeRepository("save", "health", () -> delegate.saveHealthData(userId, data));
+    }
+
+    @Override
+    public void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        metrics.timeRepository("save_batch", "health", () -> delegate.saveHealthDataBatch(userId, date, data));
+    }
+
+    @Override
+    public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
+        return metrics.timeRepository("range", "health", () -> delegate.getHealthDataByDateRange(userId, start, end));
+    }
+
+    @Override
+    public BodyMetricsSeries getBodyMetrics(String userId, LocalDate start, LocalDate end) {
+        return metrics.timeRepository("range", "body_metrics", () -> delegate.getBodyMetrics(userId, start, end));
+    }
+
+    @Override
+    public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
+        metrics.timeRepository("save", "nutrition", () -> delegate.saveNutritionInfo(userId, date, info));
+    }
+
+    @Override
+    public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
+        return metrics.timeRepository("get", "nutrition", () -> delegate.getNutritionInfo(userId, date));
+    }
+
+    @Override
+    public List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end) {
+        return metrics.timeRepository("range", "nutrition", () -> delegate.getNutritionInfoByDateRange(userId, start, end));
+    }
+
+    @Override
+    public void saveMentalState(String userId, LocalDate date, MentalState state) {
+        metrics.timeRepository("save", "mental", () -> delegate.saveMentalState(userId, date, state));
+    }
+
+    @Override
+    public MentalState getMentalState(String userId, LocalDate date) {
+        return metrics.timeRepository("get", "mental", () -> delegate.getMentalState(userId, date));
+    }
+
+    @Override
+    public List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end) {
+        return metrics.timeRepository("range", "mental", () -> delegate.getMentalStatesByDateRange(userId, start, end));
+    }
+
+    @Override
+    public void saveTanka(String userId, TankaPoem tanka) {
+        metrics.timeRepository("save", "tanka", () -> delegate.saveTanka(userId, tanka));
+    }
+
+    @Override
+    public void saveTankaBatch(String userId, List<TankaPoem> tankas) {
+        metrics.timeRepository("save_batch", "tanka", () -> delegate.saveTankaBatch(userId, tankas));
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        metrics.timeRepository("save", "summary", () -> delegate.saveDailySummary(userId, summary));
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        return metrics.timeRepository("get", "summary", () -> delegate.getDailySummary(userId, date));
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        metrics.timeRepository("delete", "summary", () -> delegate.deleteDailySummary(userId, date));
+    }
+
+    @Override
+    public List<TankaPoem> getTankaHistory(String userId) {
+        return metrics.timeRepository("history", "tanka", () -> delegate.getTankaHistory(userId));
+    }
+
+    @Override
+    public List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end) {
+        return metrics.timeRepository("range", "tanka", () -> delegate.getTankasByDateRange(userId, start, end));
+    }
+
+    @Override
+    public void saveUserProfile(UserProfile profile) {
+        metrics.timeRepository("save", "profile", () -> delegate.saveUserProfile(profile));
+    }
+
+    @Override
+    public UserProfile getUserProfile(String userId) {
+        return metrics.timeRepository("get", "profile", () -> delegate.getUserProfile(userId));
+    }
+
+    @Override
+    public UserProfile getUserProfileByUsername(String username) {
+        return metrics.timeRepository("lookup", "profile", () -> delegate.getUserProfileByUsername(username));
+    }
+}
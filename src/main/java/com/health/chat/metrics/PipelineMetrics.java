@@ -0,0 +1,248 @@
+package com.health.chat.metrics;
+
+import com.health.chat.jfr.PipelineStageEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer timers and counters for the chat pipeline.
+ *
+ * <p>Every timer carries an {@code outcome} tag so failures can be told apart from
+ * slow successes. With Spring the meters appear under {@code /actuator/metrics};
+ * components built without a registry (Lambda handlers, tests) use {@link #noop()}.
+ * Stages are also emitted as JFR events, which cost nothing unless a recording is running.
+ * Timers and counters are registered once per name and tag values and then reused, so
+ * recording on the request path does not build or look up meters in the registry.
+ */
+public class PipelineMetrics {
+
+    /** Chat pipeline stage: parse, nutrition, mental, advice, tanka, save. */
+    public static final String STAGE_TIMER = "chat.pipeline.stage";
+    /** DataRepository call, tagged with operation and record type. */
+    public static final String REPOSITORY_TIMER = "chat.repository.operation";
+    /** Records returned by repository reads, tagged with record type. */
+    public static final String REPOSITORY_RECORDS = "chat.repository.records";
+    /** MCP research request per topic, or for the whole {@code batch}, including retries. */
+    public static final String MCP_TIMER = "chat.mcp.request";
+    /** JWT validation and subject extraction. */
+    public static final String TOKEN_TIMER = "chat.auth.token";
+    /** Prefetched research refresh per query, including retries. */
+    public static final String RESEARCH_REFRESH_TIMER = "chat.mcp.prefetch.refresh";
+    /** Prefetched research lookups, tagged with result (hit, stale, miss). */
+    public static final String RESEARCH_LOOKUPS = "chat.mcp.prefetch.lookups";
+    /** Age in seconds of the oldest prefetched research entry. */
+    public static final String RESEARCH_AGE = "chat.mcp.prefetch.age";
+    /** Connections of an HTTP client pool, tagged with pool and state (leased, available, pending). */
+    public static final String HTTP_POOL_CONNECTIONS = "chat.http.pool.connections";
+    /** Requests rejected by a per-user rate limit, tagged with the endpoint class. */
+    public static final String RATE_LIMITED = "chat.ratelimit.rejected";
+    /** Current adaptive limit on chat pipelines running at once. */
+    public static final String CONCURRENCY_LIMIT = "chat.concurrency.limit";
+    /** Chat pipelines running. */
+    public static final String CONCURRENCY_IN_FLIGHT = "chat.concurrency.inflight";
+    /** Chat requests by admission, tagged with mode (full, degraded, rejected). */
+    public static final String CONCURRENCY_ADMISSIONS = "chat.concurrency.admissions";
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    private static final PipelineMetrics NOOP = new PipelineMetrics(new CompositeMeterRegistry());
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Metrics backed by an empty composite registry, so recording costs next to nothing.
+     */
+    public static PipelineMetrics noop() {
+        return NOOP;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Times one chat pipeline stage.
+     */
+    public <T> T timeStage(String stage, Supplier<T> work) {
+        PipelineStageEvent event = new PipelineStageEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = work.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            record(STAGE_TIMER, start, "stage", stage, "outcome", outcome);
+            if (event.shouldCommit()) {
+                event.stage = stage;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    public void timeStage(String stage, Runnable work) {
+        timeStage(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Times one repository call; collection results are also counted as records read.
+     */
+    public <T> T timeRepository(String operation, String recordType, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = work.get();
+            outcome = SUCCESS;
+            if (result instanceof Collection) {
+                countRecords(recordType, ((Collection<?>) result).size());
+            } else if (result != null) {
+                countRecords(recordType, 1);
+            }
+            return result;
+        } finally {
+            record(REPOSITORY_TIMER, start, "operation", operation, "record", recordType, "outcome", outcome);
+        }
+    }
+
+    public void timeRepository(String operation, String recordType, Runnable work) {
+        timeRepository(operation, recordType, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records an MCP request for one topic.
+     */
+    public void recordMcpRequest(String topic, String outcome, long startNanos) {
+        record(MCP_TIMER, startNanos, "topic", topic, "outcome", outcome);
+    }
+
+    /**
+     * Records a token check; outcome is {@code valid}, {@code invalid} or {@code error}.
+     */
+    public void recordToken(String operation, String outcome, long startNanos) {
+        record(TOKEN_TIMER, startNanos, "operation", operation, "outcome", outcome);
+    }
+
+    /**
+     * Records a refresh of prefetched research for one query.
+     */
+    public void recordResearchRefresh(String outcome, long startNanos) {
+        record(RESEARCH_REFRESH_TIMER, startNanos, "outcome", outcome);
+    }
+
+    /**
+     * Counts a lookup of prefetched research; result is {@code hit}, {@code stale} or {@code miss}.
+     */
+    public void countResearchLookup(String result) {
+        counter(RESEARCH_LOOKUPS, "result", result).increment();
+    }
+
+    /**
+     * Publishes the age of the oldest prefetched research entry, in seconds.
+     */
+    public void gaugeResearchAge(Supplier<Number> ageSeconds) {
+        Gauge.builder(RESEARCH_AGE, ageSeconds).register(registry);
+    }
+
+    /**
+     * Counts a request rejected by the rate limit of an endpoint class.
+     */
+    public void countRateLimited(String endpointClass) {
+        counter(RATE_LIMITED, "endpoint", endpointClass).increment();
+    }
+
+    /**
+     * Publishes the adaptive concurrency limit and the requests running under it.
+     */
+    public void gaugeConcurrency(Supplier<Number> limit, Supplier<Number> inFlight) {
+        Gauge.builder(CONCURRENCY_LIMIT, limit).register(registry);
+        Gauge.builder(CONCURRENCY_IN_FLIGHT, inFlight).register(registry);
+    }
+
+    /**
+     * Counts a chat request by how it was admitted: {@code full}, {@code degraded} or {@code rejected}.
+     */
+    public void countAdmission(String mode) {
+        counter(CONCURRENCY_ADMISSIONS, "mode", mode).increment();
+    }
+
+    /**
+     * Publishes an HTTP connection pool as gauges; {@code stats} returns the leased,
+     * available and pending counts and is read once per gauge on every scrape.
+     */
+    public void gaugeConnectionPool(String pool, Supplier<int[]> stats) {
+        String[] states = {"leased", "available", "pending"};
+        for (int i = 0; i < states.length; i++) {
+            int index = i;
+            Gauge.builder(HTTP_POOL_CONNECTIONS, () -> stats.get()[index])
+                    .tag("pool", pool)
+                    .tag("state", states[i])
+                    .register(registry);
+        }
+    }
+
+    private void countRecords(String recordType, int count) {
+        if (count > 0) {
+            counter(REPOSITORY_RECORDS, "record", recordType).increment(count);
+        }
+    }
+
+    private void record(String name, long startNanos, String... tags) {
+        long elapsed = System.nanoTime() - startNanos;
+        timers.computeIfAbsent(new MeterKey(name, tags), key -> Timer.builder(name).tags(tags).register(registry))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return counters.computeIfAbsent(new MeterKey(name, tags), key -> Counter.builder(name).tags(tags).register(registry));
+    }
+
+    // Meter name and tag key/value pairs; one cache entry per meter the registry holds anyway
+    private static final class MeterKey {
+        private final String name;
+        private final String[] tags;
+        private final int hash;
+
+        MeterKey(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MeterKey
+                    && name.equals(((MeterKey) other).name)
+                    && Arrays.equals(tags, ((MeterKey) other).tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
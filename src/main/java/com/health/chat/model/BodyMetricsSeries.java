@@ -0,0 +1,98 @@
+package com.health.chat.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Daily weight and body-fat values held as primitive columns.
+ *
+ * <p>One row per day in ascending order. A missing value is {@code NaN}; when a day
+ * has several entries, each column keeps the last non-null value recorded that day.
+ */
+public class BodyMetricsSeries {
+
+    private static final BodyMetricsSeries EMPTY = new BodyMetricsSeries(new int[0], new double[0], new double[0], 0);
+
+    private final int[] epochDays;
+    private final double[] weights;
+    private final double[] bodyFatPercentages;
+    private final int size;
+
+    public BodyMetricsSeries(int[] epochDays, double[] weights, double[] bodyFatPercentages, int size) {
+        this.epochDays = epochDays;
+        this.weights = weights;
+        this.bodyFatPercentages = bodyFatPercentages;
+        this.size = size;
+    }
+
+    public static BodyMetricsSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a series from full health entries, for repositories without a columnar store.
+     */
+    public static BodyMetricsSeries fromHealthData(List<HealthData> data) {
+        if (data == null || data.isEmpty()) {
+            return EMPTY;
+        }
+        List<HealthData> sorted = new ArrayList<>(data);
+        sorted.sort(Comparator.comparing(HealthData::getDate));
+
+        int[] days = new int[sorted.size()];
+        double[] weights = new double[sorted.size()];
+        double[] bodyFat = new double[sorted.size()];
+        int size = 0;
+        for (HealthData entry : sorted) {
+            if (entry.getWeight() == null && entry.getBodyFatPercentage() == null) {
+                continue;
+            }
+            int day = (int) entry.getDate().toEpochDay();
+            if (size == 0 || days[size - 1] != day) {
+                days[size] = day;
+                weights[size] = Double.NaN;
+                bodyFat[size] = Double.NaN;
+                size++;
+            }
+            if (entry.getWeight() != null) {
+                weights[size - 1] = entry.getWeight();
+            }
+            if (entry.getBodyFatPercentage() != null) {
+                bodyFat[size - 1] = entry.getBodyFatPercentage();
+            }
+        }
+        return new BodyMetricsSeries(days, weights, bodyFat, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEpochDay(int index) {
+        return epochDays[index];
+    }
+
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    /**
+     * Weight in kg, or {@code NaN} if none was recorded that day.
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Body-fat percentage, or {@code NaN} if none was recorded that day.
+     */
+    public double getBodyFatPercentage(int index) {
+        return bodyFatPercentages[index];
+    }
+}
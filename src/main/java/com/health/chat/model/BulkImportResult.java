@@ -0,0 +1,53 @@
+package com.health.chat.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkImportResult {
+    private int importedCount;
+    private int rejectedCount;
+    private int daysWritten;
+    private List<String> errors = new ArrayList<>();
+
+    public BulkImportResult() {
+    }
+
+    public BulkImportResult(int importedCount, int rejectedCount, int daysWritten, List<String> errors) {
+        this.importedCount = importedCount;
+        this.rejectedCount = rejectedCount;
+        this.daysWritten = daysWritten;
+        this.errors = errors;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public void setImportedCount(int importedCount) {
+        this.importedCount = importedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public int getDaysWritten() {
+        return daysWritten;
+    }
+
+    public void setDaysWritten(int daysWritten) {
+        this.daysWritten = daysWritten;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
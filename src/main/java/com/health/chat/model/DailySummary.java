@@ -0,0 +1,101 @@
+package com.health.chat.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Everything the daily analysis shows for one user and day, materialized after the day
+ * has closed so it can be served with a single read.
+ */
+public class DailySummary {
+    /**
+     * Zone in which days close. Lambda functions run in UTC, so day boundaries are never
+     * taken from the system default.
+     */
+    public static final ZoneId ZONE = ZoneId.of("Asia/Tokyo");
+
+    private String userId;
+    private LocalDate date;
+    private List<HealthData> healthData;
+    private DailyNutrition nutrition;
+    private MentalState mentalState;
+    private TankaPoem tanka;
+    private LocalDateTime generatedAt;
+
+    public DailySummary() {
+    }
+
+    /** Whether {@code date} has ended in {@link #ZONE}, so its summary can be materialized. */
+    public static boolean isClosed(LocalDate date) {
+        return date.isBefore(LocalDate.now(ZONE));
+    }
+
+    public DailySummary(String userId, LocalDate date, List<HealthData> healthData, DailyNutrition nutrition,
+                        MentalState mentalState, TankaPoem tanka, LocalDateTime generatedAt) {
+        this.userId = userId;
+        this.date = date;
+        this.healthData = healthData;
+        this.nutrition = nutrition;
+        this.mentalState = mentalState;
+        this.tanka = tanka;
+        this.generatedAt = generatedAt;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public List<HealthData> getHealthData() {
+        return healthData;
+    }
+
+    public void setHealthData(List<HealthData> healthData) {
+        this.healthData = healthData;
+    }
+
+    public DailyNutrition getNutrition() {
+        return nutrition;
+    }
+
+    public void setNutrition(DailyNutrition nutrition) {
+        this.nutrition = nutrition;
+    }
+
+    public MentalState getMentalState() {
+        return mentalState;
+    }
+
+    public void setMentalState(MentalState mentalState) {
+        this.mentalState = mentalState;
+    }
+
+    public TankaPoem getTanka() {
+        return tanka;
+    }
+
+    public void setTanka(TankaPoem tanka) {
+        this.tanka = tanka;
+    }
+
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+}
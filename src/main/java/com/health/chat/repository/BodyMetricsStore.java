@@ -0,0 +1,313 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.BodyMetricsSeries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * Per-user columnar file of daily weight and body-fat values, read through memory-mapped buffers.
+ *
+ * <p>File layout (big-endian):
+ * <pre>
+ *   0  int    magic "HMC1"
+ *   4  int    format version
+ *   8  int    capacity (rows allocated per column)
+ *  12  int    count (rows in use, sorted by epoch day)
+ *  16  int    coveredFrom: every day from here on is in the file
+ *  32  int[capacity]     epoch days
+ *      double[capacity]  weight (NaN = not recorded)
+ *      double[capacity]  body-fat percentage (NaN = not recorded)
+ * </pre>
+ * Range reads binary-search the day column and copy only the matching rows, so a six-month
+ * graph touches a few kilobytes. Appends and same-day updates are written in place; an
+ * out-of-order day or a full file rewrites the columns with twice the capacity.
+ *
+ * <p>Not thread-safe per user: callers serialize writes and exclude reads during writes.
+ */
+public class BodyMetricsStore {
+
+    /** Returned by {@link #getCoveredFrom} when the user has no usable file yet. */
+    public static final int NOT_COVERED = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x484D4331;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 12;
+    private static final int COVERED_FROM_OFFSET = 16;
+    private static final int MIN_CAPACITY = 64;
+    private static final Pattern SAFE_USER_ID = Pattern.compile("[A-Za-z0-9_.-]+");
+
+    private final Path directory;
+
+    public BodyMetricsStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * First epoch day from which the file is complete, or {@link #NOT_COVERED}.
+     */
+    public int getCoveredFrom(String userId) throws IOException {
+        Path path = pathFor(userId);
+        if (!Files.isRegularFile(path)) {
+            return NOT_COVERED;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return NOT_COVERED;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            return isValid(header, channel.size()) ? header.getInt(COVERED_FROM_OFFSET) : NOT_COVERED;
+        }
+    }
+
+    /**
+     * Rows whose epoch day falls in {@code [fromDay, toDay]}.
+     */
+    public BodyMetricsSeries read(String userId, int fromDay, int toDay) throws IOException {
+        Path path = pathFor(userId);
+        if (!Files.isRegularFile(path)) {
+            return BodyMetricsSeries.empty();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                return BodyMetricsSeries.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (!isValid(buffer, fileSize)) {
+                return BodyMetricsSeries.empty();
+            }
+            Columns columns = new Columns(buffer.getInt(CAPACITY_OFFSET));
+            int count = buffer.getInt(COUNT_OFFSET);
+
+            int first = lowerBound(buffer, columns, count, fromDay);
+            int last = lowerBound(buffer, columns, count, toDay == Integer.MAX_VALUE ? toDay : toDay + 1);
+            int size = Math.max(0, last - first);
+
+            int[] days = new int[size];
+            double[] weights = new double[size];
+            double[] bodyFat = new double[size];
+            for (int i = 0; i < size; i++) {
+                days[i] = buffer.getInt(columns.day(first + i));
+                weights[i] = buffer.getDouble(columns.weight(first + i));
+                bodyFat[i] = buffer.getDouble(columns.bodyFat(first + i));
+            }
+            return new BodyMetricsSeries(days, weights, bodyFat, size);
+        }
+    }
+
+    /**
+     * Merges rows into the user's file. Non-NaN values overwrite the stored value for the
+     * same day; {@code coveredFrom} only ever moves back in time.
+     */
+    public void merge(String userId, int coveredFrom, BodyMetricsSeries rows) throws IOException {
+        Path path = pathFor(userId);
+        if (getCoveredFrom(userId) == NOT_COVERED) {
+            replace(userId, coveredFrom, rows);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            int count = buffer.getInt(COUNT_OFFSET);
+            Columns columns = new Columns(capacity);
+
+            if (fitsInPlace(buffer, columns, count, capacity, rows)) {
+                int appended = count;
+                for (int i = 0; i < rows.size(); i++) {
+                    int day = rows.getEpochDay(i);
+                    int index = lowerBound(buffer, columns, count, day);
+                    if (index == count || buffer.getInt(columns.day(index)) != day) {
+                        index = appended++;
+                        buffer.putInt(columns.day(index), day);
+                        buffer.putDouble(columns.weight(index), Double.NaN);
+                        buffer.putDouble(columns.bodyFat(index), Double.NaN);
+                    }
+                    putIfPresent(buffer, columns.weight(index), rows.getWeight(i));
+                    putIfPresent(buffer, columns.bodyFat(index), rows.getBodyFatPercentage(i));
+                }
+                // Count last, so a reader never sees a row before its values
+                buffer.putInt(COUNT_OFFSET, appended);
+                buffer.putInt(COVERED_FROM_OFFSET, Math.min(buffer.getInt(COVERED_FROM_OFFSET), coveredFrom));
+                return;
+            }
+
+            BodyMetricsSeries existing = read(userId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            int previousCoveredFrom = buffer.getInt(COVERED_FROM_OFFSET);
+            write(channel, Math.min(previousCoveredFrom, coveredFrom), mergeSorted(existing, rows));
+        }
+    }
+
+    /**
+     * Replaces the user's file with exactly these rows.
+     */
+    public void replace(String userId, int coveredFrom, BodyMetricsSeries rows) throws IOException {
+        Path path = pathFor(userId);
+        Files.createDirectories(directory);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            write(channel, coveredFrom, rows);
+        }
+    }
+
+    /**
+     * Marks the user's file as unusable so the next access rebuilds it.
+     */
+    public void invalidate(String userId) throws IOException {
+        Path path = pathFor(userId);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 0);
+        }
+    }
+
+    private Path pathFor(String userId) {
+        if (userId == null || !SAFE_USER_ID.matcher(userId).matches() || userId.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid user id for body metrics store: " + userId);
+        }
+        return directory.resolve(userId + ".col");
+    }
+
+    // Files only ever grow: rewriting in place instead of renaming keeps older mappings valid
+    private static void write(FileChannel channel, int coveredFrom, BodyMetricsSeries rows) throws IOException {
+        int capacity = MIN_CAPACITY;
+        while (capacity < rows.size() * 2) {
+            capacity *= 2;
+        }
+        capacity = Math.max(capacity, (int) ((channel.size() - HEADER_BYTES) / Columns.ROW_BYTES));
+        Columns columns = new Columns(capacity);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + capacity * Columns.ROW_BYTES);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(COUNT_OFFSET, rows.size());
+        buffer.putInt(COVERED_FROM_OFFSET, coveredFrom);
+        for (int i = 0; i < rows.size(); i++) {
+            buffer.putInt(columns.day(i), rows.getEpochDay(i));
+            buffer.putDouble(columns.weight(i), rows.getWeight(i));
+            buffer.putDouble(columns.bodyFat(i), rows.getBodyFatPercentage(i));
+        }
+        channel.write(buffer, 0);
+    }
+
+    private static boolean fitsInPlace(ByteBuffer buffer, Columns columns, int count, int capacity,
+                                       BodyMetricsSeries rows) {
+        int lastDay = count > 0 ? buffer.getInt(columns.day(count - 1)) : Integer.MIN_VALUE;
+        int appended = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            int day = rows.getEpochDay(i);
+            if (day > lastDay) {
+                appended++;
+            } else {
+                int index = lowerBound(buffer, columns, count, day);
+                if (index == count || buffer.getInt(columns.day(index)) != day) {
+                    return false;
+                }
+            }
+        }
+        return count + appended <= capacity;
+    }
+
+    private static BodyMetricsSeries mergeSorted(BodyMetricsSeries existing, BodyMetricsSeries rows) {
+        int max = existing.size() + rows.size();
+        int[] days = new int[max];
+        double[] weights = new double[max];
+        double[] bodyFat = new double[max];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < existing.size() || j < rows.size()) {
+            boolean takeExisting = j >= rows.size()
+                    || (i < existing.size() && existing.getEpochDay(i) <= rows.getEpochDay(j));
+            int day = takeExisting ? existing.getEpochDay(i) : rows.getEpochDay(j);
+            double weight = takeExisting ? existing.getWeight(i) : rows.getWeight(j);
+            double fat = takeExisting ? existing.getBodyFatPercentage(i) : rows.getBodyFatPercentage(j);
+            if (takeExisting) {
+                i++;
+            } else {
+                j++;
+            }
+            if (size > 0 && days[size - 1] == day) {
+                if (!Double.isNaN(weight)) {
+                    weights[size - 1] = weight;
+                }
+                if (!Double.isNaN(fat)) {
+                    bodyFat[size - 1] = fat;
+                }
+            } else {
+                days[size] = day;
+                weights[size] = weight;
+                bodyFat[size] = fat;
+                size++;
+            }
+        }
+        return new BodyMetricsSeries(days, weights, bodyFat, size);
+    }
+
+    private static int lowerBound(ByteBuffer buffer, Columns columns, int count, int day) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(columns.day(mid)) < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void putIfPresent(ByteBuffer buffer, int offset, double value) {
+        if (!Double.isNaN(value)) {
+            buffer.putDouble(offset, value);
+        }
+    }
+
+    private static boolean isValid(ByteBuffer header, long fileSize) {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            return false;
+        }
+        int capacity = header.getInt(CAPACITY_OFFSET);
+        int count = header.getInt(COUNT_OFFSET);
+        return capacity > 0 && count >= 0 && count <= capacity
+                && HEADER_BYTES + (long) capacity * Columns.ROW_BYTES <= fileSize;
+    }
+
+    /** Byte offsets of each column for a given capacity. */
+    private static final class Columns {
+        static final int ROW_BYTES = Integer.BYTES + 2 * Double.BYTES;
+
+        private final int weightStart;
+        private final int bodyFatStart;
+
+        Columns(int capacity) {
+            this.weightStart = HEADER_BYTES + capacity * Integer.BYTES;
+            this.bodyFatStart = weightStart + capacity * Double.BYTES;
+        }
+
+        int day(int index) {
+            return HEADER_BYTES + index * Integer.BYTES;
+        }
+
+        int weight(int index) {
+            return weightStart + index * Double.BYTES;
+        }
+
+        int bodyFat(int index) {
+            return bodyFatStart + index * Double.BYTES;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.health.chat.repository;
+
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * DataRepository decorator that keeps weight and body fat in a {@link BodyMetricsStore}
+ * so graphs never load whole health entries.
+ *
+ * <p>Saves go to the delegate first and then update the columns. The first access for a
+ * user backfills the last {@value #BACKFILL_DAYS} days from the delegate, and reads that
+ * start earlier extend the backfill. All writes for a user must go through this
+ * repository; if a column update fails the user's file is invalidated and rebuilt on the
+ * next read.
+ */
+public class ColumnarBodyMetricsRepository implements DataRepository {
+
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(ColumnarBodyMetricsRepository.class);
+    // Covers the longest graph range (six months)
+    static final int BACKFILL_DAYS = 180;
+
+    private final DataRepository delegate;
+    private final BodyMetricsStore store;
+    private final ConcurrentMap<String, ReadWriteLock> locks = new ConcurrentHashMap<>();
+
+    public ColumnarBodyMetricsRepository(DataRepository delegate, BodyMetricsStore store) {
+        this.delegate = delegate;
+        this.store = store;
+    }
+
+    public DataRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void saveHealthData(String userId, HealthData data) {
+        delegate.saveHealthData(userId, data);
+        if (data.getWeight() != null || data.getBodyFatPercentage() != null) {
+            updateColumns(userId, data.getDate(), BodyMetricsSeries.fromHealthData(List.of(data)));
+        }
+    }
+
+    @Override
+    public void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        delegate.saveHealthDataBatch(userId, date, data);
+        BodyMetricsSeries rows = BodyMetricsSeries.fromHealthData(data);
+        if (!rows.isEmpty()) {
+            updateColumns(userId, date, rows);
+        }
+    }
+
+    @Override
+    public BodyMetricsSeries getBodyMetrics(String userId, LocalDate start, LocalDate end) {
+        ReadWriteLock lock = lockFor(userId);
+        int fromDay = (int) start.toEpochDay();
+        int toDay = (int) end.toEpochDay();
+        try {
+            lock.readLock().lock();
+            try {
+                if (store.getCoveredFrom(userId) <= fromDay) {
+                    return store.read(userId, fromDay, toDay);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                ensureCovered(userId, start);
+                return store.read(userId, fromDay, toDay);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("columns.body_metrics.read_failed", e, "userId", userId);
+            return BodyMetricsSeries.fromHealthData(delegate.getHealthDataByDateRange(userId, start, end));
+        }
+    }
+
+    private void updateColumns(String userId, LocalDate date, BodyMetricsSeries rows) {
+        ReadWriteLock lock = lockFor(userId);
+        lock.writeLock().lock();
+        try {
+            // Backfilling reads the delegate, which already holds the new entries
+            if (ensureCovered(userId, date)) {
+                return;
+            }
+            store.merge(userId, BodyMetricsStore.NOT_COVERED, rows);
+        } catch (IOException | RuntimeException e) {
+            LOG.warning("columns.body_metrics.update_failed", e, "userId", userId, "date", date);
+            try {
+                store.invalidate(userId);
+            } catch (IOException | RuntimeException invalidateFailure) {
+                LOG.severe("columns.body_metrics.invalidate_failed", invalidateFailure, "userId", userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads any days before the covered range from the delegate. Caller holds the write lock.
+     *
+     * @return true if a backfill ran
+     */
+    private boolean ensureCovered(String userId, LocalDate from) throws IOException {
+        int coveredFrom = store.getCoveredFrom(userId);
+        if (coveredFrom <= from.toEpochDay()) {
+            return false;
+        }
+        if (coveredFrom == BodyMetricsStore.NOT_COVERED) {
+            LocalDate today = LocalDate.now();
+            LocalDate start = from.isBefore(today.minusDays(BACKFILL_DAYS)) ? from : today.minusDays(BACKFILL_DAYS);
+            LocalDate end = from.isAfter(today) ? from : today;
+            BodyMetricsSeries rows = BodyMetricsSeries.fromHealthData(delegate.getHealthDataByDateRange(userId, start, end));
+            store.replace(userId, (int) start.toEpochDay(), rows);
+            LOG.info("columns.body_metrics.rebuilt", "userId", userId, "from", start, "rows", rows.size());
+        } else {
+            LocalDate coveredStart = LocalDate.ofEpochDay(coveredFrom);
+            BodyMetricsSeries rows = BodyMetricsSeries.fromHealthData(
+                    delegate.getHealthDataByDateRange(userId, from, coveredStart.minusDays(1)));
+            store.merge(userId, (int) from.toEpochDay(), rows);
+            LOG.info("columns.body_metrics.extended", "userId", userId, "from", from, "rows", rows.size());
+        }
+        return true;
+    }
+
+    private ReadWriteLock lockFor(String userId) {
+        return locks.computeIfAbsent(userId, id -> new ReentrantReadWriteLock());
+    }
+
+    @Override
+    public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getHealthDataByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
+        delegate.saveNutritionInfo(userId, date, info);
+    }
+
+    @Override
+    public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
+        return delegate.getNutritionInfo(userId, date);
+    }
+
+    @Override
+    public List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getNutritionInfoByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveMentalState(String userId, LocalDate date, MentalState state) {
+        delegate.saveMentalState(userId, date, state);
+    }
+
+    @Override
+    public MentalState getMentalState(String userId, LocalDate date) {
+        return delegate.getMentalState(userId, date);
+    }
+
+    @Override
+    public List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getMentalStatesByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveTanka(String userId, TankaPoem tanka) {
+        delegate.saveTanka(userId, tanka);
+    }
+
+    @Override
+    public void saveTankaBatch(String userId, List<TankaPoem> tankas) {
+        delegate.saveTankaBatch(userId, tankas);
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        delegate.saveDailySummary(userId, summary);
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        return delegate.getDailySummary(userId, date);
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        delegate.deleteDailySummary(userId, date);
+    }
+
+    @Override
+    public List<TankaPoem> getTankaHistory(String userId) {
+        return delegate.getTankaHistory(userId);
+    }
+
+    @Override
+    public List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getTankasByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveUserProfile(UserProfile profile) {
+        delegate.saveUserProfile(profile);
+    }
+
+    @Override
+    public UserProfile getUserProfile(String userId) {
+        return delegate.getUserProfile(userId);
+    }
+
+    @Override
+    public UserProfile getUserProfileByUsername(String username) {
+        return delegate.getUserProfileByUsername(username);
+    }
+}
@@ -1,5 +1,7 @@
 package com.health.chat.repository;
 
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.DailySummary;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.MentalState;
 import com.health.chat.model.NutritionInfo;
@@ -10,7 +12,21 @@ import java.util.List;
 
 public interface DataRepository {
     void saveHealthData(String userId, HealthData data);
+    
+    // Writes several entries recorded on the same day; implementations may group them into one write
+    default void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        for (HealthData entry : data) {
+            saveHealthData(userId, entry);
+        }
+    }
+    
     List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end);
+    
+    // Daily weight and body fat only; implementations with a columnar store avoid loading whole entries
+    default BodyMetricsSeries getBodyMetrics(String userId, LocalDate start, LocalDate end) {
+        return BodyMetricsSeries.fromHealthData(getHealthDataByDateRange(userId, start, end));
+    }
+    
     void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info);
     NutritionInfo getNutritionInfo(String userId, LocalDate date);
     List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end);
@@ -18,9 +34,23 @@ public interface DataRepository {
     MentalState getMentalState(String userId, LocalDate date);
     List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end);
     void saveTanka(String userId, TankaPoem tanka);
+    
+    // Writes tanka for several days, e.g. from a backfill; implementations may group them
+    default void saveTankaBatch(String userId, List<TankaPoem> tankas) {
+        for (TankaPoem tanka : tankas) {
+            saveTanka(userId, tanka);
+        }
+    }
+    
     List<TankaPoem> getTankaHistory(String userId);
     List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end);
     
+    // Precomputed summaries of closed days; null means none was materialized for the day.
+    // Any later write to a closed day deletes that day's summary, so a stale one is never read.
+    void saveDailySummary(String userId, DailySummary summary);
+    DailySummary getDailySummary(String userId, LocalDate date);
+    void deleteDailySummary(String userId, LocalDate date);
+    
     // User profile management
     void saveUserProfile(com.health.chat.model.UserProfile profile);
     com.health.chat.model.UserProfile getUserProfile(String userId);
@@ -0,0 +1,346 @@
+package com.health.chat.repository;
+
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * DataRepository kept entirely in memory, for tests, benchmarks and load tests.
+ *
+ * <p>Each user's records live in {@link ConcurrentSkipListMap}s keyed by date, so a
+ * range query is an O(log n) seek plus the days in range, and reads take no lock.
+ * A day's health entries are an immutable list replaced on every append, so readers
+ * never see a list being modified. This is the reference implementation of the
+ * repository contract.
+ *
+ * <p>{@link #snapshot(Path)} writes the whole state to one file with the configured
+ * {@link RecordCodec}, and {@link #restore(Path, RecordCodec)} loads it back.
+ */
+public class InMemoryDataRepository implements DataRepository {
+
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(InMemoryDataRepository.class);
+
+    private final ConcurrentMap<String, UserRecords> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> userIdsByUsername = new ConcurrentHashMap<>();
+    private final RecordCodec codec;
+
+    public InMemoryDataRepository() {
+        this(RecordCodec.SMILE);
+    }
+
+    /**
+     * @param codec format of snapshots
+     */
+    public InMemoryDataRepository(RecordCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void saveHealthData(String userId, HealthData data) {
+        saveHealthDataBatch(userId, data.getDate(), List.of(data));
+    }
+
+    @Override
+    public void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        UserRecords records = records(userId);
+        append(records, date, List.copyOf(data));
+        // A late write to a closed day makes its summary stale; without it the day is computed on demand
+        records.summary.remove(date);
+    }
+
+    @Override
+    public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
+        UserRecords records = users.get(userId);
+        List<HealthData> result = new ArrayList<>();
+        if (records != null) {
+            for (List<HealthData> day : range(records.health, start, end).values()) {
+                result.addAll(day);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
+        UserRecords records = records(userId);
+        records.nutrition.put(date, info);
+        records.summary.remove(date);
+    }
+
+    @Override
+    public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
+        UserRecords records = users.get(userId);
+        return records != null ? records.nutrition.get(date) : null;
+    }
+
+    @Override
+    public List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end) {
+        UserRecords records = users.get(userId);
+        return records != null ? new ArrayList<>(range(records.nutrition, start, end).values()) : new ArrayList<>();
+    }
+
+    @Override
+    public void saveMentalState(String userId, LocalDate date, MentalState state) {
+        UserRecords records = records(userId);
+        records.mental.put(date, state);
+        records.summary.remove(date);
+    }
+
+    @Override
+    public MentalState getMentalState(String userId, LocalDate date) {
+        UserRecords records = users.get(userId);
+        return records != null ? records.mental.get(date) : null;
+    }
+
+    @Override
+    public List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end) {
+        UserRecords records = users.get(userId);
+        return records != null ? new ArrayList<>(range(records.mental, start, end).values()) : new ArrayList<>();
+    }
+
+    @Override
+    public void saveTanka(String userId, TankaPoem tanka) {
+        UserRecords records = records(userId);
+        records.tanka.put(tanka.getDate(), tanka);
+        records.summary.remove(tanka.getDate());
+    }
+
+    @Override
+    public List<TankaPoem> getTankaHistory(String userId) {
+        UserRecords records = users.get(userId);
+        return records != null ? new ArrayList<>(records.tanka.descendingMap().values()) : new ArrayList<>();
+    }
+
+    @Override
+    public List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end) {
+        UserRecords records = users.get(userId);
+        return records != null
+                ? new ArrayList<>(range(records.tanka, start, end).descendingMap().values())
+                : new ArrayList<>();
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        records(userId).summary.put(summary.getDate(), summary);
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        UserRecords records = users.get(userId);
+        return records != null ? records.summary.get(date) : null;
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        UserRecords records = users.get(userId);
+        if (records != null) {
+            records.summary.remove(date);
+        }
+    }
+
+    @Override
+    public void saveUserProfile(UserProfile profile) {
+        UserRecords records = records(profile.getUserId());
+        synchronized (records) {
+            // Keeps the username index in step with the profile when a user is renamed
+            UserProfile previous = records.profile;
+            if (previous != null && previous.getUsername() != null) {
+                userIdsByUsername.remove(previous.getUsername(), profile.getUserId());
+            }
+            records.profile = profile;
+            if (profile.getUsername() != null) {
+                userIdsByUsername.put(profile.getUsername(), profile.getUserId());
+            }
+        }
+    }
+
+    @Override
+    public UserProfile getUserProfile(String userId) {
+        UserRecords records = users.get(userId);
+        return records != null ? records.profile : null;
+    }
+
+    @Override
+    public UserProfile getUserProfileByUsername(String username) {
+        String userId = userIdsByUsername.get(username);
+        return userId != null ? getUserProfile(userId) : null;
+    }
+
+    /**
+     * Writes every record to {@code file}, replacing it atomically. Writes that run
+     * concurrently may or may not be included.
+     */
+    public void snapshot(Path file) throws IOException {
+        Snapshot snapshot = new Snapshot();
+        users.forEach((userId, records) -> snapshot.getUsers().put(userId, records.toSnapshot()));
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.write(temporary, codec.encode(snapshot));
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("memory.snapshot.written", "file", file, "users", snapshot.getUsers().size());
+    }
+
+    /**
+     * A repository holding the records of a snapshot, or an empty one if the file does not exist.
+     */
+    public static InMemoryDataRepository restore(Path file, RecordCodec codec) {
+        InMemoryDataRepository repository = new InMemoryDataRepository(codec);
+        if (!Files.exists(file)) {
+            return repository;
+        }
+        try {
+            Snapshot snapshot = codec.decode(Files.readAllBytes(file), Snapshot.class);
+            snapshot.getUsers().forEach((userId, user) -> {
+                UserRecords records = repository.records(userId);
+                user.getHealth().forEach(entry -> append(records, entry.getDate(), List.of(entry)));
+                user.getNutrition().forEach(records.nutrition::put);
+                user.getMental().forEach(records.mental::put);
+                user.getTanka().forEach(tanka -> records.tanka.put(tanka.getDate(), tanka));
+                user.getSummaries().forEach(summary -> records.summary.put(summary.getDate(), summary));
+                if (user.getProfile() != null) {
+                    repository.saveUserProfile(user.getProfile());
+                }
+            });
+            LOG.info("memory.snapshot.restored", "file", file, "users", snapshot.getUsers().size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot restore snapshot " + file, e);
+        }
+        return repository;
+    }
+
+    private UserRecords records(String userId) {
+        return users.computeIfAbsent(userId, id -> new UserRecords());
+    }
+
+    // Replaces the day's list rather than modifying it, so readers need no lock
+    private static void append(UserRecords records, LocalDate date, List<HealthData> data) {
+        records.health.merge(date, data, (existing, added) -> {
+            List<HealthData> merged = new ArrayList<>(existing.size() + added.size());
+            merged.addAll(existing);
+            merged.addAll(added);
+            return Collections.unmodifiableList(merged);
+        });
+    }
+
+    private static <V> NavigableMap<LocalDate, V> range(NavigableMap<LocalDate, V> byDate, LocalDate start,
+                                                       LocalDate end) {
+        return start.isAfter(end) ? Collections.emptyNavigableMap() : byDate.subMap(start, true, end, true);
+    }
+
+    private static final class UserRecords {
+        final ConcurrentSkipListMap<LocalDate, List<HealthData>> health = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<LocalDate, NutritionInfo> nutrition = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<LocalDate, MentalState> mental = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<LocalDate, TankaPoem> tanka = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<LocalDate, DailySummary> summary = new ConcurrentSkipListMap<>();
+        volatile UserProfile profile;
+
+        UserSnapshot toSnapshot() {
+            UserSnapshot snapshot = new UserSnapshot();
+            health.values().forEach(snapshot.getHealth()::addAll);
+            snapshot.getNutrition().putAll(nutrition);
+            snapshot.getMental().putAll(mental);
+            snapshot.getTanka().addAll(tanka.values());
+            snapshot.getSummaries().addAll(summary.values());
+            snapshot.setProfile(profile);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Serialized form of the whole repository.
+     */
+    public static class Snapshot {
+        private Map<String, UserSnapshot> users = new TreeMap<>();
+
+        public Map<String, UserSnapshot> getUsers() {
+            return users;
+        }
+
+        public void setUsers(Map<String, UserSnapshot> users) {
+            this.users = users;
+        }
+    }
+
+    /**
+     * Serialized form of one user's records.
+     */
+    public static class UserSnapshot {
+        private List<HealthData> health = new ArrayList<>();
+        private Map<LocalDate, NutritionInfo> nutrition = new TreeMap<>();
+        private Map<LocalDate, MentalState> mental = new TreeMap<>();
+        private List<TankaPoem> tanka = new ArrayList<>();
+        private List<DailySummary> summaries = new ArrayList<>();
+        private UserProfile profile;
+
+        public List<HealthData> getHealth() {
+            return health;
+        }
+
+        public void setHealth(List<HealthData> health) {
+            this.health = health;
+        }
+
+        public Map<LocalDate, NutritionInfo> getNutrition() {
+            return nutrition;
+        }
+
+        public void setNutrition(Map<LocalDate, NutritionInfo> nutrition) {
+            this.nutrition = nutrition;
+        }
+
+        public Map<LocalDate, MentalState> getMental() {
+            return mental;
+        }
+
+        public void setMental(Map<LocalDate, MentalState> mental) {
+            this.mental = mental;
+        }
+
+        public List<TankaPoem> getTanka() {
+            return tanka;
+        }
+
+        public void setTanka(List<TankaPoem> tanka) {
+            this.tanka = tanka;
+        }
+
+        public List<DailySummary> getSummaries() {
+            return summaries;
+        }
+
+        public void setSummaries(List<DailySummary> summaries) {
+            this.summaries = summaries;
+        }
+
+        public UserProfile getProfile() {
+            return profile;
+        }
+
+        public void setProfile(UserProfile profile) {
+            this.profile = profile;
+        }
+    }
+}
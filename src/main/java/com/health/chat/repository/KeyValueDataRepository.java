@@ -0,0 +1,287 @@
+package com.health.chat.repository;
+
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * DataRepository backed by a single-file {@link KeyValueStore}, instead of one file
+ * per user, record type and day.
+ *
+ * <p>Keys are laid out as {@code (user, type, epoch-day)}, so the days of one record
+ * type of one user are adjacent and every range query is one ordered scan. Days are
+ * encoded big-endian with the sign bit flipped, which keeps byte order equal to date
+ * order. Profiles are keyed {@code (user, profile)}, and a username index maps each
+ * username to its user. Values are encoded with the configured {@link RecordCodec}.
+ */
+public class KeyValueDataRepository implements DataRepository, Closeable {
+
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(KeyValueDataRepository.class);
+    private static final StructuredLogger.SampledEvent RECORDS_RETRIEVED =
+            LOG.sampled("kv.records.retrieved", Level.INFO, 100);
+
+    // Key namespaces: per-user records, and the username index
+    private static final byte USER_RECORDS = 'u';
+    private static final byte USERNAMES = 'n';
+    private static final byte SEPARATOR = 0;
+
+    private static final String HEALTH = "health";
+    private static final String NUTRITION = "nutrition";
+    private static final String MENTAL = "mental";
+    private static final String TANKA = "tanka";
+    private static final String SUMMARY = "summary";
+    private static final String PROFILE = "profile";
+
+    private final KeyValueStore store;
+    private final RecordCodec codec;
+
+    public KeyValueDataRepository(Path file, RecordCodec codec) {
+        try {
+            this.store = new KeyValueStore(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open key-value store " + file, e);
+        }
+        this.codec = codec;
+    }
+
+    @Override
+    public void saveHealthData(String userId, HealthData data) {
+        saveHealthDataBatch(userId, data.getDate(), List.of(data));
+    }
+
+    @Override
+    public synchronized void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        // Synchronized so concurrent appends to the same day are not lost
+        byte[] key = dayKey(userId, HEALTH, date);
+        List<HealthData> dailyData = new ArrayList<>();
+        HealthData[] existing = decode(store.get(key), HealthData[].class);
+        if (existing != null) {
+            dailyData.addAll(List.of(existing));
+        }
+        dailyData.addAll(data);
+        putDay(userId, HEALTH, date, encode(dailyData));
+        LOG.info("kv.health.saved", "userId", userId, "date", date, "count", data.size());
+    }
+
+    @Override
+    public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
+        List<HealthData> result = new ArrayList<>();
+        for (HealthData[] dailyData : scan(userId, HEALTH, start, end, HealthData[].class)) {
+            result.addAll(List.of(dailyData));
+        }
+        RECORDS_RETRIEVED.log("record", HEALTH, "userId", userId, "count", result.size());
+        return result;
+    }
+
+    @Override
+    public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
+        putDay(userId, NUTRITION, date, encode(info));
+    }
+
+    @Override
+    public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
+        return decode(store.get(dayKey(userId, NUTRITION, date)), NutritionInfo.class);
+    }
+
+    @Override
+    public List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end) {
+        return scan(userId, NUTRITION, start, end, NutritionInfo.class);
+    }
+
+    @Override
+    public void saveMentalState(String userId, LocalDate date, MentalState state) {
+        putDay(userId, MENTAL, date, encode(state));
+    }
+
+    @Override
+    public MentalState getMentalState(String userId, LocalDate date) {
+        return decode(store.get(dayKey(userId, MENTAL, date)), MentalState.class);
+    }
+
+    @Override
+    public List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end) {
+        return scan(userId, MENTAL, start, end, MentalState.class);
+    }
+
+    @Override
+    public void saveTanka(String userId, TankaPoem tanka) {
+        putDay(userId, TANKA, tanka.getDate(), encode(tanka));
+    }
+
+    @Override
+    public void saveTankaBatch(String userId, List<TankaPoem> tankas) {
+        Map<byte[], byte[]> batch = new IdentityHashMap<>();
+        for (TankaPoem tanka : tankas) {
+            batch.put(dayKey(userId, TANKA, tanka.getDate()), encode(tanka));
+            invalidateDailySummary(batch, userId, tanka.getDate());
+        }
+        store.write(batch);
+    }
+
+    @Override
+    public List<TankaPoem> getTankaHistory(String userId) {
+        // Newest first, as the other repositories return it
+        List<TankaPoem> result = new ArrayList<>();
+        for (byte[] value : store.scan(typeKey(userId, TANKA), typeEnd(userId, TANKA), true)) {
+            result.add(decode(value, TankaPoem.class));
+        }
+        RECORDS_RETRIEVED.log("record", TANKA, "userId", userId, "count", result.size());
+        return result;
+    }
+
+    @Override
+    public List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end) {
+        List<TankaPoem> result = scan(userId, TANKA, start, end, TankaPoem.class);
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        store.put(dayKey(userId, SUMMARY, summary.getDate()), encode(summary));
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        return decode(store.get(dayKey(userId, SUMMARY, date)), DailySummary.class);
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        store.delete(dayKey(userId, SUMMARY, date));
+    }
+
+    private void putDay(String userId, String type, LocalDate date, byte[] value) {
+        Map<byte[], byte[]> batch = new IdentityHashMap<>();
+        batch.put(dayKey(userId, type, date), value);
+        invalidateDailySummary(batch, userId, date);
+        store.write(batch);
+    }
+
+    // A late write to a closed day makes its summary stale; the deletion goes in the write's own append
+    private void invalidateDailySummary(Map<byte[], byte[]> batch, String userId, LocalDate date) {
+        if (DailySummary.isClosed(date)) {
+            batch.put(dayKey(userId, SUMMARY, date), null);
+        }
+    }
+
+    @Override
+    public synchronized void saveUserProfile(UserProfile profile) {
+        // The profile and its username index entry are written together; a renamed user drops the old entry
+        Map<byte[], byte[]> batch = new IdentityHashMap<>();
+        UserProfile previous = getUserProfile(profile.getUserId());
+        if (previous != null && previous.getUsername() != null
+                && !previous.getUsername().equals(profile.getUsername())) {
+            batch.put(usernameKey(previous.getUsername()), null);
+        }
+        batch.put(typeKey(profile.getUserId(), PROFILE), encode(profile));
+        if (profile.getUsername() != null) {
+            batch.put(usernameKey(profile.getUsername()), profile.getUserId().getBytes(StandardCharsets.UTF_8));
+        }
+        store.write(batch);
+        LOG.info("kv.profile.saved", "userId", profile.getUserId());
+    }
+
+    @Override
+    public UserProfile getUserProfile(String userId) {
+        return decode(store.get(typeKey(userId, PROFILE)), UserProfile.class);
+    }
+
+    @Override
+    public UserProfile getUserProfileByUsername(String username) {
+        byte[] userId = store.get(usernameKey(username));
+        return userId != null ? getUserProfile(new String(userId, StandardCharsets.UTF_8)) : null;
+    }
+
+    /**
+     * Rewrites the store in key order; see {@link KeyValueStore#compact()}.
+     */
+    public void compact() {
+        store.compact();
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    private <T> List<T> scan(String userId, String type, LocalDate start, LocalDate end, Class<T> recordType) {
+        List<T> result = new ArrayList<>();
+        for (byte[] value : store.scan(dayKey(userId, type, start), dayKey(userId, type, end.plusDays(1)))) {
+            result.add(decode(value, recordType));
+        }
+        return result;
+    }
+
+    // u <user> 0 <type> 0
+    private static byte[] typeKey(String userId, String type) {
+        ByteArrayOutputStream key = new ByteArrayOutputStream(userId.length() + type.length() + 11);
+        key.write(USER_RECORDS);
+        key.writeBytes(userId.getBytes(StandardCharsets.UTF_8));
+        key.write(SEPARATOR);
+        key.writeBytes(type.getBytes(StandardCharsets.UTF_8));
+        key.write(SEPARATOR);
+        return key.toByteArray();
+    }
+
+    // Upper bound of every key with the type prefix
+    private static byte[] typeEnd(String userId, String type) {
+        byte[] key = typeKey(userId, type);
+        key[key.length - 1] = SEPARATOR + 1;
+        return key;
+    }
+
+    // u <user> 0 <type> 0 <epoch-day>
+    private static byte[] dayKey(String userId, String type, LocalDate date) {
+        byte[] prefix = typeKey(userId, type);
+        return ByteBuffer.allocate(prefix.length + Long.BYTES)
+                .put(prefix)
+                .putLong(date.toEpochDay() ^ Long.MIN_VALUE)
+                .array();
+    }
+
+    // n <username>
+    private static byte[] usernameKey(String username) {
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(name.length + 1).put(USERNAMES).put(name).array();
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return codec.encode(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    private <T> T decode(byte[] bytes, Class<T> type) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            // Detects the format, so the codec can be changed without rewriting the store
+            return codec.decode(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode " + type.getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.health.chat.repository;
+
+import com.health.chat.logging.StructuredLogger;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded, ordered key-value store in a single file.
+ *
+ * <p>The file is a log of records {@code [crc][keyLength][valueLength][key][value]},
+ * a value length of -1 being a deletion. An in-memory index ordered by unsigned key
+ * bytes points at the latest value of every key, and is rebuilt by reading the log
+ * on open; a torn record at the end (a crash mid-write) is cut off. Compaction
+ * rewrites the live records in key order, so after it a key range is one sequential
+ * read. It runs automatically once superseded records outweigh live ones.
+ *
+ * <p>Reads run concurrently; writes and compaction are serialized. Writes are not
+ * forced to disk individually, the same as the file repository's writes.
+ */
+public class KeyValueStore implements Closeable {
+
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(KeyValueStore.class);
+
+    private static final int HEADER_BYTES = 12;
+    private static final int TOMBSTONE = -1;
+    // Files smaller than this are never compacted automatically
+    private static final long COMPACTION_MIN_BYTES = 1 << 20;
+
+    private final Path file;
+    private final NavigableMap<byte[], Location> index = new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileChannel channel;
+    private long end;
+    private long liveBytes;
+
+    public KeyValueStore(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = open(file);
+        load();
+        LOG.info("kv.store.opened", "file", file, "keys", index.size(), "bytes", end, "liveBytes", liveBytes);
+    }
+
+    /**
+     * The value of {@code key}, or null if absent.
+     */
+    public byte[] get(byte[] key) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            return location != null ? read(location) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Values of the keys in {@code [from, to)}, in key order.
+     */
+    public List<byte[]> scan(byte[] from, byte[] to) {
+        return scan(from, to, false);
+    }
+
+    /**
+     * Values of the keys in {@code [from, to)}, in key order or reversed.
+     */
+    public List<byte[]> scan(byte[] from, byte[] to, boolean descending) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<byte[], Location> range = index.subMap(from, true, to, false);
+            List<byte[]> values = new ArrayList<>(range.size());
+            for (Location location : (descending ? range.descendingMap() : range).values()) {
+                values.add(read(location));
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(byte[] key, byte[] value) {
+        write(Map.of(key, value));
+    }
+
+    public void delete(byte[] key) {
+        write(Collections.singletonMap(key, null));
+    }
+
+    /**
+     * Applies several puts, and deletions for null values, with one append.
+     */
+    public void write(Map<byte[], byte[]> batch) {
+        lock.writeLock().lock();
+        try {
+            int size = 0;
+            for (Map.Entry<byte[], byte[]> entry : batch.entrySet()) {
+                size += HEADER_BYTES + entry.getKey().length + (entry.getValue() != null ? entry.getValue().length : 0);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            long[] valuePositions = new long[batch.size()];
+            int record = 0;
+            for (Map.Entry<byte[], byte[]> entry : batch.entrySet()) {
+                valuePositions[record++] = end + buffer.position() + encode(buffer, entry.getKey(), entry.getValue());
+            }
+            buffer.flip();
+            writeFully(channel, buffer, end);
+            end += size;
+
+            // The index only points at records once they are in the file
+            record = 0;
+            for (Map.Entry<byte[], byte[]> entry : batch.entrySet()) {
+                byte[] key = entry.getKey().clone();
+                byte[] value = entry.getValue();
+                long valuePosition = valuePositions[record++];
+                Location previous = value != null
+                        ? index.put(key, new Location(valuePosition, value.length))
+                        : index.remove(key);
+                liveBytes += (value != null ? HEADER_BYTES + key.length + value.length : 0)
+                        - (previous != null ? HEADER_BYTES + key.length + previous.length : 0);
+            }
+            if (end >= COMPACTION_MIN_BYTES && end - liveBytes > liveBytes) {
+                compactLocked();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Write to " + file + " failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the live records in key order, dropping superseded ones.
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            compactLocked();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Compaction of " + file + " failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Number of live keys. */
+    public int size() {
+        return index.size();
+    }
+
+    /** Bytes in the file, including superseded records. */
+    public long fileBytes() {
+        lock.readLock().lock();
+        try {
+            return end;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            channel.force(true);
+            channel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactLocked() throws IOException {
+        long before = end;
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        NavigableMap<byte[], Location> relocated = new ConcurrentSkipListMap<>(Arrays::compareUnsigned);
+        long position = 0;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<byte[], Location> entry : index.entrySet()) {
+                byte[] key = entry.getKey();
+                byte[] value = read(entry.getValue());
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + key.length + value.length);
+                int valueOffset = encode(buffer, key, value);
+                buffer.flip();
+                writeFully(out, buffer, position);
+                relocated.put(key, new Location(position + valueOffset, value.length));
+                position += buffer.capacity();
+            }
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            // On failure the old file and index are still valid
+            channel = open(file);
+        }
+        index.clear();
+        index.putAll(relocated);
+        end = position;
+        liveBytes = position;
+        LOG.info("kv.store.compacted", "file", file, "keys", index.size(), "bytesBefore", before, "bytesAfter", end);
+    }
+
+    private void load() throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            header.flip();
+            int crc = header.getInt();
+            int keyLength = header.getInt();
+            int valueLength = header.getInt();
+            long recordEnd = position + HEADER_BYTES + keyLength + Math.max(valueLength, 0);
+            if (keyLength <= 0 || valueLength < TOMBSTONE || recordEnd > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(keyLength + Math.max(valueLength, 0));
+            readFully(body, position + HEADER_BYTES);
+            if (checksum(keyLength, valueLength, body.array()) != crc) {
+                break;
+            }
+            byte[] key = Arrays.copyOf(body.array(), keyLength);
+            Location previous = valueLength == TOMBSTONE
+                    ? index.remove(key)
+                    : index.put(key, new Location(position + HEADER_BYTES + keyLength, valueLength));
+            liveBytes += (valueLength == TOMBSTONE ? 0 : recordEnd - position)
+                    - (previous != null ? HEADER_BYTES + keyLength + previous.length : 0);
+            position = recordEnd;
+        }
+        if (position < size) {
+            LOG.warning("kv.store.truncated", "file", file, "validBytes", position, "fileBytes", size);
+            channel.truncate(position);
+        }
+        end = position;
+    }
+
+    // Appends one record to the buffer; returns the offset of the value within the record
+    private static int encode(ByteBuffer buffer, byte[] key, byte[] value) {
+        int valueLength = value != null ? value.length : TOMBSTONE;
+        byte[] body = new byte[key.length + Math.max(valueLength, 0)];
+        System.arraycopy(key, 0, body, 0, key.length);
+        if (value != null) {
+            System.arraycopy(value, 0, body, key.length, value.length);
+        }
+        buffer.putInt(checksum(key.length, valueLength, body));
+        buffer.putInt(key.length);
+        buffer.putInt(valueLength);
+        buffer.put(body);
+        return HEADER_BYTES + key.length;
+    }
+
+    private static int checksum(int keyLength, int valueLength, byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(8).putInt(keyLength).putInt(valueLength).array());
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private byte[] read(Location location) {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        try {
+            readFully(buffer, location.offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Read from " + file + " failed", e);
+        }
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + file);
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static final class Location {
+        private final long offset;
+        private final int length;
+
+        Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -1,7 +1,7 @@
 package com.health.chat.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.model.DailySummary;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.MentalState;
 import com.health.chat.model.NutritionInfo;
@@ -15,46 +15,73 @@ import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 /**
  * Local file system implementation of DataRepository.
- * Stores data in JSON files organized by user and date.
+ * Stores data in files organized by user and date; the file extension records the
+ * {@link RecordCodec} each file was written with, and files in any format are read.
+ * User directories are placed by a {@link LocalStorageLayout}; in the partitioned
+ * layout a record still in the original directory is read from there until it is
+ * rewritten or migrated. Usernames are looked up in an in-memory index, built by one
+ * scan of every users directory on the first lookup and kept current by saveUserProfile.
  */
 public class LocalFileDataRepository implements DataRepository {
     
-    private static final Logger LOGGER = Logger.getLogger(LocalFileDataRepository.class.getName());
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(LocalFileDataRepository.class);
+    // Analysis pages read several ranges per request, so retrievals are sampled
+    private static final StructuredLogger.SampledEvent RECORDS_RETRIEVED =
+            LOG.sampled("local.records.retrieved", Level.INFO, 100);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
-    private final String baseDirectory;
-    private final ObjectMapper objectMapper;
+    private final LocalStorageLayout layout;
+    private final RecordCodec codec;
+    private final ConcurrentMap<String, String> userIdsByUsername = new ConcurrentHashMap<>();
+    private volatile boolean usernameIndexLoaded;
     
     public LocalFileDataRepository(String baseDirectory) {
-        this.baseDirectory = baseDirectory;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this(baseDirectory, RecordCodec.JSON);
+    }
+    
+    public LocalFileDataRepository(String baseDirectory, RecordCodec codec) {
+        this(LocalStorageLayout.single(baseDirectory), codec);
+    }
+    
+    public LocalFileDataRepository(LocalStorageLayout layout, RecordCodec codec) {
+        this.layout = layout;
+        this.codec = codec;
         
-        // Create base directory if it doesn't exist
+        // Create the users directories if they don't exist
         try {
-            Files.createDirectories(Paths.get(baseDirectory));
-            LOGGER.info("Local data repository initialized at: " + baseDirectory);
+            for (Path usersDirectory : layout.usersDirectories()) {
+                Files.createDirectories(usersDirectory);
+            }
+            LOG.info("local.repository.initialized", "baseDirectory", layout.legacyUsersDirectory().getParent(),
+                    "layout", layout, "codec", codec);
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to create base directory: " + baseDirectory, e);
+            LOG.severe("local.repository.init_failed", e, "baseDirectory", layout.legacyUsersDirectory().getParent());
         }
     }
     
     @Override
     public void saveHealthData(String userId, HealthData data) {
+        // Held across the read and the write so neither a concurrent append nor a migration is lost
+        Lock lock = layout.lockOf(userId).writeLock();
+        lock.lock();
         try {
-            Path filePath = getHealthDataPath(userId, data.getDate());
-            ensureDirectoryExists(filePath.getParent());
+            Path filePath = getHealthDataPath(data.getDate());
             
             // Read existing data for the day
             List<HealthData> dailyData = new ArrayList<>();
-            if (Files.exists(filePath)) {
-                HealthData[] existing = objectMapper.readValue(filePath.toFile(), HealthData[].class);
+            HealthData[] existing = readRecord(userId, filePath, HealthData[].class);
+            if (existing != null) {
                 dailyData.addAll(List.of(existing));
             }
             
@@ -62,12 +89,42 @@ public class LocalFileDataRepository implements DataRepository {
             dailyData.add(data);
             
             // Write back
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(filePath.toFile(), dailyData);
-            LOGGER.info("Saved health data for user: " + userId + ", date: " + data.getDate());
+            writeRecord(userId, filePath, dailyData);
+            invalidateDailySummary(userId, data.getDate());
+            LOG.info("local.health.saved", "userId", userId, "date", data.getDate());
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save health data", e);
+            LOG.severe("local.health.save_failed", e, "userId", userId, "date", data.getDate());
             throw new RuntimeException("Failed to save health data", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        Lock lock = layout.lockOf(userId).writeLock();
+        lock.lock();
+        try {
+            Path filePath = getHealthDataPath(date);
+            
+            // Read the day's file once and append the whole batch
+            List<HealthData> dailyData = new ArrayList<>();
+            HealthData[] existing = readRecord(userId, filePath, HealthData[].class);
+            if (existing != null) {
+                dailyData.addAll(List.of(existing));
+            }
+            dailyData.addAll(data);
+            
+            writeRecord(userId, filePath, dailyData);
+            invalidateDailySummary(userId, date);
+            LOG.info("local.health.batch_saved", "userId", userId, "date", date, "count", data.size());
+            
+        } catch (IOException e) {
+            LOG.severe("local.health.batch_save_failed", e, "userId", userId, "date", date);
+            throw new RuntimeException("Failed to save health data batch", e);
+        } finally {
+            lock.unlock();
         }
     }
     
@@ -78,20 +135,18 @@ public class LocalFileDataRepository implements DataRepository {
         try {
             LocalDate current = start;
             while (!current.isAfter(end)) {
-                Path filePath = getHealthDataPath(userId, current);
-                
-                if (Files.exists(filePath)) {
-                    HealthData[] dailyData = objectMapper.readValue(filePath.toFile(), HealthData[].class);
+                HealthData[] dailyData = readRecord(userId, getHealthDataPath(current), HealthData[].class);
+                if (dailyData != null) {
                     result.addAll(List.of(dailyData));
                 }
                 
                 current = current.plusDays(1);
             }
             
-            LOGGER.info("Retrieved " + result.size() + " health data entries for user: " + userId);
+            RECORDS_RETRIEVED.log("record", "health", "userId", userId, "count", result.size());
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve health data", e);
+            LOG.severe("local.health.read_failed", e, "userId", userId);
         }
         
         return result;
@@ -100,14 +155,12 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
         try {
-            Path filePath = getNutritionPath(userId, date);
-            ensureDirectoryExists(filePath.getParent());
-            
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(filePath.toFile(), info);
-            LOGGER.info("Saved nutrition info for user: " + userId + ", date: " + date);
+            writeRecord(userId, getNutritionPath(date), info);
+            invalidateDailySummary(userId, date);
+            LOG.info("local.nutrition.saved", "userId", userId, "date", date);
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save nutrition info", e);
+            LOG.severe("local.nutrition.save_failed", e, "userId", userId, "date", date);
             throw new RuntimeException("Failed to save nutrition info", e);
         }
     }
@@ -115,14 +168,12 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public void saveMentalState(String userId, LocalDate date, MentalState state) {
         try {
-            Path filePath = getMentalStatePath(userId, date);
-            ensureDirectoryExists(filePath.getParent());
-            
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(filePath.toFile(), state);
-            LOGGER.info("Saved mental state for user: " + userId + ", date: " + date);
+            writeRecord(userId, getMentalStatePath(date), state);
+            invalidateDailySummary(userId, date);
+            LOG.info("local.mental.saved", "userId", userId, "date", date);
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save mental state", e);
+            LOG.severe("local.mental.save_failed", e, "userId", userId, "date", date);
             throw new RuntimeException("Failed to save mental state", e);
         }
     }
@@ -130,14 +181,12 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public void saveTanka(String userId, TankaPoem tanka) {
         try {
-            Path filePath = getTankaPath(userId, tanka.getDate());
-            ensureDirectoryExists(filePath.getParent());
-            
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(filePath.toFile(), tanka);
-            LOGGER.info("Saved tanka for user: " + userId + ", date: " + tanka.getDate());
+            writeRecord(userId, getTankaPath(tanka.getDate()), tanka);
+            invalidateDailySummary(userId, tanka.getDate());
+            LOG.info("local.tanka.saved", "userId", userId, "date", tanka.getDate());
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save tanka", e);
+            LOG.severe("local.tanka.save_failed", e, "userId", userId, "date", tanka.getDate());
             throw new RuntimeException("Failed to save tanka", e);
         }
     }
@@ -145,14 +194,10 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
         try {
-            Path filePath = getNutritionPath(userId, date);
-            
-            if (Files.exists(filePath)) {
-                return objectMapper.readValue(filePath.toFile(), NutritionInfo.class);
-            }
+            return readRecord(userId, getNutritionPath(date), NutritionInfo.class);
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve nutrition info", e);
+            LOG.severe("local.nutrition.read_failed", e, "userId", userId, "date", date);
         }
         
         return null;
@@ -161,30 +206,69 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public MentalState getMentalState(String userId, LocalDate date) {
         try {
-            Path filePath = getMentalStatePath(userId, date);
+            return readRecord(userId, getMentalStatePath(date), MentalState.class);
             
-            if (Files.exists(filePath)) {
-                return objectMapper.readValue(filePath.toFile(), MentalState.class);
-            }
+        } catch (IOException e) {
+            LOG.severe("local.mental.read_failed", e, "userId", userId, "date", date);
+        }
+        
+        return null;
+    }
+    
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        try {
+            writeRecord(userId, getDailySummaryPath(summary.getDate()), summary);
+            LOG.info("local.summary.saved", "userId", userId, "date", summary.getDate());
+            
+        } catch (IOException e) {
+            LOG.severe("local.summary.save_failed", e, "userId", userId, "date", summary.getDate());
+            throw new RuntimeException("Failed to save daily summary", e);
+        }
+    }
+    
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        try {
+            return readRecord(userId, getDailySummaryPath(date), DailySummary.class);
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve mental state", e);
+            LOG.severe("local.summary.read_failed", e, "userId", userId, "date", date);
         }
         
         return null;
     }
     
     @Override
-    public void saveUserProfile(com.health.chat.model.UserProfile profile) {
+    public void deleteDailySummary(String userId, LocalDate date) {
         try {
-            Path filePath = getUserProfilePath(profile.getUserId());
-            ensureDirectoryExists(filePath.getParent());
+            deleteRecord(userId, getDailySummaryPath(date));
             
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(filePath.toFile(), profile);
-            LOGGER.info("Saved user profile for: " + profile.getUserId());
+        } catch (IOException e) {
+            LOG.severe("local.summary.delete_failed", e, "userId", userId, "date", date);
+            throw new RuntimeException("Failed to delete daily summary", e);
+        }
+    }
+    
+    // A late write to a closed day makes its summary stale; without it the day is computed on demand
+    private void invalidateDailySummary(String userId, LocalDate date) throws IOException {
+        if (DailySummary.isClosed(date)) {
+            deleteRecord(userId, getDailySummaryPath(date));
+        }
+    }
+    
+    @Override
+    public void saveUserProfile(com.health.chat.model.UserProfile profile) {
+        try {
+            writeRecord(profile.getUserId(), getUserProfilePath(), profile);
+            // A previous username is left in the index; the lookup drops it once it no longer matches
+            if (profile.getUsername() != null) {
+                userIdsByUsername.put(profile.getUsername(), profile.getUserId());
+            }
+            LOG.info("local.profile.saved", "userId", profile.getUserId());
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save user profile", e);
+            LOG.severe("local.profile.save_failed", e, "userId", profile.getUserId());
             throw new RuntimeException("Failed to save user profile", e);
         }
     }
@@ -192,14 +276,10 @@ public class LocalFileDataRepository implements DataRepository {
     @Override
     public com.health.chat.model.UserProfile getUserProfile(String userId) {
         try {
-            Path filePath = getUserProfilePath(userId);
-            
-            if (Files.exists(filePath)) {
-                return objectMapper.readValue(filePath.toFile(), com.health.chat.model.UserProfile.class);
-            }
+            return readRecord(userId, getUserProfilePath(), com.health.chat.model.UserProfile.class);
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve user profile", e);
+            LOG.severe("local.profile.read_failed", e, "userId", userId);
         }
         
         return null;
@@ -207,65 +287,97 @@ public class LocalFileDataRepository implements DataRepository {
     
     @Override
     public com.health.chat.model.UserProfile getUserProfileByUsername(String username) {
-        // For local file system, we'll search through all user profiles
-        try {
-            Path usersDir = Paths.get(baseDirectory, "users");
-            
-            if (Files.exists(usersDir)) {
-                return Files.list(usersDir)
-                    .filter(Files::isDirectory)
-                    .map(userDir -> {
+        loadUsernameIndex();
+        String userId = userIdsByUsername.get(username);
+        if (userId == null) {
+            return null;
+        }
+        com.health.chat.model.UserProfile profile = getUserProfile(userId);
+        if (profile != null && username.equals(profile.getUsername())) {
+            return profile;
+        }
+        // The user was renamed since the entry was made
+        userIdsByUsername.remove(username, userId);
+        return null;
+    }
+    
+    // Reads every profile once, one users directory at a time; a directory that cannot be listed
+    // leaves the index unloaded, so the next lookup scans again
+    private void loadUsernameIndex() {
+        if (usernameIndexLoaded) {
+            return;
+        }
+        synchronized (userIdsByUsername) {
+            if (usernameIndexLoaded) {
+                return;
+            }
+            boolean complete = true;
+            for (Path usersDir : layout.usersDirectories()) {
+                if (!Files.exists(usersDir)) {
+                    continue;
+                }
+                try (Stream<Path> userDirs = Files.list(usersDir)) {
+                    userDirs.filter(Files::isDirectory).forEach(userDir -> {
+                        String userId = userDir.getFileName().toString();
                         try {
-                            Path profilePath = userDir.resolve("profile.json");
-                            if (Files.exists(profilePath)) {
-                                return objectMapper.readValue(profilePath.toFile(), 
-                                                            com.health.chat.model.UserProfile.class);
+                            com.health.chat.model.UserProfile profile =
+                                    readRecord(userId, getUserProfilePath(), com.health.chat.model.UserProfile.class);
+                            if (profile != null && profile.getUsername() != null) {
+                                // Profiles saved during the scan are already indexed and win
+                                userIdsByUsername.putIfAbsent(profile.getUsername(), userId);
                             }
                         } catch (IOException e) {
-                            LOGGER.log(Level.WARNING, "Failed to read profile: " + userDir, e);
+                            LOG.warning("local.profile.read_failed", e, "path", userDir);
                         }
-                        return null;
-                    })
-                    .filter(profile -> profile != null && username.equals(profile.getUsername()))
-                    .findFirst()
-                    .orElse(null);
+                    });
+                } catch (IOException e) {
+                    complete = false;
+                    LOG.severe("local.profile.search_failed", e, "path", usersDir);
+                }
             }
-            
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to search for user profile by username", e);
+            usernameIndexLoaded = complete;
+            LOG.info("local.profile.indexed", "usernames", userIdsByUsername.size());
         }
-        
-        return null;
     }
     
     @Override
     public List<TankaPoem> getTankaHistory(String userId) {
+        // Keyed by date so a tanka not yet migrated is not listed twice; the write directory comes first
+        Map<LocalDate, TankaPoem> byDate = new LinkedHashMap<>();
         List<TankaPoem> result = new ArrayList<>();
         
+        Lock lock = layout.lockOf(userId).readLock();
+        lock.lock();
         try {
-            Path userTankaDir = Paths.get(baseDirectory, "users", userId, "tanka");
-            
-            if (Files.exists(userTankaDir)) {
-                Files.walk(userTankaDir)
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".json"))
-                    .forEach(p -> {
-                        try {
-                            TankaPoem tanka = objectMapper.readValue(p.toFile(), TankaPoem.class);
-                            result.add(tanka);
-                        } catch (IOException e) {
-                            LOGGER.log(Level.WARNING, "Failed to read tanka file: " + p, e);
-                        }
-                    });
+            for (Path userDir : layout.readDirectories(userId)) {
+                Path userTankaDir = userDir.resolve("tanka");
+                if (!Files.exists(userTankaDir)) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.walk(userTankaDir)) {
+                    files.filter(Files::isRegularFile)
+                        .filter(p -> isRecordFile(p.getFileName().toString()))
+                        .forEach(p -> {
+                            try {
+                                TankaPoem tanka = codec.decode(Files.readAllBytes(p), TankaPoem.class);
+                                byDate.putIfAbsent(tanka.getDate(), tanka);
+                            } catch (IOException e) {
+                                LOG.warning("local.tanka.read_failed", e, "path", p);
+                            }
+                        });
+                }
             }
+            result.addAll(byDate.values());
             
             // Sort by date descending
             result.sort((a, b) -> b.getDate().compareTo(a.getDate()));
             
-            LOGGER.info("Retrieved " + result.size() + " tanka poems for user: " + userId);
+            RECORDS_RETRIEVED.log("record", "tanka", "userId", userId, "count", result.size());
             
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve tanka history", e);
+            LOG.severe("local.tanka.history_failed", e, "userId", userId);
+        } finally {
+            lock.unlock();
         }
         
         return result;
@@ -285,10 +397,10 @@ public class LocalFileDataRepository implements DataRepository {
                 current = current.plusDays(1);
             }
             
-            LOGGER.info("Retrieved " + result.size() + " nutrition entries for user: " + userId);
+            RECORDS_RETRIEVED.log("record", "nutrition", "userId", userId, "count", result.size());
             
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve nutrition info by date range", e);
+            LOG.severe("local.nutrition.range_failed", e, "userId", userId);
         }
         
         return result;
@@ -308,10 +420,10 @@ public class LocalFileDataRepository implements DataRepository {
                 current = current.plusDays(1);
             }
             
-            LOGGER.info("Retrieved " + result.size() + " mental states for user: " + userId);
+            RECORDS_RETRIEVED.log("record", "mental", "userId", userId, "count", result.size());
             
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to retrieve mental states by date range", e);
+            LOG.severe("local.mental.range_failed", e, "userId", userId);
         }
         
         return result;
@@ -329,41 +441,129 @@ public class LocalFileDataRepository implements DataRepository {
             }
         }
         
-        LOGGER.info("Retrieved " + result.size() + " tankas for user: " + userId + " in date range");
+        RECORDS_RETRIEVED.log("record", "tanka_range", "userId", userId, "count", result.size());
         
         return result;
     }
     
-    private Path getHealthDataPath(String userId, LocalDate date) {
-        return Paths.get(baseDirectory, "users", userId, "health", 
+    private static Path getHealthDataPath(LocalDate date) {
+        return Paths.get("health", 
                         String.valueOf(date.getYear()),
                         String.format("%02d", date.getMonthValue()),
-                        date.format(DATE_FORMATTER) + ".json");
+                        date.format(DATE_FORMATTER));
     }
     
-    private Path getNutritionPath(String userId, LocalDate date) {
-        return Paths.get(baseDirectory, "users", userId, "nutrition",
+    private static Path getNutritionPath(LocalDate date) {
+        return Paths.get("nutrition",
                         String.valueOf(date.getYear()),
                         String.format("%02d", date.getMonthValue()),
-                        date.format(DATE_FORMATTER) + ".json");
+                        date.format(DATE_FORMATTER));
     }
     
-    private Path getMentalStatePath(String userId, LocalDate date) {
-        return Paths.get(baseDirectory, "users", userId, "mental",
+    private static Path getMentalStatePath(LocalDate date) {
+        return Paths.get("mental",
                         String.valueOf(date.getYear()),
                         String.format("%02d", date.getMonthValue()),
-                        date.format(DATE_FORMATTER) + ".json");
+                        date.format(DATE_FORMATTER));
     }
     
-    private Path getTankaPath(String userId, LocalDate date) {
-        return Paths.get(baseDirectory, "users", userId, "tanka",
+    private static Path getTankaPath(LocalDate date) {
+        return Paths.get("tanka",
                         String.valueOf(date.getYear()),
                         String.format("%02d", date.getMonthValue()),
-                        date.format(DATE_FORMATTER) + ".json");
+                        date.format(DATE_FORMATTER));
     }
     
-    private Path getUserProfilePath(String userId) {
-        return Paths.get(baseDirectory, "users", userId, "profile.json");
+    private static Path getDailySummaryPath(LocalDate date) {
+        return Paths.get("summary",
+                        String.valueOf(date.getYear()),
+                        String.format("%02d", date.getMonthValue()),
+                        date.format(DATE_FORMATTER));
+    }
+    
+    private static Path getUserProfilePath() {
+        return Paths.get("profile");
+    }
+    
+    // Paths above are relative to the user directory and have no extension; the file is found
+    // in whichever directory and format it was written
+    private <T> T readRecord(String userId, Path record, Class<T> type) throws IOException {
+        Lock lock = layout.lockOf(userId).readLock();
+        lock.lock();
+        try {
+            for (Path userDir : layout.readDirectories(userId)) {
+                Path file = findRecord(userDir.resolve(record));
+                if (file != null) {
+                    return codec.decode(Files.readAllBytes(file), type);
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private Path findRecord(Path base) {
+        Path preferred = withExtension(base, codec);
+        if (Files.exists(preferred)) {
+            return preferred;
+        }
+        for (RecordCodec other : RecordCodec.all()) {
+            Path candidate = withExtension(base, other);
+            if (other != codec && Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+    
+    // Writes with the configured codec into the user's write directory and removes copies in other
+    // formats or directories, which would otherwise shadow it or be migrated over it
+    private void writeRecord(String userId, Path record, Object value) throws IOException {
+        Lock lock = layout.lockOf(userId).writeLock();
+        lock.lock();
+        try {
+            Path base = layout.userDirectory(userId).resolve(record);
+            ensureDirectoryExists(base.getParent());
+            Files.write(withExtension(base, codec), codec.encode(value));
+            for (Path userDir : layout.readDirectories(userId)) {
+                Path copy = userDir.resolve(record);
+                for (RecordCodec other : RecordCodec.all()) {
+                    if (other != codec || !copy.equals(base)) {
+                        Files.deleteIfExists(withExtension(copy, other));
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void deleteRecord(String userId, Path record) throws IOException {
+        Lock lock = layout.lockOf(userId).writeLock();
+        lock.lock();
+        try {
+            for (Path userDir : layout.readDirectories(userId)) {
+                for (RecordCodec codec : RecordCodec.all()) {
+                    Files.deleteIfExists(withExtension(userDir.resolve(record), codec));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static Path withExtension(Path base, RecordCodec codec) {
+        return base.resolveSibling(base.getFileName() + codec.getFileExtension());
+    }
+    
+    private static boolean isRecordFile(String fileName) {
+        for (RecordCodec codec : RecordCodec.all()) {
+            if (fileName.endsWith(codec.getFileExtension())) {
+                return true;
+            }
+        }
+        return false;
     }
     
     private void ensureDirectoryExists(Path directory) throws IOException {
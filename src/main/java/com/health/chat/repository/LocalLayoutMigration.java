@@ -0,0 +1,209 @@
+package com.health.chat.repository;
+
+import com.health.chat.logging.StructuredLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moves users from the original {@code <base>/users} directory into the shards of a
+ * partitioned {@link LocalStorageLayout}, while the application keeps serving.
+ *
+ * <p>This relies on how {@link LocalFileDataRepository} uses a partitioned layout:
+ * records are read from the shard first and the original directory second, and every
+ * write goes to the shard and deletes the original copy. So a record is moved only if
+ * the shard has no copy of it yet; if it has one, that copy was written after the
+ * migration started and the original is dropped. Moves never replace a file. Users
+ * are moved one file at a time, so a stopped migration simply resumes on the next run.
+ *
+ * <p>Each user is moved while holding the user's write lock from
+ * {@link LocalStorageLayout#lockOf}, so the repository must be built on the same layout
+ * instance. The repository then never sees a record in neither directory, and never
+ * reads a file that is still being copied. The locks only work within one process, so
+ * the command line entry point must be run while the application is stopped.
+ */
+public class LocalLayoutMigration {
+
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(LocalLayoutMigration.class);
+
+    private final LocalStorageLayout layout;
+
+    public LocalLayoutMigration(LocalStorageLayout layout) {
+        if (!layout.isPartitioned()) {
+            throw new IllegalArgumentException("Migration target must be a partitioned layout");
+        }
+        this.layout = layout;
+    }
+
+    /**
+     * Migrates every user still in the original directory.
+     */
+    public Result migrate() {
+        Path legacyUsers = layout.legacyUsersDirectory();
+        if (!Files.exists(legacyUsers)) {
+            return new Result(0, 0, 0);
+        }
+        List<Path> userDirs;
+        try (Stream<Path> entries = Files.list(legacyUsers)) {
+            userDirs = entries.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list " + legacyUsers, e);
+        }
+
+        int moved = 0;
+        int superseded = 0;
+        for (Path userDir : userDirs) {
+            String userId = userDir.getFileName().toString();
+            try {
+                int[] counts = migrateUser(userId, userDir, layout.userDirectory(userId));
+                moved += counts[0];
+                superseded += counts[1];
+                LOG.info("local.migration.user_migrated", "userId", userId, "shard", layout.shardOf(userId),
+                        "moved", counts[0], "superseded", counts[1]);
+            } catch (IOException e) {
+                // Whatever was moved stays moved; the rest is picked up by the next run
+                LOG.warning("local.migration.user_failed", e, "userId", userId);
+            }
+        }
+        LOG.info("local.migration.finished", "users", userDirs.size(), "moved", moved, "superseded", superseded);
+        return new Result(userDirs.size(), moved, superseded);
+    }
+
+    private int[] migrateUser(String userId, Path source, Path target) throws IOException {
+        Lock lock = layout.lockOf(userId).writeLock();
+        lock.lock();
+        try {
+            return moveFiles(source, target);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int[] moveFiles(Path source, Path target) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        int moved = 0;
+        int superseded = 0;
+        for (Path file : files) {
+            Path destination = target.resolve(source.relativize(file).toString());
+            if (hasRecord(destination)) {
+                Files.deleteIfExists(file);
+                superseded++;
+                continue;
+            }
+            Files.createDirectories(destination.getParent());
+            try {
+                move(file, destination);
+                moved++;
+            } catch (FileAlreadyExistsException e) {
+                // Written to the shard between the check and the move
+                Files.deleteIfExists(file);
+                superseded++;
+            } catch (NoSuchFileException e) {
+                // Rewritten, and so deleted here, by the application meanwhile
+            }
+        }
+        deleteEmptyDirectories(source);
+        return new int[] {moved, superseded};
+    }
+
+    // A hard link within a volume fails atomically if the target exists, unlike a rename;
+    // between volumes the file is copied next to the target and renamed into place, so the
+    // target is complete as soon as it exists
+    private static void move(Path file, Path destination) throws IOException {
+        try {
+            Files.createLink(destination, file);
+        } catch (FileAlreadyExistsException | NoSuchFileException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            Path partial = destination.resolveSibling(destination.getFileName() + ".migrating");
+            Files.copy(file, partial, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(partial, destination, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.delete(file);
+    }
+
+    // True if the shard already has this record in any format
+    private static boolean hasRecord(Path destination) {
+        String name = destination.getFileName().toString();
+        for (RecordCodec codec : RecordCodec.all()) {
+            if (name.endsWith(codec.getFileExtension())) {
+                String base = name.substring(0, name.length() - codec.getFileExtension().length());
+                return RecordCodec.all().stream()
+                        .anyMatch(any -> Files.exists(destination.resolveSibling(base + any.getFileExtension())));
+            }
+        }
+        return Files.exists(destination);
+    }
+
+    private static void deleteEmptyDirectories(Path root) throws IOException {
+        List<Path> directories;
+        try (Stream<Path> walk = Files.walk(root)) {
+            directories = walk.filter(Files::isDirectory)
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+        for (Path directory : directories) {
+            try (Stream<Path> entries = Files.list(directory)) {
+                if (entries.findAny().isEmpty()) {
+                    Files.delete(directory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Command line entry point: {@code <baseDirectory> <shards> [mountPoint...]}, with the
+     * same values as {@code local.data.directory}, {@code local.data.shards} and
+     * {@code local.data.shard-directories}.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: LocalLayoutMigration <baseDirectory> <shards> [mountPoint...]");
+            System.exit(2);
+        }
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(args[0], Integer.parseInt(args[1]),
+                Arrays.asList(args).subList(2, args.length));
+        Result result = new LocalLayoutMigration(layout).migrate();
+        System.out.println("Migrated " + result.getUsers() + " users: " + result.getFilesMoved() + " files moved, "
+                + result.getFilesSuperseded() + " superseded");
+    }
+
+    public static final class Result {
+        private final int users;
+        private final int filesMoved;
+        private final int filesSuperseded;
+
+        Result(int users, int filesMoved, int filesSuperseded) {
+            this.users = users;
+            this.filesMoved = filesMoved;
+            this.filesSuperseded = filesSuperseded;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public int getFilesMoved() {
+            return filesMoved;
+        }
+
+        /** Original files dropped because the shard already had a newer copy. */
+        public int getFilesSuperseded() {
+            return filesSuperseded;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.health.chat.repository;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Where {@link LocalFileDataRepository} keeps each user's directory.
+ *
+ * <p>The single layout is the original one, {@code <base>/users/<userId>}. The
+ * partitioned layout hashes users into N shards, {@code <shard>/users/<userId>}, so
+ * no directory holds every user and shards can sit on different mount points. The
+ * shard of a user only depends on the user id and the shard count; the shard list
+ * is recorded in {@code <base>/layout.properties} and a different list is refused,
+ * since it would hide every user whose shard changed.
+ *
+ * <p>In the partitioned layout the original directory stays readable as a fallback
+ * until {@link LocalLayoutMigration} has moved every user out of it. The repository and
+ * the migration share the layout instance and take {@link #lockOf} around each user's
+ * files, so a user is never read or written halfway through being moved.
+ */
+public final class LocalStorageLayout {
+
+    private static final String LAYOUT_FILE = "layout.properties";
+    private static final String SHARDS_KEY = "shards";
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path legacyUsersDirectory;
+    private final List<Path> shardUsersDirectories;
+    private final ReadWriteLock[] userLocks = new ReadWriteLock[LOCK_STRIPES];
+
+    private LocalStorageLayout(Path baseDirectory, List<Path> shardDirectories) {
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantReadWriteLock();
+        }
+        this.legacyUsersDirectory = baseDirectory.resolve("users");
+        this.shardUsersDirectories = shardDirectories.stream()
+                .map(shard -> shard.resolve("users"))
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * The original layout: every user under {@code <base>/users}.
+     */
+    public static LocalStorageLayout single(String baseDirectory) {
+        return new LocalStorageLayout(Paths.get(baseDirectory), List.of());
+    }
+
+    /**
+     * {@code shards} shard directories, spread round-robin over {@code mountPoints}
+     * as {@code <mount>/shard-NN}, or under {@code <base>/shards/NN} when no mount
+     * points are given.
+     */
+    public static LocalStorageLayout partitioned(String baseDirectory, int shards, List<String> mountPoints) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        Path base = Paths.get(baseDirectory);
+        List<Path> shardDirectories = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            String name = String.format("%02d", shard);
+            shardDirectories.add(mountPoints.isEmpty()
+                    ? base.resolve("shards").resolve(name)
+                    : Paths.get(mountPoints.get(shard % mountPoints.size())).resolve("shard-" + name));
+        }
+        checkRecordedShards(base, shardDirectories);
+        return new LocalStorageLayout(base, shardDirectories);
+    }
+
+    public boolean isPartitioned() {
+        return !shardUsersDirectories.isEmpty();
+    }
+
+    public int getShardCount() {
+        return shardUsersDirectories.size();
+    }
+
+    /**
+     * Shard index of a user; stable across JVMs and releases.
+     */
+    public int shardOf(String userId) {
+        CRC32 crc = new CRC32();
+        crc.update(userId.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardUsersDirectories.size());
+    }
+
+    /**
+     * Lock on a user's files within this process: reads hold the read lock, writes and
+     * moves hold the write lock. Users share a fixed number of locks.
+     */
+    public ReadWriteLock lockOf(String userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), userLocks.length)];
+    }
+
+    /**
+     * The directory new records of a user are written to.
+     */
+    public Path userDirectory(String userId) {
+        return isPartitioned()
+                ? shardUsersDirectories.get(shardOf(userId)).resolve(userId)
+                : legacyUsersDirectory.resolve(userId);
+    }
+
+    /**
+     * Directories a user's records may be read from, the write directory first.
+     */
+    public List<Path> readDirectories(String userId) {
+        return isPartitioned()
+                ? List.of(userDirectory(userId), legacyUsersDirectory.resolve(userId))
+                : List.of(legacyUsersDirectory.resolve(userId));
+    }
+
+    /**
+     * Every directory that holds user directories: the shards, then the original one.
+     */
+    public List<Path> usersDirectories() {
+        List<Path> directories = new ArrayList<>(shardUsersDirectories);
+        directories.add(legacyUsersDirectory);
+        return Collections.unmodifiableList(directories);
+    }
+
+    /**
+     * The original {@code <base>/users} directory that the migration drains.
+     */
+    public Path legacyUsersDirectory() {
+        return legacyUsersDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return isPartitioned() ? "partitioned(" + shardUsersDirectories.size() + ")" : "single";
+    }
+
+    private static void checkRecordedShards(Path base, List<Path> shardDirectories) {
+        String shards = shardDirectories.stream()
+                .map(shard -> shard.toAbsolutePath().normalize().toString())
+                .collect(Collectors.joining(","));
+        Path layoutFile = base.resolve(LAYOUT_FILE);
+        try {
+            Properties properties = new Properties();
+            if (Files.exists(layoutFile)) {
+                try (Reader reader = Files.newBufferedReader(layoutFile, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                String recorded = properties.getProperty(SHARDS_KEY);
+                if (recorded != null && !recorded.equals(shards)) {
+                    throw new IllegalStateException("Shard layout changed from [" + recorded + "] to [" + shards
+                            + "]; users would be looked up in the wrong shard");
+                }
+                if (recorded != null) {
+                    return;
+                }
+            }
+            Files.createDirectories(base);
+            properties.setProperty(SHARDS_KEY, shards);
+            try (Writer writer = Files.newBufferedWriter(layoutFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, "LocalFileDataRepository shard layout");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record shard layout in " + layoutFile, e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.health.chat.repository;
+
+import com.health.chat.json.JsonMappers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization format for stored records: compact JSON or Jackson Smile, optionally gzipped.
+ *
+ * <p>The codec only decides how new records are written. {@link #decode} detects the
+ * format from the leading bytes (gzip magic, Smile header, otherwise JSON), so records
+ * written by any codec, including older pretty-printed JSON, stay readable. Values go
+ * through the per-type readers and writers of {@link JsonMappers}.
+ * Select one per deployment with {@code storage.codec} (or {@code STORAGE_CODEC} for Lambda):
+ * {@code json}, {@code json-gzip}, {@code smile} or {@code smile-gzip}.
+ */
+public final class RecordCodec {
+
+    private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+    public static final RecordCodec JSON = new RecordCodec("json", false, false);
+    public static final RecordCodec JSON_GZIP = new RecordCodec("json-gzip", false, true);
+    public static final RecordCodec SMILE = new RecordCodec("smile", true, false);
+    public static final RecordCodec SMILE_GZIP = new RecordCodec("smile-gzip", true, true);
+
+    private static final List<RecordCodec> ALL = List.of(JSON, JSON_GZIP, SMILE, SMILE_GZIP);
+
+    private final String name;
+    private final boolean smile;
+    private final boolean gzip;
+
+    private RecordCodec(String name, boolean smile, boolean gzip) {
+        this.name = name;
+        this.smile = smile;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Looks up a codec by its configuration name; blank means {@link #JSON}.
+     */
+    public static RecordCodec forName(String name) {
+        if (name == null || name.isBlank()) {
+            return JSON;
+        }
+        for (RecordCodec codec : ALL) {
+            if (codec.name.equalsIgnoreCase(name.trim())) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown storage codec: " + name
+                + " (expected json, json-gzip, smile or smile-gzip)");
+    }
+
+    /**
+     * Every codec, for readers that look for records written with any of them.
+     */
+    public static List<RecordCodec> all() {
+        return ALL;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * File name suffix for records written with this codec, e.g. {@code .smile.gz}.
+     */
+    public String getFileExtension() {
+        return (smile ? ".smile" : ".json") + (gzip ? ".gz" : "");
+    }
+
+    public String getContentType() {
+        if (gzip) {
+            return "application/gzip";
+        }
+        return smile ? "application/x-jackson-smile" : "application/json";
+    }
+
+    public byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (OutputStream out = gzip ? new GZIPOutputStream(buffer) : buffer) {
+            (smile ? JsonMappers.SMILE : JsonMappers.JSON).writer(value.getClass()).writeValue(out, value);
+        }
+        return buffer.toByteArray();
+    }
+
+    public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+        if (isGzip(bytes)) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        return (isSmile(bytes) ? JsonMappers.SMILE : JsonMappers.JSON).reader(type).readValue(bytes);
+    }
+
+    private static boolean isGzip(byte[] bytes) {
+        return bytes.length >= 2 && (bytes[0] & 0xFF) == 0x1F && (bytes[1] & 0xFF) == 0x8B;
+    }
+
+    private static boolean isSmile(byte[] bytes) {
+        return bytes.length >= SMILE_HEADER.length
+                && bytes[0] == SMILE_HEADER[0] && bytes[1] == SMILE_HEADER[1] && bytes[2] == SMILE_HEADER[2];
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
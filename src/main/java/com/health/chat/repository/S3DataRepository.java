@@ -1,8 +1,10 @@
 package com.health.chat.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.health.chat.jfr.S3CallEvent;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.model.DailySummary;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.MentalState;
 import com.health.chat.model.NutritionInfo;
@@ -11,71 +13,273 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 public class S3DataRepository implements DataRepository {
-    private static final Logger LOGGER = Logger.getLogger(S3DataRepository.class.getName());
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(S3DataRepository.class);
     private static final int MAX_RETRIES = 3;
+    // Closed months of per-message health objects are merged into this gzip NDJSON object
+    static final String COMPACTED_HEALTH_OBJECT = "compacted.ndjson.gz";
+    private static final int MAX_DELETE_KEYS = 1000;
+    // Every chat message and range read touches many objects, so per-object events are sampled
+    private static final int OBJECT_LOG_SAMPLE_RATE = 100;
+    private static final StructuredLogger.SampledEvent OBJECT_SAVED =
+            LOG.sampled("s3.object.saved", Level.INFO, OBJECT_LOG_SAMPLE_RATE);
+    private static final StructuredLogger.SampledEvent OBJECT_READ =
+            LOG.sampled("s3.object.read", Level.INFO, OBJECT_LOG_SAMPLE_RATE);
+    private static final StructuredLogger.SampledEvent OBJECT_NOT_FOUND =
+            LOG.sampled("s3.object.not_found", Level.INFO, OBJECT_LOG_SAMPLE_RATE);
     
     private final S3Client s3Client;
     private final String bucketName;
-    private final ObjectMapper objectMapper;
+    private final RecordCodec codec;
 
     public S3DataRepository(S3Client s3Client, String bucketName) {
+        this(s3Client, bucketName, RecordCodec.JSON);
+    }
+
+    /**
+     * @param codec format for new objects; it is recorded in the object's content type and
+     *              {@code codec} metadata, and objects in any format are read
+     */
+    public S3DataRepository(S3Client s3Client, String bucketName, RecordCodec codec) {
         this.s3Client = s3Client;
         this.bucketName = bucketName;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.codec = codec;
     }
 
     @Override
     public void saveHealthData(String userId, HealthData data) {
         String key = buildHealthDataKey(userId, data.getDate(), data.getTimestamp().toString());
         saveObject(key, data);
+        invalidateDailySummary(userId, data.getDate());
     }
 
     @Override
     public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
         List<HealthData> results = new ArrayList<>();
-        String prefix = String.format("users/%s/health/", userId);
         
         try {
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(prefix)
-                    .build();
-            
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
-            
-            for (S3Object s3Object : listResponse.contents()) {
-                try {
-                    HealthData data = getObject(s3Object.key(), HealthData.class);
-                    if (data != null && data.getDate() != null &&
-                        !data.getDate().isBefore(start) && !data.getDate().isAfter(end)) {
+            // Keys are grouped by month, so only the months in range are listed
+            for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(end)); month = month.plusMonths(1)) {
+                for (HealthData data : readHealthMonth(userId, month)) {
+                    if (data.getDate() != null && !data.getDate().isBefore(start) && !data.getDate().isAfter(end)) {
                         results.add(data);
                     }
-                } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Failed to retrieve health data from key: " + s3Object.key(), e);
                 }
             }
         } catch (S3Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to list health data for user: " + userId, e);
+            LOG.severe("s3.health.list_failed", e, "userId", userId);
             throw new RuntimeException("Failed to retrieve health data", e);
         }
         
         return results;
     }
 
+    /**
+     * Merges a closed month's per-message health objects into one gzip NDJSON object
+     * and deletes the originals. Objects written after the listing are left for the next run.
+     *
+     * @return number of per-message objects folded into the compacted object
+     */
+    public int compactHealthMonth(String userId, YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Only closed months can be compacted: " + month);
+        }
+        String prefix = buildHealthMonthPrefix(userId, month);
+        String compactedKey = prefix + COMPACTED_HEALTH_OBJECT;
+        List<String> keys = listKeys(prefix);
+        List<String> messageKeys = new ArrayList<>(keys);
+        messageKeys.remove(compactedKey);
+        if (messageKeys.isEmpty()) {
+            return 0;
+        }
+        
+        List<HealthData> entries = new ArrayList<>();
+        Set<String> compactedKeys = new HashSet<>();
+        if (keys.contains(compactedKey)) {
+            entries.addAll(readCompactedHealth(compactedKey));
+            compactedKeys.addAll(messageKeysOf(userId, entries));
+        }
+        // Any unreadable object aborts the run before anything is deleted
+        for (String key : messageKeys) {
+            if (!compactedKeys.contains(key)) {
+                HealthData data = getObject(key, HealthData.class);
+                if (data != null) {
+                    entries.add(data);
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(HealthData::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        
+        putObjectBytes(compactedKey, encodeCompactedHealth(entries), "application/x-ndjson", "ndjson-gzip");
+        deleteKeys(messageKeys);
+        LOG.info("s3.health.compacted", "userId", userId, "month", month,
+                "objects", messageKeys.size(), "entries", entries.size());
+        return messageKeys.size();
+    }
+
+    /**
+     * Compacts every month before the current one that still has per-message health objects.
+     *
+     * @return number of months compacted
+     */
+    public int compactClosedHealthMonths(String userId) {
+        YearMonth current = YearMonth.now();
+        String prefix = String.format("users/%s/health/", userId);
+        Set<YearMonth> months = new TreeSet<>();
+        for (String key : listKeys(prefix)) {
+            // users/{id}/health/{yyyy}/{MM}/{name}
+            String[] parts = key.substring(prefix.length()).split("/");
+            if (parts.length == 3 && !parts[2].equals(COMPACTED_HEALTH_OBJECT)) {
+                try {
+                    YearMonth month = YearMonth.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+                    if (month.isBefore(current)) {
+                        months.add(month);
+                    }
+                } catch (RuntimeException e) {
+                    LOG.warning("s3.health.unexpected_key", "key", key);
+                }
+            }
+        }
+        for (YearMonth month : months) {
+            compactHealthMonth(userId, month);
+        }
+        return months.size();
+    }
+
+    /**
+     * User ids that have objects in the bucket.
+     */
+    public List<String> listUserIds() {
+        List<String> userIds = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            ListObjectsV2Response response = listObjects("users/", "/", continuationToken);
+            for (CommonPrefix commonPrefix : response.commonPrefixes()) {
+                String prefix = commonPrefix.prefix();
+                userIds.add(prefix.substring("users/".length(), prefix.length() - 1));
+            }
+            continuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+        } while (continuationToken != null);
+        return userIds;
+    }
+
+    /**
+     * State of a scheduled job, e.g. a backfill checkpoint, or null if none is saved.
+     * Job state lives under {@code jobs/}, outside the user prefixes.
+     */
+    public <T> T getJobState(String job, Class<T> type) {
+        return getObject(buildJobStateKey(job), type);
+    }
+
+    public void saveJobState(String job, Object state) {
+        String key = buildJobStateKey(job);
+        byte[] content;
+        try {
+            content = JsonMappers.JSON.writer(state.getClass()).writeValueAsBytes(state);
+        } catch (IOException e) {
+            LOG.severe("s3.object.serialize_failed", e, "key", key);
+            throw new RuntimeException("Failed to serialize job state", e);
+        }
+        putObjectBytes(key, content, RecordCodec.JSON.getContentType(), RecordCodec.JSON.getName());
+    }
+
+    public void deleteJobState(String job) {
+        deleteKeys(List.of(buildJobStateKey(job)));
+    }
+
+    // Per-message objects plus the compacted object, skipping messages already in the compacted one
+    private List<HealthData> readHealthMonth(String userId, YearMonth month) {
+        String prefix = buildHealthMonthPrefix(userId, month);
+        String compactedKey = prefix + COMPACTED_HEALTH_OBJECT;
+        List<String> keys = listKeys(prefix);
+        
+        List<HealthData> entries = new ArrayList<>();
+        Set<String> compactedKeys = new HashSet<>();
+        if (keys.contains(compactedKey)) {
+            try {
+                List<HealthData> compacted = readCompactedHealth(compactedKey);
+                entries.addAll(compacted);
+                compactedKeys.addAll(messageKeysOf(userId, compacted));
+            } catch (Exception e) {
+                LOG.warning("s3.health.read_failed", e, "key", compactedKey);
+            }
+        }
+        for (String key : keys) {
+            if (key.equals(compactedKey) || compactedKeys.contains(key)) {
+                continue;
+            }
+            try {
+                HealthData data = getObject(key, HealthData.class);
+                if (data != null) {
+                    entries.add(data);
+                }
+            } catch (Exception e) {
+                LOG.warning("s3.health.read_failed", e, "key", key);
+            }
+        }
+        return entries;
+    }
+
+    private List<HealthData> readCompactedHealth(String key) {
+        byte[] bytes = getObjectBytes(key);
+        if (bytes == null) {
+            return new ArrayList<>();
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            // Compacted health objects are always NDJSON
+            return JsonMappers.JSON.reader(HealthData.class).<HealthData>readValues(in).readAll();
+        } catch (IOException e) {
+            LOG.severe("s3.object.deserialize_failed", e, "key", key);
+            throw new RuntimeException("Failed to deserialize compacted health data", e);
+        }
+    }
+
+    private byte[] encodeCompactedHealth(List<HealthData> entries) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectWriter writer = JsonMappers.JSON.writer(HealthData.class);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            for (HealthData entry : entries) {
+                out.write(writer.writeValueAsBytes(entry));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize compacted health data", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private Set<String> messageKeysOf(String userId, List<HealthData> entries) {
+        Set<String> keys = new HashSet<>();
+        for (HealthData entry : entries) {
+            if (entry.getDate() != null && entry.getTimestamp() != null) {
+                keys.add(buildHealthDataKey(userId, entry.getDate(), entry.getTimestamp().toString()));
+            }
+        }
+        return keys;
+    }
+
     @Override
     public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
         String key = buildNutritionKey(userId, date);
         saveObject(key, info);
+        invalidateDailySummary(userId, date);
     }
 
     @Override
@@ -88,6 +292,7 @@ public class S3DataRepository implements DataRepository {
     public void saveMentalState(String userId, LocalDate date, MentalState state) {
         String key = buildMentalStateKey(userId, date);
         saveObject(key, state);
+        invalidateDailySummary(userId, date);
     }
 
     @Override
@@ -100,6 +305,29 @@ public class S3DataRepository implements DataRepository {
     public void saveTanka(String userId, TankaPoem tanka) {
         String key = buildTankaKey(userId, tanka.getDate());
         saveObject(key, tanka);
+        invalidateDailySummary(userId, tanka.getDate());
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        saveObject(buildDailySummaryKey(userId, summary.getDate()), summary);
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        return getObject(buildDailySummaryKey(userId, date), DailySummary.class);
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        deleteKeys(List.of(buildDailySummaryKey(userId, date)));
+    }
+
+    // A late write to a closed day makes its summary stale; without it the day is computed on demand
+    private void invalidateDailySummary(String userId, LocalDate date) {
+        if (DailySummary.isClosed(date)) {
+            deleteDailySummary(userId, date);
+        }
     }
 
     @Override
@@ -108,12 +336,7 @@ public class S3DataRepository implements DataRepository {
         String prefix = String.format("users/%s/tanka/", userId);
         
         try {
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(prefix)
-                    .build();
-            
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
+            ListObjectsV2Response listResponse = listObjects(prefix);
             
             for (S3Object s3Object : listResponse.contents()) {
                 try {
@@ -122,14 +345,16 @@ public class S3DataRepository implements DataRepository {
                         results.add(tanka);
                     }
                 } catch (Exception e) {
-                    LOGGER.log(Level.WARNING, "Failed to retrieve tanka from key: " + s3Object.key(), e);
+                    LOG.warning("s3.tanka.read_failed", e, "key", s3Object.key());
                 }
             }
         } catch (S3Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to list tanka history for user: " + userId, e);
+            LOG.severe("s3.tanka.list_failed", e, "userId", userId);
             throw new RuntimeException("Failed to retrieve tanka history", e);
         }
         
+        // Newest first, like the other repositories; keys list oldest first
+        results.sort(Comparator.comparing(TankaPoem::getDate, Comparator.nullsLast(Comparator.reverseOrder())));
         return results;
     }
     
@@ -181,6 +406,10 @@ public class S3DataRepository implements DataRepository {
     }
 
     // Helper methods for building S3 keys with date-based directory structure
+    private String buildHealthMonthPrefix(String userId, YearMonth month) {
+        return String.format("users/%s/health/%d/%02d/", userId, month.getYear(), month.getMonthValue());
+    }
+
     private String buildHealthDataKey(String userId, LocalDate date, String timestamp) {
         return String.format("users/%s/health/%d/%02d/%s.json",
                 userId,
@@ -213,6 +442,18 @@ public class S3DataRepository implements DataRepository {
                 date.getDayOfMonth());
     }
 
+    private String buildDailySummaryKey(String userId, LocalDate date) {
+        return String.format("users/%s/summary/%d/%02d/%02d.json",
+                userId,
+                date.getYear(),
+                date.getMonthValue(),
+                date.getDayOfMonth());
+    }
+
+    private String buildJobStateKey(String job) {
+        return "jobs/" + job + ".json";
+    }
+
     private String buildUserProfileKey(String userId) {
         return String.format("users/%s/profile.json", userId);
     }
@@ -235,12 +476,7 @@ public class S3DataRepository implements DataRepository {
         String prefix = "users/";
         
         try {
-            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .prefix(prefix)
-                    .build();
-            
-            ListObjectsV2Response listResponse = s3Client.listObjectsV2(listRequest);
+            ListObjectsV2Response listResponse = listObjects(prefix);
             
             for (S3Object s3Object : listResponse.contents()) {
                 if (s3Object.key().endsWith("/profile.json")) {
@@ -250,12 +486,12 @@ public class S3DataRepository implements DataRepository {
                             return profile;
                         }
                     } catch (Exception e) {
-                        LOGGER.log(Level.WARNING, "Failed to retrieve user profile from key: " + s3Object.key(), e);
+                        LOG.warning("s3.profile.read_failed", e, "key", s3Object.key());
                     }
                 }
             }
         } catch (S3Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to search for user by username: " + username, e);
+            LOG.severe("s3.profile.search_failed", e, "username", username);
             throw new RuntimeException("Failed to search for user", e);
         }
         
@@ -264,92 +500,207 @@ public class S3DataRepository implements DataRepository {
 
     // Generic save method with retry logic
     private void saveObject(String key, Object data) {
+        byte[] content;
+        try {
+            content = codec.encode(data);
+        } catch (IOException e) {
+            LOG.severe("s3.object.serialize_failed", e, "key", key);
+            throw new RuntimeException("Failed to serialize data", e);
+        }
+        putObjectBytes(key, content, codec.getContentType(), codec.getName());
+    }
+
+    private void putObjectBytes(String key, byte[] content, String contentType, String codecName) {
+        S3CallEvent event = new S3CallEvent();
+        event.begin();
         int attempts = 0;
+        long backoffMillis = 0;
+        String outcome = "error";
         Exception lastException = null;
         
-        while (attempts < MAX_RETRIES) {
-            try {
-                String jsonContent = objectMapper.writeValueAsString(data);
-                
-                PutObjectRequest putRequest = PutObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(key)
-                        .contentType("application/json")
-                        .build();
-                
-                s3Client.putObject(putRequest, RequestBody.fromString(jsonContent));
-                LOGGER.info("Successfully saved object to S3: " + key);
-                return;
-            } catch (IOException e) {
-                lastException = e;
-                LOGGER.log(Level.SEVERE, "Failed to serialize object for key: " + key, e);
-                throw new RuntimeException("Failed to serialize data", e);
-            } catch (S3Exception e) {
-                lastException = e;
-                attempts++;
-                LOGGER.log(Level.WARNING, 
-                    String.format("Failed to save to S3 (attempt %d/%d): %s", attempts, MAX_RETRIES, key), e);
-                
-                if (attempts >= MAX_RETRIES) {
-                    break;
-                }
-                
+        try {
+            while (attempts < MAX_RETRIES) {
                 try {
-                    Thread.sleep(1000 * attempts); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted during retry", ie);
+                    PutObjectRequest putRequest = PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .contentType(contentType)
+                            .metadata(Map.of("codec", codecName))
+                            .build();
+                    
+                    s3Client.putObject(putRequest, RequestBody.fromBytes(content));
+                    attempts++;
+                    outcome = "success";
+                    OBJECT_SAVED.log("key", key);
+                    return;
+                } catch (S3Exception e) {
+                    lastException = e;
+                    attempts++;
+                    LOG.warning("s3.object.save_retry", e, "key", key, "attempt", attempts, "maxAttempts", MAX_RETRIES);
+                    
+                    if (attempts >= MAX_RETRIES) {
+                        break;
+                    }
+                    
+                    backoffMillis += backoff(attempts);
                 }
             }
+            
+            LOG.severe("s3.object.save_failed", lastException, "key", key, "attempts", MAX_RETRIES);
+            throw new RuntimeException("Failed to save data to S3", lastException);
+        } finally {
+            commitCall(event, "put", key, attempts, backoffMillis, content.length, outcome);
         }
-        
-        LOGGER.log(Level.SEVERE, "Failed to save to S3 after " + MAX_RETRIES + " attempts: " + key, lastException);
-        throw new RuntimeException("Failed to save data to S3", lastException);
     }
 
     // Generic get method with retry logic
     private <T> T getObject(String key, Class<T> clazz) {
+        byte[] objectBytes = getObjectBytes(key);
+        if (objectBytes == null) {
+            return null;
+        }
+        try {
+            return codec.decode(objectBytes, clazz);
+        } catch (IOException e) {
+            LOG.severe("s3.object.deserialize_failed", e, "key", key);
+            throw new RuntimeException("Failed to deserialize data", e);
+        }
+    }
+
+    // Returns null if the key does not exist
+    private byte[] getObjectBytes(String key) {
+        S3CallEvent event = new S3CallEvent();
+        event.begin();
         int attempts = 0;
+        long backoffMillis = 0;
+        long bytes = 0;
+        String outcome = "error";
         Exception lastException = null;
         
-        while (attempts < MAX_RETRIES) {
+        try {
+            while (attempts < MAX_RETRIES) {
+                try {
+                    GetObjectRequest getRequest = GetObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .build();
+                    
+                    byte[] objectBytes = s3Client.getObjectAsBytes(getRequest).asByteArray();
+                    attempts++;
+                    bytes = objectBytes.length;
+                    outcome = "success";
+                    OBJECT_READ.log("key", key, "bytes", objectBytes.length);
+                    return objectBytes;
+                } catch (NoSuchKeyException e) {
+                    attempts++;
+                    outcome = "not_found";
+                    OBJECT_NOT_FOUND.log("key", key);
+                    return null;
+                } catch (S3Exception e) {
+                    lastException = e;
+                    attempts++;
+                    LOG.warning("s3.object.read_retry", e, "key", key, "attempt", attempts, "maxAttempts", MAX_RETRIES);
+                    
+                    if (attempts >= MAX_RETRIES) {
+                        break;
+                    }
+                    
+                    backoffMillis += backoff(attempts);
+                }
+            }
+            
+            LOG.severe("s3.object.read_failed", lastException, "key", key, "attempts", MAX_RETRIES);
+            throw new RuntimeException("Failed to retrieve data from S3", lastException);
+        } finally {
+            commitCall(event, "get", key, attempts, backoffMillis, bytes, outcome);
+        }
+    }
+    
+    private ListObjectsV2Response listObjects(String prefix) {
+        return listObjects(prefix, null, null);
+    }
+    
+    private ListObjectsV2Response listObjects(String prefix, String delimiter, String continuationToken) {
+        S3CallEvent event = new S3CallEvent();
+        event.begin();
+        String outcome = "error";
+        try {
+            ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .delimiter(delimiter)
+                    .continuationToken(continuationToken)
+                    .build();
+            
+            ListObjectsV2Response response = s3Client.listObjectsV2(listRequest);
+            outcome = "success";
+            return response;
+        } finally {
+            commitCall(event, "list", prefix, 1, 0, 0, outcome);
+        }
+    }
+    
+    // Every key under the prefix, following continuation tokens past the 1000-key page limit
+    private List<String> listKeys(String prefix) {
+        List<String> keys = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            ListObjectsV2Response response = listObjects(prefix, null, continuationToken);
+            for (S3Object s3Object : response.contents()) {
+                keys.add(s3Object.key());
+            }
+            continuationToken = Boolean.TRUE.equals(response.isTruncated()) ? response.nextContinuationToken() : null;
+        } while (continuationToken != null);
+        return keys;
+    }
+    
+    private void deleteKeys(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_KEYS) {
+            List<ObjectIdentifier> batch = new ArrayList<>();
+            for (String key : keys.subList(from, Math.min(from + MAX_DELETE_KEYS, keys.size()))) {
+                batch.add(ObjectIdentifier.builder().key(key).build());
+            }
+            S3CallEvent event = new S3CallEvent();
+            event.begin();
+            String outcome = "error";
             try {
-                GetObjectRequest getRequest = GetObjectRequest.builder()
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
                         .bucket(bucketName)
-                        .key(key)
-                        .build();
-                
-                byte[] objectBytes = s3Client.getObjectAsBytes(getRequest).asByteArray();
-                T result = objectMapper.readValue(objectBytes, clazz);
-                LOGGER.info("Successfully retrieved object from S3: " + key);
-                return result;
-            } catch (NoSuchKeyException e) {
-                LOGGER.log(Level.INFO, "Object not found in S3: " + key);
-                return null;
-            } catch (IOException e) {
-                lastException = e;
-                LOGGER.log(Level.SEVERE, "Failed to deserialize object from key: " + key, e);
-                throw new RuntimeException("Failed to deserialize data", e);
-            } catch (S3Exception e) {
-                lastException = e;
-                attempts++;
-                LOGGER.log(Level.WARNING, 
-                    String.format("Failed to retrieve from S3 (attempt %d/%d): %s", attempts, MAX_RETRIES, key), e);
-                
-                if (attempts >= MAX_RETRIES) {
-                    break;
-                }
-                
-                try {
-                    Thread.sleep(1000 * attempts); // Exponential backoff
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Interrupted during retry", ie);
+                        .delete(Delete.builder().objects(batch).quiet(true).build())
+                        .build());
+                // Leftovers are skipped on read and picked up by the next compaction
+                for (S3Error error : response.errors()) {
+                    LOG.warning("s3.object.delete_failed", "key", error.key(), "code", error.code());
                 }
+                outcome = response.errors().isEmpty() ? "success" : "partial";
+            } finally {
+                commitCall(event, "delete", batch.get(0).key(), 1, 0, 0, outcome);
             }
         }
-        
-        LOGGER.log(Level.SEVERE, "Failed to retrieve from S3 after " + MAX_RETRIES + " attempts: " + key, lastException);
-        throw new RuntimeException("Failed to retrieve data from S3", lastException);
+    }
+    
+    // Sleeps before the next attempt and returns the time slept in milliseconds
+    private static long backoff(int attempts) {
+        long millis = 1000L * attempts; // Exponential backoff
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during retry", ie);
+        }
+        return millis;
+    }
+    
+    private static void commitCall(S3CallEvent event, String operation, String key, int attempts,
+                                   long backoffMillis, long bytes, String outcome) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.key = key;
+            event.attempts = attempts;
+            event.backoff = backoffMillis;
+            event.bytes = bytes;
+            event.outcome = outcome;
+            event.commit();
+        }
     }
 }
@@ -0,0 +1,63 @@
+package com.health.chat.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory version stamp per user that advances on every repository write.
+ *
+ * <p>Stamps start over when the process restarts; the ETag includes a per-process
+ * epoch so validators issued before a restart never match. Only writes made through
+ * this process are seen, so writers elsewhere (Lambda handlers) are not reflected;
+ * deployments that have such writers set {@code conditional-get.enabled=false}.
+ */
+public class UserDataVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Stamp initial = new Stamp(0, System.currentTimeMillis() / 1000 * 1000);
+    private final ConcurrentMap<String, Stamp> stamps = new ConcurrentHashMap<>();
+
+    public Stamp current(String userId) {
+        return stamps.getOrDefault(userId, initial);
+    }
+
+    public void advance(String userId) {
+        // HTTP dates have second resolution
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        stamps.merge(userId, new Stamp(1, now),
+                (previous, ignored) -> new Stamp(previous.version + 1, Math.max(previous.lastModified, now)));
+    }
+
+    /**
+     * Weak ETag for one view of the user's data, e.g. {@code etag(stamp, "graph", "ONE_MONTH")}.
+     */
+    public String etag(Stamp stamp, String... variant) {
+        StringBuilder tag = new StringBuilder("W/\"").append(epoch).append('-').append(stamp.version);
+        for (String part : variant) {
+            // Request parameters end up here; keep the tag a valid quoted string
+            tag.append('-').append(String.valueOf(part).replaceAll("[^A-Za-z0-9_.-]", "_"));
+        }
+        return tag.append('"').toString();
+    }
+
+    public static final class Stamp {
+        private final long version;
+        private final long lastModified;
+
+        Stamp(long version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Time of the last write in epoch milliseconds, or process start if there was none.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DataRepository decorator that advances the user's {@link UserDataVersions} stamp
+ * after every successful write, so HTTP validators change whenever the data does.
+ */
+public class VersionedDataRepository implements DataRepository {
+
+    private final DataRepository delegate;
+    private final UserDataVersions versions;
+
+    public VersionedDataRepository(DataRepository delegate, UserDataVersions versions) {
+        this.delegate = delegate;
+        this.versions = versions;
+    }
+
+    public DataRepository getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void saveHealthData(String userId, HealthData data) {
+        delegate.saveHealthData(userId, data);
+        versions.advance(userId);
+    }
+
+    @Override
+    public void saveHealthDataBatch(String userId, LocalDate date, List<HealthData> data) {
+        delegate.saveHealthDataBatch(userId, date, data);
+        versions.advance(userId);
+    }
+
+    @Override
+    public List<HealthData> getHealthDataByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getHealthDataByDateRange(userId, start, end);
+    }
+
+    @Override
+    public BodyMetricsSeries getBodyMetrics(String userId, LocalDate start, LocalDate end) {
+        return delegate.getBodyMetrics(userId, start, end);
+    }
+
+    @Override
+    public void saveNutritionInfo(String userId, LocalDate date, NutritionInfo info) {
+        delegate.saveNutritionInfo(userId, date, info);
+        versions.advance(userId);
+    }
+
+    @Override
+    public NutritionInfo getNutritionInfo(String userId, LocalDate date) {
+        return delegate.getNutritionInfo(userId, date);
+    }
+
+    @Override
+    public List<NutritionInfo> getNutritionInfoByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getNutritionInfoByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveMentalState(String userId, LocalDate date, MentalState state) {
+        delegate.saveMentalState(userId, date, state);
+        versions.advance(userId);
+    }
+
+    @Override
+    public MentalState getMentalState(String userId, LocalDate date) {
+        return delegate.getMentalState(userId, date);
+    }
+
+    @Override
+    public List<MentalState> getMentalStatesByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getMentalStatesByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveTanka(String userId, TankaPoem tanka) {
+        delegate.saveTanka(userId, tanka);
+        versions.advance(userId);
+    }
+
+    @Override
+    public void saveTankaBatch(String userId, List<TankaPoem> tankas) {
+        delegate.saveTankaBatch(userId, tankas);
+        versions.advance(userId);
+    }
+
+    @Override
+    public void saveDailySummary(String userId, DailySummary summary) {
+        delegate.saveDailySummary(userId, summary);
+        versions.advance(userId);
+    }
+
+    @Override
+    public DailySummary getDailySummary(String userId, LocalDate date) {
+        return delegate.getDailySummary(userId, date);
+    }
+
+    @Override
+    public void deleteDailySummary(String userId, LocalDate date) {
+        delegate.deleteDailySummary(userId, date);
+        versions.advance(userId);
+    }
+
+    @Override
+    public List<TankaPoem> getTankaHistory(String userId) {
+        return delegate.getTankaHistory(userId);
+    }
+
+    @Override
+    public List<TankaPoem> getTankasByDateRange(String userId, LocalDate start, LocalDate end) {
+        return delegate.getTankasByDateRange(userId, start, end);
+    }
+
+    @Override
+    public void saveUserProfile(UserProfile profile) {
+        delegate.saveUserProfile(profile);
+        versions.advance(profile.getUserId());
+    }
+
+    @Override
+    public UserProfile getUserProfile(String userId) {
+        return delegate.getUserProfile(userId);
+    }
+
+    @Override
+    public UserProfile getUserProfileByUsername(String username) {
+        return delegate.getUserProfileByUsername(username);
+    }
+}
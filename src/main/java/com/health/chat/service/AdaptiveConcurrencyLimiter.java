@@ -0,0 +1,243 @@
+package com.health.chat.service;
+
+import com.health.chat.metrics.PipelineMetrics;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the number of chat pipelines running at once, so that overload is
+ * shed instead of queueing behind slow S3 and MCP calls until every request times out.
+ *
+ * <p>The limit follows AIMD on observed latency. A short moving average of full-pipeline
+ * latency is compared with the no-load latency, tracked as a slowly rising minimum of
+ * that average. A request that fails with a timeout or a dependency failure, or finishes
+ * while the average is more than {@code tolerance} times the no-load latency, cuts the limit
+ * by a tenth. Any other failure, such as invalid input, says nothing about load and is
+ * released as a success without a latency sample. A full-pipeline
+ * request that finishes below it while at least half the limit was in use raises the
+ * limit by one per limit's worth of requests.
+ *
+ * <p>Requests are admitted {@link Mode#FULL} while fewer than {@code degradeAt} of the
+ * limit are running, then {@link Mode#DEGRADED}, which skips the non-essential stages,
+ * and are rejected once the limit is reached.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * How much of the pipeline an admitted request runs.
+     */
+    public enum Mode {
+        /** Every stage. */
+        FULL,
+        /** Without the non-essential stages: MCP research and tanka generation. */
+        DEGRADED
+    }
+
+    private static final double BACKOFF = 0.9;
+    private static final double SHORT_WEIGHT = 0.2;
+    // How fast the no-load latency rises towards the average; a lower average replaces it at once
+    private static final double NO_LOAD_DRIFT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double degradeAt;
+    private final double tolerance;
+    private final PipelineMetrics metrics;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int currentLimit;
+
+    // Guarded by this
+    private double limit;
+    private double shortNanos = Double.NaN;
+    private double noLoadNanos = Double.NaN;
+
+    /**
+     * @param initialLimit Limit before any latency has been observed
+     * @param minLimit Lowest the limit is cut to
+     * @param maxLimit Highest the limit is raised to
+     * @param degradeAt Fraction of the limit above which requests are admitted degraded
+     * @param tolerance Multiple of the no-load latency taken as congestion
+     * @param metrics Metrics to publish the limit, requests in flight and admissions in
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double degradeAt,
+                                      double tolerance, PipelineMetrics metrics) {
+        this(initialLimit, minLimit, maxLimit, degradeAt, tolerance, metrics, System::nanoTime);
+    }
+
+    // Constructor for testing
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double degradeAt,
+                               double tolerance, PipelineMetrics metrics, LongSupplier clock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min (" + minLimit + ") <= initial ("
+                + initialLimit + ") <= max (" + maxLimit + ")");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.degradeAt = degradeAt;
+        this.tolerance = tolerance;
+        this.metrics = metrics;
+        this.clock = clock;
+        this.limit = initialLimit;
+        this.currentLimit = initialLimit;
+        metrics.gaugeConcurrency(this::getLimit, inFlight::get);
+    }
+
+    /**
+     * A limiter that admits every request with every stage, for when limiting is disabled.
+     */
+    public static AdaptiveConcurrencyLimiter unlimited() {
+        return new AdaptiveConcurrencyLimiter(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 1.0,
+                Double.POSITIVE_INFINITY, PipelineMetrics.noop());
+    }
+
+    /**
+     * Admits a request, or returns null if the limit is reached. The permit must be released.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int running = inFlight.get();
+            int limit = currentLimit;
+            if (running >= limit) {
+                metrics.countAdmission("rejected");
+                return null;
+            }
+            if (inFlight.compareAndSet(running, running + 1)) {
+                Mode mode = running >= Math.ceil(limit * degradeAt) ? Mode.DEGRADED : Mode.FULL;
+                metrics.countAdmission(mode == Mode.FULL ? "full" : "degraded");
+                return new Permit(mode, running + 1, clock.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * Whether {@code failure} signals overload: a timeout, an I/O or AWS SDK failure, an MCP
+     * failure or a saturated executor, anywhere in its cause chain.
+     */
+    public static boolean isCongestion(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof IOException
+                    || cause instanceof UncheckedIOException || cause instanceof SdkException
+                    || cause instanceof MCPException || cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Seconds a rejected client should wait: the current average latency, at least one.
+     */
+    public long retryAfterSeconds() {
+        double average;
+        synchronized (this) {
+            average = shortNanos;
+        }
+        return Double.isNaN(average) ? 1 : Math.max(1, (long) Math.ceil(average / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    private synchronized void onRelease(Permit permit, long latencyNanos, boolean succeeded, boolean sampled) {
+        if (!sampled) {
+            // The pipeline stopped early for a reason other than load; its latency would skew the no-load estimate
+            return;
+        }
+        double latency;
+        if (permit.mode == Mode.FULL && succeeded) {
+            shortNanos = Double.isNaN(shortNanos) ? latencyNanos : shortNanos + (latencyNanos - shortNanos) * SHORT_WEIGHT;
+            noLoadNanos = Double.isNaN(noLoadNanos)
+                ? shortNanos : Math.min(shortNanos, noLoadNanos + (shortNanos - noLoadNanos) * NO_LOAD_DRIFT);
+            latency = shortNanos;
+        } else {
+            // Degraded requests skip the slow stages, so only one slower than a full request signals congestion
+            latency = latencyNanos;
+        }
+
+        if (!succeeded || latency > noLoadNanos * tolerance) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+        } else if (permit.mode == Mode.FULL && permit.inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        currentLimit = (int) limit;
+    }
+
+    /**
+     * One admitted request.
+     */
+    public final class Permit {
+        private final Mode mode;
+        private final int inFlight;
+        // Moved forward by time spent writing to the client, which is not pipeline latency
+        private long startNanos;
+        private boolean released;
+
+        private Permit(Mode mode, int inFlight, long startNanos) {
+            this.mode = mode;
+            this.inFlight = inFlight;
+            this.startNanos = startNanos;
+        }
+
+        public Mode mode() {
+            return mode;
+        }
+
+        /**
+         * Runs {@code write} with the latency clock stopped, so a slow client does not
+         * read as a congested pipeline.
+         */
+        public void untimed(Runnable write) {
+            long start = clock.getAsLong();
+            try {
+                write.run();
+            } finally {
+                synchronized (this) {
+                    startNanos += clock.getAsLong() - start;
+                }
+            }
+        }
+
+        /**
+         * Ends the request; a failure counts as congestion. Later calls are ignored.
+         */
+        public void release(boolean succeeded) {
+            release(succeeded, true);
+        }
+
+        /**
+         * Ends a request that threw {@code failure}. Only a {@linkplain #isCongestion congestion}
+         * failure counts against the limit; any other is released as a success, without a
+         * latency sample. Later calls are ignored.
+         */
+        public void release(Throwable failure) {
+            boolean congestion = isCongestion(failure);
+            release(!congestion, congestion);
+        }
+
+        private void release(boolean succeeded, boolean sampled) {
+            long latencyNanos;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                latencyNanos = clock.getAsLong() - startNanos;
+            }
+            AdaptiveConcurrencyLimiter.this.inFlight.decrementAndGet();
+            onRelease(this, latencyNanos, succeeded, sampled);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.health.chat.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.chat.json.JsonMappers;
 import com.health.chat.model.AuthResult;
 import com.health.chat.model.ChatResponse;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,7 +25,7 @@ public class ApiGatewayClient {
 
     public ApiGatewayClient() {
         this.httpClient = HttpClient.newHttpClient();
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = JsonMappers.JSON.mapper();
     }
 
     public AuthResult authenticate(String username, String password) throws Exception {
@@ -43,7 +44,7 @@ public class ApiGatewayClient {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), AuthResult.class);
+            return JsonMappers.JSON.reader(AuthResult.class).readValue(response.body());
         } else {
             AuthResult errorResult = new AuthResult();
             errorResult.setSuccess(false);
@@ -79,7 +80,7 @@ public class ApiGatewayClient {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
 
         if (response.statusCode() == 200) {
-            return objectMapper.readValue(response.body(), ChatResponse.class);
+            return JsonMappers.JSON.reader(ChatResponse.class).readValue(response.body());
         } else {
             ChatResponse errorResponse = new ChatResponse();
             errorResponse.setResponseText("サーバーエラーが発生しました");
@@ -2,6 +2,7 @@ package com.health.chat.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.chat.json.JsonMappers;
 import com.health.chat.model.DailyNutrition;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.NutritionInfo;
@@ -18,6 +19,9 @@ import java.util.logging.Logger;
 public class BasicNutritionEstimator implements NutritionEstimator {
     private static final Logger LOGGER = Logger.getLogger(BasicNutritionEstimator.class.getName());
     
+    // Default estimation for unknown foods
+    private static final FoodItem UNKNOWN_FOOD = FoodItem.of("unknown", 100, 3, 3, 15);
+    
     private final Map<String, FoodItem> foodDatabase;
     private final DataRepository dataRepository;
     
@@ -48,10 +52,10 @@ public class BasicNutritionEstimator implements NutritionEstimator {
             } else {
                 LOGGER.warning("Could not find nutrition data for: " + foodText);
                 // Use default estimation for unknown foods
-                totalCalories += 100;
-                totalProtein += 3;
-                totalFat += 3;
-                totalCarbohydrate += 15;
+                totalCalories += UNKNOWN_FOOD.calories;
+                totalProtein += UNKNOWN_FOOD.protein;
+                totalFat += UNKNOWN_FOOD.fat;
+                totalCarbohydrate += UNKNOWN_FOOD.carbohydrate;
             }
         }
         
@@ -61,21 +65,28 @@ public class BasicNutritionEstimator implements NutritionEstimator {
     @Override
     public DailyNutrition calculateDailyTotal(String userId, LocalDate date) {
         // Get all health data for the specified date
-        List<HealthData> healthDataList = dataRepository.getHealthDataByDateRange(userId, date, date);
-        
+        return calculateDailyTotal(dataRepository.getHealthDataByDateRange(userId, date, date));
+    }
+    
+    @Override
+    public DailyNutrition calculateDailyTotal(List<HealthData> healthDataList) {
         double totalCalories = 0;
         double totalProtein = 0;
         double totalFat = 0;
         double totalCarbohydrate = 0;
         
-        // Aggregate nutrition from all food entries for the day
+        // Aggregate nutrition from all food entries; each distinct food text is matched once per call
+        Map<String, FoodItem> resolved = new HashMap<>();
         for (HealthData healthData : healthDataList) {
-            if (healthData.getFoodItems() != null && !healthData.getFoodItems().isEmpty()) {
-                NutritionInfo nutrition = estimateNutrition(healthData.getFoodItems());
-                totalCalories += nutrition.getCalories();
-                totalProtein += nutrition.getProtein();
-                totalFat += nutrition.getFat();
-                totalCarbohydrate += nutrition.getCarbohydrate();
+            if (healthData.getFoodItems() == null) {
+                continue;
+            }
+            for (String foodText : healthData.getFoodItems()) {
+                FoodItem food = resolved.computeIfAbsent(foodText, this::resolveFood);
+                totalCalories += food.calories;
+                totalProtein += food.protein;
+                totalFat += food.fat;
+                totalCarbohydrate += food.carbohydrate;
             }
         }
         
@@ -104,6 +115,11 @@ public class BasicNutritionEstimator implements NutritionEstimator {
         return new PFCBalance(proteinRatio, fatRatio, carbohydrateRatio);
     }
     
+    private FoodItem resolveFood(String foodText) {
+        FoodItem food = findFoodInDatabase(foodText);
+        return food != null ? food : UNKNOWN_FOOD;
+    }
+    
     private FoodItem findFoodInDatabase(String foodText) {
         if (foodText == null || foodText.trim().isEmpty()) {
             return null;
@@ -140,7 +156,7 @@ public class BasicNutritionEstimator implements NutritionEstimator {
     
     private Map<String, FoodItem> loadFoodDatabase() {
         Map<String, FoodItem> database = new HashMap<>();
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = JsonMappers.JSON.mapper();
         
         try (InputStream is = getClass().getClassLoader().getResourceAsStream("food-database.json")) {
             if (is == null) {
@@ -187,5 +203,16 @@ public class BasicNutritionEstimator implements NutritionEstimator {
         double protein;
         double fat;
         double carbohydrate;
+        
+        static FoodItem of(String name, double calories, double protein, double fat, double carbohydrate) {
+            FoodItem food = new FoodItem();
+            food.name = name;
+            food.aliases = List.of();
+            food.calories = calories;
+            food.protein = protein;
+            food.fat = fat;
+            food.carbohydrate = carbohydrate;
+            return food;
+        }
     }
 }
@@ -0,0 +1,243 @@
+package com.health.chat.service;
+
+import com.health.chat.model.BulkImportResult;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.repository.DataRepository;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Imports many daily log messages at once, e.g. when migrating from another app.
+ *
+ * <p>Each non-blank line has the form {@code YYYY-MM-DD message}. Messages are
+ * parsed in parallel with {@link MessageParser}, grouped by day, and each day is
+ * written with one batched repository call together with its estimated nutrition.
+ * Advice and tanka generation are skipped; they only make sense for live chat.
+ *
+ * <p>Imported entries carry no time of day. Each gets the time of the import plus its
+ * position in nanoseconds, so the timestamp, which is the S3 object key of the entry,
+ * never repeats across imports of the same day.
+ */
+public class BulkIngestionService {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkIngestionService.class.getName());
+
+    /** Upper bound on lines per import, roughly three years of daily logs. */
+    public static final int MAX_ENTRIES = 1000;
+
+    private final MessageParser messageParser;
+    private final NutritionEstimator nutritionEstimator;
+    private final DataRepository dataRepository;
+    private final Clock clock;
+    // Epoch nanoseconds of the last import, so imports in this process never share a time even within a clock tick
+    private final AtomicLong lastImportNanos = new AtomicLong();
+
+    public BulkIngestionService(MessageParser messageParser, NutritionEstimator nutritionEstimator,
+                                DataRepository dataRepository) {
+        this(messageParser, nutritionEstimator, dataRepository, Clock.systemDefaultZone());
+    }
+
+    // Constructor for testing
+    BulkIngestionService(MessageParser messageParser, NutritionEstimator nutritionEstimator,
+                         DataRepository dataRepository, Clock clock) {
+        this.messageParser = messageParser;
+        this.nutritionEstimator = nutritionEstimator;
+        this.dataRepository = dataRepository;
+        this.clock = clock;
+    }
+
+    /**
+     * Imports the given log text for a user.
+     *
+     * @param userId the user ID
+     * @param logText newline-separated lines of the form {@code YYYY-MM-DD message}
+     * @return counts of imported and rejected lines, with one error per rejected line
+     * @throws IllegalArgumentException if the text is empty or has more than {@link #MAX_ENTRIES} lines
+     */
+    public BulkImportResult ingest(String userId, String logText) {
+        if (logText == null || logText.isBlank()) {
+            throw new IllegalArgumentException("No log entries to import");
+        }
+
+        String[] lines = logText.split("\\R");
+        List<Line> candidates = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            if (!lines[i].isBlank()) {
+                candidates.add(new Line(i + 1, lines[i].trim()));
+            }
+        }
+        if (candidates.size() > MAX_ENTRIES) {
+            throw new IllegalArgumentException("Import is limited to " + MAX_ENTRIES + " entries");
+        }
+
+        // Parsing is CPU-only and MessageParser is stateless, so lines are parsed in parallel
+        List<Line> parsed = candidates.parallelStream()
+                .map(line -> parseLine(userId, line))
+                .collect(Collectors.toList());
+
+        List<String> errors = new ArrayList<>();
+        Map<LocalDate, List<HealthData>> byDate = new TreeMap<>();
+        for (Line line : parsed) {
+            if (line.error != null) {
+                errors.add("line " + line.number + ": " + line.error);
+            } else {
+                byDate.computeIfAbsent(line.data.getDate(), d -> new ArrayList<>()).add(line.data);
+            }
+        }
+
+        // Unique per import and in input order within the day
+        LocalTime importTime = importTime();
+        for (Map.Entry<LocalDate, List<HealthData>> day : byDate.entrySet()) {
+            List<HealthData> entries = day.getValue();
+            for (int i = 0; i < entries.size(); i++) {
+                entries.get(i).setTimestamp(day.getKey().atTime(importTime).plusNanos(i));
+            }
+        }
+
+        Map<LocalDate, NutritionInfo> nutritionByDate = byDate.entrySet().parallelStream()
+                .filter(day -> hasFood(day.getValue()))
+                .collect(Collectors.toMap(Map.Entry::getKey, day -> estimateDailyNutrition(day.getValue())));
+
+        int imported = 0;
+        int daysWritten = 0;
+        for (Map.Entry<LocalDate, List<HealthData>> day : byDate.entrySet()) {
+            LocalDate date = day.getKey();
+            try {
+                dataRepository.saveHealthDataBatch(userId, date, day.getValue());
+                NutritionInfo nutrition = nutritionByDate.get(date);
+                if (nutrition != null) {
+                    dataRepository.saveNutritionInfo(userId, date, nutrition);
+                }
+                imported += day.getValue().size();
+                daysWritten++;
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to import entries for date: " + date, e);
+                errors.add(date + ": failed to save " + day.getValue().size() + " entries");
+            }
+        }
+
+        LOGGER.info("Bulk import for user " + userId + ": " + imported + " entries over "
+                + daysWritten + " days, " + errors.size() + " errors");
+        return new BulkImportResult(imported, candidates.size() - imported, daysWritten, errors);
+    }
+
+    // Time of day of this import, at least MAX_ENTRIES nanoseconds after the previous one
+    private LocalTime importTime() {
+        Instant now = clock.instant();
+        long nowNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        long importNanos = lastImportNanos.updateAndGet(last -> Math.max(nowNanos, last + MAX_ENTRIES));
+        LocalTime time = LocalTime.ofInstant(Instant.ofEpochSecond(0, importNanos), clock.getZone());
+        // Every entry of the import stays on its own day
+        LocalTime latest = LocalTime.MAX.minusNanos(MAX_ENTRIES);
+        return time.isAfter(latest) ? latest : time;
+    }
+
+    private Line parseLine(String userId, Line line) {
+        int separator = indexOfWhitespace(line.text);
+        String dateStr = separator < 0 ? line.text : line.text.substring(0, separator);
+        String message = separator < 0 ? "" : line.text.substring(separator).trim();
+
+        InputValidator.ValidationResult dateValidation = InputValidator.validateDateString(dateStr);
+        if (!dateValidation.isValid()) {
+            return line.rejected(dateValidation.getErrorMessage());
+        }
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateStr);
+        } catch (DateTimeParseException e) {
+            return line.rejected("Invalid date: " + dateStr);
+        }
+
+        InputValidator.ValidationResult messageValidation = InputValidator.validateMessage(message);
+        if (!messageValidation.isValid()) {
+            return line.rejected(messageValidation.getErrorMessage());
+        }
+
+        HealthData data = messageParser.parseMessage(userId, message);
+        data.setDate(date);
+
+        if (data.getWeight() != null) {
+            InputValidator.ValidationResult weightValidation = InputValidator.validateWeight(data.getWeight());
+            if (!weightValidation.isValid()) {
+                return line.rejected(weightValidation.getErrorMessage());
+            }
+        }
+        if (data.getBodyFatPercentage() != null) {
+            InputValidator.ValidationResult bodyFatValidation = InputValidator.validateBodyFat(data.getBodyFatPercentage());
+            if (!bodyFatValidation.isValid()) {
+                return line.rejected(bodyFatValidation.getErrorMessage());
+            }
+        }
+        return line.parsed(data);
+    }
+
+    private boolean hasFood(List<HealthData> entries) {
+        for (HealthData entry : entries) {
+            if (entry.getFoodItems() != null && !entry.getFoodItems().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the day's nutrition with a single call over all of its food items.
+     */
+    private NutritionInfo estimateDailyNutrition(List<HealthData> entries) {
+        List<String> foodItems = new ArrayList<>();
+        for (HealthData entry : entries) {
+            if (entry.getFoodItems() != null) {
+                foodItems.addAll(entry.getFoodItems());
+            }
+        }
+        return nutritionEstimator.estimateNutrition(foodItems);
+    }
+
+    private static int indexOfWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One input line and its parse outcome.
+     */
+    private static final class Line {
+        final int number;
+        final String text;
+        HealthData data;
+        String error;
+
+        Line(int number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+
+        Line parsed(HealthData data) {
+            this.data = data;
+            return this;
+        }
+
+        Line rejected(String error) {
+            this.error = error;
+            return this;
+        }
+    }
+}
@@ -1,19 +1,21 @@
 package com.health.chat.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.model.BodyMetricsSeries;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.TimeRange;
 
-import java.time.format.DateTimeFormatter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ChartJsGraphGenerator implements GraphGenerator {
     private final ObjectMapper objectMapper;
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public ChartJsGraphGenerator() {
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = JsonMappers.JSON.mapper();
     }
 
     @Override
@@ -21,55 +23,97 @@ public class ChartJsGraphGenerator implements GraphGenerator {
         if (data == null || data.isEmpty()) {
             return generateEmptyGraph();
         }
+        return generateGraph(BodyMetricsSeries.fromHealthData(data), range);
+    }
 
-        // Sort data by date
-        List<HealthData> sortedData = data.stream()
-                .sorted(Comparator.comparing(HealthData::getDate))
-                .collect(Collectors.toList());
+    @Override
+    public byte[] generateGraph(BodyMetricsSeries series, TimeRange range) {
+        if (series == null || series.isEmpty()) {
+            return generateEmptyGraph();
+        }
 
-        // Prepare data for Chart.js
-        Map<String, Object> chartData = new HashMap<>();
-        
-        List<String> labels = new ArrayList<>();
-        List<Double> weightData = new ArrayList<>();
-        List<Double> bodyFatData = new ArrayList<>();
+        // Stream straight from the columns; labels reuse one char buffer
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + series.size() * 32);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            
+            generator.writeArrayFieldStart("labels");
+            char[] label = new char[10];
+            for (int i = 0; i < series.size(); i++) {
+                formatDate(series.getEpochDay(i), label);
+                generator.writeString(label, 0, label.length);
+            }
+            generator.writeEndArray();
+            
+            generator.writeArrayFieldStart("datasets");
+            
+            // Weight dataset
+            generator.writeStartObject();
+            generator.writeStringField("label", "体重 (kg)");
+            generator.writeArrayFieldStart("data");
+            for (int i = 0; i < series.size(); i++) {
+                writeValue(generator, series.getWeight(i));
+            }
+            generator.writeEndArray();
+            generator.writeStringField("borderColor", "rgb(102, 126, 234)");
+            generator.writeStringField("backgroundColor", "rgba(102, 126, 234, 0.1)");
+            generator.writeStringField("yAxisID", "y");
+            generator.writeNumberField("tension", 0.4);
+            generator.writeEndObject();
+            
+            // Body fat dataset
+            generator.writeStartObject();
+            generator.writeStringField("label", "体脂肪率 (%)");
+            generator.writeArrayFieldStart("data");
+            for (int i = 0; i < series.size(); i++) {
+                writeValue(generator, series.getBodyFatPercentage(i));
+            }
+            generator.writeEndArray();
+            generator.writeStringField("borderColor", "rgb(118, 75, 162)");
+            generator.writeStringField("backgroundColor", "rgba(118, 75, 162, 0.1)");
+            generator.writeStringField("yAxisID", "y1");
+            generator.writeNumberField("tension", 0.4);
+            generator.writeEndObject();
+            
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to generate graph data", e);
+        }
+        return out.toByteArray();
+    }
 
-        for (HealthData healthData : sortedData) {
-            labels.add(healthData.getDate().format(DATE_FORMATTER));
-            weightData.add(healthData.getWeight() != null ? healthData.getWeight() : null);
-            bodyFatData.add(healthData.getBodyFatPercentage() != null ? healthData.getBodyFatPercentage() : null);
+    private static void writeValue(JsonGenerator generator, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
         }
+    }
 
-        chartData.put("labels", labels);
-        
-        List<Map<String, Object>> datasets = new ArrayList<>();
-        
-        // Weight dataset
-        Map<String, Object> weightDataset = new HashMap<>();
-        weightDataset.put("label", "体重 (kg)");
-        weightDataset.put("data", weightData);
-        weightDataset.put("borderColor", "rgb(102, 126, 234)");
-        weightDataset.put("backgroundColor", "rgba(102, 126, 234, 0.1)");
-        weightDataset.put("yAxisID", "y");
-        weightDataset.put("tension", 0.4);
-        datasets.add(weightDataset);
-        
-        // Body fat dataset
-        Map<String, Object> bodyFatDataset = new HashMap<>();
-        bodyFatDataset.put("label", "体脂肪率 (%)");
-        bodyFatDataset.put("data", bodyFatData);
-        bodyFatDataset.put("borderColor", "rgb(118, 75, 162)");
-        bodyFatDataset.put("backgroundColor", "rgba(118, 75, 162, 0.1)");
-        bodyFatDataset.put("yAxisID", "y1");
-        bodyFatDataset.put("tension", 0.4);
-        datasets.add(bodyFatDataset);
-        
-        chartData.put("datasets", datasets);
+    // yyyy-MM-dd without allocating a LocalDate per point (civil-from-days, years 1000-9999)
+    private static void formatDate(int epochDay, char[] target) {
+        long z = epochDay + 719468L;
+        long era = Math.floorDiv(z, 146097L);
+        long dayOfEra = z - era * 146097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
 
-        try {
-            return objectMapper.writeValueAsBytes(chartData);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate graph data", e);
+        writeDigits(target, 0, year, 4);
+        target[4] = '-';
+        writeDigits(target, 5, month, 2);
+        target[7] = '-';
+        writeDigits(target, 8, day, 2);
+    }
+
+    private static void writeDigits(char[] target, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
         }
     }
 
@@ -0,0 +1,193 @@
+package com.health.chat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.model.DailyNutrition;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.DataRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Materializes one {@link DailySummary} per active user for a closed day: the day's
+ * entries, {@link DailyNutrition}, mental state and tanka, so the daily analysis is
+ * served with a single read.
+ *
+ * <p>Users are processed on a {@link ForkJoinPool}; a semaphore bounds how many
+ * repository calls are in flight at once, independent of the pool size. A user with
+ * no entries on the day is not active and gets no summary. A missing tanka is
+ * generated and saved on its own as well, like the on-demand tanka endpoint does.
+ *
+ * <p>A write that lands after the day was read may invalidate the summary before it is
+ * saved. The day is therefore read again after saving, and a summary that no longer
+ * matches is deleted so the analysis computes that day on demand.
+ */
+public class DailySummaryService {
+
+    private static final Logger LOGGER = Logger.getLogger(DailySummaryService.class.getName());
+
+    private final DataRepository dataRepository;
+    private final NutritionEstimator nutritionEstimator;
+    private final TankaGenerator tankaGenerator;
+    private final int parallelism;
+    private final Semaphore storagePermits;
+
+    /**
+     * @param parallelism worker threads of the pool
+     * @param maxStorageCalls repository calls allowed in flight across all workers
+     */
+    public DailySummaryService(DataRepository dataRepository, NutritionEstimator nutritionEstimator,
+                               TankaGenerator tankaGenerator, int parallelism, int maxStorageCalls) {
+        if (parallelism < 1 || maxStorageCalls < 1) {
+            throw new IllegalArgumentException("parallelism and maxStorageCalls must be positive");
+        }
+        this.dataRepository = dataRepository;
+        this.nutritionEstimator = nutritionEstimator;
+        this.tankaGenerator = tankaGenerator;
+        this.parallelism = parallelism;
+        this.storagePermits = new Semaphore(maxStorageCalls);
+    }
+
+    /**
+     * Writes the summary of {@code date} for every active user among {@code userIds}.
+     */
+    public Result precompute(List<String> userIds, LocalDate date) {
+        if (!DailySummary.isClosed(date)) {
+            throw new IllegalArgumentException("Only closed days can be summarized: " + date);
+        }
+        AtomicInteger summarized = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> userIds.parallelStream().forEach(userId -> {
+                try {
+                    if (summarize(userId, date) != null) {
+                        summarized.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    LOGGER.log(Level.WARNING, "Daily summary failed for user: " + userId + " on " + date, e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Daily summary precomputation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Daily summary precomputation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        LOGGER.info("Daily summaries for " + date + ": " + summarized.get() + " of " + userIds.size()
+                + " users, " + failed.get() + " failed");
+        return new Result(userIds.size(), summarized.get(), failed.get());
+    }
+
+    /**
+     * Builds and saves one user's summary.
+     *
+     * @return the summary, or null if the user has no entries on the day or a late write
+     *         made it stale
+     */
+    DailySummary summarize(String userId, LocalDate date) {
+        List<HealthData> entries = new ArrayList<>(storage(() -> dataRepository.getHealthDataByDateRange(userId, date, date)));
+        if (entries.isEmpty()) {
+            return null;
+        }
+
+        DailyNutrition nutrition = nutritionEstimator.calculateDailyTotal(entries);
+        MentalState mentalState = readMentalState(userId, date);
+
+        List<TankaPoem> tankas = storage(() -> dataRepository.getTankasByDateRange(userId, date, date));
+        TankaPoem tanka;
+        if (tankas.isEmpty()) {
+            tanka = tankaGenerator.generate(TankaBackfillService.mergeDay(userId, date, new ArrayList<>(entries)),
+                    mentalState);
+            storage(() -> dataRepository.saveTanka(userId, tanka));
+        } else {
+            tanka = tankas.get(tankas.size() - 1);
+        }
+
+        DailySummary summary = new DailySummary(userId, date, entries, nutrition, mentalState, tanka,
+                LocalDateTime.now());
+        storage(() -> dataRepository.saveDailySummary(userId, summary));
+
+        // Writes after this point delete the summary themselves; only one between the reads and the save is missed
+        List<TankaPoem> savedTankas = storage(() -> dataRepository.getTankasByDateRange(userId, date, date));
+        DailySummary current = new DailySummary(userId, date,
+                storage(() -> dataRepository.getHealthDataByDateRange(userId, date, date)), nutrition,
+                readMentalState(userId, date), savedTankas.isEmpty() ? null : savedTankas.get(savedTankas.size() - 1),
+                summary.getGeneratedAt());
+        ObjectMapper mapper = JsonMappers.JSON.mapper();
+        if (!mapper.valueToTree(current).equals(mapper.valueToTree(summary))) {
+            storage(() -> dataRepository.deleteDailySummary(userId, date));
+            LOGGER.info("Daily summary for user: " + userId + " on " + date + " dropped after a concurrent write");
+            return null;
+        }
+        return summary;
+    }
+
+    private MentalState readMentalState(String userId, LocalDate date) {
+        try {
+            return storage(() -> dataRepository.getMentalState(userId, date));
+        } catch (Exception e) {
+            LOGGER.fine("No mental state for " + userId + " on " + date + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> T storage(Supplier<T> call) {
+        storagePermits.acquireUninterruptibly();
+        try {
+            return call.get();
+        } finally {
+            storagePermits.release();
+        }
+    }
+
+    private void storage(Runnable call) {
+        storage(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public static final class Result {
+        private final int users;
+        private final int summarized;
+        private final int failed;
+
+        Result(int users, int summarized, int failed) {
+            this.users = users;
+            this.summarized = summarized;
+            this.failed = failed;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        /** Users with entries on the day, whose summary was written. */
+        public int getSummarized() {
+            return summarized;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class ErrorHandler {
         VALIDATION_ERROR,
         DATA_ACCESS_ERROR,
         EXTERNAL_SERVICE_ERROR,
+        RATE_LIMIT_ERROR,
         INTERNAL_ERROR
     }
     
@@ -106,6 +107,25 @@ public class ErrorHandler {
         return error;
     }
     
+    /**
+     * Handles requests rejected by a per-user rate limit
+     */
+    public static Map<String, Object> handleRateLimitError(String userId, long retryAfterSeconds, Context context) {
+        String message = String.format("Rate limit exceeded for user: %s", userId);
+
+        if (context != null) {
+            context.getLogger().log(message);
+        }
+        LOGGER.log(Level.INFO, message);
+
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", "Too many requests");
+        error.put("message", String.format("Too many requests. Please retry after %d seconds.", retryAfterSeconds));
+        error.put("type", ErrorType.RATE_LIMIT_ERROR.name());
+        error.put("retryAfterSeconds", retryAfterSeconds);
+        return error;
+    }
+    
     /**
      * Handles unexpected internal errors
      */
@@ -1,5 +1,6 @@
 package com.health.chat.service;
 
+import com.health.chat.model.BodyMetricsSeries;
 import com.health.chat.model.HealthData;
 import com.health.chat.model.TimeRange;
 
@@ -7,4 +8,6 @@ import java.util.List;
 
 public interface GraphGenerator {
     byte[] generateGraph(List<HealthData> data, TimeRange range);
+
+    byte[] generateGraph(BodyMetricsSeries series, TimeRange range);
 }
@@ -7,4 +7,12 @@ import com.health.chat.model.UserProfile;
 
 public interface HealthAdvisorAI {
     AdviceResult generateAdvice(HealthData data, MentalState mentalState, UserProfile profile);
+
+    /**
+     * Advice without external research, for when the service is shedding load.
+     * Advisors that use no external research give the same advice as {@link #generateAdvice}.
+     */
+    default AdviceResult generateBasicAdvice(HealthData data, MentalState mentalState, UserProfile profile) {
+        return generateAdvice(data, mentalState, profile);
+    }
 }
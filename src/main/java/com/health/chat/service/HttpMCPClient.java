@@ -1,20 +1,36 @@
 package com.health.chat.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.chat.jfr.McpAttemptEvent;
+import com.health.chat.json.JsonMappers;
+import com.health.chat.metrics.PipelineMetrics;
 import com.health.chat.model.ResearchReference;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -22,16 +38,38 @@ import java.util.logging.Logger;
 /**
  * HTTP-based implementation of MCP Client.
  * Connects to MCP servers to fetch research information.
+ *
+ * <p>Requests share a pool of keep-alive connections, so concurrent chats reuse
+ * connections instead of opening one per topic. Connections idle for longer than
+ * the eviction time are closed in the background, and the pool's leased, available
+ * and pending counts are published as gauges.
+ *
+ * <p>{@link #fetchAllResearch} asks for every topic in one batch request,
+ * {@code {"batch": [{"topic": ..., "query": ...}, ...]}}, answered with one entry per
+ * topic, {@code {"topic": ..., "results": [...]}} or {@code {"topic": ..., "error": ...}}.
+ * A server that rejects the request (400, 404, 405, 415, 422, 501) or answers without a
+ * {@code batch} array is taken not to support batches; the client then sends one
+ * request per topic, and asks again after ten minutes.
  */
-public class HttpMCPClient implements MCPClient {
+public class HttpMCPClient implements MCPClient, Closeable {
     
     private static final Logger LOGGER = Logger.getLogger(HttpMCPClient.class.getName());
     private static final int MAX_RETRIES = 2;
+    private static final List<String> TOPICS = List.of("nutrition", "sleep", "exercise");
+    private static final String BATCH = "batch";
+    private static final String UNSUPPORTED = "unsupported";
+    // Statuses with which a server without batch support rejects a batch request
+    private static final Set<Integer> BATCH_UNSUPPORTED_STATUSES = Set.of(400, 404, 405, 415, 422, 501);
+    private static final long BATCH_RENEGOTIATE_NANOS = TimeUnit.MINUTES.toNanos(10);
     
     private final String mcpEndpoint;
     private final int timeoutSeconds;
     private final ObjectMapper objectMapper;
+    private final PoolingHttpClientConnectionManager connectionManager;
     private final CloseableHttpClient httpClient;
+    private final PipelineMetrics metrics;
+    private volatile boolean batchUnsupported;
+    private volatile long batchUnsupportedAt;
     
     /**
      * Creates an MCP client with default settings.
@@ -49,18 +87,64 @@ public class HttpMCPClient implements MCPClient {
      * @param timeoutSeconds Timeout in seconds for MCP requests
      */
     public HttpMCPClient(String mcpEndpoint, int timeoutSeconds) {
+        this(mcpEndpoint, timeoutSeconds, PipelineMetrics.noop());
+    }
+    
+    /**
+     * Creates an MCP client that records per-topic request timings.
+     * 
+     * @param mcpEndpoint The MCP server endpoint URL
+     * @param timeoutSeconds Timeout in seconds for MCP requests
+     * @param metrics Metrics to record each topic request in
+     */
+    public HttpMCPClient(String mcpEndpoint, int timeoutSeconds, PipelineMetrics metrics) {
+        this(mcpEndpoint, timeoutSeconds, metrics, PoolSettings.defaults());
+    }
+    
+    /**
+     * Creates an MCP client with explicit connection pool settings.
+     * 
+     * @param mcpEndpoint The MCP server endpoint URL
+     * @param timeoutSeconds Timeout in seconds for MCP requests
+     * @param metrics Metrics to record each topic request and the pool gauges in
+     * @param pool Connection pool limits and keep-alive settings
+     */
+    public HttpMCPClient(String mcpEndpoint, int timeoutSeconds, PipelineMetrics metrics, PoolSettings pool) {
         this.mcpEndpoint = mcpEndpoint;
+        this.metrics = metrics;
         this.timeoutSeconds = timeoutSeconds;
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = JsonMappers.JSON.mapper();
+        
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(pool.getMaxTotal())
+            .setMaxConnPerRoute(pool.getMaxPerRoute())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(timeoutSeconds, TimeUnit.SECONDS))
+                .setSocketTimeout(Timeout.of(timeoutSeconds, TimeUnit.SECONDS))
+                // A connection closed by the server while pooled is detected before reuse
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
         
         RequestConfig requestConfig = RequestConfig.custom()
             .setConnectionRequestTimeout(Timeout.of(timeoutSeconds, TimeUnit.SECONDS))
             .setResponseTimeout(Timeout.of(timeoutSeconds, TimeUnit.SECONDS))
+            // Used when the server sends no Keep-Alive header
+            .setConnectionKeepAlive(TimeValue.ofMilliseconds(pool.getKeepAlive().toMillis()))
             .build();
         
         this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
             .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(pool.getIdleEviction().toMillis()))
             .build();
+        
+        metrics.gaugeConnectionPool("mcp", () -> {
+            PoolStats stats = connectionManager.getTotalStats();
+            return new int[] {stats.getLeased(), stats.getAvailable(), stats.getPending()};
+        });
     }
     
     @Override
@@ -83,25 +167,25 @@ public class HttpMCPClient implements MCPClient {
         List<ResearchReference> allReferences = new ArrayList<>();
         List<String> failedDomains = new ArrayList<>();
         
+        // One round-trip when the server supports batches; null means one request per topic
+        Map<String, TopicResult> batch;
         try {
-            allReferences.addAll(fetchNutritionResearch(query));
+            batch = fetchBatch(query);
         } catch (MCPException e) {
-            LOGGER.log(Level.WARNING, "Failed to fetch nutrition research: " + e.getMessage());
-            failedDomains.add("nutrition");
-        }
-        
-        try {
-            allReferences.addAll(fetchSleepResearch(query));
-        } catch (MCPException e) {
-            LOGGER.log(Level.WARNING, "Failed to fetch sleep research: " + e.getMessage());
-            failedDomains.add("sleep");
+            String message = "Failed to fetch research from all domains: " + e.getMessage();
+            LOGGER.log(Level.SEVERE, message);
+            throw new MCPException(message, e);
         }
         
-        try {
-            allReferences.addAll(fetchExerciseResearch(query));
-        } catch (MCPException e) {
-            LOGGER.log(Level.WARNING, "Failed to fetch exercise research: " + e.getMessage());
-            failedDomains.add("exercise");
+        for (String topic : TOPICS) {
+            try {
+                TopicResult result = batch != null ? batch.get(topic) : null;
+                // A topic missing from the batch response is requested on its own
+                allReferences.addAll(result != null ? result.get() : fetchResearch(topic, query));
+            } catch (MCPException e) {
+                LOGGER.log(Level.WARNING, "Failed to fetch " + topic + " research: " + e.getMessage());
+                failedDomains.add(topic);
+            }
         }
         
         if (allReferences.isEmpty()) {
@@ -118,15 +202,57 @@ public class HttpMCPClient implements MCPClient {
     }
     
     /**
-     * Internal method to fetch research for a specific topic with retry logic.
+     * Fetches research for a specific topic and records how long it took, retries included.
      */
     private List<ResearchReference> fetchResearch(String topic, String query) throws MCPException {
+        long start = System.nanoTime();
+        String outcome = PipelineMetrics.ERROR;
+        try {
+            List<ResearchReference> results = withRetry(topic, attempt -> attemptFetchResearch(topic, query, attempt));
+            outcome = PipelineMetrics.SUCCESS;
+            return results;
+        } finally {
+            metrics.recordMcpRequest(topic, outcome, start);
+        }
+    }
+    
+    /**
+     * Fetches every topic with one batch request, retries included. Returns null if the
+     * server does not support batches; that answer is kept for a while before asking again.
+     */
+    private Map<String, TopicResult> fetchBatch(String query) throws MCPException {
+        if (batchUnsupported && System.nanoTime() - batchUnsupportedAt < BATCH_RENEGOTIATE_NANOS) {
+            return null;
+        }
+        long start = System.nanoTime();
+        String outcome = PipelineMetrics.ERROR;
+        try {
+            Map<String, TopicResult> results = withRetry(BATCH, attempt -> attemptBatch(query, attempt));
+            if (results == null) {
+                batchUnsupportedAt = System.nanoTime();
+                batchUnsupported = true;
+                outcome = UNSUPPORTED;
+                LOGGER.log(Level.INFO, "MCP server does not support batch requests; using one request per topic");
+                return null;
+            }
+            batchUnsupported = false;
+            outcome = PipelineMetrics.SUCCESS;
+            return results;
+        } finally {
+            metrics.recordMcpRequest(BATCH, outcome, start);
+        }
+    }
+    
+    /**
+     * Runs an MCP call, retrying timeouts and server errors.
+     */
+    private <T> T withRetry(String topic, MCPCall<T> call) throws MCPException {
         int attempts = 0;
         MCPException lastException = null;
         
         while (attempts < MAX_RETRIES) {
             try {
-                return attemptFetchResearch(topic, query);
+                return call.attempt(attempts + 1);
             } catch (MCPException e) {
                 lastException = e;
                 attempts++;
@@ -158,58 +284,127 @@ public class HttpMCPClient implements MCPClient {
     /**
      * Single attempt to fetch research for a specific topic.
      */
-    private List<ResearchReference> attemptFetchResearch(String topic, String query) throws MCPException {
+    private List<ResearchReference> attemptFetchResearch(String topic, String query, int attempt) throws MCPException {
+        JsonNode body = checkReply(topic, exchange(topic, new MCPRequest(topic, query), attempt));
+        List<ResearchReference> results = parseResponse(topic, body);
+        LOGGER.log(Level.INFO, "Successfully fetched " + results.size() + " references for topic: " + topic);
+        return results;
+    }
+    
+    /**
+     * Single attempt of a batch request; null if the server does not support batches.
+     */
+    private Map<String, TopicResult> attemptBatch(String query, int attempt) throws MCPException {
+        List<MCPRequest> requests = new ArrayList<>();
+        for (String topic : TOPICS) {
+            requests.add(new MCPRequest(topic, query));
+        }
+        MCPReply reply = exchange(BATCH, new MCPBatchRequest(requests), attempt);
+        if (BATCH_UNSUPPORTED_STATUSES.contains(reply.statusCode)) {
+            return null;
+        }
+        JsonNode batchNode = checkReply(BATCH, reply).get("batch");
+        if (batchNode == null || !batchNode.isArray()) {
+            // A server without batch support that ignored the unknown field
+            return null;
+        }
+        
+        Map<String, TopicResult> results = new HashMap<>();
+        for (JsonNode entry : batchNode) {
+            String topic = entry.path("topic").asText();
+            if (entry.hasNonNull("error")) {
+                results.put(topic, new TopicResult(null,
+                    "MCP batch error for topic " + topic + ": " + entry.get("error").asText()));
+            } else {
+                results.put(topic, new TopicResult(parseResponse(topic, entry), null));
+            }
+        }
+        LOGGER.log(Level.INFO, "Successfully fetched batch of " + results.size() + " topics");
+        return results;
+    }
+    
+    /**
+     * Sends one MCP request and reads the status and JSON body.
+     */
+    private MCPReply exchange(String topic, Object requestBody, int attempt) throws MCPException {
+        McpAttemptEvent event = new McpAttemptEvent();
+        event.begin();
+        int statusCode = 0;
+        String outcome = PipelineMetrics.ERROR;
         HttpPost request = new HttpPost(mcpEndpoint);
         
         try {
             // Create JSON request body
-            String jsonRequest = objectMapper.writeValueAsString(
-                new MCPRequest(topic, query)
-            );
+            byte[] jsonRequest = objectMapper.writeValueAsBytes(requestBody);
             
-            request.setEntity(new StringEntity(jsonRequest, ContentType.APPLICATION_JSON));
+            request.setEntity(new ByteArrayEntity(jsonRequest, ContentType.APPLICATION_JSON));
             request.setHeader("Content-Type", "application/json");
             
             LOGGER.log(Level.INFO, "Sending MCP request for topic: " + topic);
             
-            // Execute request
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getCode();
-                
-                if (statusCode == 200) {
-                    String responseBody = new String(
-                        response.getEntity().getContent().readAllBytes()
-                    );
-                    List<ResearchReference> results = parseResponse(topic, responseBody);
-                    LOGGER.log(Level.INFO, "Successfully fetched " + results.size() + " references for topic: " + topic);
-                    return results;
-                } else if (statusCode == 408 || statusCode == 504) {
-                    throw new MCPException("MCP request timed out for topic: " + topic);
-                } else if (statusCode >= 500) {
-                    throw new MCPException(
-                        "MCP server error (status " + statusCode + ") for topic: " + topic
-                    );
-                } else {
-                    throw new MCPException(
-                        "MCP request failed with status " + statusCode + " for topic: " + topic
-                    );
+            // The handler parses the body straight from the stream; execute() then consumes
+            // whatever is left, so the connection goes back to the pool even on errors
+            MCPReply reply = httpClient.execute(request, response -> {
+                HttpEntity entity = response.getEntity();
+                if (response.getCode() != 200 || entity == null) {
+                    return new MCPReply(response.getCode(), null, null);
                 }
+                try (InputStream content = entity.getContent()) {
+                    return new MCPReply(response.getCode(), objectMapper.readTree(content), null);
+                } catch (JsonProcessingException e) {
+                    return new MCPReply(response.getCode(), null, e);
+                }
+            });
+            statusCode = reply.statusCode;
+            if (statusCode == 200 && reply.parseError == null) {
+                outcome = PipelineMetrics.SUCCESS;
             }
+            return reply;
             
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to connect to MCP service for topic: " + topic, e);
             throw new MCPException("Failed to connect to MCP service for topic: " + topic, e);
+        } finally {
+            if (event.shouldCommit()) {
+                event.topic = topic;
+                event.attempt = attempt;
+                event.statusCode = statusCode;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * The body of a successful reply; otherwise throws an exception describing the failure.
+     */
+    private JsonNode checkReply(String topic, MCPReply reply) throws MCPException {
+        int statusCode = reply.statusCode;
+        if (statusCode == 200) {
+            if (reply.parseError != null) {
+                throw new MCPException("Failed to parse MCP response for topic: " + topic, reply.parseError);
+            }
+            return reply.body;
+        } else if (statusCode == 408 || statusCode == 504) {
+            throw new MCPException("MCP request timed out for topic: " + topic);
+        } else if (statusCode >= 500) {
+            throw new MCPException(
+                "MCP server error (status " + statusCode + ") for topic: " + topic
+            );
+        } else {
+            throw new MCPException(
+                "MCP request failed with status " + statusCode + " for topic: " + topic
+            );
         }
     }
     
     /**
      * Parses the MCP response and extracts research references.
      */
-    private List<ResearchReference> parseResponse(String topic, String responseBody) throws MCPException {
+    private List<ResearchReference> parseResponse(String topic, JsonNode root) throws MCPException {
         List<ResearchReference> references = new ArrayList<>();
         
         try {
-            JsonNode root = objectMapper.readTree(responseBody);
             JsonNode resultsNode = root.get("results");
             
             if (resultsNode != null && resultsNode.isArray()) {
@@ -231,8 +426,16 @@ public class HttpMCPClient implements MCPClient {
     }
     
     /**
-     * Closes the HTTP client and releases resources.
+     * Connection pool totals, for diagnostics and tests.
      */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+    
+    /**
+     * Closes the HTTP client and its pooled connections.
+     */
+    @Override
     public void close() {
         try {
             httpClient.close();
@@ -242,6 +445,99 @@ public class HttpMCPClient implements MCPClient {
         }
     }
     
+    /**
+     * Connection pool settings for the MCP transport.
+     */
+    public static final class PoolSettings {
+        private final int maxPerRoute;
+        private final int maxTotal;
+        private final Duration keepAlive;
+        private final Duration idleEviction;
+        
+        /**
+         * @param maxPerRoute Concurrent connections to the MCP endpoint
+         * @param maxTotal Connections across all routes
+         * @param keepAlive How long an idle connection is kept when the server does not say
+         * @param idleEviction Idle time after which a pooled connection is closed
+         */
+        public PoolSettings(int maxPerRoute, int maxTotal, Duration keepAlive, Duration idleEviction) {
+            if (maxPerRoute < 1 || maxTotal < maxPerRoute) {
+                throw new IllegalArgumentException(
+                    "Invalid MCP pool limits: maxPerRoute=" + maxPerRoute + ", maxTotal=" + maxTotal);
+            }
+            this.maxPerRoute = maxPerRoute;
+            this.maxTotal = maxTotal;
+            this.keepAlive = keepAlive;
+            this.idleEviction = idleEviction;
+        }
+        
+        /**
+         * 20 connections to the endpoint, kept alive for 60 seconds and evicted after 30 idle seconds.
+         */
+        public static PoolSettings defaults() {
+            return new PoolSettings(20, 20, Duration.ofSeconds(60), Duration.ofSeconds(30));
+        }
+        
+        public int getMaxPerRoute() {
+            return maxPerRoute;
+        }
+        
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+        
+        public Duration getKeepAlive() {
+            return keepAlive;
+        }
+        
+        public Duration getIdleEviction() {
+            return idleEviction;
+        }
+    }
+    
+    /**
+     * One attempt of an MCP call.
+     */
+    @FunctionalInterface
+    private interface MCPCall<T> {
+        T attempt(int attempt) throws MCPException;
+    }
+    
+    /**
+     * References of one topic of a batch, or the error the server reported for it.
+     */
+    private static final class TopicResult {
+        private final List<ResearchReference> references;
+        private final String error;
+        
+        TopicResult(List<ResearchReference> references, String error) {
+            this.references = references;
+            this.error = error;
+        }
+        
+        List<ResearchReference> get() throws MCPException {
+            if (error != null) {
+                throw new MCPException(error);
+            }
+            return references;
+        }
+    }
+    
+    /**
+     * Status and parsed body of one MCP response.
+     */
+    private static final class MCPReply {
+        private final int statusCode;
+        private final JsonNode body;
+        private final JsonProcessingException parseError;
+        
+        MCPReply(int statusCode, JsonNode body, JsonProcessingException parseError) {
+            this.statusCode = statusCode;
+            this.body = body;
+            this.parseError = parseError;
+        }
+    }
+    
     /**
      * Internal class for MCP request structure.
      */
@@ -254,4 +550,15 @@ public class HttpMCPClient implements MCPClient {
             this.query = query;
         }
     }
+    
+    /**
+     * Internal class for MCP batch request structure.
+     */
+    private static class MCPBatchRequest {
+        public List<MCPRequest> batch;
+        
+        public MCPBatchRequest(List<MCPRequest> batch) {
+            this.batch = batch;
+        }
+    }
 }
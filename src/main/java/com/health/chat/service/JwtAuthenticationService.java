@@ -1,5 +1,7 @@
 package com.health.chat.service;
 
+import com.health.chat.jfr.PasswordHashEvent;
+import com.health.chat.metrics.PipelineMetrics;
 import com.health.chat.model.AuthResult;
 import com.health.chat.model.UserProfile;
 import com.health.chat.repository.DataRepository;
@@ -26,9 +28,15 @@ public class JwtAuthenticationService implements AuthenticationService {
     private final DataRepository dataRepository;
     private final SecretKey secretKey;
     private final Set<String> invalidatedTokens;
+    private final PipelineMetrics metrics;
 
     public JwtAuthenticationService(DataRepository dataRepository, String jwtSecret) {
+        this(dataRepository, jwtSecret, PipelineMetrics.noop());
+    }
+
+    public JwtAuthenticationService(DataRepository dataRepository, String jwtSecret, PipelineMetrics metrics) {
         this.dataRepository = dataRepository;
+        this.metrics = metrics;
         // Ensure the secret is at least 256 bits (32 bytes) for HS256
         String paddedSecret = jwtSecret.length() >= 32 ? jwtSecret : 
             String.format("%-32s", jwtSecret).replace(' ', '0');
@@ -49,7 +57,7 @@ public class JwtAuthenticationService implements AuthenticationService {
             }
             
             // Verify password using BCrypt
-            if (!BCrypt.checkpw(password, profile.getPasswordHash())) {
+            if (!checkPassword(password, profile.getPasswordHash())) {
                 LOGGER.log(Level.INFO, "Authentication failed: invalid password");
                 return new AuthResult(false, null, null, "Invalid username or password");
             }
@@ -72,6 +80,13 @@ public class JwtAuthenticationService implements AuthenticationService {
 
     @Override
     public boolean validateToken(String token) {
+        long start = System.nanoTime();
+        boolean valid = checkToken(token);
+        metrics.recordToken("validate", valid ? "valid" : "invalid", start);
+        return valid;
+    }
+
+    private boolean checkToken(String token) {
         if (token == null || token.isEmpty()) {
             return false;
         }
@@ -117,6 +132,7 @@ public class JwtAuthenticationService implements AuthenticationService {
             return null;
         }
         
+        long start = System.nanoTime();
         try {
             Claims claims = Jwts.parser()
                     .verifyWith(secretKey)
@@ -124,8 +140,10 @@ public class JwtAuthenticationService implements AuthenticationService {
                     .parseSignedClaims(token)
                     .getPayload();
             
+            metrics.recordToken("user_id", "valid", start);
             return claims.getSubject();
         } catch (Exception e) {
+            metrics.recordToken("user_id", "invalid", start);
             LOGGER.log(Level.WARNING, "Failed to extract userId from token: " + e.getMessage());
             return null;
         }
@@ -190,7 +208,7 @@ public class JwtAuthenticationService implements AuthenticationService {
             
             // Create new user profile
             String userId = "user_" + java.util.UUID.randomUUID().toString();
-            String passwordHash = BCrypt.hashpw(password, BCrypt.gensalt(12));
+            String passwordHash = hashPassword(password);
             
             UserProfile newProfile = new UserProfile(
                 userId,
@@ -221,6 +239,25 @@ public class JwtAuthenticationService implements AuthenticationService {
      * This can be used when creating new users
      */
     public static String hashPassword(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        String hash = BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+        if (event.shouldCommit()) {
+            event.operation = "hash";
+            event.commit();
+        }
+        return hash;
+    }
+    
+    private static boolean checkPassword(String plainPassword, String passwordHash) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        boolean matched = BCrypt.checkpw(plainPassword, passwordHash);
+        if (event.shouldCommit()) {
+            event.operation = "check";
+            event.matched = matched;
+            event.commit();
+        }
+        return matched;
     }
 }
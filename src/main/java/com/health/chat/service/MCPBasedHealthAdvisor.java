@@ -14,6 +14,12 @@ public class MCPBasedHealthAdvisor implements HealthAdvisorAI {
     
     private final MCPClient mcpClient;
     
+    // Research query vocabulary; a query joins the parts that apply, in this order
+    private static final String WEIGHT_QUERY = "weight management";
+    private static final String NUTRITION_QUERY = "nutrition";
+    private static final String EXERCISE_QUERY = "exercise physiology";
+    private static final String GENERAL_QUERY = "general health";
+    
     // Keywords for consultation categorization
     private static final List<String> CONCERN_KEYWORDS = List.of(
         "心配", "不安", "悩み", "困", "辛い", "苦しい", "難しい", "できない",
@@ -27,8 +33,18 @@ public class MCPBasedHealthAdvisor implements HealthAdvisorAI {
     @Override
     public AdviceResult generateAdvice(HealthData data, MentalState mentalState, UserProfile profile) {
         // Fetch research references from MCP
-        List<ResearchReference> references = fetchResearchReferences(data);
-        
+        return advise(data, mentalState, fetchResearchReferences(data));
+    }
+    
+    /**
+     * Same advice as when MCP is unavailable, without asking it.
+     */
+    @Override
+    public AdviceResult generateBasicAdvice(HealthData data, MentalState mentalState, UserProfile profile) {
+        return advise(data, mentalState, new ArrayList<>());
+    }
+    
+    private AdviceResult advise(HealthData data, MentalState mentalState, List<ResearchReference> references) {
         // Categorize if this is consultation content
         boolean isConsultation = categorizeAsConsultation(data);
         
@@ -71,18 +87,37 @@ public class MCPBasedHealthAdvisor implements HealthAdvisorAI {
         List<String> queryParts = new ArrayList<>();
         
         if (data.getWeight() != null || data.getBodyFatPercentage() != null) {
-            queryParts.add("weight management");
+            queryParts.add(WEIGHT_QUERY);
         }
         
         if (data.getFoodItems() != null && !data.getFoodItems().isEmpty()) {
-            queryParts.add("nutrition");
+            queryParts.add(NUTRITION_QUERY);
         }
         
         if (data.getExercises() != null && !data.getExercises().isEmpty()) {
-            queryParts.add("exercise physiology");
+            queryParts.add(EXERCISE_QUERY);
         }
         
-        return queryParts.isEmpty() ? "general health" : String.join(" ", queryParts);
+        return queryParts.isEmpty() ? GENERAL_QUERY : String.join(" ", queryParts);
+    }
+    
+    /**
+     * Every query {@link #buildResearchQuery} can produce, so research can be prefetched.
+     */
+    public static List<String> researchQueries() {
+        List<String> parts = List.of(WEIGHT_QUERY, NUTRITION_QUERY, EXERCISE_QUERY);
+        List<String> queries = new ArrayList<>();
+        queries.add(GENERAL_QUERY);
+        for (int subset = 1; subset < 1 << parts.size(); subset++) {
+            List<String> queryParts = new ArrayList<>();
+            for (int i = 0; i < parts.size(); i++) {
+                if ((subset & 1 << i) != 0) {
+                    queryParts.add(parts.get(i));
+                }
+            }
+            queries.add(String.join(" ", queryParts));
+        }
+        return queries;
     }
     
     /**
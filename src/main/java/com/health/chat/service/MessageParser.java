@@ -1,49 +1,68 @@
 package com.health.chat.service;
 
 import com.health.chat.model.HealthData;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * MessageParser extracts health-related information from user messages.
  * Supports extraction of weight, body fat percentage, food items, and exercises.
+ *
+ * <p>Extraction is done by a hand-written scanner that walks the message once
+ * and finds weight, body fat, food and exercise spans in the same pass. The
+ * scanner reproduces the leftmost-match behaviour of the original patterns:
+ * <pre>
+ * weight:   (?:体重|weight)\s*:?\s*(\d+(?:\.\d+)?)... | (\d+(?:\.\d+)?)\s*(?:kg|キロ|ｋｇ|キログラム)
+ * body fat: (?:体脂肪率|体脂肪|body\s*fat)\s*:?\s*(\d+(?:\.\d+)?)... | (\d+(?:\.\d+)?)\s*(?:%|パーセント|％)
+ * </pre>
+ * ASCII keywords and units are matched case-insensitively. Numbers are decoded
+ * in place, so the scan creates no intermediate strings; only the returned food
+ * and exercise contexts are allocated.
  */
 public class MessageParser {
     
-    // Weight patterns: "体重65kg", "65キロ", "weight: 65", "65.5kg"
-    // Must have either weight keyword OR kg/kilo unit
-    private static final Pattern WEIGHT_PATTERN = Pattern.compile(
-        "(?:体重|weight)\\s*:?\\s*(\\d+(?:\\.\\d+)?)\\s*(?:kg|キロ|ｋｇ|キログラム)?|" +
-        "(\\d+(?:\\.\\d+)?)\\s*(?:kg|キロ|ｋｇ|キログラム)",
-        Pattern.CASE_INSENSITIVE
-    );
+    // Weight keywords and units: "体重65kg", "65キロ", "weight: 65", "65.5kg"
+    // Must have either weight keyword OR kg/kilo unit ("キログラム" is covered by "キロ")
+    private static final String[] WEIGHT_KEYWORDS = {"体重", "weight"};
+    private static final String[] WEIGHT_UNITS = {"kg", "キロ", "ｋｇ"};
     
-    // Body fat patterns: "体脂肪率15%", "15パーセント", "body fat: 15", "15.5%"
+    // Body fat keywords and units: "体脂肪率15%", "15パーセント", "body fat: 15", "15.5%"
     // Must have either body fat keyword OR % unit
-    private static final Pattern BODY_FAT_PATTERN = Pattern.compile(
-        "(?:体脂肪率|体脂肪|body\\s*fat)\\s*:?\\s*(\\d+(?:\\.\\d+)?)\\s*(?:%|パーセント|％|percent)?|" +
-        "(\\d+(?:\\.\\d+)?)\\s*(?:%|パーセント|％)",
-        Pattern.CASE_INSENSITIVE
-    );
+    private static final String[] BODY_FAT_UNITS = {"%", "パーセント", "％"};
     
-    // Food keywords
-    private static final String[] FOOD_KEYWORDS = {
+    // Food keywords, in priority order
+    private static final KeywordSet FOOD_KEYWORDS = new KeywordSet(
         "食べた", "食事", "朝食", "昼食", "夕食", "breakfast", "lunch", "dinner",
         "ate", "eat", "食", "ご飯", "パン", "肉", "魚", "野菜", "果物"
-    };
+    );
     
-    // Exercise keywords
-    private static final String[] EXERCISE_KEYWORDS = {
+    // Exercise keywords, in priority order
+    private static final KeywordSet EXERCISE_KEYWORDS = new KeywordSet(
         "運動", "走った", "歩いた", "ジム", "exercise", "run", "walk", "gym",
         "トレーニング", "training", "ランニング", "ウォーキング", "筋トレ"
-    };
+    );
     
     private static final int MAX_MESSAGE_LENGTH = 140;
     
+    // Characters kept before and after a keyword when building a food/exercise context
+    private static final int CONTEXT_BEFORE = 10;
+    private static final int CONTEXT_AFTER = 20;
+    
+    // Scan targets
+    private static final int WEIGHT = 1;
+    private static final int BODY_FAT = 1 << 1;
+    private static final int FOOD = 1 << 2;
+    private static final int EXERCISE = 1 << 3;
+    private static final int ALL = WEIGHT | BODY_FAT | FOOD | EXERCISE;
+    
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    
     /**
      * Validates that the message does not exceed the maximum length.
      * 
@@ -70,27 +89,19 @@ public class MessageParser {
             throw new IllegalArgumentException("Message exceeds maximum length of " + MAX_MESSAGE_LENGTH + " characters");
         }
         
+        LocalDateTime now = LocalDateTime.now();
         HealthData healthData = new HealthData();
         healthData.setUserId(userId);
-        healthData.setDate(LocalDate.now());
-        healthData.setTimestamp(LocalDateTime.now());
+        healthData.setDate(now.toLocalDate());
+        healthData.setTimestamp(now);
         healthData.setFreeComment(message);
         
-        // Extract weight
-        Double weight = extractWeight(message);
-        healthData.setWeight(weight);
-        
-        // Extract body fat percentage
-        Double bodyFat = extractBodyFat(message);
-        healthData.setBodyFatPercentage(bodyFat);
-        
-        // Extract food items
-        List<String> foodItems = extractFoodItems(message);
-        healthData.setFoodItems(foodItems);
-        
-        // Extract exercises
-        List<String> exercises = extractExercises(message);
-        healthData.setExercises(exercises);
+        // Extract weight, body fat, food items and exercises in a single pass
+        ScanResult result = scan(message, ALL);
+        healthData.setWeight(result.weight());
+        healthData.setBodyFatPercentage(result.bodyFat());
+        healthData.setFoodItems(result.contexts(message, FOOD_KEYWORDS, result.foodKeyword, result.foodIndex));
+        healthData.setExercises(result.contexts(message, EXERCISE_KEYWORDS, result.exerciseKeyword, result.exerciseIndex));
         
         return healthData;
     }
@@ -105,23 +116,7 @@ public class MessageParser {
         if (message == null || message.isEmpty()) {
             return null;
         }
-        
-        Matcher matcher = WEIGHT_PATTERN.matcher(message);
-        if (matcher.find()) {
-            try {
-                // Try group 1 first (with keyword), then group 2 (with unit only)
-                String weightStr = matcher.group(1);
-                if (weightStr == null) {
-                    weightStr = matcher.group(2);
-                }
-                if (weightStr != null) {
-                    return Double.parseDouble(weightStr);
-                }
-            } catch (NumberFormatException e) {
-                return null;
-            }
-        }
-        return null;
+        return scan(message, WEIGHT).weight();
     }
     
     /**
@@ -134,23 +129,7 @@ public class MessageParser {
         if (message == null || message.isEmpty()) {
             return null;
         }
-        
-        Matcher matcher = BODY_FAT_PATTERN.matcher(message);
-        if (matcher.find()) {
-            try {
-                // Try group 1 first (with keyword), then group 2 (with % only)
-                String bodyFatStr = matcher.group(1);
-                if (bodyFatStr == null) {
-                    bodyFatStr = matcher.group(2);
-                }
-                if (bodyFatStr != null) {
-                    return Double.parseDouble(bodyFatStr);
-                }
-            } catch (NumberFormatException e) {
-                return null;
-            }
-        }
-        return null;
+        return scan(message, BODY_FAT).bodyFat();
     }
     
     /**
@@ -160,27 +139,11 @@ public class MessageParser {
      * @return list of food items mentioned, or empty list if none found
      */
     public List<String> extractFoodItems(String message) {
-        List<String> foodItems = new ArrayList<>();
         if (message == null || message.isEmpty()) {
-            return foodItems;
-        }
-        
-        String lowerMessage = message.toLowerCase();
-        for (String keyword : FOOD_KEYWORDS) {
-            if (lowerMessage.contains(keyword.toLowerCase())) {
-                // Extract the portion of text around the keyword
-                int index = lowerMessage.indexOf(keyword.toLowerCase());
-                int start = Math.max(0, index - 10);
-                int end = Math.min(message.length(), index + keyword.length() + 20);
-                String context = message.substring(start, end).trim();
-                if (!foodItems.contains(context)) {
-                    foodItems.add(context);
-                }
-                break; // Only add one food context per message for simplicity
-            }
+            return new ArrayList<>();
         }
-        
-        return foodItems;
+        ScanResult result = scan(message, FOOD);
+        return result.contexts(message, FOOD_KEYWORDS, result.foodKeyword, result.foodIndex);
     }
     
     /**
@@ -190,26 +153,335 @@ public class MessageParser {
      * @return list of exercises mentioned, or empty list if none found
      */
     public List<String> extractExercises(String message) {
-        List<String> exercises = new ArrayList<>();
         if (message == null || message.isEmpty()) {
-            return exercises;
+            return new ArrayList<>();
+        }
+        ScanResult result = scan(message, EXERCISE);
+        return result.contexts(message, EXERCISE_KEYWORDS, result.exerciseKeyword, result.exerciseIndex);
+    }
+    
+    /**
+     * Walks the message once, trying every requested extraction at each position.
+     * Weight and body fat keep the leftmost match; food and exercise keep the first
+     * occurrence of the highest-priority keyword, mirroring the keyword-order loop
+     * of the original implementation.
+     */
+    private static ScanResult scan(String message, int targets) {
+        ScanResult result = new ScanResult();
+        int pending = targets;
+        int length = message.length();
+        
+        for (int i = 0; i < length && pending != 0; i++) {
+            char c = message.charAt(i);
+            char lower = toLowerCase(c);
+            boolean digit = isDigit(c);
+            
+            if ((pending & WEIGHT) != 0 && (digit || c == '体' || lower == 'w')
+                    && matchWeight(message, i, result)) {
+                pending &= ~WEIGHT;
+            }
+            if ((pending & BODY_FAT) != 0 && (digit || c == '体' || lower == 'b')
+                    && matchBodyFat(message, i, result)) {
+                pending &= ~BODY_FAT;
+            }
+            if ((pending & FOOD) != 0) {
+                int keyword = FOOD_KEYWORDS.match(message, i, lower, result.foodKeyword);
+                if (keyword >= 0) {
+                    result.foodKeyword = keyword;
+                    result.foodIndex = i;
+                    if (keyword == 0) {
+                        pending &= ~FOOD;
+                    }
+                }
+            }
+            if ((pending & EXERCISE) != 0) {
+                int keyword = EXERCISE_KEYWORDS.match(message, i, lower, result.exerciseKeyword);
+                if (keyword >= 0) {
+                    result.exerciseKeyword = keyword;
+                    result.exerciseIndex = i;
+                    if (keyword == 0) {
+                        pending &= ~EXERCISE;
+                    }
+                }
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Tries both weight alternatives at position {@code i}: keyword followed by a
+     * number, then a number followed by a unit.
+     */
+    private static boolean matchWeight(String s, int i, ScanResult result) {
+        int numberStart = -1;
+        int keywordEnd = matchAny(s, i, WEIGHT_KEYWORDS);
+        if (keywordEnd >= 0) {
+            numberStart = skipSeparator(s, keywordEnd);
+        }
+        int numberEnd = numberStart >= 0 ? scanNumber(s, numberStart) : -1;
+        if (numberEnd < 0) {
+            numberStart = i;
+            numberEnd = scanNumber(s, i);
+            if (numberEnd < 0 || matchAny(s, skipWhitespace(s, numberEnd), WEIGHT_UNITS) < 0) {
+                return false;
+            }
+        }
+        result.weight = parseNumber(s, numberStart, numberEnd);
+        return true;
+    }
+    
+    /**
+     * Tries both body fat alternatives at position {@code i}: keyword followed by a
+     * number, then a number followed by a percent unit.
+     */
+    private static boolean matchBodyFat(String s, int i, ScanResult result) {
+        int numberStart = -1;
+        int keywordEnd = matchBodyFatKeyword(s, i);
+        if (keywordEnd >= 0) {
+            numberStart = skipSeparator(s, keywordEnd);
+        }
+        int numberEnd = numberStart >= 0 ? scanNumber(s, numberStart) : -1;
+        if (numberEnd < 0) {
+            numberStart = i;
+            numberEnd = scanNumber(s, i);
+            if (numberEnd < 0 || matchAny(s, skipWhitespace(s, numberEnd), BODY_FAT_UNITS) < 0) {
+                return false;
+            }
+        }
+        result.bodyFat = parseNumber(s, numberStart, numberEnd);
+        return true;
+    }
+    
+    /**
+     * Matches "体脂肪率", "体脂肪" or "body\s*fat" at position {@code i}.
+     *
+     * @return the index just past the keyword, or -1 if none matches
+     */
+    private static int matchBodyFatKeyword(String s, int i) {
+        if (s.startsWith("体脂肪", i)) {
+            int end = i + 3;
+            return end < s.length() && s.charAt(end) == '率' ? end + 1 : end;
+        }
+        int end = matchIgnoreCase(s, i, "body");
+        if (end < 0) {
+            return -1;
+        }
+        return matchIgnoreCase(s, skipWhitespace(s, end), "fat");
+    }
+    
+    /**
+     * Skips the optional {@code \s*:?\s*} separator between a keyword and its value.
+     */
+    private static int skipSeparator(String s, int i) {
+        int j = skipWhitespace(s, i);
+        if (j < s.length() && s.charAt(j) == ':') {
+            j = skipWhitespace(s, j + 1);
+        }
+        return j;
+    }
+    
+    private static int skipWhitespace(String s, int i) {
+        int j = i;
+        while (j < s.length() && isWhitespace(s.charAt(j))) {
+            j++;
+        }
+        return j;
+    }
+    
+    // Same character set as the regex \s class
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    /**
+     * Scans {@code \d+(?:\.\d+)?} starting at position {@code i}.
+     *
+     * @return the index just past the number, or -1 if no number starts here
+     */
+    private static int scanNumber(String s, int i) {
+        int length = s.length();
+        int j = i;
+        while (j < length && isDigit(s.charAt(j))) {
+            j++;
+        }
+        if (j == i) {
+            return -1;
+        }
+        if (j + 1 < length && s.charAt(j) == '.' && isDigit(s.charAt(j + 1))) {
+            j += 2;
+            while (j < length && isDigit(s.charAt(j))) {
+                j++;
+            }
+        }
+        return j;
+    }
+    
+    /**
+     * Decodes the number in {@code s[start, end)} without creating a substring.
+     * Short numbers are decoded as an exact mantissa divided by an exact power of
+     * ten, which rounds identically to {@link Double#parseDouble(String)}.
+     */
+    private static double parseNumber(String s, int start, int end) {
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (int j = start; j < end; j++) {
+            char c = s.charAt(j);
+            if (c == '.') {
+                inFraction = true;
+                continue;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (inFraction) {
+                fractionDigits++;
+            }
+            if (mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+                // Too many digits to decode exactly; defer to the JDK
+                return Double.parseDouble(s.substring(start, end));
+            }
+        }
+        return mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+    
+    /**
+     * Matches any of the candidates at position {@code i}, comparing ASCII letters
+     * case-insensitively.
+     *
+     * @return the index just past the first matching candidate, or -1
+     */
+    private static int matchAny(String s, int i, String[] candidates) {
+        for (String candidate : candidates) {
+            int end = matchIgnoreCase(s, i, candidate);
+            if (end >= 0) {
+                return end;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Matches {@code expected} at position {@code i}, comparing ASCII letters
+     * case-insensitively and all other characters exactly.
+     *
+     * @return the index just past the match, or -1
+     */
+    private static int matchIgnoreCase(String s, int i, String expected) {
+        int length = expected.length();
+        if (i + length > s.length()) {
+            return -1;
+        }
+        for (int k = 0; k < length; k++) {
+            char c = s.charAt(i + k);
+            char e = expected.charAt(k);
+            if (c != e && !(e >= 'a' && e <= 'z' && c == (char) (e - 'a' + 'A'))) {
+                return -1;
+            }
+        }
+        return i + length;
+    }
+    
+    // Lower-cases one character; ASCII is handled without the Unicode tables
+    private static char toLowerCase(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+    
+    /**
+     * Keywords matched against the lower-cased message, in priority order.
+     * A 64-bit mask over the keywords' first characters rejects most positions
+     * before any keyword is compared.
+     */
+    private static final class KeywordSet {
+        private final String[] keywords;
+        private final long firstCharMask;
+        
+        KeywordSet(String... keywords) {
+            this.keywords = keywords;
+            long mask = 0;
+            for (String keyword : keywords) {
+                mask |= 1L << (keyword.charAt(0) & 63);
+            }
+            this.firstCharMask = mask;
+        }
+        
+        int length(int keyword) {
+            return keywords[keyword].length();
         }
         
-        String lowerMessage = message.toLowerCase();
-        for (String keyword : EXERCISE_KEYWORDS) {
-            if (lowerMessage.contains(keyword.toLowerCase())) {
-                // Extract the portion of text around the keyword
-                int index = lowerMessage.indexOf(keyword.toLowerCase());
-                int start = Math.max(0, index - 10);
-                int end = Math.min(message.length(), index + keyword.length() + 20);
-                String context = message.substring(start, end).trim();
-                if (!exercises.contains(context)) {
-                    exercises.add(context);
+        /**
+         * Finds the highest-priority keyword starting at position {@code i} that
+         * ranks above {@code currentBest}.
+         *
+         * @param lower the lower-cased character at position {@code i}
+         * @return the keyword index, or -1 if none improves on the current best
+         */
+        int match(String s, int i, char lower, int currentBest) {
+            if ((firstCharMask & (1L << (lower & 63))) == 0) {
+                return -1;
+            }
+            int limit = currentBest < 0 ? keywords.length : currentBest;
+            for (int k = 0; k < limit; k++) {
+                String keyword = keywords[k];
+                if (keyword.charAt(0) == lower && regionMatches(s, i + 1, keyword)) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+        
+        // Compares the keyword after its first character
+        private static boolean regionMatches(String s, int from, String keyword) {
+            int length = keyword.length() - 1;
+            if (from + length > s.length()) {
+                return false;
+            }
+            for (int k = 0; k < length; k++) {
+                if (toLowerCase(s.charAt(from + k)) != keyword.charAt(k + 1)) {
+                    return false;
                 }
-                break; // Only add one exercise context per message for simplicity
             }
+            return true;
+        }
+    }
+    
+    /**
+     * Positions found by a single {@link #scan} pass.
+     */
+    private static final class ScanResult {
+        double weight = Double.NaN;
+        double bodyFat = Double.NaN;
+        int foodKeyword = -1;
+        int foodIndex = -1;
+        int exerciseKeyword = -1;
+        int exerciseIndex = -1;
+        
+        Double weight() {
+            return Double.isNaN(weight) ? null : weight;
         }
         
-        return exercises;
+        Double bodyFat() {
+            return Double.isNaN(bodyFat) ? null : bodyFat;
+        }
+        
+        /**
+         * Builds the context around the matched keyword.
+         * Only one context is added per message for simplicity.
+         */
+        List<String> contexts(String message, KeywordSet keywords, int keyword, int index) {
+            List<String> contexts = new ArrayList<>();
+            if (keyword >= 0) {
+                int start = Math.max(0, index - CONTEXT_BEFORE);
+                int end = Math.min(message.length(), index + keywords.length(keyword) + CONTEXT_AFTER);
+                contexts.add(message.substring(start, end).trim());
+            }
+            return contexts;
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.health.chat.service;
 
 import com.health.chat.model.DailyNutrition;
+import com.health.chat.model.HealthData;
 import com.health.chat.model.NutritionInfo;
 
 import java.time.LocalDate;
@@ -9,4 +10,7 @@ import java.util.List;
 public interface NutritionEstimator {
     NutritionInfo estimateNutrition(List<String> foodItems);
     DailyNutrition calculateDailyTotal(String userId, LocalDate date);
+    
+    // Same as above for entries the caller has already loaded
+    DailyNutrition calculateDailyTotal(List<HealthData> healthDataList);
 }
@@ -0,0 +1,121 @@
+package com.health.chat.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user token buckets for one class of endpoints.
+ *
+ * <p>A bucket holds up to {@code burst} requests and refills at {@code requestsPerMinute}.
+ * It is stored as the time at which it will be full again (the GCRA form of a token
+ * bucket) in an AtomicLong that is advanced by compare-and-set, so acquiring never takes
+ * a lock. A full bucket carries no information, so buckets expire once they have refilled:
+ * when the map grows past {@code maxUsers}, full buckets are swept out, and if that is not
+ * enough arbitrary buckets are dropped, which only ever lets those users through sooner.
+ */
+public class RateLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final int maxUsers;
+    private final LongSupplier clock;
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /**
+     * @param name Endpoint class the limit applies to, used in metrics
+     * @param requestsPerMinute Sustained rate per user; 0 or less disables the limit
+     * @param burst Requests a user with a full bucket may send at once
+     * @param maxUsers Buckets kept before full ones are swept out
+     */
+    public RateLimiter(String name, int requestsPerMinute, int burst, int maxUsers) {
+        this(name, requestsPerMinute, burst, maxUsers, System::nanoTime);
+    }
+
+    // Constructor for testing
+    RateLimiter(String name, int requestsPerMinute, int burst, int maxUsers, LongSupplier clock) {
+        this.name = name;
+        this.intervalNanos = requestsPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / requestsPerMinute : 0;
+        this.capacityNanos = intervalNanos * Math.max(1, burst);
+        this.maxUsers = Math.max(1, maxUsers);
+        this.clock = clock;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Takes one request from the user's bucket.
+     *
+     * @return 0 if the request is allowed, otherwise the nanoseconds until it would be
+     */
+    public long tryAcquire(String userId) {
+        if (intervalNanos == 0) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(userId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+            long wait = take(bucket, now);
+            // Swept after taking the request, so the new bucket is not itself full
+            if (buckets.size() > maxUsers) {
+                sweep(now);
+            }
+            return wait;
+        }
+        return take(bucket, now);
+    }
+
+    /**
+     * Number of users currently holding a bucket.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Whole seconds to send as Retry-After for a wait returned by {@link #tryAcquire}.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private long take(AtomicLong bucket, long now) {
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void sweep(long now) {
+        // One thread sweeps; the others carry on and at worst overshoot maxUsers briefly
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+            Iterator<AtomicLong> overflow = buckets.values().iterator();
+            while (buckets.size() > maxUsers && overflow.hasNext()) {
+                overflow.next();
+                overflow.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
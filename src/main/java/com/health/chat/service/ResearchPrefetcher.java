@@ -0,0 +1,187 @@
+package com.health.chat.service;
+
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.model.ResearchReference;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * MCPClient that answers {@link #fetchAllResearch} from research prefetched for every
+ * query {@link MCPBasedHealthAdvisor} builds, so chat requests never wait for MCP.
+ *
+ * <p>{@link #start()} fetches every query in the background and then checks them on a
+ * schedule, refreshing each one once it is older than {@code refreshAfter}, well before
+ * it expires. A failed refresh keeps the previous research, but never for longer than
+ * {@code maxStaleness}; after that the query fails with an MCPException, which the
+ * advisor handles like MCP being unavailable. Other queries and the per-topic methods
+ * go to the wrapped client. The age of the oldest entry and the hit, stale and miss
+ * counts are published as metrics.
+ */
+public class ResearchPrefetcher implements MCPClient, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(ResearchPrefetcher.class.getName());
+
+    private final MCPClient delegate;
+    private final Set<String> queries;
+    private final long refreshAfterNanos;
+    private final long maxStalenessNanos;
+    private final PipelineMetrics metrics;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param delegate Client the research is fetched with
+     * @param refreshAfter Age at which an entry is refreshed
+     * @param maxStaleness Age after which an entry is no longer served
+     * @param metrics Metrics to publish refreshes, lookups and entry age in
+     */
+    public ResearchPrefetcher(MCPClient delegate, Duration refreshAfter, Duration maxStaleness,
+                              PipelineMetrics metrics) {
+        this(delegate, MCPBasedHealthAdvisor.researchQueries(), refreshAfter, maxStaleness, metrics, System::nanoTime);
+    }
+
+    // Constructor for testing
+    ResearchPrefetcher(MCPClient delegate, List<String> queries, Duration refreshAfter, Duration maxStaleness,
+                       PipelineMetrics metrics, LongSupplier clock) {
+        if (refreshAfter.compareTo(maxStaleness) >= 0) {
+            throw new IllegalArgumentException(
+                "refreshAfter (" + refreshAfter + ") must be shorter than maxStaleness (" + maxStaleness + ")");
+        }
+        this.delegate = delegate;
+        this.queries = Set.copyOf(queries);
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.metrics = metrics;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "research-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metrics.gaugeResearchAge(this::oldestAgeSeconds);
+    }
+
+    /**
+     * Fetches every query in the background now, then checks them ten times per refresh period.
+     */
+    public void start() {
+        long period = Math.max(TimeUnit.SECONDS.toNanos(1), refreshAfterNanos / 10);
+        scheduler.scheduleWithFixedDelay(this::refreshDue, 0, period, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public List<ResearchReference> fetchAllResearch(String query) throws MCPException {
+        if (!queries.contains(query)) {
+            return delegate.fetchAllResearch(query);
+        }
+        Entry entry = entries.get(query);
+        if (entry == null) {
+            metrics.countResearchLookup("miss");
+            throw new MCPException("Research for '" + query + "' has not been prefetched yet");
+        }
+        if (clock.getAsLong() - entry.fetchedAt > maxStalenessNanos) {
+            metrics.countResearchLookup("stale");
+            throw new MCPException("Prefetched research for '" + query + "' is older than the staleness limit");
+        }
+        metrics.countResearchLookup("hit");
+        return entry.references;
+    }
+
+    @Override
+    public List<ResearchReference> fetchNutritionResearch(String query) throws MCPException {
+        return delegate.fetchNutritionResearch(query);
+    }
+
+    @Override
+    public List<ResearchReference> fetchSleepResearch(String query) throws MCPException {
+        return delegate.fetchSleepResearch(query);
+    }
+
+    @Override
+    public List<ResearchReference> fetchExerciseResearch(String query) throws MCPException {
+        return delegate.fetchExerciseResearch(query);
+    }
+
+    /**
+     * Refreshes every query that is missing or due; returns how many refreshes failed.
+     */
+    int refreshDue() {
+        int refreshed = 0;
+        int failed = 0;
+        for (String query : queries) {
+            Entry entry = entries.get(query);
+            long now = clock.getAsLong();
+            if (entry != null && now - entry.fetchedAt < refreshAfterNanos) {
+                continue;
+            }
+            long start = System.nanoTime();
+            String outcome = PipelineMetrics.ERROR;
+            try {
+                // Aged from when the request was sent, so the staleness bound is never exceeded
+                entries.put(query, new Entry(List.copyOf(delegate.fetchAllResearch(query)), now));
+                outcome = PipelineMetrics.SUCCESS;
+                refreshed++;
+            } catch (MCPException | RuntimeException e) {
+                // Caught so that one failure does not cancel the scheduled refresh
+                failed++;
+                LOGGER.log(Level.FINE, "Research refresh failed for '" + query + "': " + e.getMessage());
+            } finally {
+                metrics.recordResearchRefresh(outcome, start);
+            }
+        }
+        if (failed > 0) {
+            LOGGER.log(Level.WARNING, "Research refresh failed for " + failed + " of " + (refreshed + failed)
+                + " queries; serving previous research for up to " + TimeUnit.NANOSECONDS.toSeconds(maxStalenessNanos)
+                + " seconds");
+        }
+        return failed;
+    }
+
+    /**
+     * Age of the oldest entry in seconds, or NaN before anything was fetched.
+     */
+    double oldestAgeSeconds() {
+        long now = clock.getAsLong();
+        OptionalLong oldest = entries.values().stream().mapToLong(entry -> now - entry.fetchedAt).max();
+        return oldest.isPresent() ? oldest.getAsLong() / 1e9 : Double.NaN;
+    }
+
+    /**
+     * Stops refreshing and closes the wrapped client.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (delegate instanceof Closeable) {
+            try {
+                ((Closeable) delegate).close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Error closing MCP client: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final List<ResearchReference> references;
+        private final long fetchedAt;
+
+        Entry(List<ResearchReference> references, long fetchedAt) {
+            this.references = references;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -7,28 +7,36 @@ import com.health.chat.model.TankaPoem;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
+/**
+ * Composes tanka from the day's events and the phrases in {@link TankaPhraseBank}.
+ * Each call builds several candidates and returns the one that uses the most events
+ * with the least padding. Randomness is per thread, or seeded via
+ * {@link #generateCandidates} for reproducible output.
+ */
 public class SimpleTankaGenerator implements TankaGenerator {
     
-    private final Random random = new Random();
+    private static final int[] LINE_MORA = {5, 7, 5, 7, 7};
+    private static final int CANDIDATES = 8;
     
     @Override
     public TankaPoem generate(HealthData data, MentalState mentalState) {
-        LocalDate date = data.getDate() != null ? data.getDate() : LocalDate.now();
-        
-        // Extract key health events
-        List<String> events = extractKeyEvents(data, mentalState);
-        
-        // Generate tanka lines with 5-7-5-7-7 structure
-        String line1 = generateLine(5, events, 0);
-        String line2 = generateLine(7, events, 1);
-        String line3 = generateLine(5, events, 2);
-        String line4 = generateLine(7, events, 3);
-        String line5 = generateLine(7, events, 4);
-        
-        return new TankaPoem(line1, line2, line3, line4, line5, date);
+        return compose(data, mentalState, CANDIDATES, ThreadLocalRandom.current()).get(0);
+    }
+    
+    /**
+     * Returns {@code count} candidate tanka, best first. The same seed gives the same list.
+     */
+    public List<TankaPoem> generateCandidates(HealthData data, MentalState mentalState, int count, long seed) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        return compose(data, mentalState, count, new SplittableRandom(seed));
     }
     
     /**
@@ -40,26 +48,101 @@ public class SimpleTankaGenerator implements TankaGenerator {
      * - Kanji characters are counted by their reading
      */
     public int countMora(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
+        return TankaPhraseBank.countMora(text);
+    }
+    
+    private List<TankaPoem> compose(HealthData data, MentalState mentalState, int count, RandomGenerator random) {
+        LocalDate date = data.getDate() != null ? data.getDate() : LocalDate.now();
+        
+        // Extract key health events; their mora are counted once for all candidates
+        List<String> events = extractKeyEvents(data, mentalState);
+        int[] eventMora = new int[events.size()];
+        for (int i = 0; i < eventMora.length; i++) {
+            eventMora[i] = TankaPhraseBank.countMora(events.get(i));
         }
         
-        int count = 0;
-        for (char c : text.toCharArray()) {
-            // Hiragana range: 0x3040-0x309F
-            // Katakana range: 0x30A0-0x30FF
-            // Small tsu: っ (0x3063) or ッ (0x30C3)
-            // Long vowel: ー (0x30FC)
-            if ((c >= 0x3040 && c <= 0x309F) || (c >= 0x30A0 && c <= 0x30FF)) {
-                count++;
-            }
-            // For kanji (0x4E00-0x9FFF), estimate 2 mora per character
-            else if (c >= 0x4E00 && c <= 0x9FFF) {
-                count += 2;
+        List<Candidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(composeOne(events, eventMora, date, random));
+        }
+        candidates.sort(Comparator.comparingInt((Candidate candidate) -> candidate.score).reversed());
+        
+        List<TankaPoem> poems = new ArrayList<>(count);
+        for (Candidate candidate : candidates) {
+            poems.add(candidate.poem);
+        }
+        return poems;
+    }
+    
+    private Candidate composeOne(List<String> events, int[] eventMora, LocalDate date, RandomGenerator random) {
+        int[] order = shuffledOrder(events.size(), random);
+        boolean[] used = new boolean[events.size()];
+        String[] lines = new String[LINE_MORA.length];
+        int score = 0;
+        
+        for (int line = 0; line < LINE_MORA.length; line++) {
+            int target = LINE_MORA[line];
+            int event = nextFittingEvent(order, used, eventMora, target);
+            if (event >= 0) {
+                used[event] = true;
+                int padding = target - eventMora[event];
+                lines[line] = padding == 0
+                        ? events.get(event)
+                        : TankaPhraseBank.pad(events.get(event), padding, random);
+                // Events make the poem about the user's day; padding makes it less natural
+                score += 10 - padding;
+            } else {
+                lines[line] = pickLine(target, lines, random);
             }
         }
         
-        return count;
+        TankaPoem poem = new TankaPoem(lines[0], lines[1], lines[2], lines[3], lines[4], date);
+        return new Candidate(poem, score);
+    }
+    
+    private int nextFittingEvent(int[] order, boolean[] used, int[] eventMora, int target) {
+        for (int event : order) {
+            if (!used[event] && eventMora[event] <= target && TankaPhraseBank.canPad(target - eventMora[event])) {
+                return event;
+            }
+        }
+        return -1;
+    }
+    
+    private String pickLine(int target, String[] chosen, RandomGenerator random) {
+        int choices = TankaPhraseBank.lineCount(target);
+        int first = random.nextInt(choices);
+        // Avoid repeating a line already in this poem when another one is available
+        for (int offset = 0; offset < choices; offset++) {
+            String line = TankaPhraseBank.line(target, (first + offset) % choices);
+            if (!contains(chosen, line)) {
+                return line;
+            }
+        }
+        return TankaPhraseBank.line(target, first);
+    }
+    
+    private static boolean contains(String[] lines, String line) {
+        for (String existing : lines) {
+            if (line.equals(existing)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int[] shuffledOrder(int size, RandomGenerator random) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
     }
     
     private List<String> extractKeyEvents(HealthData data, MentalState mentalState) {
@@ -123,117 +206,13 @@ public class SimpleTankaGenerator implements TankaGenerator {
         }
     }
     
-    private String generateLine(int targetMora, List<String> events, int lineIndex) {
-        // Template-based generation with target mora count
-        List<String> templates = getTemplatesForMora(targetMora, lineIndex);
-        
-        if (templates.isEmpty()) {
-            // Fallback: generate simple line
-            return generateSimpleLine(targetMora, events);
-        }
-        
-        // Select a template
-        String template = templates.get(random.nextInt(templates.size()));
-        
-        // Try to incorporate events into the template
-        return fillTemplate(template, events, targetMora);
-    }
-    
-    private List<String> getTemplatesForMora(int mora, int lineIndex) {
-        List<String> templates = new ArrayList<>();
-        
-        if (mora == 5) {
-            templates.add("今日の記録");
-            templates.add("健康の道");
-            templates.add("日々の努力");
-            templates.add("体を測る");
-            templates.add("食事の記録");
-            templates.add("運動の日");
-            templates.add("心と体");
-        } else if (mora == 7) {
-            templates.add("健康を目指して");
-            templates.add("日々の積み重ね");
-            templates.add("体重を記録し");
-            templates.add("食事を振り返る");
-            templates.add("運動を続ける");
-            templates.add("前向きに進む");
-            templates.add("穏やかな気持ち");
-        }
-        
-        return templates;
-    }
-    
-    private String generateSimpleLine(int targetMora, List<String> events) {
-        // Try to use events to create a line
-        for (String event : events) {
-            int mora = countMora(event);
-            if (mora == targetMora) {
-                return event;
-            } else if (mora < targetMora) {
-                // Try to pad with particles
-                String padded = padToMora(event, targetMora);
-                if (countMora(padded) == targetMora) {
-                    return padded;
-                }
-            }
-        }
-        
-        // Fallback to generic phrases
-        return getGenericPhrase(targetMora);
-    }
-    
-    private String fillTemplate(String template, List<String> events, int targetMora) {
-        // For now, just return the template
-        // In a more sophisticated implementation, we would replace placeholders
-        int mora = countMora(template);
-        if (mora == targetMora) {
-            return template;
-        }
+    private static final class Candidate {
+        private final TankaPoem poem;
+        private final int score;
         
-        // Try to adjust
-        return adjustToMora(template, targetMora);
-    }
-    
-    private String padToMora(String text, int targetMora) {
-        int currentMora = countMora(text);
-        if (currentMora >= targetMora) {
-            return text;
-        }
-        
-        int needed = targetMora - currentMora;
-        
-        // Add particles or words to reach target
-        if (needed == 1) {
-            return text + "よ";
-        } else if (needed == 2) {
-            return text + "かな";
-        } else if (needed == 3) {
-            return text + "だろう";
-        }
-        
-        return text;
-    }
-    
-    private String adjustToMora(String text, int targetMora) {
-        int currentMora = countMora(text);
-        
-        if (currentMora == targetMora) {
-            return text;
-        } else if (currentMora < targetMora) {
-            return padToMora(text, targetMora);
-        } else {
-            // Truncate or simplify
-            // For now, just return as is
-            return text;
-        }
-    }
-    
-    private String getGenericPhrase(int mora) {
-        if (mora == 5) {
-            return "今日の記録";
-        } else if (mora == 7) {
-            return "健康を目指して";
+        Candidate(TankaPoem poem, int score) {
+            this.poem = poem;
+            this.score = score;
         }
-        return "記録";
     }
 }
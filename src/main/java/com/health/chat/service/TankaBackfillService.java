@@ -0,0 +1,324 @@
+package com.health.chat.service;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.DataRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the missing tanka for past days that have health data but no tanka.
+ *
+ * <p>Users and their missing days are processed in a {@link ForkJoinPool}, so idle
+ * workers steal days from users with a long history. Each day's entries are merged
+ * into one {@link HealthData} and combined with that day's {@link MentalState}; the
+ * tanka of a user are written with {@link DataRepository#saveTankaBatch}. Writes are
+ * throttled to a fixed rate so the job does not compete with live traffic.
+ *
+ * <p>Completed users are recorded in a {@link CheckpointStore} after each user, so a
+ * run that is stopped (e.g. near the Lambda timeout) resumes where it left off. A
+ * resumed run keeps the window it started with, even though a nightly caller passes a
+ * window one day later each time; the days after it are covered by the next new run.
+ * The job is idempotent anyway: days that already have a tanka are never regenerated.
+ */
+public class TankaBackfillService {
+
+    private static final Logger LOGGER = Logger.getLogger(TankaBackfillService.class.getName());
+
+    // Tanka of one user are saved in chunks of this size
+    private static final int SAVE_BATCH_SIZE = 31;
+
+    private final DataRepository dataRepository;
+    private final TankaGenerator tankaGenerator;
+    private final int parallelism;
+    private final long nanosPerTanka;
+    private final AtomicLong nextWriteSlot = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param parallelism worker threads of the pool
+     * @param maxTankasPerSecond write rate limit across all workers
+     */
+    public TankaBackfillService(DataRepository dataRepository, TankaGenerator tankaGenerator,
+                                int parallelism, double maxTankasPerSecond) {
+        if (parallelism < 1 || maxTankasPerSecond <= 0) {
+            throw new IllegalArgumentException("parallelism and maxTankasPerSecond must be positive");
+        }
+        this.dataRepository = dataRepository;
+        this.tankaGenerator = tankaGenerator;
+        this.parallelism = parallelism;
+        this.nanosPerTanka = (long) (1_000_000_000L / maxTankasPerSecond);
+    }
+
+    /**
+     * Backfills tanka for the given users between {@code start} and {@code end}, or over
+     * the window of the unfinished run in {@code checkpointStore}, which is resumed first.
+     * Users are left for the next run once {@code shouldStop} returns true.
+     */
+    public Result backfill(List<String> userIds, LocalDate requestedStart, LocalDate requestedEnd,
+                           CheckpointStore checkpointStore, BooleanSupplier shouldStop) {
+        Checkpoint checkpoint = checkpointStore.load();
+        if (checkpoint == null || checkpoint.getStart() == null || checkpoint.getEnd() == null) {
+            checkpoint = new Checkpoint(requestedStart, requestedEnd, new ArrayList<>());
+        } else {
+            LOGGER.info("Resuming tanka backfill over " + checkpoint.getStart() + ".." + checkpoint.getEnd());
+        }
+        LocalDate start = checkpoint.getStart();
+        LocalDate end = checkpoint.getEnd();
+        Set<String> completed = new HashSet<>(checkpoint.getCompletedUsers());
+        List<String> pending = userIds.stream()
+                .filter(userId -> !completed.contains(userId))
+                .collect(Collectors.toList());
+
+        Checkpoint progress = checkpoint;
+        AtomicInteger tankasWritten = new AtomicInteger();
+        AtomicInteger failedUsers = new AtomicInteger();
+        AtomicInteger stoppedUsers = new AtomicInteger();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> pending.parallelStream().forEach(userId -> {
+                if (shouldStop.getAsBoolean()) {
+                    stoppedUsers.incrementAndGet();
+                    return;
+                }
+                try {
+                    tankasWritten.addAndGet(backfillUser(userId, start, end));
+                    synchronized (progress) {
+                        progress.getCompletedUsers().add(userId);
+                        checkpointStore.save(progress);
+                    }
+                } catch (Exception e) {
+                    // Not checkpointed, so the next run retries this user
+                    failedUsers.incrementAndGet();
+                    LOGGER.log(Level.WARNING, "Tanka backfill failed for user: " + userId, e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tanka backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tanka backfill failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        boolean complete = stoppedUsers.get() == 0 && failedUsers.get() == 0;
+        if (complete) {
+            checkpointStore.clear();
+        }
+        LOGGER.info("Tanka backfill: " + tankasWritten.get() + " tanka for " + pending.size() + " users ("
+                + completed.size() + " done earlier, " + failedUsers.get() + " failed, "
+                + stoppedUsers.get() + " left for the next run)");
+        return new Result(userIds.size(), completed.size(), tankasWritten.get(), failedUsers.get(), complete,
+                start, end);
+    }
+
+    /**
+     * @return number of tanka written for the user
+     */
+    int backfillUser(String userId, LocalDate start, LocalDate end) {
+        Map<LocalDate, List<HealthData>> healthByDate = new TreeMap<>();
+        for (HealthData entry : dataRepository.getHealthDataByDateRange(userId, start, end)) {
+            if (entry.getDate() != null) {
+                healthByDate.computeIfAbsent(entry.getDate(), date -> new ArrayList<>()).add(entry);
+            }
+        }
+        for (TankaPoem tanka : dataRepository.getTankasByDateRange(userId, start, end)) {
+            healthByDate.remove(tanka.getDate());
+        }
+        if (healthByDate.isEmpty()) {
+            return 0;
+        }
+
+        // Runs inside the backfill pool, so idle workers pick up days of this user
+        List<TankaPoem> tankas = healthByDate.entrySet().parallelStream()
+                .map(day -> tankaGenerator.generate(mergeDay(userId, day.getKey(), day.getValue()),
+                        mentalStateOf(userId, day.getKey())))
+                .collect(Collectors.toList());
+
+        for (int from = 0; from < tankas.size(); from += SAVE_BATCH_SIZE) {
+            List<TankaPoem> batch = tankas.subList(from, Math.min(from + SAVE_BATCH_SIZE, tankas.size()));
+            throttle(batch.size());
+            dataRepository.saveTankaBatch(userId, batch);
+        }
+        return tankas.size();
+    }
+
+    // One entry per day: the last weight and body fat of the day, all food, exercise and comments
+    static HealthData mergeDay(String userId, LocalDate date, List<HealthData> entries) {
+        entries.sort(Comparator.comparing(HealthData::getTimestamp, Comparator.nullsFirst(Comparator.naturalOrder())));
+        HealthData day = new HealthData();
+        day.setUserId(userId);
+        day.setDate(date);
+        List<String> foodItems = new ArrayList<>();
+        List<String> exercises = new ArrayList<>();
+        List<String> comments = new ArrayList<>();
+        for (HealthData entry : entries) {
+            if (entry.getWeight() != null) {
+                day.setWeight(entry.getWeight());
+            }
+            if (entry.getBodyFatPercentage() != null) {
+                day.setBodyFatPercentage(entry.getBodyFatPercentage());
+            }
+            if (entry.getFoodItems() != null) {
+                foodItems.addAll(entry.getFoodItems());
+            }
+            if (entry.getExercises() != null) {
+                exercises.addAll(entry.getExercises());
+            }
+            if (entry.getFreeComment() != null && !entry.getFreeComment().isBlank()) {
+                comments.add(entry.getFreeComment());
+            }
+        }
+        day.setFoodItems(foodItems);
+        day.setExercises(exercises);
+        day.setFreeComment(comments.isEmpty() ? null : String.join(" ", comments));
+        return day;
+    }
+
+    private MentalState mentalStateOf(String userId, LocalDate date) {
+        MentalState mentalState = null;
+        try {
+            mentalState = dataRepository.getMentalState(userId, date);
+        } catch (Exception e) {
+            LOGGER.fine("No mental state for " + userId + " on " + date + ": " + e.getMessage());
+        }
+        return mentalState != null ? mentalState : new MentalState(EmotionalTone.NEUTRAL, 0.5, List.of());
+    }
+
+    // Reserves the next write slots; callers sleep until their slot so the overall rate stays fixed
+    private void throttle(int tankas) {
+        long now = System.nanoTime();
+        long slot = nextWriteSlot.getAndAccumulate(tankas * nanosPerTanka,
+                (next, cost) -> Math.max(next, now) + cost);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * Persists backfill progress between runs.
+     */
+    public interface CheckpointStore {
+        /** The saved checkpoint, or null if there is none. */
+        Checkpoint load();
+
+        void save(Checkpoint checkpoint);
+
+        void clear();
+    }
+
+    /**
+     * Users completed by an unfinished run over {@code start}..{@code end}.
+     */
+    public static class Checkpoint {
+        private LocalDate start;
+        private LocalDate end;
+        private List<String> completedUsers = new ArrayList<>();
+
+        public Checkpoint() {
+        }
+
+        public Checkpoint(LocalDate start, LocalDate end, List<String> completedUsers) {
+            this.start = start;
+            this.end = end;
+            this.completedUsers = completedUsers;
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public void setStart(LocalDate start) {
+            this.start = start;
+        }
+
+        public LocalDate getEnd() {
+            return end;
+        }
+
+        public void setEnd(LocalDate end) {
+            this.end = end;
+        }
+
+        public List<String> getCompletedUsers() {
+            return completedUsers;
+        }
+
+        public void setCompletedUsers(List<String> completedUsers) {
+            this.completedUsers = completedUsers;
+        }
+    }
+
+    public static final class Result {
+        private final int users;
+        private final int resumedUsers;
+        private final int tankasWritten;
+        private final int failedUsers;
+        private final boolean complete;
+        private final LocalDate start;
+        private final LocalDate end;
+
+        Result(int users, int resumedUsers, int tankasWritten, int failedUsers, boolean complete,
+               LocalDate start, LocalDate end) {
+            this.users = users;
+            this.resumedUsers = resumedUsers;
+            this.tankasWritten = tankasWritten;
+            this.failedUsers = failedUsers;
+            this.complete = complete;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        /** Users skipped because an earlier run had completed them. */
+        public int getResumedUsers() {
+            return resumedUsers;
+        }
+
+        public int getTankasWritten() {
+            return tankasWritten;
+        }
+
+        public int getFailedUsers() {
+            return failedUsers;
+        }
+
+        /** False if users were left for the next run. */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /** First day of the window this run covered. */
+        public LocalDate getStart() {
+            return start;
+        }
+
+        /** Last day of the window this run covered. */
+        public LocalDate getEnd() {
+            return end;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.health.chat.service;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Phrases for tanka lines, indexed by mora count and built once per JVM.
+ *
+ * <p>Whole lines fill a 5 or 7 mora slot on their own. Prefixes and suffixes pad an
+ * event phrase up to the slot; {@code PADDING_WEIGHTS[r]} holds how many
+ * prefix/suffix pairs add up to exactly {@code r} mora, so padding is a table lookup
+ * followed by one uniform draw instead of trial and error.
+ */
+final class TankaPhraseBank {
+
+    static final int MAX_LINE_MORA = 7;
+
+    private static final String[] LINES = {
+            // 5 mora
+            "心と体", "ゆっくりと", "こつこつと", "すこやかに", "ほどほどに",
+            "けさの空", "夜の風", "朝の光", "歩みゆく", "ひと休み",
+            // 7 mora
+            "健康の道", "日々の努力", "運動の日", "体をいたわる", "体がよろこぶ",
+            "心かろやかに", "ほめてあげよう", "風を感じて"
+    };
+
+    private static final String[] PREFIXES = {
+            "また", "ふと", "いま", "きょう", "けさは", "よるは", "きょうも", "あさから"
+    };
+
+    private static final String[] SUFFIXES = {
+            "よ", "ね", "かな", "だね", "けり", "だろう", "でした"
+    };
+
+    private static final String[][] LINES_BY_MORA = index(LINES);
+    private static final String[][] PREFIXES_BY_MORA = index(PREFIXES);
+    private static final String[][] SUFFIXES_BY_MORA = index(SUFFIXES);
+    private static final int[] PADDING_WEIGHTS = new int[MAX_LINE_MORA + 1];
+
+    static {
+        for (int mora = 0; mora <= MAX_LINE_MORA; mora++) {
+            for (int prefix = 0; prefix <= mora; prefix++) {
+                PADDING_WEIGHTS[mora] += slotChoices(PREFIXES_BY_MORA, prefix)
+                        * slotChoices(SUFFIXES_BY_MORA, mora - prefix);
+            }
+        }
+        if (LINES_BY_MORA[5].length == 0 || LINES_BY_MORA[7].length == 0) {
+            throw new IllegalStateException("Phrase bank needs 5 and 7 mora lines");
+        }
+    }
+
+    private TankaPhraseBank() {
+    }
+
+    /**
+     * Same estimate as {@link SimpleTankaGenerator#countMora}: one mora per kana,
+     * two per kanji, nothing for other characters.
+     */
+    static int countMora(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            // Hiragana 0x3040-0x309F and katakana 0x30A0-0x30FF (includes っ, ッ and ー)
+            if (c >= 0x3040 && c <= 0x30FF) {
+                count++;
+            } else if (c >= 0x4E00 && c <= 0x9FFF) {
+                count += 2;
+            }
+        }
+        return count;
+    }
+
+    static int lineCount(int mora) {
+        return mora >= 0 && mora <= MAX_LINE_MORA ? LINES_BY_MORA[mora].length : 0;
+    }
+
+    static String line(int mora, int index) {
+        return LINES_BY_MORA[mora][index];
+    }
+
+    static boolean canPad(int mora) {
+        return mora >= 0 && mora <= MAX_LINE_MORA && PADDING_WEIGHTS[mora] > 0;
+    }
+
+    /**
+     * Wraps {@code phrase} in a prefix and/or suffix adding exactly {@code mora} mora,
+     * chosen uniformly among all pairs that fit. Callers check {@link #canPad} first.
+     */
+    static String pad(String phrase, int mora, RandomGenerator random) {
+        int pick = random.nextInt(PADDING_WEIGHTS[mora]);
+        for (int prefix = 0; prefix <= mora; prefix++) {
+            int prefixChoices = slotChoices(PREFIXES_BY_MORA, prefix);
+            int suffixChoices = slotChoices(SUFFIXES_BY_MORA, mora - prefix);
+            int pairs = prefixChoices * suffixChoices;
+            if (pick < pairs) {
+                return choose(PREFIXES_BY_MORA, prefix, pick / suffixChoices)
+                        + phrase
+                        + choose(SUFFIXES_BY_MORA, mora - prefix, pick % suffixChoices);
+            }
+            pick -= pairs;
+        }
+        throw new IllegalStateException("No padding of " + mora + " mora");
+    }
+
+    // An empty slot is one choice (no phrase) at length zero
+    private static int slotChoices(String[][] byMora, int mora) {
+        return mora == 0 ? 1 : byMora[mora].length;
+    }
+
+    private static String choose(String[][] byMora, int mora, int index) {
+        return mora == 0 ? "" : byMora[mora][index];
+    }
+
+    private static String[][] index(String[] phrases) {
+        int[] sizes = new int[MAX_LINE_MORA + 1];
+        for (String phrase : phrases) {
+            sizes[checkedMora(phrase)]++;
+        }
+        String[][] byMora = new String[MAX_LINE_MORA + 1][];
+        for (int mora = 0; mora <= MAX_LINE_MORA; mora++) {
+            byMora[mora] = new String[sizes[mora]];
+            sizes[mora] = 0;
+        }
+        for (String phrase : phrases) {
+            int mora = countMora(phrase);
+            byMora[mora][sizes[mora]++] = phrase;
+        }
+        return byMora;
+    }
+
+    private static int checkedMora(String phrase) {
+        int mora = countMora(phrase);
+        if (mora == 0 || mora > MAX_LINE_MORA) {
+            throw new IllegalStateException("Phrase does not fit a line: " + phrase);
+        }
+        return mora;
+    }
+}
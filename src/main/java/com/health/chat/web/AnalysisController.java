@@ -6,8 +6,10 @@ import com.health.chat.model.MentalState;
 import com.health.chat.model.NutritionInfo;
 import com.health.chat.model.TankaPoem;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.UserDataVersions;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -15,6 +17,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -28,6 +31,13 @@ public class AnalysisController {
     @Autowired(required = false)
     private DataRepository dataRepository;
 
+    @Autowired(required = false)
+    private UserDataVersions userDataVersions;
+
+    // Off where data is also written outside this process, whose writes the versions never see
+    @Value("${conditional-get.enabled:${local.mode:true}}")
+    private boolean conditionalGetEnabled = true;
+
     @GetMapping("/analysis")
     public String analysisPage(HttpSession session, Model model) {
         String token = (String) session.getAttribute("token");
@@ -68,7 +78,8 @@ public class AnalysisController {
     @GetMapping("/api/analysis/nutrition")
     @ResponseBody
     public ResponseEntity<String> getNutritionAnalysis(@RequestParam(defaultValue = "ONE_MONTH") String timeRange,
-                                                       HttpSession session) {
+                                                       HttpSession session,
+                                                       WebRequest webRequest) {
         String userId = (String) session.getAttribute("userId");
         
         if (userId == null) {
@@ -79,8 +90,15 @@ public class AnalysisController {
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = getStartDate(endDate, timeRange);
             
+            // データが更新されていなければリポジトリを読まずに304を返す
+            ConditionalGet conditional = ConditionalGet.of(conditionalGetEnabled ? userDataVersions : null, userId, "nutrition", timeRange);
+            ResponseEntity<String> notModified = conditional.notModified(webRequest);
+            if (notModified != null) {
+                return notModified;
+            }
+            
             if (dataRepository == null) {
-                return ResponseEntity.ok()
+                return conditional.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body("{\"averageCalories\": 0, \"averageProtein\": 0, \"averageFat\": 0, \"averageCarbs\": 0}");
             }
@@ -89,7 +107,7 @@ public class AnalysisController {
             List<NutritionInfo> nutritionList = dataRepository.getNutritionInfoByDateRange(userId, startDate, endDate);
             
             if (nutritionList.isEmpty()) {
-                return ResponseEntity.ok()
+                return conditional.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body("{\"averageCalories\": 0, \"averageProtein\": 0, \"averageFat\": 0, \"averageCarbs\": 0}");
             }
@@ -120,7 +138,7 @@ public class AnalysisController {
                 avgCalories, avgProtein, avgFat, avgCarbs
             );
             
-            return ResponseEntity.ok()
+            return conditional.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(jsonResponse);
         } catch (Exception e) {
@@ -132,7 +150,8 @@ public class AnalysisController {
     @GetMapping("/api/analysis/mental")
     @ResponseBody
     public ResponseEntity<String> getMentalAnalysis(@RequestParam(defaultValue = "ONE_MONTH") String timeRange,
-                                                    HttpSession session) {
+                                                    HttpSession session,
+                                                    WebRequest webRequest) {
         String userId = (String) session.getAttribute("userId");
         
         if (userId == null) {
@@ -143,8 +162,14 @@ public class AnalysisController {
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = getStartDate(endDate, timeRange);
             
+            ConditionalGet conditional = ConditionalGet.of(conditionalGetEnabled ? userDataVersions : null, userId, "mental", timeRange);
+            ResponseEntity<String> notModified = conditional.notModified(webRequest);
+            if (notModified != null) {
+                return notModified;
+            }
+            
             if (dataRepository == null) {
-                return ResponseEntity.ok()
+                return conditional.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body("{\"positive\": 0, \"neutral\": 0, \"discouraged\": 0, \"averageMotivation\": 0}");
             }
@@ -153,7 +178,7 @@ public class AnalysisController {
             List<MentalState> mentalStates = dataRepository.getMentalStatesByDateRange(userId, startDate, endDate);
             
             if (mentalStates.isEmpty()) {
-                return ResponseEntity.ok()
+                return conditional.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body("{\"positive\": 0, \"neutral\": 0, \"discouraged\": 0, \"averageMotivation\": 0}");
             }
@@ -182,7 +207,7 @@ public class AnalysisController {
                 positiveCount, neutralCount, discouragedCount, avgMotivation
             );
             
-            return ResponseEntity.ok()
+            return conditional.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(jsonResponse);
         } catch (Exception e) {
@@ -194,7 +219,8 @@ public class AnalysisController {
     @GetMapping("/api/analysis/tankas")
     @ResponseBody
     public ResponseEntity<String> getTankas(@RequestParam(defaultValue = "ONE_MONTH") String timeRange,
-                                           HttpSession session) {
+                                           HttpSession session,
+                                            WebRequest webRequest) {
         String userId = (String) session.getAttribute("userId");
         
         if (userId == null) {
@@ -205,8 +231,14 @@ public class AnalysisController {
             LocalDate endDate = LocalDate.now();
             LocalDate startDate = getStartDate(endDate, timeRange);
             
+            ConditionalGet conditional = ConditionalGet.of(conditionalGetEnabled ? userDataVersions : null, userId, "tankas", timeRange);
+            ResponseEntity<String> notModified = conditional.notModified(webRequest);
+            if (notModified != null) {
+                return notModified;
+            }
+            
             if (dataRepository == null) {
-                return ResponseEntity.ok()
+                return conditional.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body("{\"tankas\": []}");
             }
@@ -234,7 +266,7 @@ public class AnalysisController {
             
             jsonBuilder.append("]}");
             
-            return ResponseEntity.ok()
+            return conditional.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(jsonBuilder.toString());
         } catch (Exception e) {
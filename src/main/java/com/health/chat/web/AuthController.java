@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,7 +17,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 
 @Controller
 public class AuthController {
@@ -26,6 +28,10 @@ public class AuthController {
     @Autowired(required = false)
     private AuthenticationService authenticationService;
 
+    // User ids granted ROLE_ADMIN, which the JFR actuator endpoint requires
+    @Value("${security.admin-user-ids:}")
+    private List<String> adminUserIds = List.of();
+
     @GetMapping("/")
     public String index(HttpSession session) {
         if (session.getAttribute("token") != null) {
@@ -62,7 +68,7 @@ public class AuthController {
                         new UsernamePasswordAuthenticationToken(
                             result.getUserId(), 
                             null, 
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                            authoritiesFor(result.getUserId())
                         );
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, 
@@ -137,7 +143,7 @@ public class AuthController {
                         new UsernamePasswordAuthenticationToken(
                             result.getUserId(), 
                             null, 
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                            authoritiesFor(result.getUserId())
                         );
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, 
@@ -161,4 +167,13 @@ public class AuthController {
             return "register";
         }
     }
+
+    private List<SimpleGrantedAuthority> authoritiesFor(String userId) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+        if (adminUserIds != null && adminUserIds.contains(userId)) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return authorities;
+    }
 }
@@ -1,6 +1,10 @@
 package com.health.chat.web;
 
+import com.health.chat.logging.StructuredLogger;
+import com.health.chat.metrics.PipelineMetrics;
 import com.health.chat.model.AdviceResult;
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.BulkImportResult;
 import com.health.chat.model.ChatResponse;
 import com.health.chat.model.EmotionalTone;
 import com.health.chat.model.HealthData;
@@ -9,6 +13,9 @@ import com.health.chat.model.NutritionInfo;
 import com.health.chat.model.TankaPoem;
 import com.health.chat.model.UserProfile;
 import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.UserDataVersions;
+import com.health.chat.service.AdaptiveConcurrencyLimiter;
+import com.health.chat.service.BulkIngestionService;
 import com.health.chat.service.HealthAdvisorAI;
 import com.health.chat.service.MentalStateAnalyzer;
 import com.health.chat.service.MessageParser;
@@ -16,6 +23,10 @@ import com.health.chat.service.NutritionEstimator;
 import com.health.chat.service.TankaGenerator;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -24,16 +35,27 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Controller
 public class ChatController {
 
+    private static final StructuredLogger LOG = StructuredLogger.getLogger(ChatController.class);
+
+    // MCPのリトライを含めても収まる長さ
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+
     @Autowired
     private MessageParser messageParser;
     
@@ -51,6 +73,26 @@ public class ChatController {
     
     @Autowired(required = false)
     private DataRepository dataRepository;
+    
+    @Autowired(required = false)
+    private BulkIngestionService bulkIngestionService;
+    
+    @Autowired(required = false)
+    private PipelineMetrics pipelineMetrics = PipelineMetrics.noop();
+    
+    @Autowired(required = false)
+    private UserDataVersions userDataVersions;
+    
+    // Off where data is also written outside this process, whose writes the versions never see
+    @Value("${conditional-get.enabled:${local.mode:true}}")
+    private boolean conditionalGetEnabled = true;
+    
+    @Autowired(required = false)
+    @Qualifier("chatStreamExecutor")
+    private Executor chatStreamExecutor;
+    
+    @Autowired(required = false)
+    private AdaptiveConcurrencyLimiter chatConcurrencyLimiter = AdaptiveConcurrencyLimiter.unlimited();
 
     @GetMapping("/chat")
     public String chatPage(HttpSession session, Model model) {
@@ -64,134 +106,320 @@ public class ChatController {
         return "chat";
     }
 
+    /**
+     * Runs the chat pipeline and returns the whole reply. Answers 503 with Retry-After
+     * when the concurrency limit is reached; under it, but close, the reply is built
+     * without MCP research and tanka.
+     */
     @PostMapping("/api/chat")
     @ResponseBody
-    public ChatResponse sendMessage(@RequestParam String message,
-                                   HttpSession session) {
-        System.out.println("=== CHAT MESSAGE ===");
-        System.out.println("Message: " + message);
-        
+    public ResponseEntity<ChatResponse> sendMessage(@RequestParam String message,
+                                                    HttpSession session) {
         String token = (String) session.getAttribute("token");
         String userId = (String) session.getAttribute("userId");
         
         if (token == null || userId == null) {
-            System.out.println("Session invalid");
+            LOG.info("chat.session.invalid");
             ChatResponse errorResponse = new ChatResponse();
             errorResponse.setResponseText("セッションが無効です。再度ログインしてください。");
-            return errorResponse;
+            return ResponseEntity.ok(errorResponse);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = chatConcurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            LOG.warning("chat.message.shed", "userId", userId);
+            ChatResponse errorResponse = new ChatResponse();
+            errorResponse.setResponseText("ただいま混み合っています。しばらくしてから再度お試しください。");
+            return overloaded().body(errorResponse);
         }
 
         try {
-            // 1. メッセージを解析
-            HealthData healthData = messageParser.parseMessage(userId, message);
-            System.out.println("Parsed health data: weight=" + healthData.getWeight() + 
-                             ", bodyFat=" + healthData.getBodyFatPercentage());
-            
-            // 2. 栄養素を推定
-            NutritionInfo nutritionInfo = null;
-            if (healthData.getFoodItems() != null && !healthData.getFoodItems().isEmpty()) {
-                nutritionInfo = nutritionEstimator.estimateNutrition(healthData.getFoodItems());
-                System.out.println("Estimated nutrition: " + nutritionInfo.getCalories() + " kcal");
+            ChatResponse response = processMessage(userId, message, permit.mode(), (name, text, data) -> { });
+            permit.release(true);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            // 入力エラーなどは混雑とみなさない
+            permit.release(e);
+            LOG.severe("chat.message.failed", e, "userId", userId);
+            ChatResponse errorResponse = new ChatResponse();
+            errorResponse.setResponseText("メッセージの処理中にエラーが発生しました: " + e.getMessage());
+            return ResponseEntity.ok(errorResponse);
+        } finally {
+            // Errorで抜けた場合のみ効く（解放済みなら無視される）
+            permit.release(false);
+        }
+    }
+    
+    /**
+     * Server-Sent Events variant of {@code /api/chat}. Each section of the reply
+     * (extractedData, nutrition, mentalState, advice, tanka) is sent as its own event as
+     * soon as its stage finishes, followed by {@code done} once the data is saved, or
+     * {@code error}. Event data is {@code {"text": ..., "<event name>": ...}};
+     * concatenating the texts gives the same responseText as the JSON endpoint.
+     */
+    @PostMapping(value = "/api/chat/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> streamMessage(@RequestParam String message,
+                                                    HttpSession session) {
+        String userId = (String) session.getAttribute("userId");
+        
+        if (session.getAttribute("token") == null || userId == null) {
+            LOG.info("chat.session.invalid");
+            return ResponseEntity.status(401).build();
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = chatConcurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            LOG.warning("chat.message.shed", "userId", userId);
+            return overloaded().build();
+        }
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        Executor executor = chatStreamExecutor != null ? chatStreamExecutor : Runnable::run;
+        try {
+            executor.execute(() -> streamSections(userId, message, permit, emitter));
+        } catch (RejectedExecutionException e) {
+            LOG.warning("chat.stream.rejected", "userId", userId);
+            permit.release(false);
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(emitter);
+    }
+    
+    private ResponseEntity.BodyBuilder overloaded() {
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(chatConcurrencyLimiter.retryAfterSeconds()));
+    }
+    
+    private void streamSections(String userId, String message, AdaptiveConcurrencyLimiter.Permit permit,
+                                SseEmitter emitter) {
+        // クライアントが切断しても保存までは続ける
+        AtomicBoolean connected = new AtomicBoolean(true);
+        SectionListener sender = (name, text, data) -> {
+            if (!connected.get()) {
+                return;
             }
-            
-            // 3. 心理状態を分析
-            List<String> conversationHistory = new ArrayList<>();
-            MentalState mentalState = mentalStateAnalyzer.analyze(message, conversationHistory);
-            System.out.println("Mental state: " + mentalState.getTone());
-            
-            // 4. 健康アドバイスを生成
-            UserProfile userProfile = new UserProfile();
-            userProfile.setUserId(userId);
-            
-            AdviceResult adviceResult = healthAdvisorAI.generateAdvice(healthData, mentalState, userProfile);
-            System.out.println("Generated advice");
-            
-            // 5. 短歌を生成
-            TankaPoem tanka = tankaGenerator.generate(healthData, mentalState);
-            System.out.println("Generated tanka");
-            
-            // 6. データを保存
-            if (dataRepository != null) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("text", text);
+            payload.put(name, data);
+            // 遅いクライアントへの書き込み時間はパイプラインのレイテンシに含めない
+            permit.untimed(() -> {
                 try {
+                    emitter.send(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+                } catch (IOException | IllegalStateException e) {
+                    connected.set(false);
+                    LOG.fine("chat.stream.disconnected", "userId", userId, "section", name);
+                }
+            });
+        };
+        
+        try {
+            processMessage(userId, message, permit.mode(), sender);
+            // 最後のイベントは枠を返してから送る
+            permit.release(true);
+            sender.section("done", "", true);
+            emitter.complete();
+        } catch (Exception e) {
+            // 入力エラーなどは混雑とみなさない
+            permit.release(e);
+            LOG.severe("chat.message.failed", e, "userId", userId);
+            sender.section("error", "メッセージの処理中にエラーが発生しました: " + e.getMessage(), true);
+            emitter.complete();
+        } finally {
+            // Errorで抜けた場合のみ効く（解放済みなら無視される）
+            permit.release(false);
+        }
+    }
+    
+    /**
+     * Runs the chat pipeline, handing each section of the reply to {@code listener} as
+     * soon as it is ready, then saves everything and returns the assembled response.
+     * A {@link AdaptiveConcurrencyLimiter.Mode#DEGRADED} request gets advice without MCP
+     * research and no tanka.
+     */
+    private ChatResponse processMessage(String userId, String message, AdaptiveConcurrencyLimiter.Mode mode,
+                                        SectionListener listener) {
+        boolean full = mode == AdaptiveConcurrencyLimiter.Mode.FULL;
+        LOG.fine("chat.message.received", "userId", userId, "length", message.length());
+        StringBuilder responseText = new StringBuilder();
+        
+        // 1. メッセージを解析
+        HealthData healthData = pipelineMetrics.timeStage("parse",
+                () -> messageParser.parseMessage(userId, message));
+        LOG.fine("chat.message.parsed", "weight", healthData.getWeight(),
+                "bodyFat", healthData.getBodyFatPercentage());
+        emit(listener, responseText, "extractedData", extractedSection(healthData), healthData);
+        
+        // 2. 栄養素を推定
+        NutritionInfo nutritionInfo = null;
+        if (healthData.getFoodItems() != null && !healthData.getFoodItems().isEmpty()) {
+            nutritionInfo = pipelineMetrics.timeStage("nutrition",
+                    () -> nutritionEstimator.estimateNutrition(healthData.getFoodItems()));
+            LOG.fine("chat.nutrition.estimated", "calories", nutritionInfo.getCalories());
+            emit(listener, responseText, "nutrition", nutritionSection(nutritionInfo), nutritionInfo);
+        }
+        
+        // 3. 心理状態を分析
+        List<String> conversationHistory = new ArrayList<>();
+        MentalState mentalState = pipelineMetrics.timeStage("mental",
+                () -> mentalStateAnalyzer.analyze(message, conversationHistory));
+        LOG.fine("chat.mental.analyzed", "tone", mentalState.getTone());
+        emit(listener, responseText, "mentalState", mentalSection(mentalState), mentalState);
+        
+        // 4. 健康アドバイスを生成
+        UserProfile userProfile = new UserProfile();
+        userProfile.setUserId(userId);
+        
+        // 混雑時はMCPの研究を参照しない
+        AdviceResult adviceResult = pipelineMetrics.timeStage("advice", () -> full
+                ? healthAdvisorAI.generateAdvice(healthData, mentalState, userProfile)
+                : healthAdvisorAI.generateBasicAdvice(healthData, mentalState, userProfile));
+        emit(listener, responseText, "advice", adviceSection(adviceResult), adviceResult);
+        
+        // 5. 短歌を生成（混雑時は省略）
+        TankaPoem tanka = null;
+        if (full) {
+            tanka = pipelineMetrics.timeStage("tanka",
+                    () -> tankaGenerator.generate(healthData, mentalState));
+            emit(listener, responseText, "tanka", tankaSection(tanka), tanka);
+        }
+        
+        // 6. データを保存
+        if (dataRepository != null) {
+            NutritionInfo dailyNutrition = nutritionInfo;
+            TankaPoem dailyTanka = tanka;
+            try {
+                pipelineMetrics.timeStage("save", () -> {
                     dataRepository.saveHealthData(userId, healthData);
-                    if (nutritionInfo != null) {
-                        dataRepository.saveNutritionInfo(userId, healthData.getDate(), nutritionInfo);
+                    if (dailyNutrition != null) {
+                        dataRepository.saveNutritionInfo(userId, healthData.getDate(), dailyNutrition);
                     }
                     dataRepository.saveMentalState(userId, healthData.getDate(), mentalState);
-                    dataRepository.saveTanka(userId, tanka);
-                    System.out.println("Data saved successfully");
-                } catch (Exception e) {
-                    System.out.println("Warning: Failed to save data: " + e.getMessage());
-                }
-            }
-            
-            // 7. レスポンスを構築
-            ChatResponse response = new ChatResponse();
-            
-            StringBuilder responseText = new StringBuilder();
-            responseText.append("📊 **健康データ分析結果**\n\n");
-            
-            // 検出された情報
-            if (healthData.getWeight() != null) {
-                responseText.append("体重: ").append(healthData.getWeight()).append(" kg\n");
-            }
-            if (healthData.getBodyFatPercentage() != null) {
-                responseText.append("体脂肪率: ").append(healthData.getBodyFatPercentage()).append(" %\n");
-            }
-            if (healthData.getFoodItems() != null && !healthData.getFoodItems().isEmpty()) {
-                responseText.append("食事: ").append(String.join(", ", healthData.getFoodItems())).append("\n");
-            }
-            if (healthData.getExercises() != null && !healthData.getExercises().isEmpty()) {
-                responseText.append("運動: ").append(String.join(", ", healthData.getExercises())).append("\n");
-            }
-            
-            // 栄養情報
-            if (nutritionInfo != null) {
-                responseText.append("\n🍽️ **栄養情報**\n");
-                responseText.append("カロリー: ").append(String.format("%.1f", nutritionInfo.getCalories())).append(" kcal\n");
-                responseText.append("タンパク質: ").append(String.format("%.1f", nutritionInfo.getProtein())).append(" g\n");
-                responseText.append("脂質: ").append(String.format("%.1f", nutritionInfo.getFat())).append(" g\n");
-                responseText.append("炭水化物: ").append(String.format("%.1f", nutritionInfo.getCarbohydrate())).append(" g\n");
+                    if (dailyTanka != null) {
+                        dataRepository.saveTanka(userId, dailyTanka);
+                    }
+                });
+                LOG.fine("chat.data.saved", "userId", userId);
+            } catch (Exception e) {
+                LOG.warning("chat.data.save_failed", e, "userId", userId);
             }
-            
-            // 心理状態
-            responseText.append("\n💭 **心理状態**\n");
-            responseText.append("トーン: ").append(getMentalStateName(mentalState.getTone())).append("\n");
-            responseText.append("モチベーション: ").append(String.format("%.0f", mentalState.getMotivationLevel() * 100)).append("%\n");
-            
-            // アドバイス
-            responseText.append("\n💡 **健康アドバイス**\n");
-            responseText.append(adviceResult.getMainAdvice()).append("\n");
-            
-            if (adviceResult.getActionableRecommendations() != null && 
-                !adviceResult.getActionableRecommendations().isEmpty()) {
-                responseText.append("\n📝 **推奨事項**\n");
-                for (String recommendation : adviceResult.getActionableRecommendations()) {
-                    responseText.append("• ").append(recommendation).append("\n");
-                }
+        }
+        
+        // 7. レスポンスを構築
+        ChatResponse response = new ChatResponse();
+        response.setResponseText(responseText.toString());
+        response.setExtractedData(healthData);
+        response.setTanka(tanka);
+        
+        LOG.fine("chat.message.completed", "userId", userId);
+        return response;
+    }
+    
+    private static void emit(SectionListener listener, StringBuilder responseText,
+                             String name, String text, Object data) {
+        responseText.append(text);
+        listener.section(name, text, data);
+    }
+    
+    private static String extractedSection(HealthData healthData) {
+        StringBuilder text = new StringBuilder();
+        text.append("📊 **健康データ分析結果**\n\n");
+        
+        // 検出された情報
+        if (healthData.getWeight() != null) {
+            text.append("体重: ").append(healthData.getWeight()).append(" kg\n");
+        }
+        if (healthData.getBodyFatPercentage() != null) {
+            text.append("体脂肪率: ").append(healthData.getBodyFatPercentage()).append(" %\n");
+        }
+        if (healthData.getFoodItems() != null && !healthData.getFoodItems().isEmpty()) {
+            text.append("食事: ").append(String.join(", ", healthData.getFoodItems())).append("\n");
+        }
+        if (healthData.getExercises() != null && !healthData.getExercises().isEmpty()) {
+            text.append("運動: ").append(String.join(", ", healthData.getExercises())).append("\n");
+        }
+        return text.toString();
+    }
+    
+    private static String nutritionSection(NutritionInfo nutritionInfo) {
+        StringBuilder text = new StringBuilder();
+        text.append("\n🍽️ **栄養情報**\n");
+        text.append("カロリー: ").append(String.format("%.1f", nutritionInfo.getCalories())).append(" kcal\n");
+        text.append("タンパク質: ").append(String.format("%.1f", nutritionInfo.getProtein())).append(" g\n");
+        text.append("脂質: ").append(String.format("%.1f", nutritionInfo.getFat())).append(" g\n");
+        text.append("炭水化物: ").append(String.format("%.1f", nutritionInfo.getCarbohydrate())).append(" g\n");
+        return text.toString();
+    }
+    
+    private String mentalSection(MentalState mentalState) {
+        StringBuilder text = new StringBuilder();
+        text.append("\n💭 **心理状態**\n");
+        text.append("トーン: ").append(getMentalStateName(mentalState.getTone())).append("\n");
+        text.append("モチベーション: ").append(String.format("%.0f", mentalState.getMotivationLevel() * 100)).append("%\n");
+        return text.toString();
+    }
+    
+    private static String adviceSection(AdviceResult adviceResult) {
+        StringBuilder text = new StringBuilder();
+        text.append("\n💡 **健康アドバイス**\n");
+        text.append(adviceResult.getMainAdvice()).append("\n");
+        
+        if (adviceResult.getActionableRecommendations() != null && 
+            !adviceResult.getActionableRecommendations().isEmpty()) {
+            text.append("\n📝 **推奨事項**\n");
+            for (String recommendation : adviceResult.getActionableRecommendations()) {
+                text.append("• ").append(recommendation).append("\n");
             }
-            
-            // 短歌
-            responseText.append("\n🌸 **今日の短歌**\n");
-            responseText.append(tanka.getLine1()).append("\n");
-            responseText.append(tanka.getLine2()).append("\n");
-            responseText.append(tanka.getLine3()).append("\n");
-            responseText.append(tanka.getLine4()).append("\n");
-            responseText.append(tanka.getLine5()).append("\n");
-            
-            response.setResponseText(responseText.toString());
-            response.setExtractedData(healthData);
-            response.setTanka(tanka);
-            
-            System.out.println("Response sent successfully");
-            return response;
-            
-        } catch (Exception e) {
-            System.out.println("Error processing message: " + e.getMessage());
-            e.printStackTrace();
-            ChatResponse errorResponse = new ChatResponse();
-            errorResponse.setResponseText("メッセージの処理中にエラーが発生しました: " + e.getMessage());
-            return errorResponse;
+        }
+        return text.toString();
+    }
+    
+    private static String tankaSection(TankaPoem tanka) {
+        StringBuilder text = new StringBuilder();
+        text.append("\n🌸 **今日の短歌**\n");
+        text.append(tanka.getLine1()).append("\n");
+        text.append(tanka.getLine2()).append("\n");
+        text.append(tanka.getLine3()).append("\n");
+        text.append(tanka.getLine4()).append("\n");
+        text.append(tanka.getLine5()).append("\n");
+        return text.toString();
+    }
+    
+    /**
+     * Receives one finished section of the chat reply.
+     */
+    private interface SectionListener {
+        void section(String name, String text, Object data);
+    }
+    
+    /**
+     * Imports many past log lines at once ("YYYY-MM-DD message" per line).
+     * Only data extraction and nutrition estimation run; advice and tanka are skipped.
+     */
+    @PostMapping("/api/chat/bulk")
+    @ResponseBody
+    public ResponseEntity<BulkImportResult> importMessages(@RequestParam String logs,
+                                                           HttpSession session) {
+        String userId = (String) session.getAttribute("userId");
+        
+        if (session.getAttribute("token") == null || userId == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (bulkIngestionService == null) {
+            return ResponseEntity.status(503).build();
+        }
+        
+        try {
+            BulkImportResult result = bulkIngestionService.ingest(userId, logs);
+            LOG.info("chat.bulk.imported", "userId", userId, "imported", result.getImportedCount(),
+                    "rejected", result.getRejectedCount());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            BulkImportResult errorResult = new BulkImportResult();
+            errorResult.getErrors().add(e.getMessage());
+            return ResponseEntity.badRequest().body(errorResult);
         }
     }
     
@@ -210,7 +438,8 @@ public class ChatController {
     @GetMapping("/api/graph")
     @ResponseBody
     public ResponseEntity<String> getGraphData(@RequestParam(defaultValue = "ONE_MONTH") String timeRange,
-                                               HttpSession session) {
+                                               HttpSession session,
+                                               WebRequest webRequest) {
         String userId = (String) session.getAttribute("userId");
         
         if (userId == null) {
@@ -235,10 +464,17 @@ public class ChatController {
                     break;
             }
             
-            // データを取得
-            List<HealthData> healthDataList = new ArrayList<>();
+            // データが更新されていなければリポジトリを読まずに304を返す
+            ConditionalGet conditional = ConditionalGet.of(conditionalGetEnabled ? userDataVersions : null, userId, "graph", timeRange);
+            ResponseEntity<String> notModified = conditional.notModified(webRequest);
+            if (notModified != null) {
+                return notModified;
+            }
+            
+            // 体重・体脂肪率の列だけを取得
+            BodyMetricsSeries series = BodyMetricsSeries.empty();
             if (dataRepository != null) {
-                healthDataList = dataRepository.getHealthDataByDateRange(userId, startDate, endDate);
+                series = dataRepository.getBodyMetrics(userId, startDate, endDate);
             }
             
             // データをグラフ用に整形
@@ -246,43 +482,21 @@ public class ChatController {
             StringBuilder weightData = new StringBuilder();
             StringBuilder bodyFatData = new StringBuilder();
             
-            // 日付ごとにデータを集約
-            Map<LocalDate, HealthData> dataByDate = new TreeMap<>();
-            for (HealthData data : healthDataList) {
-                if (data.getWeight() != null || data.getBodyFatPercentage() != null) {
-                    dataByDate.put(data.getDate(), data);
-                }
-            }
-            
-            boolean first = true;
-            for (Map.Entry<LocalDate, HealthData> entry : dataByDate.entrySet()) {
-                if (!first) {
+            for (int i = 0; i < series.size(); i++) {
+                if (i > 0) {
                     labels.append(", ");
                     weightData.append(", ");
                     bodyFatData.append(", ");
                 }
-                first = false;
-                
-                LocalDate date = entry.getKey();
-                HealthData data = entry.getValue();
                 
+                LocalDate date = series.getDate(i);
                 labels.append("\"").append(date.getMonthValue()).append("/").append(date.getDayOfMonth()).append("\"");
-                
-                if (data.getWeight() != null) {
-                    weightData.append(data.getWeight());
-                } else {
-                    weightData.append("null");
-                }
-                
-                if (data.getBodyFatPercentage() != null) {
-                    bodyFatData.append(data.getBodyFatPercentage());
-                } else {
-                    bodyFatData.append("null");
-                }
+                appendValue(weightData, series.getWeight(i));
+                appendValue(bodyFatData, series.getBodyFatPercentage(i));
             }
             
             // データがない場合はダミーデータ
-            if (dataByDate.isEmpty()) {
+            if (series.isEmpty()) {
                 labels.append("\"データなし\"");
                 weightData.append("null");
                 bodyFatData.append("null");
@@ -310,15 +524,22 @@ public class ChatController {
                 "  ]\n" +
                 "}";
             
-            System.out.println("Graph data generated for " + dataByDate.size() + " data points");
+            LOG.fine("chat.graph.generated", "userId", userId, "points", series.size());
             
-            return ResponseEntity.ok()
+            return conditional.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(jsonResponse);
         } catch (Exception e) {
-            System.out.println("Error generating graph data: " + e.getMessage());
-            e.printStackTrace();
+            LOG.severe("chat.graph.failed", e, "userId", userId);
             return ResponseEntity.status(500).body("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
+
+    private static void appendValue(StringBuilder target, double value) {
+        if (Double.isNaN(value)) {
+            target.append("null");
+        } else {
+            target.append(value);
+        }
+    }
 }
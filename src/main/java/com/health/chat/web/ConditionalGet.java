@@ -0,0 +1,66 @@
+package com.health.chat.web;
+
+import com.health.chat.repository.UserDataVersions;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+
+/**
+ * ETag / Last-Modified handling for JSON endpoints derived from one user's stored data.
+ *
+ * <p>The stamp is taken before the response is computed, so a write that races with
+ * the computation can only make the next request miss, never serve stale data as fresh.
+ * Responses depend on today's date as well, which is part of the tag.
+ */
+final class ConditionalGet {
+
+    // Cache privately but revalidate every time, so browsers send If-None-Match
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final String etag;
+    private final long lastModified;
+
+    private ConditionalGet(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param versions may be null, in which case no validators are emitted
+     */
+    static ConditionalGet of(UserDataVersions versions, String userId, String... view) {
+        if (versions == null) {
+            return new ConditionalGet(null, -1);
+        }
+        UserDataVersions.Stamp stamp = versions.current(userId);
+        String[] variant = new String[view.length + 1];
+        System.arraycopy(view, 0, variant, 0, view.length);
+        variant[view.length] = LocalDate.now().toString();
+        return new ConditionalGet(versions.etag(stamp, variant), stamp.getLastModified());
+    }
+
+    /**
+     * A 304 response if the client's validators still match, otherwise null.
+     */
+    ResponseEntity<String> notModified(WebRequest request) {
+        if (etag == null || request == null || !request.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+
+    ResponseEntity.BodyBuilder ok() {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (etag != null) {
+            builder.eTag(etag).lastModified(lastModified).cacheControl(REVALIDATE);
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,50 @@
+package com.health.chat.web;
+
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies one endpoint class's per-user {@link RateLimiter} to the URLs it is registered
+ * for, answering 429 with Retry-After once the logged-in user's bucket is empty.
+ * Requests without a user in the session pass through; the controllers answer them with 401.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter limiter;
+    private final PipelineMetrics metrics;
+
+    public RateLimitFilter(RateLimiter limiter, PipelineMetrics metrics) {
+        this.limiter = limiter;
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpSession session = request.getSession(false);
+        String userId = session != null ? (String) session.getAttribute("userId") : null;
+        if (userId != null) {
+            long waitNanos = limiter.tryAcquire(userId);
+            if (waitNanos > 0) {
+                metrics.countRateLimited(limiter.getName());
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(RateLimiter.retryAfterSeconds(waitNanos)));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"error\": \"Too many requests\"}");
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,72 @@
+package com.health.chat.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = SecurityConfigTest.JfrStub.class)
+@Import({SecurityConfig.class, SecurityConfigTest.JfrStub.class})
+@DisplayName("セキュリティ設定テスト")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("一般ユーザーはJFRエンドポイントにアクセスできない")
+    void testJfrEndpoint_ForbiddenForUsers() throws Exception {
+        MockHttpSession user = sessionWith("ROLE_USER");
+
+        mockMvc.perform(get("/actuator/jfr").session(user)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/jfr/recording.jfr").session(user)).andExpect(status().isForbidden());
+        mockMvc.perform(post("/actuator/jfr").session(user)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("管理者はJFRエンドポイントを読める")
+    void testJfrEndpoint_AllowedForAdmins() throws Exception {
+        mockMvc.perform(get("/actuator/jfr").session(sessionWith("ROLE_USER", "ROLE_ADMIN")))
+                .andExpect(status().isOk());
+    }
+
+    private static MockHttpSession sessionWith(String... roles) {
+        SecurityContextImpl context = new SecurityContextImpl(new UsernamePasswordAuthenticationToken("user1", null,
+                Arrays.stream(roles).map(SimpleGrantedAuthority::new).collect(Collectors.toList())));
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+        return session;
+    }
+
+    /** Stands in for the actuator endpoint, which WebMvcTest does not start. */
+    @RestController
+    static class JfrStub {
+
+        @GetMapping({"/actuator/jfr", "/actuator/jfr/{file}"})
+        String read() {
+            return "{}";
+        }
+
+        @PostMapping("/actuator/jfr")
+        String start() {
+            return "{}";
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.health.chat.jfr;
+
+import com.health.chat.metrics.PipelineMetrics;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.core.io.Resource;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingEndpointTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testStartAndStop_WritesPipelineEvents() throws Exception {
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(directory);
+
+        Map<String, Object> started = endpoint.start(30, "default");
+        assertEquals("RUNNING", started.get("state"));
+
+        PipelineMetrics.noop().timeStage("parse", () -> "parsed");
+        assertThrows(IllegalStateException.class, () -> PipelineMetrics.noop().timeStage("advice", () -> {
+            throw new IllegalStateException("MCP down");
+        }));
+
+        Map<String, Object> stopped = endpoint.stop();
+        assertNotEquals("RUNNING", stopped.get("state"));
+
+        String file = (String) stopped.get("file");
+        assertEquals(List.of(file), endpoint.status().get("files"));
+        Resource download = endpoint.download(file);
+        assertNotNull(download);
+
+        List<RecordedEvent> stages = RecordingFile.readAllEvents(directory.resolve(file)).stream()
+                .filter(e -> e.getEventType().getName().equals("com.health.chat.PipelineStage"))
+                .toList();
+        assertEquals(2, stages.size());
+        assertEquals("parse", stages.get(0).getString("stage"));
+        assertEquals(PipelineMetrics.SUCCESS, stages.get(0).getString("outcome"));
+        assertEquals(PipelineMetrics.ERROR, stages.get(1).getString("outcome"));
+    }
+
+    @Test
+    void testStart_RejectsInvalidRequests() {
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(directory);
+
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.start(0, null));
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.start(10, "everything"));
+        assertThrows(InvalidEndpointRequestException.class, endpoint::stop);
+    }
+
+    @Test
+    void testDownload_OnlyServesRecordingFiles() {
+        FlightRecordingEndpoint endpoint = new FlightRecordingEndpoint(directory);
+
+        assertNull(endpoint.download("../etc/passwd"));
+        assertNull(endpoint.download("missing.jfr"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.health.chat.json;
+
+import com.health.chat.model.HealthData;
+import com.health.chat.model.TankaPoem;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonMappersTest {
+
+    @Test
+    void testWarmUp_BuildsReusedReadersAndWriters() {
+        assertTrue(JsonMappers.warmUp() > 0);
+
+        assertSame(JsonMappers.JSON.reader(HealthData.class), JsonMappers.JSON.reader(HealthData.class));
+        assertSame(JsonMappers.SMILE.writer(TankaPoem.class), JsonMappers.SMILE.writer(TankaPoem.class));
+        assertNotSame(JsonMappers.JSON.writer(TankaPoem.class), JsonMappers.SMILE.writer(TankaPoem.class));
+    }
+
+    @Test
+    void testRoundTrip_WritesDatesAsIsoStrings() throws Exception {
+        HealthData entry = new HealthData("user1", LocalDate.of(2025, 10, 1), LocalDateTime.of(2025, 10, 1, 8, 30),
+                65.0, null, List.of("ご飯"), List.of(), "朝食");
+
+        String json = JsonMappers.JSON.writer(HealthData.class).writeValueAsString(entry);
+        assertTrue(json.contains("\"date\":\"2025-10-01\""), json);
+
+        HealthData read = JsonMappers.JSON.reader(HealthData.class).readValue(json);
+        assertEquals(entry.getTimestamp(), read.getTimestamp());
+        assertEquals("ご飯", read.getFoodItems().get(0));
+
+        byte[] smile = JsonMappers.SMILE.writer(HealthData.class).writeValueAsBytes(entry);
+        assertEquals(65.0, JsonMappers.SMILE.reader(HealthData.class).<HealthData>readValue(smile).getWeight());
+
+        Map<String, Object> body = JsonMappers.JSON.reader(Map.class).readValue("{\"message\":\"体重65kg\"}");
+        assertEquals("体重65kg", body.get("message"));
+    }
+}
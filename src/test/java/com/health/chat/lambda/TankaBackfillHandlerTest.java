@@ -0,0 +1,85 @@
+package com.health.chat.lambda;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.health.chat.model.HealthData;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.repository.StubS3Client;
+import com.health.chat.service.SimpleTankaGenerator;
+import com.health.chat.service.TankaBackfillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TankaBackfillHandlerTest {
+
+    private static final List<String> USERS = List.of("user1", "user2", "user3");
+    private static final LocalDate DAY1 = LocalDate.of(2025, 10, 1);
+    private static final LocalDate DAY2 = DAY1.plusDays(1);
+
+    private S3DataRepository repository;
+    private TankaBackfillService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new S3DataRepository(new StubS3Client(), "bucket");
+        service = new TankaBackfillService(repository, new SimpleTankaGenerator(), 1, 1000);
+        for (String userId : USERS) {
+            repository.saveHealthData(userId, entry(userId, DAY1));
+        }
+    }
+
+    @Test
+    void testHandleRequest_ResumesStoppedRunOnTheNextNight() {
+        // Night after DAY1: stopped near the timeout after the first user
+        Map<String, Object> first = handlerOn(DAY2).handleRequest(null, contextStoppingAfter(1));
+        assertEquals(false, first.get("complete"));
+        assertEquals(1, first.get("tankasWritten"));
+
+        // Night after DAY2: the window moved on a day, but the stopped run is finished first
+        for (String userId : USERS) {
+            repository.saveHealthData(userId, entry(userId, DAY2));
+        }
+        Map<String, Object> second = handlerOn(DAY2.plusDays(1)).handleRequest(null, contextStoppingAfter(100));
+        assertEquals(true, second.get("complete"));
+        assertEquals(DAY1.toString(), second.get("end"));
+        assertEquals(1, second.get("resumedUsers"));
+        assertEquals(2, second.get("tankasWritten"));
+        for (String userId : USERS) {
+            assertEquals(1, repository.getTankasByDateRange(userId, DAY1, DAY2).size(), userId);
+        }
+
+        // The next run starts a new window, which covers DAY2
+        Map<String, Object> third = handlerOn(DAY2.plusDays(1)).handleRequest(null, contextStoppingAfter(100));
+        assertEquals(DAY2.toString(), third.get("end"));
+        assertEquals(0, third.get("resumedUsers"));
+        assertEquals(3, third.get("tankasWritten"));
+    }
+
+    private TankaBackfillHandler handlerOn(LocalDate today) {
+        Clock clock = Clock.fixed(today.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+        return new TankaBackfillHandler(repository, service, 30, clock);
+    }
+
+    // Reports plenty of time for the first users, then less than the stop margin
+    private static Context contextStoppingAfter(int users) {
+        Context context = mock(Context.class);
+        when(context.getLogger()).thenReturn(mock(LambdaLogger.class));
+        AtomicInteger checks = new AtomicInteger();
+        when(context.getRemainingTimeInMillis()).thenAnswer(call -> checks.getAndIncrement() < users ? 600_000 : 0);
+        return context;
+    }
+
+    private static HealthData entry(String userId, LocalDate date) {
+        return new HealthData(userId, date, date.atTime(8, 0), 60.0, null, List.of("ご飯"), List.of(), null);
+    }
+}
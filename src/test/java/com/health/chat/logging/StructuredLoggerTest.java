@@ -0,0 +1,105 @@
+package com.health.chat.logging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuredLoggerTest {
+
+    private final Logger julLogger = Logger.getLogger(StructuredLoggerTest.class.getName());
+    private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+    private final Handler capture = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private StructuredLogger log;
+
+    @BeforeEach
+    void setUp() {
+        julLogger.setUseParentHandlers(false);
+        julLogger.setLevel(Level.INFO);
+        julLogger.addHandler(capture);
+        log = StructuredLogger.getLogger(StructuredLoggerTest.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        julLogger.removeHandler(capture);
+        julLogger.setUseParentHandlers(true);
+        julLogger.setLevel(null);
+    }
+
+    @Test
+    void testInfo_WritesKeyValueMessageAsynchronously() {
+        RuntimeException failure = new RuntimeException("boom");
+        log.info("s3.object.saved", "key", "users/u1/profile.json", "bytes", 42);
+        log.warning("s3.object.save_retry", failure, "attempt", 1);
+
+        assertTrue(AsyncLogWriter.getInstance().flush(5, TimeUnit.SECONDS));
+        assertEquals(2, records.size());
+        assertEquals("s3.object.saved key=users/u1/profile.json bytes=42", records.get(0).getMessage());
+        assertEquals(StructuredLoggerTest.class.getName(), records.get(0).getLoggerName());
+        assertEquals(Level.WARNING, records.get(1).getLevel());
+        assertSame(failure, records.get(1).getThrown());
+    }
+
+    @Test
+    void testDisabledLevel_WritesNothing() {
+        log.fine("chat.message.parsed", "weight", 65.0);
+
+        assertTrue(AsyncLogWriter.getInstance().flush(5, TimeUnit.SECONDS));
+        assertTrue(records.isEmpty());
+    }
+
+    @Test
+    void testSampledEvent_WritesOneInN() {
+        StructuredLogger.SampledEvent event = log.sampled("s3.object.read", Level.INFO, 10);
+        for (int i = 0; i < 25; i++) {
+            event.log("key", "k" + i);
+        }
+
+        assertTrue(AsyncLogWriter.getInstance().flush(5, TimeUnit.SECONDS));
+        assertEquals(3, records.size());
+        assertEquals("s3.object.read key=k0 sample=10", records.get(0).getMessage());
+        assertEquals("s3.object.read key=k10 sample=10", records.get(1).getMessage());
+    }
+
+    @Test
+    void testFormat_QuotesValuesWithSpacesAndEscapes() {
+        LogEntry entry = new LogEntry(julLogger, Level.INFO, "chat.message.failed", null,
+                new Object[] {"error", "bad \"input\"\nline", "empty", "", "missing", null, "odd"});
+
+        assertEquals("chat.message.failed error=\"bad \\\"input\\\"\\nline\" empty=\"\" missing=null odd=null",
+                entry.format());
+    }
+
+    @Test
+    void testSynchronousWriter_WritesOnCallingThread() {
+        AsyncLogWriter writer = new AsyncLogWriter(4, false);
+        writer.submit(new LogEntry(julLogger, Level.INFO, "local.health.saved", null, new Object[] {"count", 3}));
+
+        assertEquals(1, records.size());
+        assertEquals("local.health.saved count=3", records.get(0).getMessage());
+    }
+}
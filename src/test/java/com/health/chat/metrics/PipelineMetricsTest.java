@@ -0,0 +1,96 @@
+package com.health.chat.metrics;
+
+import com.health.chat.model.HealthData;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.repository.DataRepository;
+import com.health.chat.service.JwtAuthenticationService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PipelineMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private PipelineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new PipelineMetrics(registry);
+    }
+
+    @Test
+    void testTimeStage_TagsOutcome() {
+        assertEquals("ok", metrics.timeStage("parse", () -> "ok"));
+        assertThrows(IllegalStateException.class, () -> metrics.timeStage("parse", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, stageTimer("parse", PipelineMetrics.SUCCESS).count());
+        assertEquals(1, stageTimer("parse", PipelineMetrics.ERROR).count());
+    }
+
+    @Test
+    void testMeteredRepository_TagsOperationAndRecordType() {
+        DataRepository delegate = mock(DataRepository.class);
+        LocalDate date = LocalDate.of(2025, 10, 1);
+        when(delegate.getHealthDataByDateRange("user123", date, date))
+                .thenReturn(List.of(new HealthData(), new HealthData()));
+        doThrow(new RuntimeException("disk full"))
+                .when(delegate).saveNutritionInfo(eq("user123"), eq(date), any());
+        DataRepository repository = new MeteredDataRepository(delegate, metrics);
+
+        assertEquals(2, repository.getHealthDataByDateRange("user123", date, date).size());
+        assertThrows(RuntimeException.class,
+                () -> repository.saveNutritionInfo("user123", date, new NutritionInfo(100, 1, 1, 1)));
+
+        Timer range = registry.get(PipelineMetrics.REPOSITORY_TIMER)
+                .tags("operation", "range", "record", "health", "outcome", PipelineMetrics.SUCCESS).timer();
+        assertEquals(1, range.count());
+        assertEquals(2.0, registry.get(PipelineMetrics.REPOSITORY_RECORDS).tag("record", "health").counter().count());
+        Timer failedSave = registry.get(PipelineMetrics.REPOSITORY_TIMER)
+                .tags("operation", "save", "record", "nutrition", "outcome", PipelineMetrics.ERROR).timer();
+        assertEquals(1, failedSave.count());
+    }
+
+    @Test
+    void testMeters_RegisteredOncePerTagValues() {
+        for (int i = 0; i < 3; i++) {
+            metrics.timeStage("parse", () -> "ok");
+            metrics.countAdmission("full");
+        }
+        metrics.countAdmission("rejected");
+
+        assertEquals(3, stageTimer("parse", PipelineMetrics.SUCCESS).count());
+        assertEquals(3.0, registry.get(PipelineMetrics.CONCURRENCY_ADMISSIONS).tag("mode", "full").counter().count());
+        assertEquals(2, registry.get(PipelineMetrics.CONCURRENCY_ADMISSIONS).counters().size());
+        assertEquals(1, registry.get(PipelineMetrics.STAGE_TIMER).timers().size());
+    }
+
+    @Test
+    void testTokenValidation_RecordsOutcome() {
+        JwtAuthenticationService authService = new JwtAuthenticationService(
+                mock(DataRepository.class), "test-secret-key-for-metrics-0123456789", metrics);
+
+        assertFalse(authService.validateToken("not-a-jwt"));
+        assertNull(authService.getUserIdFromToken("not-a-jwt"));
+
+        assertEquals(1, registry.get(PipelineMetrics.TOKEN_TIMER)
+                .tags("operation", "validate", "outcome", "invalid").timer().count());
+        assertEquals(1, registry.get(PipelineMetrics.TOKEN_TIMER)
+                .tags("operation", "user_id", "outcome", "invalid").timer().count());
+    }
+
+    private Timer stageTimer(String stage, String outcome) {
+        return registry.get(PipelineMetrics.STAGE_TIMER).tags("stage", stage, "outcome", outcome).timer();
+    }
+}
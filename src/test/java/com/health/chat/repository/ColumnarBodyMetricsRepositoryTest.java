@@ -0,0 +1,111 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.HealthData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarBodyMetricsRepositoryTest {
+
+    private static final String USER = "user_columns";
+
+    @TempDir
+    Path directory;
+
+    private LocalFileDataRepository files;
+    private BodyMetricsStore store;
+    private ColumnarBodyMetricsRepository repository;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        files = new LocalFileDataRepository(directory.resolve("data").toString());
+        store = new BodyMetricsStore(directory.resolve("columns"));
+        repository = new ColumnarBodyMetricsRepository(files, store);
+    }
+
+    @Test
+    void testSave_KeepsLastValuePerColumnAndDay() {
+        repository.saveHealthData(USER, entry(today.minusDays(2), 65.0, 20.0));
+        repository.saveHealthData(USER, entry(today.minusDays(1), 64.8, null));
+        repository.saveHealthData(USER, entry(today.minusDays(1), null, 19.5));
+        repository.saveHealthData(USER, entry(today.minusDays(1), null, null));
+
+        BodyMetricsSeries series = repository.getBodyMetrics(USER, today.minusDays(30), today);
+
+        assertEquals(2, series.size());
+        assertEquals(today.minusDays(2), series.getDate(0));
+        assertEquals(64.8, series.getWeight(1));
+        assertEquals(19.5, series.getBodyFatPercentage(1));
+    }
+
+    @Test
+    void testRead_BackfillsEntriesSavedBeforeTheStoreExisted() {
+        files.saveHealthData(USER, entry(today.minusDays(10), 66.0, null));
+        files.saveHealthData(USER, entry(today.minusDays(3), 65.5, 21.0));
+
+        BodyMetricsSeries series = repository.getBodyMetrics(USER, today.minusDays(30), today);
+
+        assertEquals(2, series.size());
+        assertEquals(66.0, series.getWeight(0));
+        assertTrue(Double.isNaN(series.getBodyFatPercentage(0)));
+
+        // Older than the initial backfill window
+        files.saveHealthData(USER, entry(today.minusDays(200), 70.0, null));
+        assertEquals(70.0, repository.getBodyMetrics(USER, today.minusDays(210), today).getWeight(0));
+        assertEquals(3, repository.getBodyMetrics(USER, today.minusDays(210), today).size());
+    }
+
+    @Test
+    void testSave_OutOfOrderDaysAndGrowthRewriteColumns() {
+        List<HealthData> entries = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            entries.add(entry(today.minusDays(i), 60.0 + i / 10.0, null));
+        }
+        for (HealthData entry : entries) {
+            repository.saveHealthData(USER, entry);
+        }
+
+        BodyMetricsSeries series = repository.getBodyMetrics(USER, today.minusDays(179), today);
+        assertEquals(150, series.size());
+        for (int i = 1; i < series.size(); i++) {
+            assertTrue(series.getEpochDay(i - 1) < series.getEpochDay(i));
+        }
+        assertEquals(60.0, series.getWeight(series.size() - 1));
+
+        BodyMetricsSeries week = repository.getBodyMetrics(USER, today.minusDays(6), today);
+        assertEquals(7, week.size());
+        assertEquals(today.minusDays(6), week.getDate(0));
+    }
+
+    @Test
+    void testInvalidatedFile_IsRebuiltFromDelegate() throws Exception {
+        repository.saveHealthData(USER, entry(today.minusDays(1), 65.0, 20.0));
+        store.invalidate(USER);
+        assertEquals(BodyMetricsStore.NOT_COVERED, store.getCoveredFrom(USER));
+
+        BodyMetricsSeries series = repository.getBodyMetrics(USER, today.minusDays(30), today);
+
+        assertEquals(1, series.size());
+        assertEquals(20.0, series.getBodyFatPercentage(0));
+    }
+
+    @Test
+    void testStore_RejectsUnsafeUserIds() {
+        assertThrows(IllegalArgumentException.class, () -> store.getCoveredFrom("../etc"));
+    }
+
+    private HealthData entry(LocalDate date, Double weight, Double bodyFat) {
+        return new HealthData(USER, date, date.atTime(8, 0).plusSeconds(System.nanoTime() % 1000),
+                weight, bodyFat, null, null, null);
+    }
+}
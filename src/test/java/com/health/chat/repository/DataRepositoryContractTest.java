@@ -0,0 +1,165 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.DailyNutrition;
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.model.PFCBalance;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every DataRepository backend must share; each backend runs it through a subclass.
+ */
+abstract class DataRepositoryContractTest {
+
+    protected static final LocalDate DAY = LocalDate.of(2025, 9, 15);
+
+    @TempDir
+    Path directory;
+
+    protected DataRepository repository;
+
+    protected abstract DataRepository createRepository(Path directory) throws Exception;
+
+    @BeforeEach
+    void createRepository() throws Exception {
+        repository = createRepository(directory);
+    }
+
+    @Test
+    void testHealthData_RangeReturnsEntriesOfDaysInRange() {
+        repository.saveHealthData("user1", entry("user1", DAY.minusDays(1), 8, 66.0));
+        repository.saveHealthData("user1", entry("user1", DAY, 8, 65.5));
+        repository.saveHealthData("user1", entry("user1", DAY, 20, 65.0));
+        repository.saveHealthData("user1", entry("user1", DAY.plusDays(1), 8, 64.5));
+        repository.saveHealthData("user2", entry("user2", DAY, 8, 80.0));
+
+        List<HealthData> day = repository.getHealthDataByDateRange("user1", DAY, DAY);
+        assertEquals(List.of(65.5, 65.0), day.stream().map(HealthData::getWeight).collect(Collectors.toList()));
+        assertEquals(4, repository.getHealthDataByDateRange("user1", DAY.minusDays(7), DAY.plusDays(7)).size());
+        assertTrue(repository.getHealthDataByDateRange("user3", DAY, DAY).isEmpty());
+    }
+
+    @Test
+    void testHealthData_BatchAppendsToDay() {
+        repository.saveHealthData("user1", entry("user1", DAY, 7, 65.0));
+        repository.saveHealthDataBatch("user1", DAY, List.of(entry("user1", DAY, 12, null), entry("user1", DAY, 19, null)));
+
+        assertEquals(3, repository.getHealthDataByDateRange("user1", DAY, DAY).size());
+    }
+
+    @Test
+    void testDailyRecords_SavedPerDayAndQueriedByRange() {
+        repository.saveNutritionInfo("user1", DAY, new NutritionInfo(1800, 60, 50, 250));
+        repository.saveNutritionInfo("user1", DAY.plusDays(2), new NutritionInfo(2000, 70, 60, 260));
+        repository.saveMentalState("user1", DAY, new MentalState(EmotionalTone.POSITIVE, 0.8, List.of("順調")));
+        repository.saveMentalState("user1", DAY, new MentalState(EmotionalTone.NEUTRAL, 0.5, List.of()));
+
+        assertEquals(1800, repository.getNutritionInfo("user1", DAY).getCalories());
+        assertNull(repository.getNutritionInfo("user1", DAY.plusDays(1)));
+        assertEquals(2, repository.getNutritionInfoByDateRange("user1", DAY, DAY.plusDays(2)).size());
+        assertEquals(EmotionalTone.NEUTRAL, repository.getMentalState("user1", DAY).getTone());
+        assertEquals(1, repository.getMentalStatesByDateRange("user1", DAY.minusDays(1), DAY.plusDays(1)).size());
+        assertNull(repository.getMentalState("user2", DAY));
+    }
+
+    @Test
+    void testTanka_HistoryNewestFirstAndRange() {
+        repository.saveTanka("user1", tanka("一", DAY.minusDays(2)));
+        repository.saveTankaBatch("user1", List.of(tanka("二", DAY), tanka("三", DAY.plusDays(1))));
+        repository.saveTanka("user1", tanka("改", DAY));
+
+        List<TankaPoem> history = repository.getTankaHistory("user1");
+        assertEquals(List.of("三", "改", "一"), history.stream().map(TankaPoem::getLine1).collect(Collectors.toList()));
+        assertEquals(2, repository.getTankasByDateRange("user1", DAY.minusDays(1), DAY.plusDays(1)).size());
+        assertTrue(repository.getTankaHistory("user2").isEmpty());
+    }
+
+    @Test
+    void testDailySummary_RoundTrip() {
+        DailySummary summary = new DailySummary("user1", DAY, List.of(entry("user1", DAY, 8, 65.0)),
+                new DailyNutrition(1800, new PFCBalance(60, 50, 250)), null, tanka("要約", DAY), LocalDateTime.now());
+        repository.saveDailySummary("user1", summary);
+
+        DailySummary read = repository.getDailySummary("user1", DAY);
+        assertEquals(1, read.getHealthData().size());
+        assertEquals(1800, read.getNutrition().getTotalCalories());
+        assertEquals("要約", read.getTanka().getLine1());
+        assertNull(repository.getDailySummary("user1", DAY.minusDays(1)));
+
+        repository.deleteDailySummary("user1", DAY);
+        assertNull(repository.getDailySummary("user1", DAY));
+        repository.deleteDailySummary("user2", DAY);
+    }
+
+    @Test
+    void testDailySummary_DroppedByLateWritesToItsDay() {
+        repository.saveDailySummary("user1", summary(DAY));
+        repository.saveDailySummary("user1", summary(DAY.minusDays(1)));
+
+        repository.saveHealthData("user1", entry("user1", DAY, 23, 64.0));
+        assertNull(repository.getDailySummary("user1", DAY));
+        assertNotNull(repository.getDailySummary("user1", DAY.minusDays(1)));
+
+        for (Runnable write : List.<Runnable>of(
+                () -> repository.saveHealthDataBatch("user1", DAY, List.of(entry("user1", DAY, 22, null))),
+                () -> repository.saveNutritionInfo("user1", DAY, new NutritionInfo(1800, 60, 50, 250)),
+                () -> repository.saveMentalState("user1", DAY, new MentalState(EmotionalTone.NEUTRAL, 0.5, List.of())),
+                () -> repository.saveTanka("user1", tanka("遅", DAY)),
+                () -> repository.saveTankaBatch("user1", List.of(tanka("遅", DAY))))) {
+            repository.saveDailySummary("user1", summary(DAY));
+            write.run();
+            assertNull(repository.getDailySummary("user1", DAY));
+        }
+        assertNotNull(repository.getDailySummary("user1", DAY.minusDays(1)));
+    }
+
+    @Test
+    void testUserProfile_LookupByIdAndUsername() {
+        repository.saveUserProfile(profile("user1", "alice"));
+        repository.saveUserProfile(profile("user2", "bob"));
+
+        assertEquals("alice", repository.getUserProfile("user1").getUsername());
+        assertEquals("user2", repository.getUserProfileByUsername("bob").getUserId());
+        assertNull(repository.getUserProfile("user3"));
+        assertNull(repository.getUserProfileByUsername("carol"));
+
+        repository.saveUserProfile(profile("user1", "alicia"));
+        assertNull(repository.getUserProfileByUsername("alice"));
+        assertEquals("user1", repository.getUserProfileByUsername("alicia").getUserId());
+    }
+
+    protected static HealthData entry(String userId, LocalDate date, int hour, Double weight) {
+        return new HealthData(userId, date, date.atTime(hour, 0), weight, null, List.of("ご飯"), List.of(), null);
+    }
+
+    protected static DailySummary summary(LocalDate date) {
+        return new DailySummary("user1", date, List.of(entry("user1", date, 8, 65.0)),
+                new DailyNutrition(1800, new PFCBalance(60, 50, 250)), null, tanka("要約", date), LocalDateTime.now());
+    }
+
+    protected static TankaPoem tanka(String line1, LocalDate date) {
+        return new TankaPoem(line1, "二句", "三句", "四句", "五句", date);
+    }
+
+    protected static UserProfile profile(String userId, String username) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setUsername(username);
+        return profile;
+    }
+}
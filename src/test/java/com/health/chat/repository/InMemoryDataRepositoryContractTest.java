@@ -0,0 +1,32 @@
+package com.health.chat.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryDataRepositoryContractTest extends DataRepositoryContractTest {
+
+    @Override
+    protected DataRepository createRepository(Path directory) {
+        return new InMemoryDataRepository();
+    }
+
+    @Test
+    void testSnapshot_RestoresEveryRecord() throws Exception {
+        repository.saveHealthData("user1", entry("user1", DAY, 8, 65.0));
+        repository.saveHealthData("user1", entry("user1", DAY, 19, 64.8));
+        repository.saveTanka("user1", tanka("一", DAY));
+        repository.saveUserProfile(profile("user1", "alice"));
+        Path file = directory.resolve("snapshot.smile");
+
+        ((InMemoryDataRepository) repository).snapshot(file);
+        DataRepository restored = InMemoryDataRepository.restore(file, RecordCodec.SMILE);
+
+        assertEquals(2, restored.getHealthDataByDateRange("user1", DAY, DAY).size());
+        assertEquals("一", restored.getTankaHistory("user1").get(0).getLine1());
+        assertEquals("user1", restored.getUserProfileByUsername("alice").getUserId());
+        assertNull(InMemoryDataRepository.restore(directory.resolve("missing"), RecordCodec.SMILE).getUserProfile("user1"));
+    }
+}
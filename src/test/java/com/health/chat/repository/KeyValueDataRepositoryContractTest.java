@@ -0,0 +1,62 @@
+package com.health.chat.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueDataRepositoryContractTest extends DataRepositoryContractTest {
+
+    private Path file;
+
+    @Override
+    protected DataRepository createRepository(Path directory) {
+        file = directory.resolve("health-chat.kv");
+        return new KeyValueDataRepository(file, RecordCodec.SMILE);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        ((KeyValueDataRepository) repository).close();
+    }
+
+    @Test
+    void testReopen_RestoresIndexAndDropsTornRecord() throws IOException {
+        repository.saveHealthData("user1", entry("user1", DAY, 8, 65.0));
+        repository.saveTanka("user1", tanka("一", DAY));
+        repository.saveUserProfile(profile("user1", "alice"));
+        ((KeyValueDataRepository) repository).close();
+
+        // A crash in the middle of a write leaves a partial record behind
+        Files.write(file, new byte[] {0, 0, 0, 1, 0, 0, 0, 40, 0}, StandardOpenOption.APPEND);
+        long damagedSize = Files.size(file);
+
+        repository = new KeyValueDataRepository(file, RecordCodec.SMILE);
+        assertEquals(1, repository.getHealthDataByDateRange("user1", DAY, DAY).size());
+        assertEquals("一", repository.getTankaHistory("user1").get(0).getLine1());
+        assertEquals("user1", repository.getUserProfileByUsername("alice").getUserId());
+        assertTrue(Files.size(file) < damagedSize);
+    }
+
+    @Test
+    void testCompact_KeepsLatestValues() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            repository.saveTanka("user1", tanka("版" + i, DAY));
+        }
+        long before = Files.size(file);
+
+        ((KeyValueDataRepository) repository).compact();
+
+        assertTrue(Files.size(file) < before);
+        assertEquals(List.of("版49"), repository.getTankaHistory("user1").stream().map(t -> t.getLine1()).toList());
+        ((KeyValueDataRepository) repository).close();
+        repository = new KeyValueDataRepository(file, RecordCodec.SMILE);
+        assertEquals("版49", repository.getTankasByDateRange("user1", DAY, DAY).get(0).getLine1());
+    }
+}
@@ -0,0 +1,31 @@
+package com.health.chat.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileDataRepositoryContractTest extends DataRepositoryContractTest {
+
+    @Override
+    protected DataRepository createRepository(Path directory) {
+        return new LocalFileDataRepository(directory.toString());
+    }
+
+    @Test
+    void testUsernameIndex_BuiltFromProfilesOnDisk() {
+        repository.saveUserProfile(profile("user1", "alice"));
+        repository.saveUserProfile(profile("user2", "bob"));
+
+        // A new instance indexes the profiles already written
+        LocalFileDataRepository reopened = new LocalFileDataRepository(directory.toString());
+        assertEquals("user1", reopened.getUserProfileByUsername("alice").getUserId());
+
+        // Renamed through the other instance after the index was built: the old name no longer matches
+        repository.saveUserProfile(profile("user2", "robert"));
+        assertNull(reopened.getUserProfileByUsername("bob"));
+        reopened.saveUserProfile(profile("user3", "bob"));
+        assertEquals("user3", reopened.getUserProfileByUsername("bob").getUserId());
+    }
+}
@@ -0,0 +1,184 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.model.UserProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalLayoutMigrationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 15);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPartitionedLayout_SpreadsUsersOverShards() {
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(directory.toString(), 4, List.of());
+        LocalFileDataRepository repository = new LocalFileDataRepository(layout, RecordCodec.JSON);
+        for (int i = 0; i < 20; i++) {
+            repository.saveUserProfile(profile("user" + i, "name" + i));
+        }
+
+        assertEquals("user17", repository.getUserProfileByUsername("name17").getUserId());
+        assertTrue(Files.exists(layout.userDirectory("user17")));
+        assertTrue(layout.userDirectory("user17").startsWith(directory.resolve("shards")));
+        long usedShards = IntStream.range(0, 20)
+                .map(i -> layout.shardOf("user" + i)).distinct().count();
+        assertTrue(usedShards > 1);
+        assertEquals(layout.shardOf("user17"),
+                LocalStorageLayout.partitioned(directory.toString(), 4, List.of()).shardOf("user17"));
+    }
+
+    @Test
+    void testMigration_MovesLegacyUsersWhileServing() {
+        LocalFileDataRepository legacy = new LocalFileDataRepository(directory.toString());
+        legacy.saveUserProfile(profile("user1", "alice"));
+        legacy.saveHealthData("user1", new HealthData("user1", DAY, DAY.atTime(8, 0), 65.0, null,
+                List.of("パン"), List.of(), null));
+        legacy.saveTanka("user1", new TankaPoem("旧", "旧", "旧", "旧", "旧", DAY));
+        legacy.saveMentalState("user1", DAY, new MentalState(EmotionalTone.NEUTRAL, 0.5, List.of()));
+
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(directory.toString(), 8, List.of());
+        LocalFileDataRepository repository = new LocalFileDataRepository(layout, RecordCodec.JSON);
+
+        // Not yet migrated: read from the original directory; a rewrite lands in the shard
+        assertEquals("alice", repository.getUserProfileByUsername("alice").getUsername());
+        repository.saveTanka("user1", new TankaPoem("新", "新", "新", "新", "新", DAY));
+        assertEquals(1, repository.getTankaHistory("user1").size());
+
+        LocalLayoutMigration.Result result = new LocalLayoutMigration(layout).migrate();
+
+        assertEquals(1, result.getUsers());
+        assertEquals(3, result.getFilesMoved());
+        assertFalse(Files.exists(layout.legacyUsersDirectory().resolve("user1")));
+        assertEquals("alice", repository.getUserProfile("user1").getUsername());
+        assertEquals(1, repository.getHealthDataByDateRange("user1", DAY, DAY).size());
+        assertEquals(EmotionalTone.NEUTRAL, repository.getMentalState("user1", DAY).getTone());
+        assertEquals("新", repository.getTankaHistory("user1").get(0).getLine1());
+
+        assertEquals(0, new LocalLayoutMigration(layout).migrate().getUsers());
+    }
+
+    @Test
+    void testMigration_KeepsShardCopyWrittenDuringMigration() throws Exception {
+        new LocalFileDataRepository(directory.toString()).saveUserProfile(profile("user1", "old"));
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(directory.toString(), 2, List.of());
+
+        // A copy reaching the shard without the original being removed, as between the check and the move
+        Path legacyProfile = layout.legacyUsersDirectory().resolve("user1").resolve("profile.json");
+        Path shardProfile = layout.userDirectory("user1").resolve("profile.json");
+        Files.createDirectories(shardProfile.getParent());
+        Files.write(shardProfile, RecordCodec.JSON.encode(profile("user1", "new")));
+        assertTrue(Files.exists(legacyProfile));
+
+        LocalLayoutMigration.Result result = new LocalLayoutMigration(layout).migrate();
+
+        assertEquals(0, result.getFilesMoved());
+        assertEquals(1, result.getFilesSuperseded());
+        assertEquals("new", new LocalFileDataRepository(layout, RecordCodec.JSON).getUserProfile("user1").getUsername());
+    }
+
+    @Test
+    void testMigration_ConcurrentWritesAreNotLost() throws Exception {
+        int users = 16;
+        LocalFileDataRepository legacy = new LocalFileDataRepository(directory.toString());
+        for (int i = 0; i < users; i++) {
+            for (int day = 0; day < 30; day++) {
+                legacy.saveHealthData("user" + i, entry("user" + i, DAY.minusDays(day), 8));
+            }
+        }
+
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(directory.toString(), 4, List.of());
+        LocalFileDataRepository repository = new LocalFileDataRepository(layout, RecordCodec.JSON);
+        ExecutorService executor = Executors.newFixedThreadPool(users);
+        CountDownLatch started = new CountDownLatch(users);
+        AtomicBoolean migrated = new AtomicBoolean();
+
+        // Each user's day is read and appended to, over and over, while the migration moves it underneath
+        List<CompletableFuture<Integer>> clients = IntStream.range(0, users)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                    String userId = "user" + i;
+                    int appended = 0;
+                    started.countDown();
+                    while (!migrated.get()) {
+                        assertEquals(1 + appended, repository.getHealthDataByDateRange(userId, DAY, DAY).size(), userId);
+                        repository.saveHealthData(userId, entry(userId, DAY, 20));
+                        appended++;
+                    }
+                    return appended;
+                }, executor))
+                .collect(Collectors.toList());
+        started.await();
+        LocalLayoutMigration.Result result = new LocalLayoutMigration(layout).migrate();
+        migrated.set(true);
+
+        assertEquals(users, result.getUsers());
+        for (int i = 0; i < users; i++) {
+            int appended = clients.get(i).get();
+            assertEquals(30 + appended, repository.getHealthDataByDateRange("user" + i, DAY.minusDays(29), DAY).size());
+        }
+        assertFalse(Files.exists(layout.legacyUsersDirectory().resolve("user0")));
+        executor.shutdown();
+    }
+
+    @Test
+    void testMigration_WaitsForUserOperationInFlight() throws Exception {
+        new LocalFileDataRepository(directory.toString()).saveUserProfile(profile("user1", "alice"));
+        LocalStorageLayout layout = LocalStorageLayout.partitioned(directory.toString(), 2, List.of());
+        Path legacyProfile = layout.legacyUsersDirectory().resolve("user1").resolve("profile.json");
+
+        // A repository read of the user holds the lock: the user is not moved underneath it
+        Lock read = layout.lockOf("user1").readLock();
+        CompletableFuture<LocalLayoutMigration.Result> migration;
+        read.lock();
+        try {
+            migration = CompletableFuture.supplyAsync(new LocalLayoutMigration(layout)::migrate);
+            Thread.sleep(200);
+            assertFalse(migration.isDone());
+            assertTrue(Files.exists(legacyProfile));
+        } finally {
+            read.unlock();
+        }
+
+        assertEquals(1, migration.get().getFilesMoved());
+        assertFalse(Files.exists(legacyProfile));
+    }
+
+    @Test
+    void testPartitionedLayout_RejectsChangedShardCount() {
+        LocalStorageLayout.partitioned(directory.toString(), 4, List.of());
+
+        assertThrows(IllegalStateException.class,
+                () -> LocalStorageLayout.partitioned(directory.toString(), 8, List.of()));
+    }
+
+    private static HealthData entry(String userId, LocalDate date, int hour) {
+        return new HealthData(userId, date, date.atTime(hour, 0), 65.0, null, List.of("パン"), List.of(), null);
+    }
+
+    private static UserProfile profile(String userId, String username) {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setUsername(username);
+        return profile;
+    }
+}
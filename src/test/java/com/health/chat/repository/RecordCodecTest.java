@@ -0,0 +1,77 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.HealthData;
+import com.health.chat.model.UserProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDecode_DetectsFormatWrittenByAnyCodec() throws Exception {
+        HealthData entry = new HealthData("user1", LocalDate.of(2025, 10, 1), LocalDateTime.of(2025, 10, 1, 8, 0),
+                65.0, 20.0, List.of("ご飯"), List.of(), "朝食");
+
+        for (RecordCodec writer : RecordCodec.all()) {
+            byte[] bytes = writer.encode(List.of(entry));
+            for (RecordCodec reader : RecordCodec.all()) {
+                HealthData[] decoded = reader.decode(bytes, HealthData[].class);
+                assertEquals(1, decoded.length, writer + " read by " + reader);
+                assertEquals(65.0, decoded[0].getWeight());
+                assertEquals(entry.getTimestamp(), decoded[0].getTimestamp());
+                assertEquals("ご飯", decoded[0].getFoodItems().get(0));
+            }
+        }
+        assertTrue(RecordCodec.SMILE.encode(entry).length < RecordCodec.JSON.encode(entry).length);
+    }
+
+    @Test
+    void testForName_RejectsUnknownCodec() {
+        assertSame(RecordCodec.JSON, RecordCodec.forName(null));
+        assertSame(RecordCodec.SMILE_GZIP, RecordCodec.forName("SMILE-GZIP"));
+        assertThrows(IllegalArgumentException.class, () -> RecordCodec.forName("xml"));
+    }
+
+    @Test
+    void testLocalFile_ReadsPrettyJsonAndRewritesWithConfiguredCodec() throws Exception {
+        Path healthDir = directory.resolve("users/user1/health/2025/10");
+        Files.createDirectories(healthDir);
+        Files.writeString(healthDir.resolve("2025-10-01.json"), "[ {\n"
+                + "  \"userId\" : \"user1\",\n"
+                + "  \"date\" : [ 2025, 10, 1 ],\n"
+                + "  \"timestamp\" : [ 2025, 10, 1, 8, 0 ],\n"
+                + "  \"weight\" : 65.0\n"
+                + "} ]", StandardCharsets.UTF_8);
+
+        LocalFileDataRepository repository = new LocalFileDataRepository(directory.toString(), RecordCodec.SMILE_GZIP);
+        LocalDate date = LocalDate.of(2025, 10, 1);
+        assertEquals(1, repository.getHealthDataByDateRange("user1", date, date).size());
+
+        repository.saveHealthData("user1", new HealthData("user1", date, LocalDateTime.of(2025, 10, 1, 20, 0),
+                64.5, null, null, null, null));
+
+        assertFalse(Files.exists(healthDir.resolve("2025-10-01.json")));
+        assertTrue(Files.exists(healthDir.resolve("2025-10-01.smile.gz")));
+        List<HealthData> day = repository.getHealthDataByDateRange("user1", date, date);
+        assertEquals(2, day.size());
+        assertEquals(64.5, day.get(1).getWeight());
+
+        UserProfile profile = new UserProfile();
+        profile.setUserId("user1");
+        profile.setUsername("hanako");
+        repository.saveUserProfile(profile);
+        assertEquals("user1", repository.getUserProfileByUsername("hanako").getUserId());
+    }
+}
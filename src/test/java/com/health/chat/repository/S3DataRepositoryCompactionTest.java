@@ -0,0 +1,88 @@
+package com.health.chat.repository;
+
+import com.health.chat.model.HealthData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3DataRepositoryCompactionTest {
+
+    private static final String USER = "user_s3";
+
+    private StubS3Client s3;
+    private S3DataRepository repository;
+    private final YearMonth closed = YearMonth.now().minusMonths(2);
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        s3 = new StubS3Client();
+        repository = new S3DataRepository(s3, "bucket");
+    }
+
+    @Test
+    void testCompactHealthMonth_MergesAndDeletesMessageObjects() {
+        for (int day = 1; day <= 5; day++) {
+            repository.saveHealthData(USER, entry(closed.atDay(day), 60.0 + day));
+        }
+        repository.saveHealthData(USER, entry(today, 70.0));
+
+        assertEquals(5, repository.compactHealthMonth(USER, closed));
+
+        List<String> monthKeys = keysUnder("users/" + USER + "/health/" + closed.getYear());
+        assertEquals(List.of(String.format("users/%s/health/%d/%02d/%s", USER, closed.getYear(),
+                closed.getMonthValue(), S3DataRepository.COMPACTED_HEALTH_OBJECT)), monthKeys.stream()
+                .filter(k -> k.contains(String.format("/%02d/", closed.getMonthValue()))).collect(Collectors.toList()));
+
+        List<HealthData> range = repository.getHealthDataByDateRange(USER, closed.atDay(2), today);
+        assertEquals(5, range.size());
+        assertEquals(62.0, range.get(0).getWeight());
+        assertEquals(70.0, range.get(4).getWeight());
+    }
+
+    @Test
+    void testRead_MergesLateWritesAndSkipsLeftoverOriginals() {
+        HealthData first = entry(closed.atDay(3), 61.0);
+        repository.saveHealthData(USER, first);
+        repository.compactHealthMonth(USER, closed);
+
+        // A message imported after compaction, and an original left behind by an interrupted run
+        repository.saveHealthData(USER, entry(closed.atDay(4), 62.0));
+        repository.saveHealthData(USER, first);
+
+        List<HealthData> month = repository.getHealthDataByDateRange(USER, closed.atDay(1), closed.atEndOfMonth());
+        assertEquals(2, month.size());
+
+        assertEquals(1, repository.compactClosedHealthMonths(USER));
+        assertEquals(1, keysUnder("users/" + USER + "/health/").size());
+        assertEquals(2, repository.getHealthDataByDateRange(USER, closed.atDay(1), closed.atEndOfMonth()).size());
+    }
+
+    @Test
+    void testCompactHealthMonth_RejectsOpenMonth() {
+        assertThrows(IllegalArgumentException.class, () -> repository.compactHealthMonth(USER, YearMonth.now()));
+    }
+
+    @Test
+    void testListUserIds_GroupsByUserPrefix() {
+        repository.saveHealthData("user_a", entry(today, 60.0));
+        repository.saveHealthData("user_a", entry(today.minusDays(1), 60.0));
+        repository.saveHealthData("user_b", entry(today, 60.0));
+
+        assertEquals(List.of("user_a", "user_b"), repository.listUserIds());
+    }
+
+    private List<String> keysUnder(String prefix) {
+        return s3.keys().stream().filter(k -> k.startsWith(prefix)).collect(Collectors.toList());
+    }
+
+    private HealthData entry(LocalDate date, double weight) {
+        return new HealthData(USER, date, date.atTime(12, 0), weight, null, null, null, null);
+    }
+}
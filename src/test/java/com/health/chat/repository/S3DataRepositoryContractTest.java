@@ -0,0 +1,11 @@
+package com.health.chat.repository;
+
+import java.nio.file.Path;
+
+class S3DataRepositoryContractTest extends DataRepositoryContractTest {
+
+    @Override
+    protected DataRepository createRepository(Path directory) {
+        return new S3DataRepository(new StubS3Client(), "test-bucket", RecordCodec.JSON);
+    }
+}
@@ -0,0 +1,240 @@
+package com.health.chat.repository;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.DeletedObject;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for the S3 calls S3DataRepository makes: PUT, GET, LIST and
+ * multi-object DELETE.
+ *
+ * <p>Objects live in a sorted map so listings come back in key order, at most
+ * 1000 keys per page like the real service, with delimiter grouping into common prefixes. Every request can be delayed by a
+ * fixed latency plus random jitter and can fail with a 503 at a given rate, which
+ * drives the repository's retry path.
+ */
+public class StubS3Client implements S3Client {
+
+    private static final int MAX_KEYS = 1000;
+
+    private final ConcurrentSkipListMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final LongAdder putRequests = new LongAdder();
+    private final LongAdder getRequests = new LongAdder();
+    private final LongAdder listRequests = new LongAdder();
+    private final LongAdder deleteRequests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double errorRate;
+
+    /**
+     * Sets the simulated round trip for every request.
+     *
+     * @param latencyMillis fixed delay per request
+     * @param jitterMillis upper bound of an additional uniformly random delay
+     */
+    public void setLatency(double latencyMillis, double jitterMillis) {
+        this.latencyNanos = (long) (latencyMillis * 1_000_000);
+        this.jitterNanos = (long) (jitterMillis * 1_000_000);
+    }
+
+    /**
+     * Sets the fraction of requests, between 0 and 1, that fail with a 503 Slow Down.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    public long putRequests() {
+        return putRequests.sum();
+    }
+
+    public long getRequests() {
+        return getRequests.sum();
+    }
+
+    public long listRequests() {
+        return listRequests.sum();
+    }
+
+    public long deleteRequests() {
+        return deleteRequests.sum();
+    }
+
+    public Set<String> keys() {
+        return objects.keySet();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    public void resetCounters() {
+        putRequests.reset();
+        getRequests.reset();
+        listRequests.reset();
+        deleteRequests.reset();
+        injectedErrors.reset();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        putRequests.increment();
+        simulateRoundTrip();
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            objects.put(request.key(), in.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+        getRequests.increment();
+        simulateRoundTrip();
+        byte[] content = objects.get(request.key());
+        if (content == null) {
+            throw NoSuchKeyException.builder()
+                    .statusCode(404)
+                    .message("The specified key does not exist.")
+                    .build();
+        }
+        return ResponseBytes.fromByteArray(
+                GetObjectResponse.builder().contentLength((long) content.length).build(), content);
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        listRequests.increment();
+        simulateRoundTrip();
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        String delimiter = request.delimiter();
+        String after = request.continuationToken() != null ? request.continuationToken()
+                : request.startAfter() != null ? request.startAfter() : "";
+        int maxKeys = request.maxKeys() != null ? Math.min(request.maxKeys(), MAX_KEYS) : MAX_KEYS;
+
+        List<S3Object> contents = new ArrayList<>();
+        Set<String> commonPrefixes = new LinkedHashSet<>();
+        String lastKey = null;
+        boolean truncated = false;
+        String from = prefix.compareTo(after) > 0 ? prefix : after;
+        for (Map.Entry<String, byte[]> entry : objects.tailMap(from, true).entrySet()) {
+            String key = entry.getKey();
+            if (key.equals(after)) {
+                continue;
+            }
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            String group = null;
+            if (delimiter != null && !delimiter.isEmpty()) {
+                int end = key.indexOf(delimiter, prefix.length());
+                if (end >= 0) {
+                    group = key.substring(0, end + delimiter.length());
+                    if (commonPrefixes.contains(group)) {
+                        continue;
+                    }
+                    // A group already returned on an earlier page
+                    if (after.startsWith(group)) {
+                        continue;
+                    }
+                }
+            }
+            if (contents.size() + commonPrefixes.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (group != null) {
+                commonPrefixes.add(group);
+            } else {
+                contents.add(S3Object.builder().key(key).size((long) entry.getValue().length).build());
+            }
+            lastKey = key;
+        }
+
+        return ListObjectsV2Response.builder()
+                .prefix(prefix)
+                .contents(contents)
+                .commonPrefixes(commonPrefixes.stream().map(p -> CommonPrefix.builder().prefix(p).build()).toList())
+                .keyCount(contents.size() + commonPrefixes.size())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? lastKey : null)
+                .build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+        deleteRequests.increment();
+        simulateRoundTrip();
+        List<DeletedObject> deleted = new ArrayList<>();
+        for (ObjectIdentifier identifier : request.delete().objects()) {
+            objects.remove(identifier.key());
+            deleted.add(DeletedObject.builder().key(identifier.key()).build());
+        }
+        return DeleteObjectsResponse.builder().deleted(deleted).build();
+    }
+
+    private void simulateRoundTrip() {
+        long delay = latencyNanos;
+        if (jitterNanos > 0) {
+            delay += ThreadLocalRandom.current().nextLong(jitterNanos);
+        }
+        if (delay > 0) {
+            long deadline = System.nanoTime() + delay;
+            long remaining = delay;
+            while (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            injectedErrors.increment();
+            throw S3Exception.builder()
+                    .statusCode(503)
+                    .message("Slow Down (injected by StubS3Client)")
+                    .build();
+        }
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
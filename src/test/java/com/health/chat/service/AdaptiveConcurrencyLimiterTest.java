@@ -0,0 +1,120 @@
+package com.health.chat.service;
+
+import com.health.chat.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MILLIS = Duration.ofMillis(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testTryAcquire_DegradesBeforeRejecting() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 4, 0.5);
+
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        assertEquals(AdaptiveConcurrencyLimiter.Mode.FULL, permits.get(1).mode());
+        assertEquals(AdaptiveConcurrencyLimiter.Mode.DEGRADED, permits.get(2).mode());
+        assertNull(limiter.tryAcquire());
+        assertEquals(1.0, registry.get(PipelineMetrics.CONCURRENCY_ADMISSIONS).tag("mode", "rejected").counter().count());
+        assertEquals(4.0, registry.get(PipelineMetrics.CONCURRENCY_IN_FLIGHT).gauge().value());
+
+        // A failure is taken as congestion; releasing twice counts once
+        permits.get(0).release(false);
+        permits.get(0).release(false);
+        assertEquals(3, limiter.getLimit());
+        assertEquals(3, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_RaisesLimitUnderLoadAndCutsWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 2, 8, 1.0);
+
+        for (int round = 0; round < 20; round++) {
+            runConcurrently(limiter, limiter.getLimit(), 100);
+        }
+        assertEquals(8, limiter.getLimit());
+        assertEquals(1, limiter.retryAfterSeconds());
+
+        for (int round = 0; round < 20; round++) {
+            runConcurrently(limiter, 1, 1000);
+        }
+        assertEquals(2, limiter.getLimit());
+        assertEquals(2.0, registry.get(PipelineMetrics.CONCURRENCY_LIMIT).gauge().value());
+    }
+
+    @Test
+    void testRelease_OnlyTimeoutsAndDependencyFailuresCutTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 4, 1.0);
+        runConcurrently(limiter, 1, 100);
+
+        // Invalid input fails fast; it neither cuts the limit nor lowers the no-load latency
+        limiter.tryAcquire().release(new IllegalArgumentException("Message exceeds maximum length"));
+        limiter.tryAcquire().release(new IllegalStateException("bug"));
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+        runConcurrently(limiter, 1, 150);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire().release(new RuntimeException(new TimeoutException("advice")));
+        assertEquals(3, limiter.getLimit());
+        assertTrue(AdaptiveConcurrencyLimiter.isCongestion(new UncheckedIOException(new SocketTimeoutException("s3"))));
+        assertTrue(AdaptiveConcurrencyLimiter.isCongestion(new MCPException("down")));
+        assertFalse(AdaptiveConcurrencyLimiter.isCongestion(new IllegalArgumentException()));
+    }
+
+    @Test
+    void testUntimed_ClientWritesAreNotPipelineLatency() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 4, 1.0);
+        runConcurrently(limiter, 1, 100);
+
+        // A slow client blocks each write for a second; the pipeline itself still takes 100ms
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        clock.addAndGet(50 * MILLIS);
+        permit.untimed(() -> clock.addAndGet(1000 * MILLIS));
+        clock.addAndGet(50 * MILLIS);
+        permit.untimed(() -> clock.addAndGet(1000 * MILLIS));
+        permit.release(true);
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1, limiter.retryAfterSeconds());
+    }
+
+    @Test
+    void testUnlimited_AdmitsEveryRequestInFull() {
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.unlimited();
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(AdaptiveConcurrencyLimiter.Mode.FULL, limiter.tryAcquire().mode());
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, double degradeAt) {
+        return new AdaptiveConcurrencyLimiter(initial, min, max, degradeAt, 2.0, new PipelineMetrics(registry), clock::get);
+    }
+
+    private void runConcurrently(AdaptiveConcurrencyLimiter limiter, int requests, long latencyMillis) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        clock.addAndGet(latencyMillis * MILLIS);
+        permits.forEach(permit -> permit.release(true));
+    }
+}
@@ -0,0 +1,140 @@
+package com.health.chat.service;
+
+import com.health.chat.model.BulkImportResult;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.NutritionInfo;
+import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.S3DataRepository;
+import com.health.chat.repository.StubS3Client;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BulkIngestionServiceTest {
+
+    private DataRepository mockRepository;
+    private BulkIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        mockRepository = mock(DataRepository.class);
+        service = new BulkIngestionService(new MessageParser(),
+                new BasicNutritionEstimator(mockRepository), mockRepository);
+    }
+
+    @Test
+    void testIngest_GroupsEntriesPerDay() {
+        String logs = "2025-10-01 体重65kg 朝食にパンを食べた\n"
+                + "2025-10-01 夕食に魚を食べた\n"
+                + "\n"
+                + "2025-10-02 体脂肪率18% ジムで運動した\n";
+
+        BulkImportResult result = service.ingest("user123", logs);
+
+        assertEquals(3, result.getImportedCount());
+        assertEquals(0, result.getRejectedCount());
+        assertEquals(2, result.getDaysWritten());
+        assertTrue(result.getErrors().isEmpty());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<HealthData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockRepository).saveHealthDataBatch(eq("user123"), eq(LocalDate.of(2025, 10, 1)), captor.capture());
+        List<HealthData> firstDay = captor.getValue();
+        assertEquals(2, firstDay.size());
+        assertEquals(65.0, firstDay.get(0).getWeight());
+        assertEquals(LocalDate.of(2025, 10, 1), firstDay.get(1).getDate());
+        assertTrue(firstDay.get(0).getTimestamp().isBefore(firstDay.get(1).getTimestamp()));
+
+        verify(mockRepository).saveHealthDataBatch(eq("user123"), eq(LocalDate.of(2025, 10, 2)), anyList());
+        verify(mockRepository, never()).saveHealthData(any(), any());
+    }
+
+    @Test
+    void testIngest_SavesNutritionOnlyForDaysWithFood() {
+        String logs = "2025-10-01 朝食にパンを食べた\n"
+                + "2025-10-02 ジムで運動した\n";
+
+        service.ingest("user123", logs);
+
+        verify(mockRepository).saveNutritionInfo(eq("user123"), eq(LocalDate.of(2025, 10, 1)), any(NutritionInfo.class));
+        verify(mockRepository, never()).saveNutritionInfo(eq("user123"), eq(LocalDate.of(2025, 10, 2)), any());
+    }
+
+    @Test
+    void testIngest_RejectsInvalidLines() {
+        String logs = "2025-10-01 体重65kg\n"
+                + "yesterday 体重66kg\n"
+                + "2025-13-01 体重66kg\n"
+                + "2025-10-02\n"
+                + "2025-10-03 体重500kg\n";
+
+        BulkImportResult result = service.ingest("user123", logs);
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(4, result.getRejectedCount());
+        assertEquals(4, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("line 2:"));
+        assertTrue(result.getErrors().get(3).startsWith("line 5:"));
+    }
+
+    @Test
+    void testIngest_ReportsFailedDayAndContinues() {
+        doThrow(new RuntimeException("disk full"))
+                .when(mockRepository).saveHealthDataBatch(eq("user123"), eq(LocalDate.of(2025, 10, 1)), anyList());
+
+        BulkImportResult result = service.ingest("user123", "2025-10-01 体重65kg\n2025-10-02 体重64kg");
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getRejectedCount());
+        assertEquals(1, result.getDaysWritten());
+        assertEquals(1, result.getErrors().size());
+    }
+
+    @Test
+    void testIngest_RepeatedImportsOfADayKeepEveryEntryOnS3() {
+        S3DataRepository repository = new S3DataRepository(new StubS3Client(), "bucket");
+        // A stopped clock: the timestamps must differ even when imports share a clock tick
+        Clock clock = Clock.fixed(Instant.parse("2026-01-10T03:00:00Z"), ZoneId.of("Asia/Tokyo"));
+        BulkIngestionService s3Service = new BulkIngestionService(new MessageParser(),
+                new BasicNutritionEstimator(repository), repository, clock);
+        LocalDate day = LocalDate.of(2025, 10, 1);
+
+        s3Service.ingest("user123", "2025-10-01 体重65kg\n2025-10-01 夕食に魚を食べた");
+        s3Service.ingest("user123", "2025-10-01 体重64kg");
+        assertEquals(3, repository.getHealthDataByDateRange("user123", day, day).size());
+
+        // An import into a compacted month is neither hidden nor dropped by the next compaction
+        repository.compactHealthMonth("user123", YearMonth.from(day));
+        s3Service.ingest("user123", "2025-10-01 体重63kg");
+        assertEquals(4, repository.getHealthDataByDateRange("user123", day, day).size());
+        assertEquals(1, repository.compactHealthMonth("user123", YearMonth.from(day)));
+        List<HealthData> entries = repository.getHealthDataByDateRange("user123", day, day);
+        assertEquals(List.of(65.0, 64.0, 63.0), entries.stream()
+                .filter(entry -> entry.getWeight() != null).map(HealthData::getWeight).toList());
+        assertEquals(4, entries.size());
+    }
+
+    @Test
+    void testIngest_TooManyEntries() {
+        String logs = "2025-10-01 体重65kg\n".repeat(BulkIngestionService.MAX_ENTRIES + 1);
+        assertThrows(IllegalArgumentException.class, () -> service.ingest("user123", logs));
+    }
+
+    @Test
+    void testIngest_EmptyInput() {
+        assertThrows(IllegalArgumentException.class, () -> service.ingest("user123", "  \n "));
+    }
+}
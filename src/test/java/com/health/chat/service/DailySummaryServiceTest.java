@@ -0,0 +1,112 @@
+package com.health.chat.service;
+
+import com.health.chat.model.DailySummary;
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.LocalFileDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailySummaryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 9, 15);
+
+    @TempDir
+    Path directory;
+
+    private LocalFileDataRepository repository;
+    private DailySummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LocalFileDataRepository(directory.toString());
+        service = new DailySummaryService(repository, new BasicNutritionEstimator(repository),
+                new SimpleTankaGenerator(), 4, 2);
+    }
+
+    @Test
+    void testPrecompute_SummarizesActiveUsersOnly() {
+        repository.saveHealthData("user1", entry("user1", 8, 65.0, List.of("パン")));
+        repository.saveHealthData("user1", entry("user1", 19, null, List.of("サラダ")));
+        repository.saveMentalState("user1", DAY, new MentalState(EmotionalTone.POSITIVE, 0.8, List.of()));
+        repository.saveTanka("user1", new TankaPoem("既存", "既存", "既存", "既存", "既存", DAY));
+        repository.saveHealthData("user2", entry("user2", 8, 70.0, List.of()));
+        repository.saveHealthData("user3", new HealthData("user3", DAY.minusDays(1), DAY.minusDays(1).atTime(8, 0),
+                60.0, null, List.of(), List.of(), null));
+
+        DailySummaryService.Result result = service.precompute(List.of("user1", "user2", "user3"), DAY);
+
+        assertEquals(3, result.getUsers());
+        assertEquals(2, result.getSummarized());
+        assertEquals(0, result.getFailed());
+
+        DailySummary summary = repository.getDailySummary("user1", DAY);
+        assertNotNull(summary);
+        assertEquals(2, summary.getHealthData().size());
+        assertNotNull(summary.getNutrition());
+        assertEquals(EmotionalTone.POSITIVE, summary.getMentalState().getTone());
+        assertEquals("既存", summary.getTanka().getLine1());
+        assertNotNull(repository.getDailySummary("user2", DAY));
+        assertNull(repository.getDailySummary("user3", DAY));
+    }
+
+    @Test
+    void testPrecompute_GeneratesMissingTanka() {
+        repository.saveHealthData("user1", entry("user1", 8, 65.0, List.of("パン")));
+
+        service.precompute(List.of("user1"), DAY);
+
+        List<TankaPoem> tankas = repository.getTankasByDateRange("user1", DAY, DAY);
+        assertEquals(1, tankas.size());
+        assertEquals(tankas.get(0).getLine1(), repository.getDailySummary("user1", DAY).getTanka().getLine1());
+    }
+
+    @Test
+    void testPrecompute_RejectsOpenDay() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.precompute(List.of("user1"), LocalDate.now(DailySummary.ZONE)));
+    }
+
+    @Test
+    void testPrecompute_DropsSummaryRacedByLateWrite() {
+        // The late entry lands after the day was read; its invalidation runs before the summary is saved
+        LocalFileDataRepository racing = new LocalFileDataRepository(directory.toString()) {
+            private boolean raced;
+
+            @Override
+            public void saveDailySummary(String userId, DailySummary summary) {
+                if (!raced) {
+                    raced = true;
+                    saveHealthData(userId, entry(userId, 23, 64.0, List.of("ラーメン")));
+                }
+                super.saveDailySummary(userId, summary);
+            }
+        };
+        racing.saveHealthData("user1", entry("user1", 8, 65.0, List.of("パン")));
+        DailySummaryService racingService = new DailySummaryService(racing, new BasicNutritionEstimator(racing),
+                new SimpleTankaGenerator(), 1, 1);
+
+        DailySummaryService.Result result = racingService.precompute(List.of("user1"), DAY);
+
+        assertEquals(0, result.getSummarized());
+        assertEquals(0, result.getFailed());
+        assertNull(racing.getDailySummary("user1", DAY));
+
+        // The next run sees both entries and keeps its summary
+        assertEquals(1, racingService.precompute(List.of("user1"), DAY).getSummarized());
+        assertEquals(2, racing.getDailySummary("user1", DAY).getHealthData().size());
+    }
+
+    private static HealthData entry(String userId, int hour, Double weight, List<String> food) {
+        return new HealthData(userId, DAY, DAY.atTime(hour, 0), weight, null, food, List.of(), null);
+    }
+}
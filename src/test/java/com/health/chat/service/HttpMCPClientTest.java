@@ -0,0 +1,85 @@
+package com.health.chat.service;
+
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.model.ResearchReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpMCPClientTest {
+
+    private McpStandInServer server;
+    private HttpMCPClient client;
+    private SimpleMeterRegistry registry;
+
+    private void start(boolean batchSupported) throws Exception {
+        server = new McpStandInServer(batchSupported);
+        registry = new SimpleMeterRegistry();
+        client = new HttpMCPClient(server.endpoint(), 5, new PipelineMetrics(registry),
+                new HttpMCPClient.PoolSettings(4, 4, Duration.ofSeconds(30), Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    void testFetchAllResearch_SendsOneBatchRequest() throws Exception {
+        start(true);
+
+        List<ResearchReference> references = client.fetchAllResearch("体重");
+
+        assertEquals(List.of("nutrition", "sleep", "exercise"),
+                references.stream().map(ResearchReference::getTopic).collect(Collectors.toList()));
+        assertEquals("nutrition: 体重", references.get(0).getSummary());
+        assertEquals(1, server.requests());
+        assertEquals(0, client.getPoolStats().getLeased());
+        assertEquals(1.0, registry.get(PipelineMetrics.HTTP_POOL_CONNECTIONS)
+                .tags("pool", "mcp", "state", "available").gauge().value());
+    }
+
+    @Test
+    void testFetchAllResearch_ReportsPerTopicErrorsOfBatch() throws Exception {
+        start(true);
+        server.failTopic("sleep");
+
+        List<ResearchReference> references = client.fetchAllResearch("睡眠");
+
+        assertEquals(List.of("nutrition", "exercise"),
+                references.stream().map(ResearchReference::getTopic).collect(Collectors.toList()));
+        assertEquals(1, server.requests());
+    }
+
+    @Test
+    void testFetchAllResearch_FallsBackWithoutBatchSupport() throws Exception {
+        start(false);
+
+        assertEquals(3, client.fetchAllResearch("体重").size());
+        assertEquals(4, server.requests(), "rejected batch plus one request per topic");
+
+        assertEquals(3, client.fetchAllResearch("体重").size());
+        assertEquals(1, server.batchRequests(), "the missing capability is remembered");
+        assertEquals(7, server.requests());
+        assertEquals(1, server.connections(), "every request reuses one keep-alive connection");
+    }
+
+    @Test
+    void testClientError_ReleasesConnectionToPool() throws Exception {
+        start(false);
+        server.respondWith(400);
+
+        assertThrows(MCPException.class, () -> client.fetchNutritionResearch("体重"));
+        assertThrows(MCPException.class, () -> client.fetchSleepResearch("睡眠"));
+
+        assertEquals(0, client.getPoolStats().getLeased());
+        assertEquals(1, server.connections());
+    }
+}
@@ -0,0 +1,126 @@
+package com.health.chat.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.health.chat.json.JsonMappers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local MCP server for tests. It answers per-topic requests and, unless created
+ * without batch support, batch requests; a server without batch support rejects
+ * them with 400 like one that requires a topic.
+ */
+class McpStandInServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final boolean batchSupported;
+    private final Set<String> failingTopics = ConcurrentHashMap.newKeySet();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger batchRequests = new AtomicInteger();
+    private volatile int forcedStatus;
+
+    McpStandInServer(boolean batchSupported) throws IOException {
+        this.batchSupported = batchSupported;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/mcp", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/mcp";
+    }
+
+    /** Makes a topic fail: status 500 on its own, an error entry in a batch. */
+    void failTopic(String topic) {
+        failingTopics.add(topic);
+    }
+
+    /** Answers every request with this status and an empty body; 0 restores normal answers. */
+    void respondWith(int status) {
+        forcedStatus = status;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int batchRequests() {
+        return batchRequests.get();
+    }
+
+    /** Distinct client connections seen. */
+    int connections() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        connections.add(exchange.getRemoteAddress());
+        JsonNode request = JsonMappers.JSON.mapper().readTree(exchange.getRequestBody());
+        if (forcedStatus != 0) {
+            send(exchange, forcedStatus, null);
+            return;
+        }
+
+        if (request.has("batch")) {
+            batchRequests.incrementAndGet();
+            if (!batchSupported) {
+                send(exchange, 400, error("topic is required"));
+                return;
+            }
+            ObjectNode response = JsonMappers.JSON.mapper().createObjectNode();
+            ArrayNode batch = response.putArray("batch");
+            for (JsonNode entry : request.get("batch")) {
+                String topic = entry.get("topic").asText();
+                if (failingTopics.contains(topic)) {
+                    batch.addObject().put("topic", topic).put("error", "research index unavailable");
+                } else {
+                    batch.add(results(topic, entry.get("query").asText()).put("topic", topic));
+                }
+            }
+            send(exchange, 200, response);
+        } else if (!request.hasNonNull("topic")) {
+            send(exchange, 400, error("topic is required"));
+        } else if (failingTopics.contains(request.get("topic").asText())) {
+            send(exchange, 500, error("research index unavailable"));
+        } else {
+            send(exchange, 200, results(request.get("topic").asText(), request.get("query").asText()));
+        }
+    }
+
+    private static ObjectNode results(String topic, String query) {
+        ObjectNode node = JsonMappers.JSON.mapper().createObjectNode();
+        node.putArray("results").addObject()
+                .put("summary", topic + ": " + query)
+                .put("source", "stand-in");
+        return node;
+    }
+
+    private static ObjectNode error(String message) {
+        return JsonMappers.JSON.mapper().createObjectNode().put("error", message);
+    }
+
+    private static void send(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = body != null ? JsonMappers.JSON.mapper().writeValueAsBytes(body) : new byte[0];
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
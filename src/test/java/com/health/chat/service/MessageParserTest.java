@@ -66,6 +66,26 @@ class MessageParserTest {
         assertNull(weight);
     }
     
+    @Test
+    void testExtractWeight_UnitOnlyIsCaseInsensitive() {
+        assertEquals(72.3, parser.extractWeight("今朝は72.3KGでした"));
+    }
+    
+    @Test
+    void testExtractWeight_KeywordWithoutNumberFallsBackToUnit() {
+        assertEquals(64.0, parser.extractWeight("体重は測った、64 kg"));
+    }
+    
+    @Test
+    void testExtractWeight_TrailingDotIsNotFraction() {
+        assertEquals(65.0, parser.extractWeight("weight:65."));
+    }
+    
+    @Test
+    void testExtractWeight_NumberWithoutUnitOrKeyword() {
+        assertNull(parser.extractWeight("5km走った"));
+    }
+    
     @Test
     void testExtractBodyFat_JapaneseFormat() {
         String message = "体脂肪率15%";
@@ -87,6 +107,16 @@ class MessageParserTest {
         assertNull(bodyFat);
     }
     
+    @Test
+    void testExtractBodyFat_EnglishKeywordWithSpaces() {
+        assertEquals(18.5, parser.extractBodyFat("Body  Fat : 18.5"));
+    }
+    
+    @Test
+    void testExtractBodyFat_FullWidthPercent() {
+        assertEquals(20.0, parser.extractBodyFat("今日は20％"));
+    }
+    
     @Test
     void testExtractFoodItems_Found() {
         String message = "朝食にパンを食べた";
@@ -101,6 +131,15 @@ class MessageParserTest {
         assertTrue(foodItems.isEmpty());
     }
     
+    @Test
+    void testExtractFoodItems_KeywordOrderDecidesContext() {
+        // "朝食" ranks above "パン" even though "パン" appears first
+        String message = "パンとコーヒー、それから朝食の残りのサラダを食べ";
+        var foodItems = parser.extractFoodItems(message);
+        assertEquals(1, foodItems.size());
+        assertEquals(message.substring(2).trim(), foodItems.get(0));
+    }
+    
     @Test
     void testExtractExercises_Found() {
         String message = "今日は5km走った";
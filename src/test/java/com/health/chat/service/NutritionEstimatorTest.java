@@ -138,4 +138,21 @@ class NutritionEstimatorTest {
         assertEquals(0, result.getPfcBalance().getFatRatio());
         assertEquals(0, result.getPfcBalance().getCarbohydrateRatio());
     }
+    
+    @Test
+    void testCalculateDailyTotal_repeatedFoodsMatchPerEntryEstimates() {
+        LocalDate date = LocalDate.now();
+        List<HealthData> entries = Arrays.asList(
+            new HealthData("user1", date, date.atTime(8, 0), 65.0, null, Arrays.asList("ご飯", "卵"), Collections.emptyList(), null),
+            new HealthData("user1", date, date.atTime(12, 0), null, 20.0, Arrays.asList("謎の料理", "ご飯"), Arrays.asList("ジム"), null),
+            new HealthData("user1", date, date.atTime(19, 0), null, null, Collections.emptyList(), Collections.emptyList(), null)
+        );
+        
+        double expected = 0;
+        for (HealthData entry : entries) {
+            expected += estimator.estimateNutrition(entry.getFoodItems()).getCalories();
+        }
+        
+        assertEquals(expected, estimator.calculateDailyTotal(entries).getTotalCalories(), 1e-9);
+    }
 }
@@ -0,0 +1,68 @@
+package com.health.chat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testTryAcquire_AllowsBurstThenRefillsAtRate() {
+        RateLimiter limiter = new RateLimiter("chat", 60, 3, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("user1"));
+        assertEquals(0, limiter.tryAcquire("user1"));
+        assertEquals(0, limiter.tryAcquire("user1"));
+        long wait = limiter.tryAcquire("user1");
+        assertEquals(SECOND, wait);
+        assertEquals(1, RateLimiter.retryAfterSeconds(wait));
+
+        // Other users have their own bucket
+        assertEquals(0, limiter.tryAcquire("user2"));
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("user1"));
+        assertTrue(limiter.tryAcquire("user1") > 0);
+
+        // Idle time refills no more than the burst
+        clock.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("user1"));
+        }
+        assertTrue(limiter.tryAcquire("user1") > 0);
+    }
+
+    @Test
+    void testTryAcquire_SweepsRefilledBucketsPastMaxUsers() {
+        RateLimiter limiter = new RateLimiter("analysis", 60, 2, 3, clock::get);
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("user" + i);
+        }
+
+        clock.addAndGet(5 * SECOND);
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("user3");
+
+        // Only buckets that have not refilled survive the sweep
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("busy") > 0);
+    }
+
+    @Test
+    void testTryAcquire_ZeroRateDisablesLimit() {
+        RateLimiter limiter = new RateLimiter("chat", 0, 0, 1, clock::get);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.tryAcquire("user1"));
+        }
+        assertEquals(0, limiter.size());
+    }
+}
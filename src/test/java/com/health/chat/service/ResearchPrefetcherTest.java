@@ -0,0 +1,107 @@
+package com.health.chat.service;
+
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.model.ResearchReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResearchPrefetcherTest {
+
+    private static final long MINUTE = Duration.ofMinutes(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private volatile boolean mcpAvailable = true;
+    private SimpleMeterRegistry registry;
+    private ResearchPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        MCPClient mcp = new MCPClient() {
+            @Override
+            public List<ResearchReference> fetchNutritionResearch(String query) {
+                return List.of();
+            }
+
+            @Override
+            public List<ResearchReference> fetchSleepResearch(String query) {
+                return List.of();
+            }
+
+            @Override
+            public List<ResearchReference> fetchExerciseResearch(String query) {
+                return List.of();
+            }
+
+            @Override
+            public List<ResearchReference> fetchAllResearch(String query) throws MCPException {
+                fetches.incrementAndGet();
+                if (!mcpAvailable) {
+                    throw new MCPException("MCP server error (status 503) for topic: batch");
+                }
+                return List.of(new ResearchReference("nutrition", query + " #" + fetches.get(), "test"));
+            }
+        };
+        registry = new SimpleMeterRegistry();
+        prefetcher = new ResearchPrefetcher(mcp, MCPBasedHealthAdvisor.researchQueries(), Duration.ofMinutes(10),
+                Duration.ofMinutes(30), new PipelineMetrics(registry), clock::get);
+    }
+
+    @Test
+    void testResearchQueries_CoverEveryQueryTheAdvisorBuilds() {
+        List<String> queries = MCPBasedHealthAdvisor.researchQueries();
+
+        assertEquals(8, queries.size());
+        assertTrue(queries.contains("general health"));
+        assertTrue(queries.contains("weight management nutrition exercise physiology"));
+        assertTrue(queries.contains("nutrition exercise physiology"));
+    }
+
+    @Test
+    void testFetchAllResearch_ServedFromWarmEntriesWithoutCallingMcp() throws Exception {
+        assertThrows(MCPException.class, () -> prefetcher.fetchAllResearch("nutrition"), "not warmed yet");
+
+        assertEquals(0, prefetcher.refreshDue());
+        assertEquals(8, fetches.get());
+
+        assertTrue(prefetcher.fetchAllResearch("nutrition").get(0).getSummary().startsWith("nutrition #"));
+        prefetcher.fetchAllResearch("general health");
+        assertEquals(8, fetches.get());
+        assertEquals(2.0, registry.get(PipelineMetrics.RESEARCH_LOOKUPS).tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get(PipelineMetrics.RESEARCH_LOOKUPS).tag("result", "miss").counter().count());
+
+        // Entries not yet due are left alone
+        clock.addAndGet(5 * MINUTE);
+        prefetcher.refreshDue();
+        assertEquals(8, fetches.get());
+        assertEquals(300.0, registry.get(PipelineMetrics.RESEARCH_AGE).gauge().value(), 1e-6);
+    }
+
+    @Test
+    void testRefreshDue_KeepsPreviousResearchUntilStalenessLimit() throws Exception {
+        prefetcher.refreshDue();
+        String warm = prefetcher.fetchAllResearch("nutrition").get(0).getSummary();
+
+        mcpAvailable = false;
+        clock.addAndGet(11 * MINUTE);
+        assertEquals(8, prefetcher.refreshDue());
+        assertEquals(warm, prefetcher.fetchAllResearch("nutrition").get(0).getSummary());
+
+        clock.addAndGet(20 * MINUTE);
+        assertThrows(MCPException.class, () -> prefetcher.fetchAllResearch("nutrition"));
+        assertEquals(1.0, registry.get(PipelineMetrics.RESEARCH_LOOKUPS).tag("result", "stale").counter().count());
+
+        mcpAvailable = true;
+        assertEquals(0, prefetcher.refreshDue());
+        assertNotEquals(warm, prefetcher.fetchAllResearch("nutrition").get(0).getSummary());
+        assertEquals(0.0, registry.get(PipelineMetrics.RESEARCH_AGE).gauge().value());
+    }
+}
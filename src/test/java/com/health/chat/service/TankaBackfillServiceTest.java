@@ -0,0 +1,139 @@
+package com.health.chat.service;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.LocalFileDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TankaBackfillServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+    private static final LocalDate END = LocalDate.of(2025, 9, 30);
+
+    @TempDir
+    Path directory;
+
+    private LocalFileDataRepository repository;
+    private InMemoryCheckpointStore checkpointStore;
+
+    @BeforeEach
+    void setUp() {
+        repository = new LocalFileDataRepository(directory.toString());
+        checkpointStore = new InMemoryCheckpointStore();
+    }
+
+    @Test
+    void testBackfill_GeneratesOnlyMissingDays() {
+        LocalDate withTanka = START.plusDays(1);
+        for (int day = 0; day < 5; day++) {
+            LocalDate date = START.plusDays(day);
+            repository.saveHealthData("user1", entry("user1", date, 8, 65.0 - day * 0.1, List.of("パン")));
+            repository.saveHealthData("user1", entry("user1", date, 19, null, List.of("サラダ")));
+        }
+        repository.saveMentalState("user1", START, new MentalState(EmotionalTone.DISCOURAGED, 0.2, List.of()));
+        repository.saveTanka("user1", new TankaPoem("既存", "既存", "既存", "既存", "既存", withTanka));
+
+        TankaBackfillService service = new TankaBackfillService(repository, new SimpleTankaGenerator(), 4, 1000);
+        TankaBackfillService.Result result = service.backfill(List.of("user1"), START, END, checkpointStore, () -> false);
+
+        assertTrue(result.isComplete());
+        assertEquals(4, result.getTankasWritten());
+        List<TankaPoem> tankas = repository.getTankasByDateRange("user1", START, END);
+        assertEquals(5, tankas.size());
+        assertEquals("既存", tankas.stream().filter(t -> t.getDate().equals(withTanka)).findFirst().get().getLine1());
+        assertNull(checkpointStore.checkpoint);
+
+        // A second run finds nothing to do
+        assertEquals(0, service.backfill(List.of("user1"), START, END, checkpointStore, () -> false).getTankasWritten());
+    }
+
+    @Test
+    void testBackfill_ResumesFromCheckpoint() {
+        List<String> users = List.of("user1", "user2", "user3");
+        for (String userId : users) {
+            repository.saveHealthData(userId, entry(userId, START, 8, 60.0, List.of()));
+        }
+        TankaBackfillService service = new TankaBackfillService(repository, new SimpleTankaGenerator(), 1, 1000);
+
+        // Stop after the first user, as the Lambda does near its timeout
+        AtomicInteger started = new AtomicInteger();
+        TankaBackfillService.Result first = service.backfill(users, START, END, checkpointStore,
+                () -> started.getAndIncrement() >= 1);
+
+        assertFalse(first.isComplete());
+        assertEquals(1, first.getTankasWritten());
+        assertEquals(1, checkpointStore.checkpoint.getCompletedUsers().size());
+
+        TankaBackfillService.Result second = service.backfill(users, START, END, checkpointStore, () -> false);
+
+        assertTrue(second.isComplete());
+        assertEquals(1, second.getResumedUsers());
+        assertEquals(2, second.getTankasWritten());
+        assertNull(checkpointStore.checkpoint);
+        assertEquals(users, users.stream()
+                .filter(userId -> repository.getTankasByDateRange(userId, START, END).size() == 1)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testBackfill_UnfinishedRunKeepsItsWindow() {
+        // Stopped the night before, over a window one day earlier
+        LocalDate previousEnd = END.minusDays(1);
+        repository.saveHealthData("user1", entry("user1", START, 8, 60.0, List.of()));
+        repository.saveHealthData("user2", entry("user2", START, 8, 60.0, List.of()));
+        repository.saveHealthData("user2", entry("user2", END, 8, 60.0, List.of()));
+        checkpointStore.checkpoint = new TankaBackfillService.Checkpoint(START.minusDays(1), previousEnd,
+                new ArrayList<>(List.of("user1")));
+
+        TankaBackfillService service = new TankaBackfillService(repository, new SimpleTankaGenerator(), 2, 1000);
+        TankaBackfillService.Result resumed = service.backfill(List.of("user1", "user2"), START, END,
+                checkpointStore, () -> false);
+
+        assertEquals(previousEnd, resumed.getEnd());
+        assertEquals(1, resumed.getResumedUsers());
+        assertEquals(1, resumed.getTankasWritten());
+        assertNull(checkpointStore.checkpoint);
+
+        // The next run uses the requested window again
+        TankaBackfillService.Result next = service.backfill(List.of("user1", "user2"), START, END,
+                checkpointStore, () -> false);
+        assertEquals(END, next.getEnd());
+        assertEquals(2, next.getTankasWritten());
+    }
+
+    private static HealthData entry(String userId, LocalDate date, int hour, Double weight, List<String> food) {
+        return new HealthData(userId, date, date.atTime(hour, 0), weight, null, food, List.of(), null);
+    }
+
+    private static class InMemoryCheckpointStore implements TankaBackfillService.CheckpointStore {
+        TankaBackfillService.Checkpoint checkpoint;
+
+        @Override
+        public TankaBackfillService.Checkpoint load() {
+            return checkpoint;
+        }
+
+        @Override
+        public void save(TankaBackfillService.Checkpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public void clear() {
+            checkpoint = null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.health.chat.service;
+
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TankaGeneratorTest {
+
+    private SimpleTankaGenerator generator;
+    private HealthData data;
+    private MentalState mentalState;
+
+    @BeforeEach
+    void setUp() {
+        generator = new SimpleTankaGenerator();
+        data = new HealthData("user1", LocalDate.of(2025, 10, 1), LocalDateTime.of(2025, 10, 1, 8, 0),
+                65.0, 18.0, List.of("パン", "サラダ"), List.of("ジム"), "体重65kg 朝食にパンを食べた");
+        mentalState = new MentalState(EmotionalTone.NEUTRAL, 0.5, List.of());
+    }
+
+    @Test
+    void testCountMora() {
+        assertEquals(0, generator.countMora(null));
+        assertEquals(5, generator.countMora("すこやかに"));
+        assertEquals(6, generator.countMora("体重65キロ"));
+        assertEquals(4, generator.countMora("ラーメン"));
+    }
+
+    @Test
+    void testCandidates_EveryLineHasExactMora() {
+        int[] expected = {5, 7, 5, 7, 7};
+        for (TankaPoem poem : generator.generateCandidates(data, mentalState, 32, 42L)) {
+            String[] lines = {poem.getLine1(), poem.getLine2(), poem.getLine3(), poem.getLine4(), poem.getLine5()};
+            for (int i = 0; i < lines.length; i++) {
+                assertEquals(expected[i], generator.countMora(lines[i]), lines[i]);
+            }
+            assertEquals(data.getDate(), poem.getDate());
+        }
+    }
+
+    @Test
+    void testCandidates_SameSeedSameResult() {
+        List<TankaPoem> first = generator.generateCandidates(data, mentalState, 8, 7L);
+        List<TankaPoem> second = generator.generateCandidates(data, mentalState, 8, 7L);
+
+        assertEquals(8, first.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(text(first.get(i)), text(second.get(i)));
+        }
+    }
+
+    @Test
+    void testGenerate_UsesEventsOfTheDay() {
+        String text = text(generator.generate(data, mentalState));
+
+        // ジムをした is the only 5 mora event; four 7 mora candidates compete for three lines
+        assertTrue(text.contains("ジムをした"), text);
+        long placed = List.of("体重65キロ", "パンを食べた", "穏やかな日", "日々の記録").stream()
+                .filter(text::contains)
+                .count();
+        assertEquals(3, placed, text);
+    }
+
+    @Test
+    void testGenerate_WithoutEventsFallsBackToPhraseBank() {
+        HealthData empty = new HealthData();
+        empty.setDate(LocalDate.of(2025, 10, 1));
+
+        TankaPoem poem = generator.generate(empty, null);
+
+        assertEquals(5, generator.countMora(poem.getLine1()));
+        assertEquals(7, generator.countMora(poem.getLine5()));
+        assertNotEquals(poem.getLine2(), poem.getLine4());
+    }
+
+    private static String text(TankaPoem poem) {
+        return String.join("/", poem.getLine1(), poem.getLine2(), poem.getLine3(), poem.getLine4(), poem.getLine5());
+    }
+}
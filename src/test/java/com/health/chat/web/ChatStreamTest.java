@@ -0,0 +1,183 @@
+package com.health.chat.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.model.AdviceResult;
+import com.health.chat.model.ChatResponse;
+import com.health.chat.model.EmotionalTone;
+import com.health.chat.model.HealthData;
+import com.health.chat.model.MentalState;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.service.AdaptiveConcurrencyLimiter;
+import com.health.chat.service.HealthAdvisorAI;
+import com.health.chat.service.MentalStateAnalyzer;
+import com.health.chat.service.MessageParser;
+import com.health.chat.service.NutritionEstimator;
+import com.health.chat.service.TankaGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DisplayName("チャットSSEテスト")
+class ChatStreamTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private ChatController controller;
+    private HealthAdvisorAI advisor;
+    private MockMvc mockMvc;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        MessageParser parser = mock(MessageParser.class);
+        when(parser.parseMessage(eq("user1"), anyString())).thenReturn(new HealthData("user1", LocalDate.now(),
+                LocalDateTime.now(), 65.0, null, List.of(), List.of(), "体重65kg"));
+        MentalStateAnalyzer analyzer = mock(MentalStateAnalyzer.class);
+        when(analyzer.analyze(anyString(), any())).thenReturn(new MentalState(EmotionalTone.POSITIVE, 0.8, List.of()));
+        advisor = mock(HealthAdvisorAI.class);
+        when(advisor.generateAdvice(any(), any(), any()))
+                .thenReturn(new AdviceResult("よく眠りましょう", List.of("23時に寝る"), List.of()));
+        TankaGenerator tankaGenerator = mock(TankaGenerator.class);
+        when(tankaGenerator.generate(any(), any()))
+                .thenReturn(new TankaPoem("一", "二", "三", "四", "五", LocalDate.now()));
+
+        controller = new ChatController();
+        ReflectionTestUtils.setField(controller, "messageParser", parser);
+        ReflectionTestUtils.setField(controller, "nutritionEstimator", mock(NutritionEstimator.class));
+        ReflectionTestUtils.setField(controller, "mentalStateAnalyzer", analyzer);
+        ReflectionTestUtils.setField(controller, "healthAdvisorAI", advisor);
+        ReflectionTestUtils.setField(controller, "tankaGenerator", tankaGenerator);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(mapper))
+                .build();
+
+        session = new MockHttpSession();
+        session.setAttribute("token", "valid-token");
+        session.setAttribute("userId", "user1");
+    }
+
+    @Test
+    @DisplayName("各セクションを順に送り、本文はJSON版と一致する")
+    void testStream_SendsSectionsInOrder() throws Exception {
+        Map<String, JsonNode> events = stream();
+
+        assertEquals(List.of("extractedData", "mentalState", "advice", "tanka", "done"), new ArrayList<>(events.keySet()));
+        assertEquals(65.0, events.get("extractedData").get("extractedData").get("weight").asDouble());
+        assertEquals("一", events.get("tanka").get("tanka").get("line1").asText());
+
+        StringBuilder streamed = new StringBuilder();
+        events.values().forEach(data -> streamed.append(data.get("text").asText()));
+        assertEquals(controller.sendMessage("体重65kg", session).getBody().getResponseText(), streamed.toString());
+    }
+
+    @Test
+    @DisplayName("途中で失敗したらerrorイベントで終わる")
+    void testStream_FailureEndsWithErrorEvent() throws Exception {
+        when(advisor.generateAdvice(any(), any(), any())).thenThrow(new IllegalStateException("MCP down"));
+
+        Map<String, JsonNode> events = stream();
+
+        assertEquals(List.of("extractedData", "mentalState", "error"), new ArrayList<>(events.keySet()));
+        assertTrue(events.get("error").get("text").asText().contains("MCP down"));
+    }
+
+    @Test
+    @DisplayName("混雑時は研究と短歌を省き、上限では503を返す")
+    void testSendMessage_DegradesThenShedsAtConcurrencyLimit() {
+        when(advisor.generateBasicAdvice(any(), any(), any()))
+                .thenReturn(new AdviceResult("記録しました", List.of(), List.of()));
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2, 0.5, 2.0, PipelineMetrics.noop());
+        ReflectionTestUtils.setField(controller, "chatConcurrencyLimiter", limiter);
+
+        AdaptiveConcurrencyLimiter.Permit running = limiter.tryAcquire();
+        ChatResponse degraded = controller.sendMessage("体重65kg", session).getBody();
+        assertNull(degraded.getTanka());
+        assertTrue(degraded.getResponseText().contains("記録しました"));
+        verify(advisor, never()).generateAdvice(any(), any(), any());
+
+        AdaptiveConcurrencyLimiter.Permit second = limiter.tryAcquire();
+        ResponseEntity<ChatResponse> shed = controller.sendMessage("体重65kg", session);
+        assertEquals(503, shed.getStatusCode().value());
+        assertNotNull(shed.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        running.release(true);
+        second.release(true);
+        assertNotNull(controller.sendMessage("体重65kg", session).getBody().getTanka());
+    }
+
+    @Test
+    @DisplayName("入力エラーは混雑とみなさず、タイムアウトは上限を下げる")
+    void testSendMessage_OnlyCongestionFailuresCutConcurrencyLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 4, 1.0, 2.0, PipelineMetrics.noop());
+        ReflectionTestUtils.setField(controller, "chatConcurrencyLimiter", limiter);
+
+        doThrow(new IllegalArgumentException("不正な入力")).when(advisor).generateAdvice(any(), any(), any());
+        assertTrue(controller.sendMessage("体重65kg", session).getBody().getResponseText().contains("不正な入力"));
+        stream();
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        doThrow(new IllegalStateException(new TimeoutException("MCP timed out")))
+                .when(advisor).generateAdvice(any(), any(), any());
+        controller.sendMessage("体重65kg", session);
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("未ログインは401")
+    void testStream_RequiresSession() throws Exception {
+        mockMvc.perform(post("/api/chat/stream").param("message", "体重65kg"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private Map<String, JsonNode> stream() throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/chat/stream").param("message", "体重65kg").session(session))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        Map<String, JsonNode> events = new LinkedHashMap<>();
+        for (String block : body.split("\n\n")) {
+            String name = null;
+            String data = null;
+            for (String line : block.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data = line.substring(5);
+                }
+            }
+            if (name != null) {
+                events.put(name, mapper.readTree(data));
+            }
+        }
+        return events;
+    }
+}
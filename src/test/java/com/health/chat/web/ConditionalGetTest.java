@@ -0,0 +1,117 @@
+package com.health.chat.web;
+
+import com.health.chat.model.BodyMetricsSeries;
+import com.health.chat.model.TankaPoem;
+import com.health.chat.repository.DataRepository;
+import com.health.chat.repository.UserDataVersions;
+import com.health.chat.repository.VersionedDataRepository;
+import jakarta.servlet.http.HttpSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("条件付きGETテスト")
+class ConditionalGetTest {
+
+    private DataRepository storage;
+    private UserDataVersions versions;
+    private DataRepository repository;
+    private HttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(DataRepository.class);
+        when(storage.getBodyMetrics(eq("user1"), any(), any())).thenReturn(BodyMetricsSeries.empty());
+        when(storage.getTankasByDateRange(eq("user1"), any(), any())).thenReturn(List.of());
+        versions = new UserDataVersions();
+        repository = new VersionedDataRepository(storage, versions);
+        session = mock(HttpSession.class);
+        when(session.getAttribute("userId")).thenReturn("user1");
+    }
+
+    @Test
+    @DisplayName("ETagが一致すればリポジトリを読まずに304を返す")
+    void testGraph_NotModifiedSkipsRepository() {
+        ChatController controller = new ChatController();
+        ReflectionTestUtils.setField(controller, "dataRepository", repository);
+        ReflectionTestUtils.setField(controller, "userDataVersions", versions);
+
+        ResponseEntity<String> first = controller.getGraphData("ONE_MONTH", session, request(null));
+        assertEquals(200, first.getStatusCode().value());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("W/\""));
+        assertTrue(first.getHeaders().getCacheControl().contains("no-cache"));
+
+        ResponseEntity<String> second = controller.getGraphData("ONE_MONTH", session, request(etag));
+        assertEquals(304, second.getStatusCode().value());
+        assertNull(second.getBody());
+        verify(storage, times(1)).getBodyMetrics(eq("user1"), any(), any());
+
+        // 別の期間は別のETag
+        ResponseEntity<String> otherRange = controller.getGraphData("SIX_MONTHS", session, request(etag));
+        assertEquals(200, otherRange.getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("書き込み後は古いETagで200を返す")
+    void testTankas_WriteInvalidatesEtag() {
+        AnalysisController controller = new AnalysisController();
+        ReflectionTestUtils.setField(controller, "dataRepository", repository);
+        ReflectionTestUtils.setField(controller, "userDataVersions", versions);
+
+        String etag = controller.getTankas("ONE_MONTH", session, request(null)).getHeaders().getETag();
+        assertEquals(304, controller.getTankas("ONE_MONTH", session, request(etag)).getStatusCode().value());
+
+        repository.saveTanka("user1", new TankaPoem("一", "二", "三", "四", "五", LocalDate.now()));
+
+        ResponseEntity<String> afterWrite = controller.getTankas("ONE_MONTH", session, request(etag));
+        assertEquals(200, afterWrite.getStatusCode().value());
+        assertNotEquals(etag, afterWrite.getHeaders().getETag());
+        // 他ユーザーの書き込みは影響しない
+        repository.saveTanka("user2", new TankaPoem("一", "二", "三", "四", "五", LocalDate.now()));
+        assertEquals(304, controller.getTankas("ONE_MONTH", session,
+                request(afterWrite.getHeaders().getETag())).getStatusCode().value());
+    }
+
+    @Test
+    @DisplayName("無効化時はETagを付けず毎回リポジトリを読む")
+    void testGraph_DisabledAlwaysReadsRepository() {
+        ChatController controller = new ChatController();
+        ReflectionTestUtils.setField(controller, "dataRepository", repository);
+        ReflectionTestUtils.setField(controller, "userDataVersions", versions);
+        ReflectionTestUtils.setField(controller, "conditionalGetEnabled", false);
+
+        ResponseEntity<String> first = controller.getGraphData("ONE_MONTH", session, request(null));
+        assertEquals(200, first.getStatusCode().value());
+        assertNull(first.getHeaders().getETag());
+
+        // 他のプロセスが書いた可能性があるため、以前のETagを送っても304にしない
+        String staleEtag = "W/\"" + versions.current("user1") + "\"";
+        ResponseEntity<String> second = controller.getGraphData("ONE_MONTH", session, request(staleEtag));
+        assertEquals(200, second.getStatusCode().value());
+        verify(storage, times(2)).getBodyMetrics(eq("user1"), any(), any());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
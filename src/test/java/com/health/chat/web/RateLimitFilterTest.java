@@ -0,0 +1,69 @@
+package com.health.chat.web;
+
+import com.health.chat.metrics.PipelineMetrics;
+import com.health.chat.service.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("レート制限フィルターテスト")
+class RateLimitFilterTest {
+
+    private SimpleMeterRegistry registry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(new RateLimiter("chat", 1, 2, 100), new PipelineMetrics(registry));
+    }
+
+    @Test
+    @DisplayName("上限を超えたユーザーには429とRetry-Afterを返す")
+    void testRejectsUserOverLimit() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userId", "user1");
+
+        assertEquals(200, send(session).getStatus());
+        assertEquals(200, send(session).getStatus());
+
+        MockHttpServletResponse rejected = send(session);
+        assertEquals(429, rejected.getStatus());
+        long retryAfter = Long.parseLong(rejected.getHeader("Retry-After"));
+        assertTrue(retryAfter > 0 && retryAfter <= 60, "Retry-After: " + retryAfter);
+        assertTrue(rejected.getContentAsString().contains("Too many requests"));
+        assertEquals(1.0, registry.get(PipelineMetrics.RATE_LIMITED).tag("endpoint", "chat").counter().count());
+
+        // Other users are unaffected
+        MockHttpSession other = new MockHttpSession();
+        other.setAttribute("userId", "user2");
+        assertEquals(200, send(other).getStatus());
+    }
+
+    @Test
+    @DisplayName("未ログインのリクエストは制限せずに通す")
+    void testPassesRequestsWithoutUser() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, send(null).getStatus());
+        }
+    }
+
+    private MockHttpServletResponse send(MockHttpSession session) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/chat");
+        if (session != null) {
+            request.setSession(session);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertEquals(response.getStatus() == 200, chain.getRequest() != null);
+        return response;
+    }
+}